@@ -1,5 +1,6 @@
 package site.addzero.apt.dict.processor.generator
 
+import site.addzero.apt.dict.processor.model.DictConfig
 import site.addzero.apt.dict.processor.model.EntityInfo
 import site.addzero.apt.dict.processor.model.NestedEntityField
 import javax.annotation.processing.ProcessingEnvironment
@@ -139,143 +140,116 @@ class DictConvertorGenerator(private val processingEnv: ProcessingEnvironment) {
         appendLine("            return new ArrayList<>();")
         appendLine("        }")
         appendLine()
-        
-        // 批量收集所有需要翻译的字典编码
+
+        // 同一个字典（或同一张表的同一对列）被多个字段引用时合并成一次查询
+        val systemDictCodes = entityInfo.dictFields
+            .flatMap { it.dictConfigs }
+            .filter { it.isSystemDict }
+            .mapNotNull { it.dictCode }
+            .distinct()
+        val tableDicts = entityInfo.dictFields
+            .flatMap { it.dictConfigs }
+            .filter { !it.isSystemDict }
+            .map { tableDictKey(it) }
+            .distinct()
+
         if (entityInfo.dictFields.isNotEmpty()) {
-            appendLine("        // 批量收集字典翻译数据，避免N+1问题")
-            
-            // 系统字典批量查询
-            val systemDictFields = entityInfo.dictFields.filter { field ->
-                field.dictConfigs.any { it.isSystemDict }
+            appendLine("        // 一次遍历收集整页的字典键，每个字典只调用一次批量接口，避免N+1问题")
+            systemDictCodes.forEachIndexed { index, _ ->
+                appendLine("        Set<String> dictKeys$index = new HashSet<>();")
             }
-            
-            if (systemDictFields.isNotEmpty()) {
-                appendLine("        // 收集系统字典编码和键值")
-                systemDictFields.forEach { dictField ->
-                    dictField.dictConfigs.filter { it.isSystemDict }.forEach { config ->
-                    appendLine("        Set<String> ${dictField.fieldName}_${config.dictCode}_keys = entities.stream()")
-                    appendLine("            .filter(Objects::nonNull)")
-                    appendLine("            .map(${entityClassName}::get${dictField.fieldName.replaceFirstChar { it.uppercase() }.toString().toString()})")
-                    appendLine("            .filter(Objects::nonNull)")
-                    appendLine("            .map(String::valueOf)")
-                    appendLine("            .collect(Collectors.toSet());")
-                        appendLine()
-                    }
-                }
-                
-                // 批量查询系统字典
-                systemDictFields.forEach { dictField ->
-                    dictField.dictConfigs.filter { it.isSystemDict }.forEach { config ->
-                        appendLine("        final Map<String, String> ${dictField.fieldName}_${config.dictCode}_map;")
-                        appendLine("        if (!${dictField.fieldName}_${config.dictCode}_keys.isEmpty()) {")
-                        appendLine("            String ${dictField.fieldName}_${config.dictCode}_dictCodes = \"${config.dictCode}\";")
-                        appendLine("            String ${dictField.fieldName}_${config.dictCode}_keysStr = String.join(\",\", ${dictField.fieldName}_${config.dictCode}_keys);")
-                        appendLine("            List<SystemDictModelResult> ${dictField.fieldName}_${config.dictCode}_results = transApi.translateDictBatchCode2name(${dictField.fieldName}_${config.dictCode}_dictCodes, ${dictField.fieldName}_${config.dictCode}_keysStr);")
-                        appendLine("            ${dictField.fieldName}_${config.dictCode}_map = ${dictField.fieldName}_${config.dictCode}_results.stream()")
-                        appendLine("                .collect(Collectors.toMap(r -> r.getValue(), r -> r.getLabel()));")
-                        appendLine("        } else {")
-                        appendLine("            ${dictField.fieldName}_${config.dictCode}_map = new HashMap<>();")
-                        appendLine("        }")
-                        appendLine()
+            tableDicts.forEachIndexed { index, _ ->
+                appendLine("        Set<String> tableKeys$index = new HashSet<>();")
+            }
+            appendLine("        for ($entityClassName entity : entities) {")
+            appendLine("            if (entity == null) {")
+            appendLine("                continue;")
+            appendLine("            }")
+            entityInfo.dictFields.forEach { dictField ->
+                val capitalizedFieldName = dictField.fieldName.replaceFirstChar { it.uppercase() }
+                val codeVar = "${dictField.fieldName}Code"
+                appendLine("            Object $codeVar = entity.get$capitalizedFieldName();")
+                appendLine("            if ($codeVar != null) {")
+                appendLine("                String ${codeVar}Str = String.valueOf($codeVar);")
+                dictField.dictConfigs.forEach { config ->
+                    val keysVar = if (config.isSystemDict) {
+                        "dictKeys${systemDictCodes.indexOf(config.dictCode)}"
+                    } else {
+                        "tableKeys${tableDicts.indexOf(tableDictKey(config))}"
                     }
+                    appendLine("                $keysVar.add(${codeVar}Str);")
                 }
+                appendLine("            }")
             }
-            
-            // 任意表字典批量查询
-            val tableDictFields = entityInfo.dictFields.filter { field ->
-                field.dictConfigs.any { !it.isSystemDict }
+            appendLine("        }")
+            appendLine()
+
+            systemDictCodes.forEachIndexed { index, dictCode ->
+                appendLine("        Map<String, String> dictLabels$index = dictKeys$index.isEmpty() ? Collections.emptyMap()")
+                appendLine("            : toLabelMap(transApi.translateDictBatchCode2name(\"$dictCode\", String.join(\",\", dictKeys$index)));")
             }
-            
-            if (tableDictFields.isNotEmpty()) {
-                appendLine("        // 收集任意表字典数据")
-                tableDictFields.forEach { dictField ->
-                    dictField.dictConfigs.filter { !it.isSystemDict }.forEach { config ->
-                        val mapKey = "${dictField.fieldName}_${config.tableName}_${config.nameColumn}"
-                        appendLine("        Set<String> ${mapKey}_keys = entities.stream()")
-                        appendLine("            .filter(Objects::nonNull)")
-                        appendLine("            .map(${entityClassName}::get${dictField.fieldName.replaceFirstChar { it.uppercase() }.toString().toString()})")
-                        appendLine("            .filter(Objects::nonNull)")
-                        appendLine("            .map(String::valueOf)")
-                        appendLine("            .collect(Collectors.toSet());")
-                        appendLine()
-                        
-                        appendLine("        final Map<String, String> ${mapKey}_map;")
-                        appendLine("        if (!${mapKey}_keys.isEmpty()) {")
-                        appendLine("            String ${mapKey}_keysStr = String.join(\",\", ${mapKey}_keys);")
-                        appendLine("            List<TableDictModelResult> ${mapKey}_results = transApi.translateTableBatchCode2name(")
-                        appendLine("                \"${config.tableName}\", \"${config.nameColumn}\", \"${config.codeColumn}\", ${mapKey}_keysStr);")
-                        appendLine("            ${mapKey}_map = ${mapKey}_results.stream()")
-                        appendLine("                .collect(Collectors.toMap(r -> r.getCodeColumnValue(), r -> r.getNameColumnValue()));")
-                        appendLine("        } else {")
-                        appendLine("            ${mapKey}_map = new HashMap<>();")
-                        appendLine("        }")
-                        appendLine()
-                    }
-                }
+            tableDicts.forEachIndexed { index, (tableName, nameColumn, codeColumn) ->
+                appendLine("        Map<String, String> tableNames$index = tableKeys$index.isEmpty() ? Collections.emptyMap()")
+                appendLine("            : toNameMap(transApi.translateTableBatchCode2name(")
+                appendLine("                \"$tableName\", \"$nameColumn\", \"$codeColumn\", String.join(\",\", tableKeys$index)));")
             }
+            appendLine()
         }
-        
+
         // 批量处理嵌套实体
         entityInfo.nestedEntityFields.forEach { nestedField ->
             val entityTypeName = getEntityTypeName(nestedField, entityInfo)
             val dtoTypeName = getDtoTypeName(nestedField, entityInfo)
+            val capitalizedFieldName = nestedField.fieldName.replaceFirstChar { it.uppercase() }
+            appendLine("        // 批量处理嵌套${if (nestedField.isCollection) "集合" else "对象"}: ${nestedField.fieldName}")
+            appendLine("        List<$entityTypeName> all$capitalizedFieldName = new ArrayList<>();")
+            appendLine("        for ($entityClassName entity : entities) {")
+            appendLine("            if (entity != null && entity.get$capitalizedFieldName() != null) {")
             if (nestedField.isCollection) {
-                appendLine("        // 批量处理嵌套集合: ${nestedField.fieldName}")
-                appendLine("        List<$entityTypeName> all${nestedField.fieldName.replaceFirstChar { it.uppercase() }.toString()} = entities.stream()")
-                appendLine("            .filter(Objects::nonNull)")
-                appendLine("            .map(${entityClassName}::get${nestedField.fieldName.replaceFirstChar { it.uppercase() }.toString()})")
-                appendLine("            .filter(Objects::nonNull)")
-                appendLine("            .flatMap(List::stream)")
-                appendLine("            .filter(Objects::nonNull)")
-                appendLine("            .collect(Collectors.toList());")
-                appendLine("        List<$dtoTypeName> converted${nestedField.fieldName.replaceFirstChar { it.uppercase() }.toString()} = ")
-                appendLine("            ${nestedField.fieldName}Convertor.codes2names(all${nestedField.fieldName.replaceFirstChar { it.uppercase() }.toString()});")
-                appendLine("        Map<$entityTypeName, $dtoTypeName> ${nestedField.fieldName}Map = new HashMap<>();")
-                appendLine("        for (int i = 0; i < all${nestedField.fieldName.replaceFirstChar { it.uppercase() }.toString()}.size(); i++) {")
-                appendLine("            if (i < converted${nestedField.fieldName.replaceFirstChar { it.uppercase() }.toString()}.size()) {")
-                appendLine("                ${nestedField.fieldName}Map.put(all${nestedField.fieldName.replaceFirstChar { it.uppercase() }.toString()}.get(i), converted${nestedField.fieldName.replaceFirstChar { it.uppercase() }.toString()}.get(i));")
-                appendLine("            }")
-                appendLine("        }")
-                appendLine()
+                appendLine("                for ($entityTypeName item : entity.get$capitalizedFieldName()) {")
+                appendLine("                    if (item != null) {")
+                appendLine("                        all$capitalizedFieldName.add(item);")
+                appendLine("                    }")
+                appendLine("                }")
             } else {
-                appendLine("        // 批量处理嵌套对象: ${nestedField.fieldName}")
-                appendLine("        List<$entityTypeName> all${nestedField.fieldName.replaceFirstChar { it.uppercase() }.toString()} = entities.stream()")
-                appendLine("            .filter(Objects::nonNull)")
-                appendLine("            .map(${entityClassName}::get${nestedField.fieldName.replaceFirstChar { it.uppercase() }.toString()})")
-                appendLine("            .filter(Objects::nonNull)")
-                appendLine("            .distinct()")
-                appendLine("            .collect(Collectors.toList());")
-                appendLine("        List<$dtoTypeName> converted${nestedField.fieldName.replaceFirstChar { it.uppercase() }.toString()} = ")
-                appendLine("            ${nestedField.fieldName}Convertor.codes2names(all${nestedField.fieldName.replaceFirstChar { it.uppercase() }.toString()});")
-                appendLine("        Map<$entityTypeName, $dtoTypeName> ${nestedField.fieldName}Map = new HashMap<>();")
-                appendLine("        for (int i = 0; i < all${nestedField.fieldName.replaceFirstChar { it.uppercase() }.toString()}.size(); i++) {")
-                appendLine("            if (i < converted${nestedField.fieldName.replaceFirstChar { it.uppercase() }.toString()}.size()) {")
-                appendLine("                ${nestedField.fieldName}Map.put(all${nestedField.fieldName.replaceFirstChar { it.uppercase() }.toString()}.get(i), converted${nestedField.fieldName.replaceFirstChar { it.uppercase() }.toString()}.get(i));")
-                appendLine("            }")
-                appendLine("        }")
-                appendLine()
+                appendLine("                all$capitalizedFieldName.add(entity.get$capitalizedFieldName());")
             }
+            appendLine("            }")
+            appendLine("        }")
+            appendLine("        List<$dtoTypeName> converted$capitalizedFieldName = ${nestedField.fieldName}Convertor.codes2names(all$capitalizedFieldName);")
+            appendLine("        Map<$entityTypeName, $dtoTypeName> ${nestedField.fieldName}Map = new HashMap<>();")
+            appendLine("        for (int i = 0; i < all$capitalizedFieldName.size() && i < converted$capitalizedFieldName.size(); i++) {")
+            appendLine("            ${nestedField.fieldName}Map.put(all$capitalizedFieldName.get(i), converted$capitalizedFieldName.get(i));")
+            appendLine("        }")
+            appendLine()
         }
-        
+
         // 转换实体
         appendLine("        // 转换实体")
-        appendLine("        return entities.stream()")
-        appendLine("            .map(entity -> {")
-        appendLine("                if (entity == null) return null;")
-        appendLine("                $dtoClassName dto = new $dtoClassName();")
-        appendLine()
-        
+        appendLine("        List<$dtoClassName> result = new ArrayList<>(entities.size());")
+        appendLine("        for ($entityClassName entity : entities) {")
+        appendLine("            if (entity == null) {")
+        appendLine("                result.add(null);")
+        appendLine("                continue;")
+        appendLine("            }")
+        appendLine("            $dtoClassName dto = new $dtoClassName();")
+
         // 复制基本字段（排除嵌套实体字段）
         entityInfo.allFields.forEach { field ->
             val isNestedEntity = entityInfo.nestedEntityFields.any { it.fieldName == field.name }
             if (!isNestedEntity) {
-                val capitalizedName = field.name.replaceFirstChar { it.uppercase() }.toString()
-                appendLine("                dto.set$capitalizedName(entity.get$capitalizedName());")
+                val capitalizedName = field.name.replaceFirstChar { it.uppercase() }
+                appendLine("            dto.set$capitalizedName(entity.get$capitalizedName());")
             }
         }
-        
+
         // 设置字典翻译字段
         entityInfo.dictFields.forEach { dictField ->
+            val capitalizedFieldName = dictField.fieldName.replaceFirstChar { it.uppercase() }
+            val codeVar = "${dictField.fieldName}Code"
+            appendLine("            Object $codeVar = entity.get$capitalizedFieldName();")
+            appendLine("            if ($codeVar != null) {")
+            appendLine("                String ${codeVar}Str = String.valueOf($codeVar);")
             dictField.dictConfigs.forEach { config ->
                 val dictFieldName = if (!config.serializationAlias.isNullOrBlank()) {
                     config.serializationAlias!!
@@ -284,44 +258,72 @@ class DictConvertorGenerator(private val processingEnv: ProcessingEnvironment) {
                 } else {
                     config.getGeneratedFieldName()
                 }
-                val capitalizedDictFieldName = dictFieldName.replaceFirstChar { it.uppercase() }.toString()
-                val capitalizedFieldName = dictField.fieldName.replaceFirstChar { it.uppercase() }.toString()
-
-                if (config.isSystemDict) {
-                    val mapName = "${dictField.fieldName}_${config.dictCode}_map"
-                    appendLine("                if (entity.get$capitalizedFieldName() != null) {")
-                    appendLine("                    dto.set$capitalizedDictFieldName($mapName.get(String.valueOf(entity.get$capitalizedFieldName())));")
-                    appendLine("                }")
+                val capitalizedDictFieldName = dictFieldName.replaceFirstChar { it.uppercase() }
+                val mapName = if (config.isSystemDict) {
+                    "dictLabels${systemDictCodes.indexOf(config.dictCode)}"
                 } else {
-                    val mapName = "${dictField.fieldName}_${config.tableName}_${config.nameColumn}_map"
-                    appendLine("                if (entity.get$capitalizedFieldName() != null) {")
-                    appendLine("                    dto.set$capitalizedDictFieldName($mapName.get(String.valueOf(entity.get$capitalizedFieldName())));")
-                    appendLine("                }")
+                    "tableNames${tableDicts.indexOf(tableDictKey(config))}"
                 }
+                appendLine("                dto.set$capitalizedDictFieldName($mapName.get(${codeVar}Str));")
             }
+            appendLine("            }")
         }
-        
+
         // 设置嵌套实体字段
         entityInfo.nestedEntityFields.forEach { nestedField ->
-            val capitalizedFieldName = nestedField.fieldName.replaceFirstChar { it.uppercase() }.toString()
+            val capitalizedFieldName = nestedField.fieldName.replaceFirstChar { it.uppercase() }
+            val entityTypeName = getEntityTypeName(nestedField, entityInfo)
+            val dtoTypeName = getDtoTypeName(nestedField, entityInfo)
+            appendLine("            if (entity.get$capitalizedFieldName() != null) {")
             if (nestedField.isCollection) {
-                appendLine("                if (entity.get$capitalizedFieldName() != null) {")
-                appendLine("                    List<${nestedField.elementType}DictDTO> convertedList = entity.get$capitalizedFieldName().stream()")
-                appendLine("                        .map(item -> ${nestedField.fieldName}Map.get(item))")
-                appendLine("                        .filter(Objects::nonNull)")
-                appendLine("                        .collect(Collectors.toList());")
-                appendLine("                    dto.set$capitalizedFieldName(convertedList);")
+                appendLine("                List<$dtoTypeName> convertedList = new ArrayList<>(entity.get$capitalizedFieldName().size());")
+                appendLine("                for ($entityTypeName item : entity.get$capitalizedFieldName()) {")
+                appendLine("                    $dtoTypeName converted = ${nestedField.fieldName}Map.get(item);")
+                appendLine("                    if (converted != null) {")
+                appendLine("                        convertedList.add(converted);")
+                appendLine("                    }")
                 appendLine("                }")
+                appendLine("                dto.set$capitalizedFieldName(convertedList);")
             } else {
-                appendLine("                if (entity.get$capitalizedFieldName() != null) {")
-                appendLine("                    dto.set$capitalizedFieldName(${nestedField.fieldName}Map.get(entity.get$capitalizedFieldName()));")
-                appendLine("                }")
+                appendLine("                dto.set$capitalizedFieldName(${nestedField.fieldName}Map.get(entity.get$capitalizedFieldName()));")
             }
+            appendLine("            }")
         }
-        
-        appendLine("                return dto;")
-        appendLine("            })")
-        appendLine("            .collect(Collectors.toList());")
+
+        appendLine("            result.add(dto);")
+        appendLine("        }")
+        appendLine("        return result;")
+        appendLine("    }")
+        appendLine()
+
+        generateResultMapHelpers()
+    }
+
+    private fun tableDictKey(config: DictConfig): Triple<String?, String, String> =
+        Triple(config.tableName, config.nameColumn, config.codeColumn)
+
+    /**
+     * 生成把批量查询结果转成 Map 的辅助方法，跳过空值，重复的键保留第一个
+     */
+    private fun StringBuilder.generateResultMapHelpers() {
+        appendLine("    private static Map<String, String> toLabelMap(List<SystemDictModelResult> results) {")
+        appendLine("        Map<String, String> map = new HashMap<>(results.size() * 2);")
+        appendLine("        for (SystemDictModelResult r : results) {")
+        appendLine("            if (r != null && r.getValue() != null && r.getLabel() != null) {")
+        appendLine("                map.putIfAbsent(r.getValue(), r.getLabel());")
+        appendLine("            }")
+        appendLine("        }")
+        appendLine("        return map;")
+        appendLine("    }")
+        appendLine()
+        appendLine("    private static Map<String, String> toNameMap(List<TableDictModelResult> results) {")
+        appendLine("        Map<String, String> map = new HashMap<>(results.size() * 2);")
+        appendLine("        for (TableDictModelResult r : results) {")
+        appendLine("            if (r != null && r.getCodeColumnValue() != null && r.getNameColumnValue() != null) {")
+        appendLine("                map.putIfAbsent(r.getCodeColumnValue(), r.getNameColumnValue());")
+        appendLine("            }")
+        appendLine("        }")
+        appendLine("        return map;")
         appendLine("    }")
         appendLine()
     }
@@ -0,0 +1,140 @@
+package site.addzero.apt.dict.processor.test;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import site.addzero.apt.dict.trans.model.out.SystemDictModelResult;
+import site.addzero.apt.dict.trans.model.out.TableDictModelResult;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+/**
+ * 测试 DictConvertorGenerator 生成的 codes2names
+ */
+@DisplayName("生成的字典转换器测试")
+class DictConvertorGeneratorTest {
+
+    /**
+     * 记录每次批量调用的参数
+     */
+    static class RecordingTransApi extends TestTransApi {
+        final List<String> dictCalls = new ArrayList<>();
+        final List<String> tableCalls = new ArrayList<>();
+
+        @Override
+        public List<SystemDictModelResult> translateDictBatchCode2name(String dictCodes, String keys) {
+            dictCalls.add(dictCodes + ":" + keys);
+            return super.translateDictBatchCode2name(dictCodes, keys);
+        }
+
+        @Override
+        public List<TableDictModelResult> translateTableBatchCode2name(String table, String text, String code, String keys) {
+            tableCalls.add(table + "." + text + "." + code);
+            return super.translateTableBatchCode2name(table, text, code, keys);
+        }
+    }
+
+    private static TestDept dept(Long id, Integer status, String code, String code1) {
+        TestDept dept = new TestDept();
+        dept.setId(id);
+        dept.setStatus(status);
+        dept.setOtherTableFieldCode(code);
+        dept.setOtherTableFieldCode1(code1);
+        return dept;
+    }
+
+    @Test
+    @DisplayName("整页每个字典只查询一次，同表同列的字段合并")
+    void oneLookupPerDict() {
+        RecordingTransApi transApi = new RecordingTransApi();
+        TestDeptDictConvertor convertor = new TestDeptDictConvertor(transApi);
+
+        List<TestDeptDictDTO> result = convertor.codes2names(Arrays.asList(
+                dept(1L, 1, "CODE1", "CODE2"),
+                dept(2L, 0, "CODE2", "CODE1")
+        ));
+
+        assertEquals(1, transApi.dictCalls.size());
+        assertEquals(2, transApi.tableCalls.size());
+        assertEquals(2, result.size());
+
+        TestDeptDictDTO first = result.get(0);
+        assertEquals(Long.valueOf(1L), first.getId());
+        assertEquals("正常", first.getStatus_dictText());
+        assertEquals("名称1", first.getMyName());
+        assertEquals("其他名称1", first.getMyName2());
+        assertEquals("名称2", first.getXxName());
+        assertEquals("停用", result.get(1).getStatus_dictText());
+        assertEquals("名称1", result.get(1).getXxName());
+    }
+
+    @Test
+    @DisplayName("null 元素原位保留，空值字段不参与查询")
+    void nullEntitiesAndValues() {
+        RecordingTransApi transApi = new RecordingTransApi();
+        TestDeptDictConvertor convertor = new TestDeptDictConvertor(transApi);
+
+        List<TestDeptDictDTO> result = convertor.codes2names(Arrays.asList(dept(1L, null, null, null), null));
+
+        assertEquals(2, result.size());
+        assertNull(result.get(0).getStatus_dictText());
+        assertNull(result.get(1));
+        assertEquals(Collections.emptyList(), transApi.dictCalls);
+        assertEquals(Collections.emptyList(), transApi.tableCalls);
+    }
+
+    @Test
+    @DisplayName("重复或空的字典结果不抛异常，保留第一个")
+    void duplicateAndNullLabels() {
+        TestTransApi transApi = new TestTransApi() {
+            @Override
+            public List<SystemDictModelResult> translateDictBatchCode2name(String dictCodes, String keys) {
+                return Arrays.asList(
+                        new SystemDictModelResult(dictCodes, "1", null),
+                        new SystemDictModelResult(dictCodes, "1", "正常"),
+                        new SystemDictModelResult(dictCodes, "1", "重复")
+                );
+            }
+        };
+        TestDeptDictConvertor convertor = new TestDeptDictConvertor(transApi);
+
+        List<TestDeptDictDTO> result = convertor.codes2names(Collections.singletonList(dept(1L, 1, null, null)));
+
+        assertEquals("正常", result.get(0).getStatus_dictText());
+    }
+
+    @Test
+    @DisplayName("嵌套对象和集合批量转换")
+    void nestedEntities() {
+        RecordingTransApi transApi = new RecordingTransApi();
+        TestUserDictConvertor convertor = new TestUserDictConvertor(transApi);
+
+        TestRole admin = new TestRole();
+        admin.setRoleType("ADMIN");
+        TestRole user = new TestRole();
+        user.setRoleType("USER");
+        TestUser first = new TestUser();
+        first.setStatus(1);
+        first.setDept(dept(1L, 1, null, null));
+        first.setRoles(Arrays.asList(admin, user));
+        TestUser second = new TestUser();
+        second.setStatus(0);
+        second.setRoles(Collections.singletonList(admin));
+
+        List<TestUserDictDTO> result = convertor.codes2names(Arrays.asList(first, second));
+
+        assertEquals("启用", result.get(0).getStatus_dictText());
+        assertEquals("正常", result.get(0).getDept().getStatus_dictText());
+        assertEquals("管理员", result.get(0).getRoles().get(0).getRoleType_dictText());
+        assertEquals("普通用户", result.get(0).getRoles().get(1).getRoleType_dictText());
+        assertEquals("禁用", result.get(1).getStatus_dictText());
+        assertNull(result.get(1).getDept());
+        // 两个用户的角色合并成一次 ROLE_TYPE 查询
+        assertEquals(1, transApi.dictCalls.stream().filter(it -> it.startsWith("ROLE_TYPE:")).count());
+    }
+}
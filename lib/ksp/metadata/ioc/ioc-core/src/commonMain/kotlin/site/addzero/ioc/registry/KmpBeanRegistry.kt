@@ -1,16 +1,22 @@
 package site.addzero.ioc.registry
 
+import kotlin.concurrent.Volatile
 import kotlin.reflect.KClass
 
 /**
  * KMP-compatible BeanRegistry implementation.
  * Supports interface-implementation mapping, generic beans, circular dependency detection.
+ *
+ * Registration is single-threaded. Call [seal] once registration is done: lookups then go through an immutable
+ * index that is safe for concurrent use — every lazy provider is created at most once, and injection lists are
+ * sorted once per (type, tag) and cached. A sealed registry rejects further registration until [clear].
  */
 class KmpBeanRegistry : MutableBeanRegistry {
     private val beanMap = mutableMapOf<KClass<*>, Any>()
     private val providerMap = mutableMapOf<KClass<*>, () -> Any>()
     private val nameMap = mutableMapOf<String, Any>()
     private val nameProviderMap = mutableMapOf<String, () -> Any>()
+    private val nameTypeMap = mutableMapOf<String, KClass<*>>()
     private val extensionMap = mutableMapOf<KClass<*>, MutableMap<String, Any.() -> Any?>>()
     private val implementationMap = mutableMapOf<KClass<*>, MutableSet<KClass<*>>>()
     private val typedBeanMap = mutableMapOf<TypeKey, Any>()
@@ -21,6 +27,22 @@ class KmpBeanRegistry : MutableBeanRegistry {
     // circular dependency detection
     private val creating = mutableSetOf<Any>()
 
+    @Volatile
+    private var sealedIndex: SealedBeanIndex? = null
+
+    val isSealed: Boolean
+        get() = sealedIndex != null
+
+    private val implementationComparator = compareBy<KClass<*>>(
+        { definitionMap[it]?.order ?: Int.MAX_VALUE },
+        { definitionMap[it]?.beanName ?: it.simpleName.orEmpty() },
+        { definitionMap[it]?.qualifiedName ?: it.qualifiedName.orEmpty() }
+    )
+
+    private fun checkNotSealed() {
+        check(sealedIndex == null) { "KmpBeanRegistry is sealed, registration is no longer allowed" }
+    }
+
     private fun <T> withCircularCheck(key: Any, block: () -> T): T {
         if (key in creating) {
             throw IllegalStateException("Circular dependency: $key is being created. Chain: ${creating.joinToString(" -> ")} -> $key")
@@ -36,6 +58,10 @@ class KmpBeanRegistry : MutableBeanRegistry {
     // ============ get by type ============
 
     override fun <T : Any> getBean(clazz: KClass<T>): T? {
+        sealedIndex?.let { index ->
+            @Suppress("UNCHECKED_CAST")
+            return index.byType[clazz]?.get() as T?
+        }
         @Suppress("UNCHECKED_CAST")
         val instance = beanMap[clazz] as? T
         if (instance != null) return instance
@@ -52,6 +78,7 @@ class KmpBeanRegistry : MutableBeanRegistry {
     // ============ get by name ============
 
     override fun getBean(name: String): Any? {
+        sealedIndex?.let { index -> return index.byName[name]?.get() }
         val instance = nameMap[name]
         if (instance != null) return instance
 
@@ -67,6 +94,7 @@ class KmpBeanRegistry : MutableBeanRegistry {
 
     @Suppress("UNCHECKED_CAST")
     override fun <T : Any> getBean(typeKey: TypeKey): T? {
+        sealedIndex?.let { index -> return index.byTypeKey[typeKey]?.get() as T? }
         val instance = typedBeanMap[typeKey] as? T
         if (instance != null) return instance
 
@@ -81,14 +109,14 @@ class KmpBeanRegistry : MutableBeanRegistry {
     // ============ inject list ============
 
     override fun <T : Any> injectList(clazz: KClass<T>): List<T> {
+        sealedIndex?.let { index ->
+            @Suppress("UNCHECKED_CAST")
+            return (index.implementations[clazz]?.beans ?: emptyList()) as List<T>
+        }
         val implClasses = implementationMap[clazz] ?: emptySet()
         @Suppress("UNCHECKED_CAST")
         return implClasses
-            .sortedWith(compareBy<KClass<*>>(
-                { definitionMap[it]?.order ?: Int.MAX_VALUE },
-                { definitionMap[it]?.beanName ?: it.simpleName.orEmpty() },
-                { definitionMap[it]?.qualifiedName ?: it.qualifiedName.orEmpty() }
-            ))
+            .sortedWith(implementationComparator)
             .mapNotNull { implClass ->
                 val definition = definitionMap[implClass]
                 if (definition?.enabled == false) return@mapNotNull null
@@ -97,17 +125,15 @@ class KmpBeanRegistry : MutableBeanRegistry {
     }
 
     override fun <T : Any> injectList(clazz: KClass<T>, tag: String): List<T> {
+        sealedIndex?.let { index ->
+            @Suppress("UNCHECKED_CAST")
+            return (index.taggedImplementations[clazz]?.get(tag)?.beans ?: emptyList()) as List<T>
+        }
         val implClasses = implementationMap[clazz] ?: emptySet()
         @Suppress("UNCHECKED_CAST")
         return implClasses
-            .filter { implClass ->
-                definitionMap[implClass]?.hasTag(tag) ?: (tagMap[implClass]?.contains(tag) == true)
-            }
-            .sortedWith(compareBy<KClass<*>>(
-                { definitionMap[it]?.order ?: Int.MAX_VALUE },
-                { definitionMap[it]?.beanName ?: it.simpleName.orEmpty() },
-                { definitionMap[it]?.qualifiedName ?: it.qualifiedName.orEmpty() }
-            ))
+            .filter { implClass -> tagsOf(implClass).contains(tag) }
+            .sortedWith(implementationComparator)
             .mapNotNull { implClass ->
                 val definition = definitionMap[implClass]
                 if (definition?.enabled == false) return@mapNotNull null
@@ -115,11 +141,16 @@ class KmpBeanRegistry : MutableBeanRegistry {
             }
     }
 
+    private fun tagsOf(implClass: KClass<*>): Collection<String> =
+        definitionMap[implClass]?.tags ?: tagMap[implClass] ?: emptySet()
+
     override fun beanDefinitions(): List<BeanDefinition> {
+        sealedIndex?.let { index -> return index.definitions }
         return BeanDefinitions.unique(definitionMap.values)
     }
 
     override fun beanDefinitions(tag: String): List<BeanDefinition> {
+        sealedIndex?.let { index -> return index.definitionsByTag[tag] ?: emptyList() }
         return BeanDefinitions.groupByTag(beanDefinitions())[tag] ?: emptyList()
     }
 
@@ -130,29 +161,36 @@ class KmpBeanRegistry : MutableBeanRegistry {
     // ============ register ============
 
     override fun <T : Any> register(clazz: KClass<T>, instance: T) {
+        checkNotSealed()
         beanMap[clazz] = instance
     }
 
     override fun <T : Any> registerProvider(clazz: KClass<T>, provider: () -> T) {
+        checkNotSealed()
         providerMap[clazz] = provider
     }
 
     override fun <T : Any> registerProvider(name: String, clazz: KClass<T>, provider: () -> T) {
+        checkNotSealed()
         providerMap[clazz] = provider
         nameProviderMap[name] = provider
+        nameTypeMap[name] = clazz
     }
 
     override fun <T : Any> register(typeKey: TypeKey, instance: T) {
+        checkNotSealed()
         typedBeanMap[typeKey] = instance
     }
 
     override fun <T : Any> registerProvider(typeKey: TypeKey, provider: () -> T) {
+        checkNotSealed()
         typedProviderMap[typeKey] = provider
     }
 
     // ============ interface implementation ============
 
     override fun <T : Any, R : T> registerImplementation(interfaceClass: KClass<T>, implClass: KClass<R>) {
+        checkNotSealed()
         implementationMap.getOrPut(interfaceClass) { mutableSetOf() }.add(implClass)
     }
 
@@ -160,27 +198,32 @@ class KmpBeanRegistry : MutableBeanRegistry {
 
     @Suppress("UNCHECKED_CAST")
     override fun <R : Any> registerExtension(receiverClass: KClass<R>, name: String, extension: R.() -> Any?) {
+        checkNotSealed()
         val map = extensionMap.getOrPut(receiverClass) { mutableMapOf() }
         map[name] = extension as Any.() -> Any?
     }
 
     override fun <T : Any> registerDefinition(clazz: KClass<T>, definition: BeanDefinition) {
+        checkNotSealed()
         definitionMap[clazz] = definition
     }
 
     @Suppress("UNCHECKED_CAST")
     override fun <R : Any> getExtensions(receiverClass: KClass<R>): Map<String, R.() -> Any?> {
+        sealedIndex?.let { index -> return (index.extensions[receiverClass] ?: emptyMap()) as Map<String, R.() -> Any?> }
         return (extensionMap[receiverClass] ?: emptyMap()) as Map<String, R.() -> Any?>
     }
 
     @Suppress("UNCHECKED_CAST")
     override fun <R : Any> getExtension(receiverClass: KClass<R>, name: String): (R.() -> Any?)? {
+        sealedIndex?.let { index -> return index.extensions[receiverClass]?.get(name) as? (R.() -> Any?) }
         return extensionMap[receiverClass]?.get(name) as? (R.() -> Any?)
     }
 
     // ============ tags ============
 
     override fun <T : Any> tagBean(clazz: KClass<T>, tags: List<String>) {
+        checkNotSealed()
         if (tags.isNotEmpty()) {
             tagMap.getOrPut(clazz) { mutableSetOf() }.addAll(tags)
             definitionMap[clazz]?.let { definition ->
@@ -194,18 +237,95 @@ class KmpBeanRegistry : MutableBeanRegistry {
     // ============ query ============
 
     override fun contains(clazz: KClass<*>): Boolean {
+        sealedIndex?.let { index -> return index.byType.containsKey(clazz) }
         return beanMap.containsKey(clazz) || providerMap.containsKey(clazz)
     }
 
     override fun types(): Set<KClass<*>> {
+        sealedIndex?.let { index -> return index.types }
         return (beanMap.keys + providerMap.keys).toSet()
     }
 
+    // ============ seal ============
+
+    /**
+     * Freeze registration and switch lookups to an immutable, thread-safe index. Calling it again is a no-op.
+     *
+     * Implementation lists that were registered in order (as the KSP container emits them) are only checked,
+     * not re-sorted.
+     *
+     * Circular dependencies are only reported when the cycle stays on one thread. If a provider hands part of
+     * the cycle to another thread and blocks on it, both threads wait on each other's bean and deadlock, so
+     * providers must resolve their dependencies on the calling thread.
+     */
+    fun seal() {
+        if (sealedIndex != null) return
+
+        val byType = HashMap<KClass<*>, BeanCell>(beanMap.size + providerMap.size)
+        beanMap.forEach { (clazz, instance) -> byType[clazz] = BeanCell(clazz, instance, null) }
+        providerMap.forEach { (clazz, provider) ->
+            if (clazz !in byType) byType[clazz] = BeanCell(clazz, null, provider)
+        }
+
+        val byName = HashMap<String, BeanCell>(nameMap.size + nameProviderMap.size)
+        nameMap.forEach { (name, instance) -> byName[name] = BeanCell(name, instance, null) }
+        nameProviderMap.forEach { (name, provider) ->
+            if (name in byName) return@forEach
+            // name and type registered with the same provider share one instance
+            val typeCell = nameTypeMap[name]
+                ?.takeIf { providerMap[it] === provider }
+                ?.let { byType[it] }
+            byName[name] = typeCell ?: BeanCell(name, null, provider)
+        }
+
+        val byTypeKey = HashMap<TypeKey, BeanCell>(typedBeanMap.size + typedProviderMap.size)
+        typedBeanMap.forEach { (typeKey, instance) -> byTypeKey[typeKey] = BeanCell(typeKey, instance, null) }
+        typedProviderMap.forEach { (typeKey, provider) ->
+            if (typeKey !in byTypeKey) byTypeKey[typeKey] = BeanCell(typeKey, null, provider)
+        }
+
+        val implementations = HashMap<KClass<*>, InjectList>(implementationMap.size)
+        val taggedImplementations = HashMap<KClass<*>, Map<String, InjectList>>(implementationMap.size)
+        implementationMap.forEach { (interfaceClass, implClasses) ->
+            val sorted = implClasses
+                .filter { it in byType && definitionMap[it]?.enabled != false }
+                .sortedIfNeeded(implementationComparator)
+            implementations[interfaceClass] = InjectList(sorted.map { byType.getValue(it) })
+            val tagged = LinkedHashMap<String, MutableList<BeanCell>>()
+            sorted.forEach { implClass ->
+                tagsOf(implClass).forEach { tag -> tagged.getOrPut(tag) { mutableListOf() }.add(byType.getValue(implClass)) }
+            }
+            taggedImplementations[interfaceClass] = tagged.mapValues { (_, cells) -> InjectList(cells) }
+        }
+
+        val definitions = BeanDefinitions.unique(definitionMap.values)
+        sealedIndex = SealedBeanIndex(
+            byType = byType,
+            byName = byName,
+            byTypeKey = byTypeKey,
+            implementations = implementations,
+            taggedImplementations = taggedImplementations,
+            extensions = extensionMap.mapValues { (_, extensions) -> extensions.toMap() },
+            definitions = definitions,
+            definitionsByTag = BeanDefinitions.groupByTag(definitions),
+            types = byType.keys.toSet(),
+        )
+    }
+
+    private fun <T> List<T>.sortedIfNeeded(comparator: Comparator<T>): List<T> {
+        for (i in 1 until size) {
+            if (comparator.compare(this[i - 1], this[i]) > 0) return sortedWith(comparator)
+        }
+        return this
+    }
+
     override fun clear() {
+        sealedIndex = null
         beanMap.clear()
         providerMap.clear()
         nameMap.clear()
         nameProviderMap.clear()
+        nameTypeMap.clear()
         extensionMap.clear()
         implementationMap.clear()
         typedBeanMap.clear()
@@ -0,0 +1,58 @@
+package site.addzero.ioc.registry
+
+import kotlin.reflect.KClass
+
+/**
+ * Single bean slot of a sealed registry.
+ *
+ * The provider runs at most once: `lazy` serializes the first callers on the same key, later reads only see the
+ * published instance. Only the creating thread can get into the initializer while [creating] is set, so hitting
+ * it again means a circular dependency. A cycle that crosses threads is not detected and deadlocks instead, see
+ * [KmpBeanRegistry.seal].
+ */
+internal class BeanCell(private val key: Any, instance: Any?, provider: (() -> Any)?) {
+
+    private var creating = false
+
+    private val holder: Lazy<Any> = if (instance != null) {
+        lazyOf(instance)
+    } else {
+        val create = requireNotNull(provider) { "No instance or provider for $key" }
+        lazy {
+            if (creating) {
+                throw IllegalStateException("Circular dependency: $key is being created")
+            }
+            creating = true
+            try {
+                create()
+            } finally {
+                creating = false
+            }
+        }
+    }
+
+    fun get(): Any = holder.value
+}
+
+/**
+ * Pre-sorted implementations of one (type, tag); the bean list is resolved once and then shared.
+ */
+internal class InjectList(private val cells: List<BeanCell>) {
+
+    val beans: List<Any> by lazy { cells.map { it.get() } }
+}
+
+/**
+ * Immutable lookup index built by [KmpBeanRegistry.seal].
+ */
+internal class SealedBeanIndex(
+    val byType: Map<KClass<*>, BeanCell>,
+    val byName: Map<String, BeanCell>,
+    val byTypeKey: Map<TypeKey, BeanCell>,
+    val implementations: Map<KClass<*>, InjectList>,
+    val taggedImplementations: Map<KClass<*>, Map<String, InjectList>>,
+    val extensions: Map<KClass<*>, Map<String, Any.() -> Any?>>,
+    val definitions: List<BeanDefinition>,
+    val definitionsByTag: Map<String, List<BeanDefinition>>,
+    val types: Set<KClass<*>>,
+)
@@ -0,0 +1,86 @@
+package site.addzero.ioc.registry
+
+import kotlin.test.Test
+import kotlin.test.assertEquals
+import kotlin.test.assertFailsWith
+import kotlin.test.assertSame
+import kotlin.test.assertTrue
+
+private interface SealedPlugin
+
+private class AlphaPlugin : SealedPlugin
+
+private class BetaPlugin : SealedPlugin
+
+private class CycleA
+
+private class CycleB
+
+class KmpBeanRegistryTest {
+
+    private fun definition(simpleName: String, order: Int, tags: List<String> = emptyList()) = BeanDefinition(
+        simpleName = simpleName,
+        qualifiedName = "demo.$simpleName",
+        tags = tags,
+        order = order
+    )
+
+    @Test
+    fun `sealed registry keeps order and caches inject lists`() {
+        val registry = KmpBeanRegistry()
+        registry.registerDefinition(AlphaPlugin::class, definition("AlphaPlugin", 2, listOf("plugin")))
+        registry.registerDefinition(BetaPlugin::class, definition("BetaPlugin", 1, listOf("plugin")))
+        registry.registerProvider("alphaPlugin", AlphaPlugin::class) { AlphaPlugin() }
+        registry.registerProvider("betaPlugin", BetaPlugin::class) { BetaPlugin() }
+        registry.registerImplementation(SealedPlugin::class, AlphaPlugin::class)
+        registry.registerImplementation(SealedPlugin::class, BetaPlugin::class)
+
+        registry.seal()
+
+        assertTrue(registry.isSealed)
+        val plugins = registry.injectList(SealedPlugin::class)
+        assertEquals(listOf(BetaPlugin::class, AlphaPlugin::class), plugins.map { it::class })
+        assertSame(plugins, registry.injectList(SealedPlugin::class))
+        assertEquals(plugins, registry.injectList(SealedPlugin::class, "plugin"))
+        assertTrue(registry.injectList(SealedPlugin::class, "missing").isEmpty())
+        assertEquals(2, registry.beanDefinitions("plugin").size)
+    }
+
+    @Test
+    fun `sealed registry shares one instance between type and name`() {
+        val registry = KmpBeanRegistry()
+        var created = 0
+        registry.registerProvider("alphaPlugin", AlphaPlugin::class) { created++; AlphaPlugin() }
+        registry.seal()
+
+        val byType = registry.getBean(AlphaPlugin::class)
+        val byName = registry.getBean("alphaPlugin")
+
+        assertSame(byType, byName)
+        assertEquals(1, created)
+    }
+
+    @Test
+    fun `sealed registry rejects registration until cleared`() {
+        val registry = KmpBeanRegistry()
+        registry.seal()
+
+        assertFailsWith<IllegalStateException> {
+            registry.registerProvider(AlphaPlugin::class) { AlphaPlugin() }
+        }
+
+        registry.clear()
+        registry.registerProvider(AlphaPlugin::class) { AlphaPlugin() }
+        assertTrue(registry.contains(AlphaPlugin::class))
+    }
+
+    @Test
+    fun `sealed registry reports circular dependency`() {
+        val registry = KmpBeanRegistry()
+        registry.registerProvider(CycleA::class) { registry.getBean(CycleB::class); CycleA() }
+        registry.registerProvider(CycleB::class) { registry.getBean(CycleA::class); CycleB() }
+        registry.seal()
+
+        assertFailsWith<IllegalStateException> { registry.getBean(CycleA::class) }
+    }
+}
@@ -66,7 +66,7 @@ class ContainerGenerator(
             .filter { it.enabled }
             .map { it.name }
             .toSet()
-        val interfaceMap = buildInterfaceMap(classComponents)
+        val interfaceMap = buildInterfaceMap(classComponents, classInstances + objectInstances)
         val interfaceImports = interfaceMap.keys + interfaceMap.values.flatten()
         val code = buildString {
             appendLine("package $generatedPackage")
@@ -90,7 +90,6 @@ class ContainerGenerator(
             appendLine("    private val _registry = KmpBeanRegistry()")
             appendLine("    private var _moduleBeanDefinitions: List<BeanDefinition> = emptyList()")
             appendLine("    val registry: BeanRegistry get() = _registry")
-            appendLine("    private var _initialized = false")
             appendLine()
             appendLine("    private val localBeanDefinitions = listOf(")
             appendBeanDefinitions(allBeans, "        ")
@@ -131,18 +130,21 @@ class ContainerGenerator(
                 }
             }
 
+            appendLine("    }")
+            appendLine()
+            appendLine("    private val _initialization = lazy {")
+            appendLine("        val providers = IocModuleRegistry.getProviders()")
+            appendLine("        providers.forEach { it.register(_registry) }")
+            appendLine("        _moduleBeanDefinitions = providers.flatMap { it.definitions() }")
+            appendLine("        _registry.seal()")
             appendLine("    }")
             appendLine()
             appendLine("    /**")
             appendLine("     * Call after all library modules have called registerThisModule().")
-            appendLine("     * Applies cross-module SPI providers to the registry.")
+            appendLine("     * Applies cross-module SPI providers to the registry, then seals it for concurrent lookups.")
             appendLine("     */")
             appendLine("    fun initialize() {")
-            appendLine("        if (_initialized) return")
-            appendLine("        _initialized = true")
-            appendLine("        val providers = IocModuleRegistry.getProviders()")
-            appendLine("        providers.forEach { it.register(_registry) }")
-            appendLine("        _moduleBeanDefinitions = providers.flatMap { it.definitions() }")
+            appendLine("        _initialization.value")
             appendLine("    }")
             appendLine()
             appendLine("    inline fun <reified T : Any> getBean(): T? { initialize(); return registry.getBean(T::class) }")
@@ -220,7 +222,7 @@ class ContainerGenerator(
             .filter { it.enabled }
             .map { it.name }
             .toSet()
-        val interfaceMap = buildInterfaceMap(classComponents)
+        val interfaceMap = buildInterfaceMap(classComponents, classInstances + objectInstances)
         val interfaceImports = interfaceMap.keys + interfaceMap.values.flatten()
         val code = buildString {
             appendLine("package $generatedPackage")
@@ -498,7 +500,11 @@ class ContainerGenerator(
         }.trimEnd()
     }
 
-    private fun buildInterfaceMap(classComponents: List<LsiClass>): Map<String, List<String>> {
+    /**
+     * Implementations are emitted in the registry's injection order (order, beanName, qualifiedName),
+     * so sealing the registry at runtime only has to verify the order instead of sorting.
+     */
+    private fun buildInterfaceMap(classComponents: List<LsiClass>, registeredBeans: List<BeanInfo>): Map<String, List<String>> {
         val map = mutableMapOf<String, MutableList<String>>()
         classComponents.forEach { component ->
             component.interfaces.forEach { iface ->
@@ -507,7 +513,13 @@ class ContainerGenerator(
                 map.getOrPut(ifaceFqn) { mutableListOf() }.add(implFqn)
             }
         }
-        return map
+        val beansByFqn = registeredBeans.associateBy { it.qualifiedName }
+        val injectionOrder = compareBy<String>(
+            { beansByFqn[it]?.order ?: Int.MAX_VALUE },
+            { beansByFqn[it]?.let(::deriveName) ?: it.substringAfterLast(".") },
+            { it }
+        )
+        return map.mapValues { (_, impls) -> impls.sortedWith(injectionOrder) }
     }
 
     private fun deriveName(bean: BeanInfo): String = bean.resolvedBeanName
@@ -20,6 +20,7 @@ internal object ModbusKotlinGatewayArtifactTemplates {
             return emptyList()
         }
         val hasFirmwareWorkflow = services.any { service -> service.workflows.isNotEmpty() }
+        val hasReadAll = services.any { service -> service.readAllOperations().isNotEmpty() }
         val includeDirectKtorRoutes = serverRouteMode == ModbusServerRouteMode.DIRECT_KTOR
 
         val fileContent =
@@ -64,8 +65,19 @@ internal object ModbusKotlinGatewayArtifactTemplates {
                         appendLine("import site.addzero.device.driver.modbus.mqtt.ModbusMqttExecutor")
                     }
                 }
+                if (hasReadAll) {
+                    appendLine("import site.addzero.device.driver.modbus.${transport.transportId}.readPlan")
+                }
                 appendLine("import site.addzero.device.protocol.modbus.ModbusCodecSupport")
+                if (hasReadAll) {
+                    appendLine("import site.addzero.device.protocol.modbus.ModbusReadPlanOptions")
+                    appendLine("import site.addzero.device.protocol.modbus.ModbusReadPlanner")
+                    appendLine("import site.addzero.device.protocol.modbus.ModbusReadPoint")
+                }
                 appendLine("import site.addzero.device.protocol.modbus.model.ModbusCodec")
+                if (hasReadAll) {
+                    appendLine("import site.addzero.device.protocol.modbus.model.ModbusFunctionCode")
+                }
                 appendLine()
                 if (hasFirmwareWorkflow) {
                     append(renderFirmwareWorkflowSupport())
@@ -82,6 +94,10 @@ internal object ModbusKotlinGatewayArtifactTemplates {
                     }
                     append(renderGateway(service))
                     appendLine()
+                    if (service.readAllOperations().isNotEmpty()) {
+                        append(renderReadAllSnapshot(service))
+                        appendLine()
+                    }
                 }
                 append(renderModule(transport, services))
                 if (includeDirectKtorRoutes) {
@@ -1215,6 +1231,10 @@ internal object ModbusKotlinGatewayArtifactTemplates {
                 appendLine("    }")
                 appendLine()
             }
+            if (service.readAllOperations().isNotEmpty()) {
+                append(renderReadAllMethod(service))
+                appendLine()
+            }
             service.workflows.forEach { workflow ->
                 append(renderWorkflowGatewayMethods(service, workflow))
                 appendLine()
@@ -1222,6 +1242,92 @@ internal object ModbusKotlinGatewayArtifactTemplates {
             appendLine("}")
         }
 
+    /**
+     * 无参读操作的点位表和批量读取入口，合并逻辑在运行时的 ModbusReadPlanner 里。
+     */
+    private fun renderReadAllMethod(service: ModbusServiceModel): String =
+        buildString {
+            val operations = service.readAllOperations()
+            appendLine("    private val readAllPoints =")
+            appendLine("        listOf(")
+            operations.forEach { operation ->
+                appendLine(
+                    "            ModbusReadPoint(\"${operation.methodName}\", ModbusFunctionCode.${operation.functionCodeName}, " +
+                        "${operation.address}, ${operation.quantity}),",
+                )
+            }
+            appendLine("        )")
+            appendLine()
+            appendLine("    private val defaultReadAllPlan = ModbusReadPlanner.plan(readAllPoints)")
+            appendLine()
+            appendLine("    /**")
+            appendLine("     * 批量读取全部无参读操作。")
+            appendLine("     *")
+            appendLine("     * 地址相邻的操作按 options 合并成尽量少的请求，再按各操作自己的偏移解码。")
+            appendLine("     */")
+            appendLine("    suspend fun readAll(")
+            appendLine("        config: ${service.transport.endpointConfigSimpleName()}? = null,")
+            appendLine("        options: ModbusReadPlanOptions = ModbusReadPlanOptions(),")
+            appendLine("    ): ${service.readAllSnapshotClassName()} {")
+            appendLine("        val resolvedConfig = resolveConfig(config)")
+            appendLine(
+                "        val plan = if (options == ModbusReadPlanOptions()) defaultReadAllPlan " +
+                    "else ModbusReadPlanner.plan(readAllPoints, options)",
+            )
+            appendLine("        val result = executor.readPlan(resolvedConfig, plan)")
+            appendLine("        return ${service.readAllSnapshotClassName()}(")
+            operations.forEach { operation ->
+                appendLine("            ${operation.methodName} = result[\"${operation.methodName}\"].let { registers ->")
+                operation.renderReadAllDecodeLines().forEach { line -> appendLine("                $line") }
+                appendLine("            },")
+            }
+            appendLine("        )")
+            appendLine("    }")
+        }
+
+    private fun renderReadAllSnapshot(service: ModbusServiceModel): String =
+        buildString {
+            appendLine("/**")
+            appendLine(" * ${service.gatewayClassName}.readAll 的结果，每个属性对应一个无参读操作。")
+            appendLine(" */")
+            appendLine("data class ${service.readAllSnapshotClassName()}(")
+            service.readAllOperations().forEach { operation ->
+                appendLine("    val ${operation.methodName}: ${operation.returnType.renderKotlinType()},")
+            }
+            appendLine(")")
+        }
+
+    private fun ModbusOperationModel.renderReadAllDecodeLines(): List<String> =
+        when (returnType.kind) {
+            ModbusReturnKind.BOOLEAN -> listOf(renderBooleanDecodeExpression())
+            ModbusReturnKind.INT -> listOf("ModbusCodecSupport.decodeInt(ModbusCodec.${returnType.codecName}, registers, 0)")
+            ModbusReturnKind.STRING ->
+                listOf("ModbusCodecSupport.decodeString(ModbusCodec.${returnType.codecName}, registers, 0, ${returnType.registerWidth})")
+
+            ModbusReturnKind.DTO ->
+                buildList {
+                    add("${returnType.qualifiedName}(")
+                    returnType.properties.forEach { property ->
+                        add("    ${property.name} = ${property.renderDecodeExpression()},")
+                    }
+                    add(")")
+                }
+
+            ModbusReturnKind.UNIT,
+            ModbusReturnKind.COMMAND_RESULT -> error("readAll 不支持的返回类型：${returnType.kind}")
+        }
+
+    private fun ModbusServiceModel.readAllOperations(): List<ModbusOperationModel> =
+        operations.filter { operation ->
+            operation.isReadOperation &&
+                operation.parameters.isEmpty() &&
+                operation.returnType.kind != ModbusReturnKind.UNIT &&
+                operation.returnType.kind != ModbusReturnKind.COMMAND_RESULT
+        }
+
+    private fun ModbusServiceModel.readAllSnapshotClassName(): String =
+        gatewayClassName.removeSuffix("Gateway") + "Snapshot"
+
     private fun renderKtorfitClientInterface(service: ModbusServiceModel): String =
         buildString {
             appendLine("/**")
@@ -147,6 +147,53 @@ class ModbusArtifactRendererTest {
         assertTrue(content.contains("exceptionName = exception.exceptionName"))
     }
 
+    @Test
+    fun renderServerArtifactsEmitBatchedReadAllForParameterlessReads() {
+        val readUptime =
+            sampleReadInfoOperation().copy(
+                methodName = "readUptime",
+                operationId = "read-uptime",
+                address = 4,
+                quantity = 2,
+                returnType =
+                    ModbusReturnTypeModel(
+                        qualifiedName = "kotlin.Int",
+                        simpleName = "Int",
+                        kind = ModbusReturnKind.INT,
+                        valueKind = ModbusValueKind.INT,
+                        codecName = "U32_BE",
+                        registerWidth = 2,
+                    ),
+            )
+        val content =
+            ModbusArtifactRenderer
+                .renderServerArtifacts(
+                    ModbusTransportKind.RTU,
+                    listOf(sampleService(operations = sampleService().operations + readUptime + sampleSetLedOperation())),
+                ).single()
+                .content
+        val writeOnly =
+            ModbusArtifactRenderer
+                .renderServerArtifacts(
+                    ModbusTransportKind.RTU,
+                    listOf(sampleService(operations = listOf(sampleSetLedOperation()))),
+                ).single()
+                .content
+
+        assertTrue(content.contains("import site.addzero.device.driver.modbus.rtu.readPlan"))
+        assertTrue(content.contains("ModbusReadPoint(\"readInfo\", ModbusFunctionCode.READ_INPUT_REGISTERS, 0, 4),"))
+        assertTrue(content.contains("ModbusReadPoint(\"readUptime\", ModbusFunctionCode.READ_INPUT_REGISTERS, 4, 2),"))
+        assertFalse(content.contains("ModbusReadPoint(\"setLed\""))
+        assertTrue(content.contains("suspend fun readAll("))
+        assertTrue(content.contains("val result = executor.readPlan(resolvedConfig, plan)"))
+        assertTrue(content.contains("protocolVersion = ModbusCodecSupport.decodeInt(ModbusCodec.U16, registers, 0),"))
+        assertTrue(content.contains("ModbusCodecSupport.decodeInt(ModbusCodec.U32_BE, registers, 0)"))
+        assertTrue(content.contains("data class SelfDevBoardApiGeneratedRtuSnapshot("))
+        assertTrue(content.contains("val readUptime: kotlin.Int,"))
+        assertFalse(writeOnly.contains("suspend fun readAll("))
+        assertFalse(writeOnly.contains("import site.addzero.device.protocol.modbus.ModbusReadPlanner"))
+    }
+
     @Test
     fun renderSpringRouteSourceArtifactsEmitTopLevelSpringHandlers() {
         val gatewayContent =
@@ -1,5 +1,9 @@
 package site.addzero.device.driver.modbus.mqtt
 
+import site.addzero.device.protocol.modbus.ModbusReadPlan
+import site.addzero.device.protocol.modbus.ModbusReadResult
+import site.addzero.device.protocol.modbus.model.ModbusFunctionCode
+
 data class ModbusMqttEndpointConfig(
     val serviceId: String,
     val brokerUrl: String,
@@ -115,3 +119,20 @@ open class UnsupportedModbusMqttExecutor : ModbusMqttExecutor {
         )
     }
 }
+
+/**
+ * 按读计划批量读取，每个合并后的批次只发一次请求。
+ */
+suspend fun ModbusMqttExecutor.readPlan(
+    config: ModbusMqttEndpointConfig,
+    plan: ModbusReadPlan,
+): ModbusReadResult =
+    plan.execute { functionCode, address, quantity ->
+        when (functionCode) {
+            ModbusFunctionCode.READ_COILS -> readCoils(config, address, quantity)
+            ModbusFunctionCode.READ_DISCRETE_INPUTS -> readDiscreteInputs(config, address, quantity)
+            ModbusFunctionCode.READ_HOLDING_REGISTERS -> readHoldingRegisters(config, address, quantity)
+            ModbusFunctionCode.READ_INPUT_REGISTERS -> readInputRegisters(config, address, quantity)
+            else -> error("读计划只支持读功能码：$functionCode")
+        }
+    }
@@ -0,0 +1,151 @@
+package site.addzero.device.protocol.modbus
+
+import site.addzero.device.protocol.modbus.model.ModbusFunctionCode
+
+/**
+ * 读计划中的一个点位：按 [functionCode] 从 [address] 起读取 [quantity] 个寄存器或位。
+ */
+data class ModbusReadPoint(
+    val key: String,
+    val functionCode: ModbusFunctionCode,
+    val address: Int,
+    val quantity: Int,
+)
+
+/**
+ * 读计划的合并参数。
+ *
+ * 两段区间之间空出的地址不超过 gap 容差时合并成一次请求，空出的地址会一起读回再丢弃。
+ * 从站没有映射这些地址时可能返回非法地址异常，所以默认只合并首尾相接或重叠的区间。
+ */
+data class ModbusReadPlanOptions(
+    val maxRegistersPerRequest: Int = MAX_READ_REGISTERS,
+    val maxBitsPerRequest: Int = MAX_READ_BITS,
+    val registerGapTolerance: Int = 0,
+    val bitGapTolerance: Int = 0,
+) {
+    init {
+        require(maxRegistersPerRequest in 1..MAX_READ_REGISTERS) { "单次读取寄存器数必须在 1..$MAX_READ_REGISTERS 之间" }
+        require(maxBitsPerRequest in 1..MAX_READ_BITS) { "单次读取位数必须在 1..$MAX_READ_BITS 之间" }
+        require(registerGapTolerance >= 0 && bitGapTolerance >= 0) { "gap 容差不能为负数" }
+    }
+
+    companion object {
+        const val MAX_READ_REGISTERS = 125
+        const val MAX_READ_BITS = 2000
+    }
+}
+
+/**
+ * 合并后的一次读请求，[points] 是它覆盖的点位。
+ */
+data class ModbusReadBatch(
+    val functionCode: ModbusFunctionCode,
+    val address: Int,
+    val quantity: Int,
+    val points: List<ModbusReadPoint>,
+)
+
+/**
+ * 编译好的读计划，可以反复执行。
+ */
+class ModbusReadPlan internal constructor(
+    val batches: List<ModbusReadBatch>,
+) {
+    val pointCount: Int = batches.sumOf { it.points.size }
+
+    /**
+     * 逐个批次调用 [read]，再把每个批次的结果按点位切回去。
+     */
+    suspend fun execute(
+        read: suspend (functionCode: ModbusFunctionCode, address: Int, quantity: Int) -> List<Int>,
+    ): ModbusReadResult {
+        val values = LinkedHashMap<String, List<Int>>(pointCount * 2)
+        batches.forEach { batch ->
+            val registers = read(batch.functionCode, batch.address, batch.quantity)
+            check(registers.size >= batch.quantity) {
+                "读计划响应长度不足：${batch.functionCode} address=${batch.address} 期望 ${batch.quantity}，实际 ${registers.size}"
+            }
+            batch.points.forEach { point ->
+                val offset = point.address - batch.address
+                values[point.key] = registers.subList(offset, offset + point.quantity)
+            }
+        }
+        return ModbusReadResult(values)
+    }
+}
+
+/**
+ * 读计划的执行结果，按点位 key 取回该点位自己的寄存器或位，偏移从 0 开始。
+ */
+class ModbusReadResult internal constructor(
+    private val values: Map<String, List<Int>>,
+) {
+    val keys: Set<String>
+        get() = values.keys
+
+    operator fun get(key: String): List<Int> = values[key] ?: error("读计划中没有点位：$key")
+}
+
+/**
+ * 读计划编译器。
+ *
+ * 同一功能码的点位按地址排序后从左到右贪心合并：下一个点位离当前批次末尾不超过 gap 容差，
+ * 并且合并后不超过单次请求上限（寄存器 125 个、线圈/离散输入 2000 个）时并入当前批次，否则另起一批。
+ */
+object ModbusReadPlanner {
+    fun plan(
+        points: List<ModbusReadPoint>,
+        options: ModbusReadPlanOptions = ModbusReadPlanOptions(),
+    ): ModbusReadPlan {
+        val duplicated = points.groupingBy { it.key }.eachCount().filterValues { it > 1 }.keys
+        require(duplicated.isEmpty()) { "读计划点位 key 重复：$duplicated" }
+        val batches =
+            points
+                .groupBy { it.functionCode }
+                .flatMap { (functionCode, group) -> merge(functionCode, group, options) }
+        return ModbusReadPlan(batches)
+    }
+
+    private fun merge(
+        functionCode: ModbusFunctionCode,
+        points: List<ModbusReadPoint>,
+        options: ModbusReadPlanOptions,
+    ): List<ModbusReadBatch> {
+        val (limit, gap) =
+            when (functionCode) {
+                ModbusFunctionCode.READ_COILS,
+                ModbusFunctionCode.READ_DISCRETE_INPUTS -> options.maxBitsPerRequest to options.bitGapTolerance
+
+                ModbusFunctionCode.READ_HOLDING_REGISTERS,
+                ModbusFunctionCode.READ_INPUT_REGISTERS -> options.maxRegistersPerRequest to options.registerGapTolerance
+
+                else -> throw IllegalArgumentException("读计划只支持读功能码：$functionCode")
+            }
+        val batches = ArrayList<ModbusReadBatch>()
+        var start = 0
+        var end = 0
+        var members = ArrayList<ModbusReadPoint>()
+        points.sortedBy { it.address }.forEach { point ->
+            require(point.address >= 0 && point.quantity in 1..limit) {
+                "点位 ${point.key} 超出单次读取范围：address=${point.address} quantity=${point.quantity} limit=$limit"
+            }
+            val pointEnd = point.address + point.quantity
+            if (members.isNotEmpty() && point.address <= end + gap && maxOf(end, pointEnd) - start <= limit) {
+                end = maxOf(end, pointEnd)
+                members += point
+            } else {
+                if (members.isNotEmpty()) {
+                    batches += ModbusReadBatch(functionCode, start, end - start, members)
+                }
+                start = point.address
+                end = pointEnd
+                members = arrayListOf(point)
+            }
+        }
+        if (members.isNotEmpty()) {
+            batches += ModbusReadBatch(functionCode, start, end - start, members)
+        }
+        return batches
+    }
+}
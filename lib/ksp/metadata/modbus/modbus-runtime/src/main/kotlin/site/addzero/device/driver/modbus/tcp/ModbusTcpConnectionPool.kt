@@ -0,0 +1,401 @@
+package site.addzero.device.driver.modbus.tcp
+
+import site.addzero.modbus.ModbusProtocolException
+import java.util.concurrent.ConcurrentHashMap
+import java.util.concurrent.Executors
+import java.util.concurrent.ScheduledExecutorService
+import java.util.concurrent.ScheduledFuture
+import java.util.concurrent.Semaphore
+import java.util.concurrent.TimeUnit
+import java.util.concurrent.atomic.AtomicInteger
+import java.util.concurrent.atomic.AtomicLong
+import java.util.concurrent.atomic.AtomicReference
+import java.util.concurrent.atomic.LongAdder
+
+/**
+ * Modbus TCP 连接池配置。
+ *
+ * - 同一端点（host、port、unitId）最多保持 [maxConnectionsPerEndpoint] 条连接，超过的请求在端点超时时间内排队
+ * - 空闲超过 [idleTimeoutMs] 的连接由后台任务关闭
+ * - 新建连接失败后按 [reconnectBackoffInitialMs] 起指数退避，上限 [reconnectBackoffMaxMs]，退避期间请求直接失败
+ * - [pipelining] 打开后同一端点的请求共用一条连接，按 MBAP 事务号匹配响应，最多 [maxInFlightPerConnection] 个请求在途
+ * - [enabled] 关闭时恢复每次请求建连、用完即关的旧行为
+ */
+data class ModbusTcpPoolConfig(
+    val enabled: Boolean = true,
+    val maxConnectionsPerEndpoint: Int = 1,
+    val idleTimeoutMs: Long = 60_000,
+    val reconnectBackoffInitialMs: Long = 200,
+    val reconnectBackoffMaxMs: Long = 30_000,
+    val pipelining: Boolean = false,
+    val maxInFlightPerConnection: Int = 8,
+)
+
+/**
+ * 连接池的端点键。
+ */
+data class ModbusTcpPoolKey(
+    val host: String,
+    val port: Int,
+    val unitId: Int,
+)
+
+/**
+ * 单个端点的连接占用与请求耗时快照。
+ */
+data class ModbusTcpEndpointStats(
+    val key: ModbusTcpPoolKey,
+    val openConnections: Int,
+    val idleConnections: Int,
+    val activeRequests: Int,
+    val requests: Long,
+    val failures: Long,
+    val averageLatencyMicros: Long,
+    val maxLatencyMicros: Long,
+)
+
+/**
+ * 连接池指标回调，可桥接到 Micrometer 等监控系统。
+ *
+ * 回调在请求线程上同步执行，实现不应阻塞。
+ */
+interface ModbusTcpPoolMetrics {
+    fun onRequest(key: ModbusTcpPoolKey, latencyNanos: Long, success: Boolean) {}
+
+    fun onConnectionOpened(key: ModbusTcpPoolKey) {}
+
+    fun onConnectionClosed(key: ModbusTcpPoolKey) {}
+
+    companion object {
+        val NOOP: ModbusTcpPoolMetrics = object : ModbusTcpPoolMetrics {}
+    }
+}
+
+internal fun ModbusTcpEndpointConfig.poolKey(): ModbusTcpPoolKey = ModbusTcpPoolKey(host, port, unitId)
+
+/**
+ * 按端点复用 [ToolModbusTcpClient] 的连接池。
+ *
+ * 从站返回的协议异常说明链路正常，连接照常归还；其余异常视为传输故障，连接直接丢弃。
+ * 从空闲队列取出的连接在使用前做健康检查，复用的连接出现传输故障时换新连接重试一次，
+ * 以覆盖对端悄悄关闭空闲连接的情况。
+ */
+internal class ModbusTcpConnectionPool(
+    private val config: ModbusTcpPoolConfig,
+    private val metrics: ModbusTcpPoolMetrics,
+    private val clientFactory: (ModbusTcpEndpointConfig) -> ToolModbusTcpClient,
+    private val nanoTime: () -> Long = System::nanoTime,
+) : AutoCloseable {
+    private val endpoints = ConcurrentHashMap<ModbusTcpPoolKey, EndpointPool>()
+    private val idleTimeoutNanos = TimeUnit.MILLISECONDS.toNanos(config.idleTimeoutMs.coerceAtLeast(1))
+
+    @Volatile
+    private var closed = false
+
+    private val sweepTask: ScheduledFuture<*>? =
+        if (config.enabled) {
+            val period = (config.idleTimeoutMs / 2).coerceAtLeast(MIN_SWEEP_PERIOD_MS)
+            SWEEPER.scheduleWithFixedDelay({ evictIdle() }, period, period, TimeUnit.MILLISECONDS)
+        } else {
+            null
+        }
+
+    fun <T> execute(
+        endpoint: ModbusTcpEndpointConfig,
+        block: (ToolModbusTcpClient) -> T,
+    ): T {
+        check(!closed) { "Modbus TCP 连接池已关闭" }
+        val pool = endpoints.computeIfAbsent(endpoint.poolKey()) { key -> EndpointPool(key) }
+        val start = nanoTime()
+        var success = false
+        pool.active.incrementAndGet()
+        try {
+            val result = when {
+                !config.enabled -> pool.executeOnce(endpoint, block)
+                config.pipelining -> pool.executeShared(endpoint, block)
+                else -> pool.executePooled(endpoint, block)
+            }
+            success = true
+            return result
+        } finally {
+            pool.active.decrementAndGet()
+            pool.record(nanoTime() - start, success)
+        }
+    }
+
+    fun stats(): List<ModbusTcpEndpointStats> = endpoints.values.map { it.stats() }
+
+    /**
+     * 关闭空闲超时的连接，由后台任务定期调用。
+     */
+    fun evictIdle() {
+        val now = nanoTime()
+        endpoints.values.forEach { it.evictIdle(now) }
+    }
+
+    override fun close() {
+        closed = true
+        sweepTask?.cancel(false)
+        endpoints.values.forEach { it.closeAll() }
+    }
+
+    private inner class EndpointPool(
+        private val key: ModbusTcpPoolKey,
+    ) {
+        private val permits = Semaphore(config.maxConnectionsPerEndpoint.coerceAtLeast(1))
+
+        // 以下字段由 this 保护；空闲队列尾部是最近归还的连接
+        private val idle = ArrayDeque<IdleClient>()
+        private var openConnections = 0
+        private var consecutiveFailures = 0
+        private var retryAt = 0L
+        private val shared = AtomicReference<ToolModbusTcpClient?>()
+
+        @Volatile
+        private var sharedLastUsed = 0L
+
+        val active = AtomicInteger()
+        private val requests = LongAdder()
+        private val failures = LongAdder()
+        private val totalLatency = LongAdder()
+        private val maxLatency = AtomicLong()
+
+        fun <T> executeOnce(
+            endpoint: ModbusTcpEndpointConfig,
+            block: (ToolModbusTcpClient) -> T,
+        ): T {
+            val client = clientFactory(endpoint)
+            try {
+                return block(client)
+            } finally {
+                runCatching { client.close() }
+            }
+        }
+
+        fun <T> executePooled(
+            endpoint: ModbusTcpEndpointConfig,
+            block: (ToolModbusTcpClient) -> T,
+        ): T {
+            if (!permits.tryAcquire(endpoint.timeoutMs.coerceAtLeast(1), TimeUnit.MILLISECONDS)) {
+                throw IllegalStateException("连接池已满：${endpoint.timeoutMs}ms 内没有可用连接")
+            }
+            try {
+                var staleFailure: Throwable? = null
+                val reused = pollIdle()
+                if (reused != null) {
+                    try {
+                        return runOn(reused, block, fresh = false)
+                    } catch (throwable: Throwable) {
+                        if (throwable is ModbusProtocolException) {
+                            throw throwable
+                        }
+                        staleFailure = throwable
+                    }
+                }
+                try {
+                    return runOn(openClient(endpoint), block, fresh = true)
+                } catch (throwable: Throwable) {
+                    staleFailure?.let(throwable::addSuppressed)
+                    throw throwable
+                }
+            } finally {
+                permits.release()
+            }
+        }
+
+        fun <T> executeShared(
+            endpoint: ModbusTcpEndpointConfig,
+            block: (ToolModbusTcpClient) -> T,
+        ): T {
+            val client = sharedClient(endpoint)
+            try {
+                val result = block(client)
+                markSuccess()
+                return result
+            } catch (throwable: Throwable) {
+                if (!client.isHealthy()) {
+                    dropShared(client)
+                    markFailure()
+                }
+                throw throwable
+            } finally {
+                sharedLastUsed = nanoTime()
+            }
+        }
+
+        fun record(latencyNanos: Long, success: Boolean) {
+            requests.increment()
+            if (!success) {
+                failures.increment()
+            }
+            totalLatency.add(latencyNanos)
+            maxLatency.accumulateAndGet(latencyNanos) { current, next -> maxOf(current, next) }
+            metrics.onRequest(key, latencyNanos, success)
+        }
+
+        fun stats(): ModbusTcpEndpointStats {
+            val count = requests.sum()
+            val (open, idleCount) = synchronized(this) { openConnections to idle.size }
+            return ModbusTcpEndpointStats(
+                key = key,
+                openConnections = open,
+                idleConnections = idleCount,
+                activeRequests = active.get(),
+                requests = count,
+                failures = failures.sum(),
+                averageLatencyMicros = if (count == 0L) 0 else TimeUnit.NANOSECONDS.toMicros(totalLatency.sum() / count),
+                maxLatencyMicros = TimeUnit.NANOSECONDS.toMicros(maxLatency.get()),
+            )
+        }
+
+        fun evictIdle(now: Long) {
+            val expired = ArrayList<ToolModbusTcpClient>()
+            synchronized(this) {
+                while (idle.isNotEmpty() && now - idle.first().since >= idleTimeoutNanos) {
+                    expired += idle.removeFirst().client
+                }
+            }
+            val current = shared.get()
+            if (current != null && active.get() == 0 && now - sharedLastUsed >= idleTimeoutNanos) {
+                dropShared(current)
+            }
+            expired.forEach(::discard)
+        }
+
+        fun closeAll() {
+            val clients = synchronized(this) {
+                val drained = idle.map { it.client }
+                idle.clear()
+                drained
+            } + listOfNotNull(shared.getAndSet(null))
+            clients.forEach(::discard)
+        }
+
+        private fun <T> runOn(
+            client: ToolModbusTcpClient,
+            block: (ToolModbusTcpClient) -> T,
+            fresh: Boolean,
+        ): T {
+            val result = try {
+                block(client)
+            } catch (throwable: Throwable) {
+                if (throwable is ModbusProtocolException) {
+                    release(client)
+                } else {
+                    discard(client)
+                    // 复用连接失效不代表端点不可达，只有新连接失败才进入退避
+                    if (fresh) {
+                        markFailure()
+                    }
+                }
+                throw throwable
+            }
+            release(client)
+            markSuccess()
+            return result
+        }
+
+        private fun pollIdle(): ToolModbusTcpClient? {
+            while (true) {
+                val client = synchronized(this) { idle.removeLastOrNull()?.client } ?: return null
+                if (client.isHealthy()) {
+                    return client
+                }
+                discard(client)
+            }
+        }
+
+        /**
+         * 建连在锁外进行，并发建连时只有 CAS 成功的连接被共享，其余连接直接关闭
+         */
+        private fun sharedClient(endpoint: ModbusTcpEndpointConfig): ToolModbusTcpClient {
+            while (true) {
+                val current = shared.get()
+                if (current != null) {
+                    if (current.isHealthy()) {
+                        return current
+                    }
+                    dropShared(current)
+                    continue
+                }
+                val client = openClient(endpoint)
+                if (shared.compareAndSet(null, client)) {
+                    return client
+                }
+                discard(client)
+            }
+        }
+
+        private fun openClient(endpoint: ModbusTcpEndpointConfig): ToolModbusTcpClient {
+            synchronized(this) {
+                val wait = retryAt - nanoTime()
+                if (wait > 0) {
+                    throw IllegalStateException(
+                        "端点处于重连退避中：${TimeUnit.NANOSECONDS.toMillis(wait)}ms 后重试，已连续失败 $consecutiveFailures 次",
+                    )
+                }
+                openConnections++
+            }
+            val client = try {
+                clientFactory(endpoint)
+            } catch (throwable: Throwable) {
+                synchronized(this) { openConnections-- }
+                markFailure()
+                throw throwable
+            }
+            metrics.onConnectionOpened(key)
+            return client
+        }
+
+        private fun release(client: ToolModbusTcpClient) {
+            if (!closed) {
+                synchronized(this) { idle.addLast(IdleClient(client, nanoTime())) }
+                return
+            }
+            discard(client)
+        }
+
+        private fun dropShared(client: ToolModbusTcpClient) {
+            if (shared.compareAndSet(client, null)) {
+                discard(client)
+            }
+        }
+
+        private fun discard(client: ToolModbusTcpClient) {
+            synchronized(this) { openConnections-- }
+            runCatching { client.close() }
+            metrics.onConnectionClosed(key)
+        }
+
+        private fun markSuccess() {
+            synchronized(this) {
+                consecutiveFailures = 0
+                retryAt = 0L
+            }
+        }
+
+        private fun markFailure() {
+            synchronized(this) {
+                consecutiveFailures++
+                val shift = (consecutiveFailures - 1).coerceAtMost(MAX_BACKOFF_SHIFT)
+                val backoffMs = (config.reconnectBackoffInitialMs shl shift).coerceAtMost(config.reconnectBackoffMaxMs)
+                retryAt = nanoTime() + TimeUnit.MILLISECONDS.toNanos(backoffMs)
+            }
+        }
+    }
+
+    private class IdleClient(
+        val client: ToolModbusTcpClient,
+        val since: Long,
+    )
+
+    private companion object {
+        const val MIN_SWEEP_PERIOD_MS = 1_000L
+        const val MAX_BACKOFF_SHIFT = 20
+
+        val SWEEPER: ScheduledExecutorService =
+            Executors.newSingleThreadScheduledExecutor { runnable ->
+                Thread(runnable, "modbus-tcp-pool-sweeper").apply { isDaemon = true }
+            }
+    }
+}
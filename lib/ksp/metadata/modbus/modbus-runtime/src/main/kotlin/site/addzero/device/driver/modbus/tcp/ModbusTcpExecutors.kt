@@ -0,0 +1,11 @@
+package site.addzero.device.driver.modbus.tcp
+
+/**
+ * 暴露默认 TCP 执行器公开入口，供外部模块按需调整连接池和指标回调，而不依赖内部构造器。
+ */
+fun createDefaultModbusTcpExecutor(
+    poolConfig: ModbusTcpPoolConfig = ModbusTcpPoolConfig(),
+    metrics: ModbusTcpPoolMetrics = ModbusTcpPoolMetrics.NOOP,
+): J2modModbusTcpExecutor {
+    return J2modModbusTcpExecutor(poolConfig, metrics)
+}
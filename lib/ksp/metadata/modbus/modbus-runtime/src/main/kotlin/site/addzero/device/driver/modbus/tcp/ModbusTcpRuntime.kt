@@ -9,10 +9,29 @@ import site.addzero.modbus.ModbusToolException
 import site.addzero.modbus.tcp.client.ModbusTcpClient
 import site.addzero.modbus.tcp.client.ModbusTcpClientConfig
 
+/**
+ * 基于 tool-modbus 的 Modbus TCP 执行器。
+ *
+ * 连接按端点（host、port、unitId）池化复用，不再每次读写都建连和断开，池行为见 [ModbusTcpPoolConfig]。
+ * 传入 [clientFactory] 时由它创建连接；打开流水线时它创建的客户端必须支持多线程并发调用。
+ */
 @Single
 class J2modModbusTcpExecutor internal constructor(
-    private val clientFactory: (ModbusTcpEndpointConfig) -> ToolModbusTcpClient = ::defaultToolModbusTcpClient,
-) : ModbusTcpExecutor {
+    poolConfig: ModbusTcpPoolConfig = ModbusTcpPoolConfig(),
+    metrics: ModbusTcpPoolMetrics = ModbusTcpPoolMetrics.NOOP,
+    clientFactory: ((ModbusTcpEndpointConfig) -> ToolModbusTcpClient)? = null,
+) : ModbusTcpExecutor, AutoCloseable {
+    private val pool = ModbusTcpConnectionPool(
+        config = poolConfig,
+        metrics = metrics,
+        clientFactory = clientFactory ?: { endpoint -> defaultToolModbusTcpClient(endpoint, poolConfig) },
+    )
+
+    /**
+     * 各端点的连接占用与请求耗时。
+     */
+    fun poolStats(): List<ModbusTcpEndpointStats> = pool.stats()
+
     override suspend fun readCoils(config: ModbusTcpEndpointConfig, address: Int, quantity: Int): List<Int> =
         runTcp(config) { client ->
             client.readCoils(address, quantity).map { bit -> if (bit) 1 else 0 }
@@ -61,9 +80,8 @@ class J2modModbusTcpExecutor internal constructor(
         config: ModbusTcpEndpointConfig,
         block: (ToolModbusTcpClient) -> T,
     ): T = withContext(Dispatchers.IO) {
-        val client = clientFactory(config)
         try {
-            block(client)
+            pool.execute(config, block)
         } catch (throwable: Throwable) {
             if (throwable is ModbusToolException) {
                 throw throwable
@@ -72,10 +90,12 @@ class J2modModbusTcpExecutor internal constructor(
                 "Modbus TCP 通信失败：service=${config.serviceId} host=${config.host}:${config.port} unit=${config.unitId}",
                 throwable,
             )
-        } finally {
-            runCatching { client.close() }
         }
     }
+
+    override fun close() {
+        pool.close()
+    }
 }
 
 /**
@@ -104,23 +124,34 @@ internal interface ToolModbusTcpClient : AutoCloseable {
 
     fun writeMultipleRegisters(address: Int, values: List<Int>)
 
+    /**
+     * 连接池复用空闲连接前的健康检查，返回 false 的连接会被丢弃。
+     */
+    fun isHealthy(): Boolean = true
+
     override fun close()
 }
 
-internal fun ModbusTcpEndpointConfig.toClientConfig(): ModbusTcpClientConfig {
+internal fun ModbusTcpEndpointConfig.toClientConfig(
+    reconnectPerRequest: Boolean = true,
+): ModbusTcpClientConfig {
     return ModbusTcpClientConfig(
         host = host,
         port = port,
         unitId = unitId,
         timeoutMs = timeoutMs.toInt(),
-        reconnectPerRequest = true,
+        reconnectPerRequest = reconnectPerRequest,
     )
 }
 
 private fun defaultToolModbusTcpClient(
     config: ModbusTcpEndpointConfig,
+    poolConfig: ModbusTcpPoolConfig,
 ): ToolModbusTcpClient {
-    return ToolModbusTcpClientAdapter(ModbusTcpClient(config.toClientConfig()))
+    if (poolConfig.enabled && poolConfig.pipelining) {
+        return PipelinedModbusTcpClient(config, poolConfig.maxInFlightPerConnection)
+    }
+    return ToolModbusTcpClientAdapter(ModbusTcpClient(config.toClientConfig(reconnectPerRequest = !poolConfig.enabled)))
 }
 
 private class ToolModbusTcpClientAdapter(
@@ -150,6 +181,8 @@ private class ToolModbusTcpClientAdapter(
         delegate.writeMultipleRegisters(address, values)
     }
 
+    override fun isHealthy(): Boolean = delegate.isConnected
+
     override fun close() {
         delegate.close()
     }
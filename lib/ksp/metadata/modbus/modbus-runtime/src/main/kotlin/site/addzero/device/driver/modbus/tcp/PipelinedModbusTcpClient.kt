@@ -0,0 +1,310 @@
+package site.addzero.device.driver.modbus.tcp
+
+import com.ghgande.j2mod.modbus.ModbusSlaveException
+import site.addzero.modbus.ModbusProtocolException
+import site.addzero.modbus.ModbusToolException
+import java.io.BufferedInputStream
+import java.io.DataInputStream
+import java.io.IOException
+import java.io.OutputStream
+import java.net.InetSocketAddress
+import java.net.Socket
+import java.util.concurrent.CompletableFuture
+import java.util.concurrent.ConcurrentHashMap
+import java.util.concurrent.ExecutionException
+import java.util.concurrent.Semaphore
+import java.util.concurrent.TimeUnit
+import java.util.concurrent.TimeoutException
+import java.util.concurrent.atomic.AtomicInteger
+import java.util.concurrent.locks.ReentrantLock
+import kotlin.concurrent.withLock
+
+/**
+ * 支持 MBAP 事务号流水线的 Modbus TCP 客户端。
+ *
+ * 多个线程可以同时在一条连接上发请求，读线程按事务号把响应交还给对应请求，
+ * 不要求从站按请求顺序应答。在途请求数受 [maxInFlight] 限制。
+ *
+ * 连接在首次请求时建立；读写失败或请求超时后连接作废，[isHealthy] 返回 false，由连接池换新连接。
+ */
+internal class PipelinedModbusTcpClient(
+    private val endpoint: ModbusTcpEndpointConfig,
+    maxInFlight: Int,
+) : ToolModbusTcpClient {
+    private val timeoutMs = endpoint.timeoutMs.coerceAtLeast(1)
+    private val window = Semaphore(maxInFlight.coerceAtLeast(1))
+    private val pending = ConcurrentHashMap<Int, CompletableFuture<ByteArray>>()
+    private val nextTransactionId = AtomicInteger()
+    private val writeLock = ReentrantLock()
+    private val connectLock = Any()
+
+    @Volatile
+    private var connection: Connection? = null
+
+    @Volatile
+    private var broken = false
+
+    @Volatile
+    private var closed = false
+
+    override fun readCoils(address: Int, quantity: Int): List<Boolean> =
+        readBits(FC_READ_COILS, address, quantity)
+
+    override fun readDiscreteInputs(address: Int, quantity: Int): List<Boolean> =
+        readBits(FC_READ_DISCRETE_INPUTS, address, quantity)
+
+    override fun readHoldingRegisters(address: Int, quantity: Int): List<Int> =
+        readRegisters(FC_READ_HOLDING_REGISTERS, address, quantity)
+
+    override fun readInputRegisters(address: Int, quantity: Int): List<Int> =
+        readRegisters(FC_READ_INPUT_REGISTERS, address, quantity)
+
+    override fun writeSingleCoil(address: Int, value: Boolean) {
+        request(FC_WRITE_SINGLE_COIL, pdu(FC_WRITE_SINGLE_COIL, address, if (value) 0xFF00 else 0x0000))
+    }
+
+    override fun writeMultipleCoils(address: Int, values: List<Boolean>) {
+        require(values.size in 1..MAX_WRITE_BITS) { "线圈数量必须在 1..$MAX_WRITE_BITS 之间：${values.size}" }
+        val packed = ByteArray((values.size + 7) / 8)
+        values.forEachIndexed { index, bit ->
+            if (bit) {
+                packed[index / 8] = (packed[index / 8].toInt() or (1 shl (index % 8))).toByte()
+            }
+        }
+        val header = pdu(FC_WRITE_MULTIPLE_COILS, address, values.size)
+        request(FC_WRITE_MULTIPLE_COILS, header + packed.size.toByte() + packed)
+    }
+
+    override fun writeSingleRegister(address: Int, value: Int) {
+        request(FC_WRITE_SINGLE_REGISTER, pdu(FC_WRITE_SINGLE_REGISTER, address, value and 0xFFFF))
+    }
+
+    override fun writeMultipleRegisters(address: Int, values: List<Int>) {
+        require(values.size in 1..MAX_WRITE_REGISTERS) { "寄存器数量必须在 1..$MAX_WRITE_REGISTERS 之间：${values.size}" }
+        val body = ByteArray(values.size * 2)
+        values.forEachIndexed { index, value ->
+            body[index * 2] = (value shr 8).toByte()
+            body[index * 2 + 1] = value.toByte()
+        }
+        val header = pdu(FC_WRITE_MULTIPLE_REGISTERS, address, values.size)
+        request(FC_WRITE_MULTIPLE_REGISTERS, header + body.size.toByte() + body)
+    }
+
+    override fun isHealthy(): Boolean = !closed && !broken
+
+    override fun close() {
+        closed = true
+        invalidate(IOException("连接已关闭"))
+    }
+
+    private fun readBits(functionCode: Int, address: Int, quantity: Int): List<Boolean> {
+        require(quantity in 1..MAX_READ_BITS) { "读取位数量必须在 1..$MAX_READ_BITS 之间：$quantity" }
+        val response = request(functionCode, pdu(functionCode, address, quantity))
+        expectLength(response, 2 + (quantity + 7) / 8)
+        return List(quantity) { index ->
+            (response[2 + index / 8].toInt() shr (index % 8)) and 1 == 1
+        }
+    }
+
+    private fun readRegisters(functionCode: Int, address: Int, quantity: Int): List<Int> {
+        require(quantity in 1..MAX_READ_REGISTERS) { "读取寄存器数量必须在 1..$MAX_READ_REGISTERS 之间：$quantity" }
+        val response = request(functionCode, pdu(functionCode, address, quantity))
+        expectLength(response, 2 + quantity * 2)
+        return List(quantity) { index ->
+            ((response[2 + index * 2].toInt() and 0xFF) shl 8) or (response[3 + index * 2].toInt() and 0xFF)
+        }
+    }
+
+    /**
+     * 发出请求并等待同一事务号的响应 PDU，从站异常响应转换为 [ModbusProtocolException]。
+     */
+    private fun request(functionCode: Int, pdu: ByteArray): ByteArray {
+        if (!window.tryAcquire(timeoutMs, TimeUnit.MILLISECONDS)) {
+            throw ModbusToolException("${describe()} 在途请求已满：${timeoutMs}ms 内没有空闲窗口")
+        }
+        try {
+            val output = connect()
+            val future = CompletableFuture<ByteArray>()
+            val transactionId = register(future)
+            if (broken) {
+                pending.remove(transactionId)
+                throw ModbusToolException("${describe()} 连接已失效")
+            }
+            try {
+                writeLock.withLock {
+                    output.write(frame(transactionId, pdu))
+                    output.flush()
+                }
+            } catch (e: IOException) {
+                invalidate(e)
+            }
+            val response = await(future, transactionId)
+            val responseCode = response[0].toInt() and 0xFF
+            if (responseCode == (functionCode or 0x80)) {
+                throw protocolException(functionCode, response)
+            }
+            if (responseCode != functionCode) {
+                throw ModbusToolException("${describe()} 响应功能码不匹配：期望 $functionCode，实际 $responseCode")
+            }
+            return response
+        } finally {
+            window.release()
+        }
+    }
+
+    private fun register(future: CompletableFuture<ByteArray>): Int {
+        while (true) {
+            val transactionId = nextTransactionId.getAndIncrement() and 0xFFFF
+            if (pending.putIfAbsent(transactionId, future) == null) {
+                return transactionId
+            }
+        }
+    }
+
+    private fun await(future: CompletableFuture<ByteArray>, transactionId: Int): ByteArray {
+        try {
+            return future.get(timeoutMs, TimeUnit.MILLISECONDS)
+        } catch (e: TimeoutException) {
+            pending.remove(transactionId)
+            // 超时的连接状态不可信，作废后由连接池重建
+            val failure = ModbusToolException("${describe()} 请求超时：${timeoutMs}ms 内未收到事务 $transactionId 的响应", e)
+            invalidate(failure)
+            throw failure
+        } catch (e: ExecutionException) {
+            throw ModbusToolException("${describe()} 通信失败", e.cause ?: e)
+        } catch (e: InterruptedException) {
+            pending.remove(transactionId)
+            Thread.currentThread().interrupt()
+            throw ModbusToolException("${describe()} 等待响应时被中断", e)
+        }
+    }
+
+    private fun connect(): OutputStream {
+        connection?.let { return it.output }
+        synchronized(connectLock) {
+            connection?.let { return it.output }
+            if (closed || broken) {
+                throw ModbusToolException("${describe()} 连接已失效")
+            }
+            val socket = Socket()
+            try {
+                socket.tcpNoDelay = true
+                socket.keepAlive = true
+                socket.connect(InetSocketAddress(endpoint.host, endpoint.port), timeoutMs.toInt())
+            } catch (e: IOException) {
+                runCatching { socket.close() }
+                broken = true
+                throw ModbusToolException("${describe()} 连接失败", e)
+            }
+            val input = DataInputStream(BufferedInputStream(socket.getInputStream()))
+            val reader = Thread({ readLoop(input) }, "modbus-tcp-reader-${endpoint.host}:${endpoint.port}").apply {
+                isDaemon = true
+            }
+            val opened = Connection(socket, socket.getOutputStream())
+            connection = opened
+            reader.start()
+            return opened.output
+        }
+    }
+
+    private fun readLoop(input: DataInputStream) {
+        try {
+            while (true) {
+                val transactionId = input.readUnsignedShort()
+                input.readUnsignedShort()
+                val length = input.readUnsignedShort()
+                input.readUnsignedByte()
+                if (length < 2 || length > MAX_MBAP_LENGTH) {
+                    throw IOException("非法的 MBAP 长度：$length")
+                }
+                val pdu = ByteArray(length - 1)
+                input.readFully(pdu)
+                // 已超时的事务找不到等待方，迟到的响应直接丢弃
+                pending.remove(transactionId)?.complete(pdu)
+            }
+        } catch (e: IOException) {
+            invalidate(e)
+        }
+    }
+
+    /**
+     * 作废当前连接，所有在途请求以 [cause] 失败。
+     */
+    private fun invalidate(cause: Throwable) {
+        broken = true
+        val current = synchronized(connectLock) {
+            connection.also { connection = null }
+        }
+        current?.let { runCatching { it.socket.close() } }
+        pending.keys.forEach { transactionId ->
+            pending.remove(transactionId)?.completeExceptionally(cause)
+        }
+    }
+
+    private fun protocolException(functionCode: Int, response: ByteArray): ModbusProtocolException {
+        val exceptionCode = if (response.size > 1) response[1].toInt() and 0xFF else 0
+        val exceptionName = ModbusSlaveException.getMessage(exceptionCode)
+        val function = functionCode.toString(16).uppercase().padStart(2, '0')
+        return ModbusProtocolException(
+            message = "${describe()} 请求失败；从站返回 Modbus 异常 $exceptionName (code=$exceptionCode, function=0x$function)",
+            functionCode = functionCode,
+            exceptionCode = exceptionCode,
+            exceptionName = exceptionName,
+        )
+    }
+
+    private fun expectLength(response: ByteArray, expected: Int) {
+        if (response.size < expected) {
+            throw ModbusToolException("${describe()} 响应长度不足：期望 $expected 字节，实际 ${response.size} 字节")
+        }
+    }
+
+    private fun frame(transactionId: Int, pdu: ByteArray): ByteArray {
+        val frame = ByteArray(MBAP_HEADER_SIZE + pdu.size)
+        frame[0] = (transactionId shr 8).toByte()
+        frame[1] = transactionId.toByte()
+        // frame[2..3] 协议号固定为 0
+        frame[4] = ((pdu.size + 1) shr 8).toByte()
+        frame[5] = (pdu.size + 1).toByte()
+        frame[6] = endpoint.unitId.toByte()
+        pdu.copyInto(frame, MBAP_HEADER_SIZE)
+        return frame
+    }
+
+    private fun pdu(functionCode: Int, address: Int, value: Int): ByteArray {
+        require(address in 0..0xFFFF) { "Modbus 地址超出范围：$address" }
+        return byteArrayOf(
+            functionCode.toByte(),
+            (address shr 8).toByte(),
+            address.toByte(),
+            (value shr 8).toByte(),
+            value.toByte(),
+        )
+    }
+
+    private fun describe(): String = "Modbus TCP ${endpoint.host}:${endpoint.port} unit=${endpoint.unitId}"
+
+    private class Connection(
+        val socket: Socket,
+        val output: OutputStream,
+    )
+
+    private companion object {
+        const val MBAP_HEADER_SIZE = 7
+        const val MAX_MBAP_LENGTH = 254
+
+        const val MAX_READ_BITS = 2000
+        const val MAX_READ_REGISTERS = 125
+        const val MAX_WRITE_BITS = 1968
+        const val MAX_WRITE_REGISTERS = 123
+
+        const val FC_READ_COILS = 0x01
+        const val FC_READ_DISCRETE_INPUTS = 0x02
+        const val FC_READ_HOLDING_REGISTERS = 0x03
+        const val FC_READ_INPUT_REGISTERS = 0x04
+        const val FC_WRITE_SINGLE_COIL = 0x05
+        const val FC_WRITE_SINGLE_REGISTER = 0x06
+        const val FC_WRITE_MULTIPLE_COILS = 0x0F
+        const val FC_WRITE_MULTIPLE_REGISTERS = 0x10
+    }
+}
@@ -0,0 +1,142 @@
+package site.addzero.device.driver.modbus.tcp
+
+import java.util.concurrent.TimeUnit
+import kotlin.test.AfterTest
+import kotlin.test.Test
+import kotlin.test.assertEquals
+import kotlin.test.assertFailsWith
+import kotlin.test.assertTrue
+import site.addzero.modbus.ModbusProtocolException
+
+class ModbusTcpConnectionPoolTest {
+    private var now = 0L
+    private val created = mutableListOf<CountingClient>()
+    private var nextFailure: (() -> Nothing)? = null
+    private val pool = ModbusTcpConnectionPool(
+        config = ModbusTcpPoolConfig(idleTimeoutMs = 1_000, reconnectBackoffInitialMs = 100),
+        metrics = ModbusTcpPoolMetrics.NOOP,
+        clientFactory = { CountingClient().also(created::add) },
+        nanoTime = { now },
+    )
+
+    @AfterTest
+    fun tearDown() {
+        pool.close()
+    }
+
+    @Test
+    fun `reuses one connection per endpoint across requests`() {
+        repeat(3) {
+            assertEquals(listOf(1, 2), pool.execute(endpoint) { it.readHoldingRegisters(0, 2) })
+        }
+
+        assertEquals(1, created.size)
+        val stats = pool.stats().single()
+        assertEquals(ModbusTcpPoolKey("10.0.0.1", 502, 1), stats.key)
+        assertEquals(1, stats.openConnections)
+        assertEquals(1, stats.idleConnections)
+        assertEquals(3, stats.requests)
+        assertEquals(0, stats.failures)
+    }
+
+    @Test
+    fun `keeps connection on protocol errors`() {
+        nextFailure = { throw ModbusProtocolException("busy", 0x03, 6, "Slave Device Busy") }
+        assertFailsWith<ModbusProtocolException> {
+            pool.execute(endpoint) { it.readHoldingRegisters(0, 2) }
+        }
+        pool.execute(endpoint) { it.readHoldingRegisters(0, 2) }
+
+        assertEquals(1, created.size)
+        assertEquals(false, created.single().closed)
+    }
+
+    @Test
+    fun `discards failed connection and backs off before reconnecting`() {
+        nextFailure = { error("offline") }
+        assertFailsWith<IllegalStateException> {
+            pool.execute(endpoint) { it.readHoldingRegisters(0, 2) }
+        }
+        assertTrue(created.single().closed)
+
+        val backoff = assertFailsWith<IllegalStateException> {
+            pool.execute(endpoint) { it.readHoldingRegisters(0, 2) }
+        }
+        assertTrue(backoff.message!!.contains("退避"))
+        assertEquals(1, created.size)
+
+        now += TimeUnit.MILLISECONDS.toNanos(150)
+        assertEquals(listOf(1, 2), pool.execute(endpoint) { it.readHoldingRegisters(0, 2) })
+        assertEquals(2, created.size)
+    }
+
+    @Test
+    fun `retries once on a fresh connection when a reused one turns out stale`() {
+        pool.execute(endpoint) { it.readHoldingRegisters(0, 2) }
+        nextFailure = { error("connection reset") }
+
+        assertEquals(listOf(1, 2), pool.execute(endpoint) { it.readHoldingRegisters(0, 2) })
+        assertEquals(2, created.size)
+        assertTrue(created.first().closed)
+    }
+
+    @Test
+    fun `evicts idle connections and skips unhealthy ones`() {
+        pool.execute(endpoint) { it.readHoldingRegisters(0, 2) }
+        now += TimeUnit.MILLISECONDS.toNanos(1_500)
+        pool.evictIdle()
+
+        assertTrue(created.single().closed)
+        assertEquals(0, pool.stats().single().openConnections)
+
+        pool.execute(endpoint) { it.readHoldingRegisters(0, 2) }
+        created.last().healthy = false
+        pool.execute(endpoint) { it.readHoldingRegisters(0, 2) }
+        assertEquals(3, created.size)
+        assertEquals(1, pool.stats().single().openConnections)
+    }
+
+    private inner class CountingClient : ToolModbusTcpClient {
+        var closed = false
+        var healthy = true
+
+        override fun readCoils(address: Int, quantity: Int): List<Boolean> = emptyList()
+
+        override fun readDiscreteInputs(address: Int, quantity: Int): List<Boolean> = emptyList()
+
+        override fun readHoldingRegisters(address: Int, quantity: Int): List<Int> {
+            nextFailure?.let { failure ->
+                nextFailure = null
+                failure()
+            }
+            return listOf(1, 2)
+        }
+
+        override fun readInputRegisters(address: Int, quantity: Int): List<Int> = emptyList()
+
+        override fun writeSingleCoil(address: Int, value: Boolean) = Unit
+
+        override fun writeMultipleCoils(address: Int, values: List<Boolean>) = Unit
+
+        override fun writeSingleRegister(address: Int, value: Int) = Unit
+
+        override fun writeMultipleRegisters(address: Int, values: List<Int>) = Unit
+
+        override fun isHealthy(): Boolean = healthy && !closed
+
+        override fun close() {
+            closed = true
+        }
+    }
+
+    private companion object {
+        val endpoint = ModbusTcpEndpointConfig(
+            serviceId = "tcp-pool",
+            host = "10.0.0.1",
+            port = 502,
+            unitId = 1,
+            timeoutMs = 500,
+            retries = 0,
+        )
+    }
+}
@@ -0,0 +1,95 @@
+package site.addzero.device.driver.modbus.tcp
+
+import java.io.DataInputStream
+import java.net.ServerSocket
+import java.util.concurrent.CompletableFuture
+import java.util.concurrent.TimeUnit
+import kotlin.concurrent.thread
+import kotlin.test.Test
+import kotlin.test.assertEquals
+import kotlin.test.assertFailsWith
+import kotlin.test.assertTrue
+import site.addzero.modbus.ModbusProtocolException
+
+class PipelinedModbusTcpClientTest {
+    @Test
+    fun `matches out of order responses by transaction id on one socket`() {
+        ServerSocket(0).use { server ->
+            // 收齐两个请求后倒序应答，每个寄存器的值等于请求地址
+            val serverThread = thread(isDaemon = true) {
+                server.accept().use { socket ->
+                    val input = DataInputStream(socket.getInputStream())
+                    val requests = List(2) { readFrame(input) }
+                    val output = socket.getOutputStream()
+                    requests.reversed().forEach { (transactionId, pdu) ->
+                        val address = ((pdu[1].toInt() and 0xFF) shl 8) or (pdu[2].toInt() and 0xFF)
+                        output.write(frame(transactionId, byteArrayOf(0x03, 2, (address shr 8).toByte(), address.toByte())))
+                    }
+                    output.flush()
+                    input.read()
+                }
+            }
+            PipelinedModbusTcpClient(endpoint(server.localPort), maxInFlight = 4).use { client ->
+                val first = CompletableFuture.supplyAsync { client.readHoldingRegisters(10, 1) }
+                val second = CompletableFuture.supplyAsync { client.readHoldingRegisters(20, 1) }
+
+                assertEquals(listOf(10), first.get(5, TimeUnit.SECONDS))
+                assertEquals(listOf(20), second.get(5, TimeUnit.SECONDS))
+                assertTrue(client.isHealthy())
+            }
+            serverThread.join(5_000)
+        }
+    }
+
+    @Test
+    fun `maps exception responses to protocol exceptions and keeps the socket`() {
+        ServerSocket(0).use { server ->
+            thread(isDaemon = true) {
+                server.accept().use { socket ->
+                    val input = DataInputStream(socket.getInputStream())
+                    val (transactionId, _) = readFrame(input)
+                    socket.getOutputStream().write(frame(transactionId, byteArrayOf(0x85.toByte(), 0x06)))
+                    input.read()
+                }
+            }
+            PipelinedModbusTcpClient(endpoint(server.localPort), maxInFlight = 1).use { client ->
+                val error = assertFailsWith<ModbusProtocolException> {
+                    client.writeSingleCoil(2, true)
+                }
+                assertEquals(0x05, error.functionCode)
+                assertEquals(6, error.exceptionCode)
+                assertTrue(client.isHealthy())
+            }
+        }
+    }
+
+    private fun readFrame(input: DataInputStream): Pair<Int, ByteArray> {
+        val transactionId = input.readUnsignedShort()
+        input.readUnsignedShort()
+        val length = input.readUnsignedShort()
+        input.readUnsignedByte()
+        val pdu = ByteArray(length - 1)
+        input.readFully(pdu)
+        return transactionId to pdu
+    }
+
+    private fun frame(transactionId: Int, pdu: ByteArray): ByteArray =
+        byteArrayOf(
+            (transactionId shr 8).toByte(),
+            transactionId.toByte(),
+            0,
+            0,
+            0,
+            (pdu.size + 1).toByte(),
+            1,
+        ) + pdu
+
+    private fun endpoint(port: Int) = ModbusTcpEndpointConfig(
+        serviceId = "tcp-pipeline",
+        host = "127.0.0.1",
+        port = port,
+        unitId = 1,
+        timeoutMs = 5_000,
+        retries = 0,
+    )
+}
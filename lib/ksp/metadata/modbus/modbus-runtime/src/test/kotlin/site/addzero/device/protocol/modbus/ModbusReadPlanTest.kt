@@ -0,0 +1,87 @@
+package site.addzero.device.protocol.modbus
+
+import kotlinx.coroutines.runBlocking
+import kotlin.test.Test
+import kotlin.test.assertEquals
+import kotlin.test.assertFailsWith
+import site.addzero.device.protocol.modbus.model.ModbusCodec
+import site.addzero.device.protocol.modbus.model.ModbusFunctionCode
+
+class ModbusReadPlanTest {
+    @Test
+    fun `merges contiguous points per function code`() {
+        val points =
+            (0 until 40).map { index ->
+                ModbusReadPoint("hr$index", ModbusFunctionCode.READ_HOLDING_REGISTERS, index * 2, 2)
+            } + listOf(
+                ModbusReadPoint("coil0", ModbusFunctionCode.READ_COILS, 0, 1),
+                ModbusReadPoint("coil1", ModbusFunctionCode.READ_COILS, 1, 1),
+            )
+
+        val plan = ModbusReadPlanner.plan(points)
+
+        assertEquals(42, plan.pointCount)
+        assertEquals(
+            listOf(
+                Triple(ModbusFunctionCode.READ_HOLDING_REGISTERS, 0, 80),
+                Triple(ModbusFunctionCode.READ_COILS, 0, 2),
+            ),
+            plan.batches.map { Triple(it.functionCode, it.address, it.quantity) },
+        )
+    }
+
+    @Test
+    fun `respects request limits and gap tolerance`() {
+        val points =
+            listOf(
+                ModbusReadPoint("a", ModbusFunctionCode.READ_INPUT_REGISTERS, 0, 100),
+                ModbusReadPoint("b", ModbusFunctionCode.READ_INPUT_REGISTERS, 100, 30),
+                ModbusReadPoint("c", ModbusFunctionCode.READ_INPUT_REGISTERS, 133, 2),
+            )
+
+        val strict = ModbusReadPlanner.plan(points)
+        assertEquals(listOf(0 to 100, 100 to 30, 133 to 2), strict.batches.map { it.address to it.quantity })
+
+        val tolerant = ModbusReadPlanner.plan(points, ModbusReadPlanOptions(registerGapTolerance = 3))
+        assertEquals(listOf(0 to 100, 100 to 35), tolerant.batches.map { it.address to it.quantity })
+    }
+
+    @Test
+    fun `slices batch responses back to each point`() = runBlocking {
+        val plan =
+            ModbusReadPlanner.plan(
+                listOf(
+                    ModbusReadPoint("temperature", ModbusFunctionCode.READ_HOLDING_REGISTERS, 10, 1),
+                    ModbusReadPoint("counter", ModbusFunctionCode.READ_HOLDING_REGISTERS, 13, 2),
+                ),
+                ModbusReadPlanOptions(registerGapTolerance = 2),
+            )
+        val requests = mutableListOf<Triple<ModbusFunctionCode, Int, Int>>()
+
+        val result =
+            plan.execute { functionCode, address, quantity ->
+                requests += Triple(functionCode, address, quantity)
+                List(quantity) { index -> address + index }
+            }
+
+        assertEquals(listOf(Triple(ModbusFunctionCode.READ_HOLDING_REGISTERS, 10, 5)), requests)
+        assertEquals(listOf(10), result["temperature"])
+        assertEquals(listOf(13, 14), result["counter"])
+        assertEquals(0x000D000E, ModbusCodecSupport.decodeInt(ModbusCodec.U32_BE, result["counter"], 0))
+    }
+
+    @Test
+    fun `rejects write function codes and duplicated keys`() {
+        assertFailsWith<IllegalArgumentException> {
+            ModbusReadPlanner.plan(listOf(ModbusReadPoint("w", ModbusFunctionCode.WRITE_SINGLE_COIL, 0, 1)))
+        }
+        assertFailsWith<IllegalArgumentException> {
+            ModbusReadPlanner.plan(
+                listOf(
+                    ModbusReadPoint("x", ModbusFunctionCode.READ_COILS, 0, 1),
+                    ModbusReadPoint("x", ModbusFunctionCode.READ_COILS, 1, 1),
+                ),
+            )
+        }
+    }
+}
@@ -7,9 +7,13 @@ import site.addzero.lsi.method.LsiMethod
 import site.addzero.lsi.reflection.anno.ClazzLsiAnnotation
 import site.addzero.lsi.reflection.field.ClazzLsiField
 import site.addzero.lsi.reflection.java.method.ClazzLsiMethod
+import java.util.Collections
 
 /**
  * 基于 Java Class 字节码的 LsiClass 实现
+ *
+ * 字段、方法、注解等在首次访问时计算一次并缓存为不可变列表；
+ * 通过 [of] 获取的实例按 Class 缓存在 [ClassValue] 中，同一个类在各处共享同一份快照，类卸载时随之回收。
  */
 class ClazzLsiClass(private val clazz: Class<*>) : LsiClass {
     override val simpleName: String?
@@ -21,11 +25,20 @@ class ClazzLsiClass(private val clazz: Class<*>) : LsiClass {
     override val comment: String?
         get() = null // 字节码中不包含注释信息
 
-    override val fields: List<LsiField>
-        get() = clazz.declaredFields.map { ClazzLsiField(it) }
+    override val fields: List<LsiField> by lazy(LazyThreadSafetyMode.PUBLICATION) {
+        immutable(clazz.declaredFields.map { ClazzLsiField(it) })
+    }
 
-    override val annotations: List<LsiAnnotation>
-        get() = clazz.annotations.map { ClazzLsiAnnotation(it) }
+    /**
+     * 按字段名索引的 [fields]
+     */
+    val fieldsByName: Map<String, LsiField> by lazy(LazyThreadSafetyMode.PUBLICATION) {
+        Collections.unmodifiableMap(fields.filter { it.name != null }.associateBy { it.name!! })
+    }
+
+    override val annotations: List<LsiAnnotation> by lazy(LazyThreadSafetyMode.PUBLICATION) {
+        immutable(clazz.annotations.map { ClazzLsiAnnotation(it) })
+    }
 
     override val isInterface: Boolean
         get() = clazz.isInterface
@@ -33,18 +46,54 @@ class ClazzLsiClass(private val clazz: Class<*>) : LsiClass {
     override val isEnum: Boolean
         get() = clazz.isEnum
 
-    override val isCollectionType: Boolean
-        get() = clazz.isCollectionType()
+    override val isCollectionType: Boolean by lazy(LazyThreadSafetyMode.PUBLICATION) {
+        clazz.isCollectionType()
+    }
+
+    override val isPojo: Boolean by lazy(LazyThreadSafetyMode.PUBLICATION) {
+        clazz.isPojo()
+    }
+
+    override val superClasses: List<LsiClass> by lazy(LazyThreadSafetyMode.PUBLICATION) {
+        clazz.superclass?.let { listOf(of(it)) } ?: emptyList()
+    }
+
+    override val interfaces: List<LsiClass> by lazy(LazyThreadSafetyMode.PUBLICATION) {
+        immutable(clazz.interfaces.map { of(it) })
+    }
+
+    override val methods: List<LsiMethod> by lazy(LazyThreadSafetyMode.PUBLICATION) {
+        immutable(clazz.declaredMethods.map { ClazzLsiMethod(it) })
+    }
+
+    /**
+     * 按名称查找本类声明的字段
+     */
+    fun findField(name: String): LsiField? = fieldsByName[name]
 
-    override val isPojo: Boolean
-        get() = clazz.isPojo()
+    override fun equals(other: Any?): Boolean = other is ClazzLsiClass && other.clazz == clazz
 
-    override val superClasses: List<LsiClass>
-        get() = clazz.superclass?.let { listOf(ClazzLsiClass(it)) } ?: emptyList()
+    override fun hashCode(): Int = clazz.hashCode()
 
-    override val interfaces: List<LsiClass>
-        get() = clazz.interfaces.map { ClazzLsiClass(it) }
+    override fun toString(): String = "ClazzLsiClass(${clazz.name})"
 
-    override val methods: List<LsiMethod>
-        get() = clazz.declaredMethods.map { ClazzLsiMethod(it) }
+    companion object {
+
+        private val CACHE = object : ClassValue<ClazzLsiClass>() {
+            override fun computeValue(type: Class<*>): ClazzLsiClass = ClazzLsiClass(type)
+        }
+
+        /**
+         * 获取 [clazz] 共享的缓存实例
+         */
+        @JvmStatic
+        fun of(clazz: Class<*>): ClazzLsiClass = CACHE.get(clazz)
+
+        private fun <T> immutable(list: List<T>): List<T> = Collections.unmodifiableList(list)
+    }
 }
+
+/**
+ * 获取当前类共享的 [LsiClass] 快照
+ */
+fun Class<*>.toLsiClass(): ClazzLsiClass = ClazzLsiClass.of(this)
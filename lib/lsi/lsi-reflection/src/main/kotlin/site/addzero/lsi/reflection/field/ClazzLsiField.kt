@@ -58,17 +58,17 @@ class ClazzLsiField(private val clazzField: Field) : LsiField {
   // 新增属性的实现
 
   override val declaringClass: LsiClass?
-    get() = clazzField.declaringClass?.let { clazz -> ClazzLsiClass(clazz) }
+    get() = clazzField.declaringClass?.let { clazz -> ClazzLsiClass.of(clazz) }
 
   override val fieldTypeClass: LsiClass?
-    get() = ClazzLsiClass(clazzField.type)
+    get() = ClazzLsiClass.of(clazzField.type)
 
   override val isNestedObject: Boolean
     get() = !clazzField.type.isPrimitive && clazzField.type != String::class.java
 
   override val children: List<LsiField>
     get() = if (isNestedObject) {
-      clazzField.type.declaredFields.map { ClazzLsiField(it) }
+      ClazzLsiClass.of(clazzField.type).fields
     } else {
       emptyList()
     }
@@ -41,7 +41,7 @@ class ClazzLsiMethod(private val clazzMethod: Method) : LsiMethod {
         get() = clazzMethod.parameters.map { ClazzLsiParameter(it) }
 
     override val declaringClass: LsiClass?
-        get() = ClazzLsiClass(clazzMethod.declaringClass)
+        get() = ClazzLsiClass.of(clazzMethod.declaringClass)
 }
 
 class ClazzLsiParameter(private val clazzParameter: Parameter) : LsiParameter {
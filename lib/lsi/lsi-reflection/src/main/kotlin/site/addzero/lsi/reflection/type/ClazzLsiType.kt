@@ -51,5 +51,5 @@ class ClazzLsiType(private val clazz: Class<*>) : LsiType {
         get() = clazz.isArray
 
     override val lsiClass: LsiClass?
-        get() = ClazzLsiClass(clazz)
+        get() = ClazzLsiClass.of(clazz)
 }
@@ -0,0 +1,66 @@
+package site.addzero.lsi.reflection.clazz
+
+import org.junit.jupiter.api.Assertions.assertEquals
+import org.junit.jupiter.api.Assertions.assertNotNull
+import org.junit.jupiter.api.Assertions.assertNull
+import org.junit.jupiter.api.Assertions.assertSame
+import org.junit.jupiter.api.Assertions.assertThrows
+import org.junit.jupiter.api.DisplayName
+import org.junit.jupiter.api.Test
+import site.addzero.lsi.reflection.field.ClazzLsiField
+
+/**
+ * 测试 ClazzLsiClass 缓存
+ */
+@DisplayName("ClazzLsiClass 缓存测试")
+class ClazzLsiClassTest {
+
+    open class Base
+
+    class User : Base(), Comparable<User> {
+        var id: Long = 0
+        var name: String? = null
+
+        override fun compareTo(other: User): Int = id.compareTo(other.id)
+    }
+
+    @Test
+    @DisplayName("同一个类共享同一个实例")
+    fun `of returns shared instance`() {
+        assertSame(ClazzLsiClass.of(User::class.java), ClazzLsiClass.of(User::class.java))
+        assertSame(ClazzLsiClass.of(User::class.java), User::class.java.toLsiClass())
+        assertSame(ClazzLsiClass.of(Base::class.java), ClazzLsiClass.of(User::class.java).superClasses.single())
+    }
+
+    @Test
+    @DisplayName("成员列表只计算一次且不可修改")
+    fun `members are memoized and immutable`() {
+        val lsiClass = ClazzLsiClass.of(User::class.java)
+
+        assertSame(lsiClass.fields, lsiClass.fields)
+        assertSame(lsiClass.methods, lsiClass.methods)
+        assertSame(lsiClass.interfaces, lsiClass.interfaces)
+        assertThrows(UnsupportedOperationException::class.java) {
+            (lsiClass.fields as MutableList<*>).clear()
+        }
+    }
+
+    @Test
+    @DisplayName("按字段名查找字段")
+    fun `find field by name`() {
+        val lsiClass = ClazzLsiClass.of(User::class.java)
+
+        assertNotNull(lsiClass.findField("name"))
+        assertEquals("name", lsiClass.findField("name")?.name)
+        assertSame(lsiClass.findField("id"), lsiClass.fieldsByName["id"])
+        assertNull(lsiClass.findField("missing"))
+    }
+
+    @Test
+    @DisplayName("字段的声明类复用缓存实例")
+    fun `field declaring class uses cache`() {
+        val field = ClazzLsiField(User::class.java.getDeclaredField("id"))
+
+        assertSame(ClazzLsiClass.of(User::class.java), field.declaringClass)
+    }
+}
@@ -0,0 +1,32 @@
+package site.addzero.mybatis.mputil
+
+import cn.hutool.core.util.ReflectUtil
+import java.lang.reflect.Field
+
+/**
+ * 按实体类缓存字段，避免比对时对每个实体重复反射查找 id 与唯一键字段
+ * @author zjarlin
+ */
+internal object EntityFieldCache {
+    private val fieldsByClass = object : ClassValue<Map<String, Field>>() {
+        override fun computeValue(type: Class<*>): Map<String, Field> {
+            val fields = LinkedHashMap<String, Field>()
+            // hutool 按子类到父类的顺序返回，子类字段优先
+            ReflectUtil.getFields(type).forEach { field ->
+                if (!fields.containsKey(field.name)) {
+                    field.isAccessible = true
+                    fields[field.name] = field
+                }
+            }
+            return fields
+        }
+    }
+
+    fun field(clazz: Class<*>, name: String): Field? = fieldsByClass.get(clazz)[name]
+
+    fun getValue(entity: Any, name: String): Any? = field(entity.javaClass, name)?.get(entity)
+
+    fun setValue(entity: Any, name: String, value: Any?) {
+        field(entity.javaClass, name)?.set(entity, value)
+    }
+}
@@ -20,8 +20,21 @@ interface EntityOps<T> {
     fun removeByIds(ids: Collection<Serializable>): Boolean
     fun removeByCondition(entity: T): Boolean
 
+    /**
+     * 批量比对使用的唯一键字段名（实体属性名）
+     * 返回空列表表示不支持批量比对，比对时逐条调用 [listBy]
+     */
+    fun uniqueKeyFields(): List<String> = emptyList()
+
+    /**
+     * 按唯一键批量查询：返回与 entities 中任一实体唯一键全部相等的记录
+     * 默认逐条调用 [listBy]，实现方应改为一次 IN / 元组查询
+     */
+    fun listByUniqueKeys(entities: Collection<T>): List<T> = entities.flatMap { listBy(it) }
+
     companion object {
         @JvmStatic
+        @JvmOverloads
         fun <T> of(
             entityClass: Class<T>,
             listBy: (T) -> List<T>,
@@ -33,7 +46,9 @@ interface EntityOps<T> {
             updateById: (T) -> Boolean,
             removeById: (Serializable) -> Boolean,
             removeByIds: (Collection<Serializable>) -> Boolean,
-            removeByCondition: (T) -> Boolean
+            removeByCondition: (T) -> Boolean,
+            uniqueKeyFields: List<String> = emptyList(),
+            listByUniqueKeys: ((Collection<T>) -> List<T>)? = null
         ): EntityOps<T> = object : EntityOps<T> {
             override val entityClass: Class<T> = entityClass
             override fun listBy(entity: T) = listBy(entity)
@@ -46,6 +61,9 @@ interface EntityOps<T> {
             override fun removeById(id: Serializable) = removeById(id)
             override fun removeByIds(ids: Collection<Serializable>) = removeByIds(ids)
             override fun removeByCondition(entity: T) = removeByCondition(entity)
+            override fun uniqueKeyFields() = uniqueKeyFields
+            override fun listByUniqueKeys(entities: Collection<T>) =
+                listByUniqueKeys?.invoke(entities) ?: entities.flatMap { listBy(it) }
         }
     }
 }
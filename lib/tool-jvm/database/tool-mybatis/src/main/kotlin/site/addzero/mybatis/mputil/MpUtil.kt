@@ -4,7 +4,8 @@ package site.addzero.mybatis.mputil
 import cn.hutool.core.bean.BeanUtil.copyProperties
 import cn.hutool.core.bean.copier.CopyOptions
 import cn.hutool.core.util.NumberUtil
-import cn.hutool.core.util.ReflectUtil
+import java.util.Collections
+import java.util.IdentityHashMap
 
 /**
  * 级联操作工具 - 通用版本（不依赖具体 ORM）
@@ -18,6 +19,19 @@ import cn.hutool.core.util.ReflectUtil
 object MpUtilConfig {
     @Volatile
     var idName: String = "id"
+
+    /**
+     * 是否启用批量比对：EntityOps 提供唯一键时，按块批量查询已存在记录并在内存中按唯一键匹配
+     * 注意数据库排序规则忽略大小写时，内存匹配仍区分大小写
+     */
+    @Volatile
+    var batchDiffEnabled: Boolean = false
+
+    /**
+     * 批量比对时每次 IN / 元组查询携带的实体数
+     */
+    @Volatile
+    var batchDiffChunkSize: Int = 500
 }
 
 // ==================== 核心逻辑（通用，接收 EntityOps） ====================
@@ -29,17 +43,18 @@ fun <P : Any> diffAndInter(collection: MutableCollection<P>, ops: EntityOps<P>):
     val ret = DiffAndInterResult<P>(mutableListOf(), mutableListOf())
     if (collection.isEmpty()) return ret
 
+    val existingOf = existingLookup(collection, ops)
+    val copyOptions: CopyOptions = CopyOptions.create()
+    copyOptions.setPropertiesFilter { field, value ->
+        val notId = MpUtilConfig.idName != field.name
+        val notEmpty = value != null && value.toString().isNotEmpty()
+        notId && notEmpty
+    }
     collection.forEach { e: P ->
-        val list = ops.listBy(e)
+        val list = existingOf(e)
         if (list.isEmpty()) {
             ret.diff.add(e)
         } else {
-            val copyOptions: CopyOptions = CopyOptions.create()
-            copyOptions.setPropertiesFilter { field, value ->
-                val notId = MpUtilConfig.idName != field.name
-                val notEmpty = value != null && value.toString().isNotEmpty()
-                notId && notEmpty
-            }
             list.forEach { copyProperties(e, it, copyOptions) }
             ret.inter.addAll(list)
         }
@@ -54,17 +69,12 @@ fun <P : Any> diffPairAndInter(collection: MutableCollection<P>, ops: EntityOps<
     val ret = DiffPairAndInterResult<P>(mutableListOf(), mutableListOf())
     if (collection.isEmpty()) return ret
 
+    val existingOf = existingLookup(collection, ops)
     collection.forEach { e: P ->
-        val list = ops.listBy(e)
+        val list = existingOf(e)
         if (list.isEmpty()) {
             ret.diff.add(e)
         } else {
-            val copyOptions = CopyOptions.create()
-            copyOptions.setPropertiesFilter { field, value ->
-                val notId = MpUtilConfig.idName != field.name
-                val notEmpty = value != null && value.toString().isNotEmpty()
-                notId && notEmpty
-            }
             val collect = list.map { sjk -> InterPair(e, sjk) }
             ret.interPairs.addAll(collect)
         }
@@ -86,10 +96,9 @@ fun <P : Any> compareSaveOrUpdate(p: P, ops: EntityOps<P>): P? {
 fun <P : Any> compareSaveOrUpdate(collection: MutableCollection<P>, ops: EntityOps<P>): CompareSaveOrUpdateResult<P> {
     if (collection.isEmpty()) return CompareSaveOrUpdateResult.empty()
 
+    val idName = MpUtilConfig.idName
     val (withId, withoutId) = collection.partition { entity ->
-        val field = ReflectUtil.getField(entity.javaClass, MpUtilConfig.idName)
-        field?.isAccessible = true
-        val idValue = field?.get(entity)
+        val idValue = EntityFieldCache.getValue(entity, idName)
         idValue != null && idValue.toString().isNotEmpty()
     }
 
@@ -109,11 +118,7 @@ fun <P : Any> compareSaveOrUpdate(collection: MutableCollection<P>, ops: EntityO
         val inter = diffAndInterResult.inter
 
         if (diff.isNotEmpty()) {
-            diff.forEach {
-                val field = ReflectUtil.getField(it.javaClass, MpUtilConfig.idName)
-                field?.isAccessible = true
-                ReflectUtil.setFieldValue(it, field, null)
-            }
+            diff.forEach { EntityFieldCache.setValue(it, idName, null) }
             insertSuccess = ops.saveBatch(diff)
             toInsert.addAll(diff)
         }
@@ -148,9 +153,38 @@ fun <P : Any> compareSaveOrUpdate(collection: MutableCollection<P>, ops: EntityO
  */
 fun <P : Any> filterNotExists(collection: MutableCollection<P>, ops: EntityOps<P>): MutableCollection<P> {
     if (collection.isEmpty()) return mutableListOf()
-    return collection.filter { ops.countBy(it) <= 0 }.toMutableSet()
+    if (!supportsBatchDiff(ops)) return collection.filter { ops.countBy(it) <= 0 }.toMutableSet()
+    val existingOf = existingLookup(collection, ops)
+    return collection.filter { existingOf(it).isEmpty() }.toMutableSet()
 }
 
+// ==================== 批量比对 ====================
+
+private fun <P : Any> supportsBatchDiff(ops: EntityOps<P>): Boolean =
+    MpUtilConfig.batchDiffEnabled && ops.uniqueKeyFields().isNotEmpty()
+
+/**
+ * 构建"实体 -> 数据库已存在记录"的查找函数
+ * 批量模式下唯一键齐全的实体按块一次性查出并按唯一键哈希匹配，唯一键缺失的实体仍逐条 listBy
+ */
+private fun <P : Any> existingLookup(collection: Collection<P>, ops: EntityOps<P>): (P) -> List<P> {
+    if (!supportsBatchDiff(ops)) return { ops.listBy(it) }
+    val keyFields = ops.uniqueKeyFields()
+    val keyOf = { entity: P -> keyFields.map { EntityFieldCache.getValue(entity, it) } }
+    val keyed = collection.filter { entity ->
+        keyOf(entity).none { it == null || (it is CharSequence && it.isEmpty()) }
+    }
+    val index = HashMap<List<Any?>, MutableList<P>>(keyed.size * 2)
+    keyed.distinctBy(keyOf).chunked(MpUtilConfig.batchDiffChunkSize.coerceAtLeast(1)).forEach { chunk ->
+        ops.listByUniqueKeys(chunk).forEach { row -> index.getOrPut(keyOf(row)) { mutableListOf() }.add(row) }
+    }
+    val keyedSet = keyed.toIdentitySet()
+    return { entity -> if (entity in keyedSet) index[keyOf(entity)].orEmpty() else ops.listBy(entity) }
+}
+
+private fun <P> Collection<P>.toIdentitySet(): Set<P> =
+    Collections.newSetFromMap(IdentityHashMap<P, Boolean>(size * 2)).also { it.addAll(this) }
+
 // ==================== MP 特化便捷方法（自动推导 IService） ====================
 
 /**
@@ -7,7 +7,9 @@ import com.baomidou.mybatisplus.core.toolkit.Wrappers
 import com.baomidou.mybatisplus.core.toolkit.support.SFunction
 import com.baomidou.mybatisplus.extension.service.IService
 import site.addzero.mybatis.auto_wrapper.AutoWhereUtil
+import site.addzero.mybatis.auto_wrapper.CreateSFunctionUtil
 import site.addzero.mybatis.auto_wrapper.Where
+import site.addzero.mybatis.auto_wrapper.Wheres
 import site.addzero.util.spring.getBean
 import java.io.Serializable
 import java.lang.reflect.Field
@@ -43,6 +45,7 @@ fun <T : Any> IService<T>.toEntityOps(): EntityOps<T> {
     val service = this
     val clazz = service.entityClass
     val byAnno = isByAnno(clazz)
+    val uniqueKeys = if (byAnno) resolveUniqueKeys(clazz) else emptyList()
 
     return object : EntityOps<T> {
         override val entityClass: Class<T> = clazz
@@ -72,7 +75,58 @@ fun <T : Any> IService<T>.toEntityOps(): EntityOps<T> {
             else AutoWhereUtil.lambdaQueryByField(clazz, entity, true)
             return service.remove(wrapper)
         }
+
+        override fun uniqueKeyFields(): List<String> = uniqueKeys.map { it.fieldName }
+
+        override fun listByUniqueKeys(entities: Collection<T>): List<T> {
+            if (entities.isEmpty()) return emptyList()
+            if (uniqueKeys.isEmpty()) return entities.flatMap { listBy(it) }
+            val wrapper = Wrappers.lambdaQuery<T>()
+            if (uniqueKeys.size == 1) {
+                val key = uniqueKeys.single()
+                wrapper.`in`(key.column, entities.map { EntityFieldCache.getValue(it, key.fieldName) }.distinct())
+            } else {
+                wrapper.and { tuples ->
+                    entities.forEachIndexed { index, entity ->
+                        if (index > 0) tuples.or()
+                        tuples.nested { tuple ->
+                            uniqueKeys.forEach { key -> tuple.eq(key.column, EntityFieldCache.getValue(entity, key.fieldName)) }
+                        }
+                    }
+                }
+            }
+            return service.list(wrapper) ?: emptyList()
+        }
+    }
+}
+
+/**
+ * 批量比对使用的唯一键列
+ */
+private class UniqueKeyColumn<T>(
+    val fieldName: String,
+    val column: SFunction<T, *>
+)
+
+/**
+ * 从 @Where 注解推导唯一键：仅当所有注解字段都是单个、无 join/ignore/condition 的等值条件时才可批量比对，
+ * 否则返回空列表，保持逐条 listBy 的原有语义
+ */
+private fun <T : Any> resolveUniqueKeys(clazz: Class<T>): List<UniqueKeyColumn<T>> {
+    val fields = ReflectUtil.getFields(clazz).filter { field ->
+        field.isAnnotationPresent(Where::class.java) || field.isAnnotationPresent(Wheres::class.java)
+    }
+    if (fields.isEmpty()) return emptyList()
+    val keys = mutableListOf<UniqueKeyColumn<T>>()
+    for (field in fields) {
+        if (field.isAnnotationPresent(Wheres::class.java)) return emptyList()
+        val where = field.getAnnotation(Where::class.java)
+        val simpleEq = where.value == "=" && !where.join && !where.ignore && where.condition.isBlank()
+        if (!simpleEq) return emptyList()
+        val column = CreateSFunctionUtil.createSFunction(clazz, where.column.ifBlank { field.name }) ?: return emptyList()
+        keys += UniqueKeyColumn(field.name, column)
     }
+    return keys
 }
 
 /**
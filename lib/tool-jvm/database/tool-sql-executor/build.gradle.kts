@@ -1,5 +1,6 @@
 plugins {
     id("site.addzero.buildlogic.jvm.kotlin-convention") 
+    id("me.champeau.jmh") version "0.7.3"
 }
 val libs = versionCatalogs.named("libs")
 
@@ -25,4 +26,5 @@ dependencies {
 
     testImplementation(libs.findLibrary("com-h2database-h2").get())
     testImplementation(libs.findLibrary("org-xerial-sqlite-jdbc-v3").get())
+    jmh(libs.findLibrary("org-xerial-sqlite-jdbc-v3").get())
 }
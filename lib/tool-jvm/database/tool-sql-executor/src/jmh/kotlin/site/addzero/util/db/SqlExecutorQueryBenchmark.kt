@@ -0,0 +1,94 @@
+package site.addzero.util.db
+
+import org.openjdk.jmh.annotations.Benchmark
+import org.openjdk.jmh.annotations.BenchmarkMode
+import org.openjdk.jmh.annotations.Fork
+import org.openjdk.jmh.annotations.Level
+import org.openjdk.jmh.annotations.Measurement
+import org.openjdk.jmh.annotations.Mode
+import org.openjdk.jmh.annotations.OutputTimeUnit
+import org.openjdk.jmh.annotations.Param
+import org.openjdk.jmh.annotations.Scope
+import org.openjdk.jmh.annotations.Setup
+import org.openjdk.jmh.annotations.State
+import org.openjdk.jmh.annotations.TearDown
+import org.openjdk.jmh.annotations.Warmup
+import org.openjdk.jmh.infra.Blackhole
+import java.util.concurrent.TimeUnit
+
+/**
+ * 对比 queryForList 全量装载与 queryStream 游标读取（SQLite 内存库）。
+ *
+ * 运行：`./gradlew :lib:tool-jvm:database:tool-sql-executor:jmh`
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+open class SqlExecutorQueryBenchmark {
+
+    @Param("10000", "100000")
+    var rows: Int = 0
+
+    private lateinit var executor: SqlExecutor
+
+    @Setup(Level.Trial)
+    fun setUp() {
+        executor = SqlExecutor("jdbc:sqlite::memory:")
+        executor.execute(
+            """
+            CREATE TABLE performance_test (
+                id INTEGER PRIMARY KEY,
+                data TEXT,
+                value INTEGER,
+                amount REAL
+            )
+            """.trimIndent(),
+        )
+        executor.withTransaction { connection ->
+            executor.batchUpdate(
+                connection,
+                "INSERT INTO performance_test(id, data, value, amount) VALUES (?, ?, ?, ?)",
+                (1..rows).map { index -> listOf(index, "Test data $index", index * 10, index / 3.0) },
+            )
+        }
+    }
+
+    @TearDown(Level.Trial)
+    fun tearDown() {
+        executor.close()
+    }
+
+    @Benchmark
+    fun queryForList(blackhole: Blackhole) {
+        executor.queryForList("SELECT id, data, value, amount FROM performance_test").forEach { row ->
+            blackhole.consume(row["value"])
+        }
+    }
+
+    @Benchmark
+    fun queryStreamMap(blackhole: Blackhole) {
+        executor.queryStream("SELECT id, data, value, amount FROM performance_test", mapper = RowMapper.MAP) { rows ->
+            rows.forEach { row -> blackhole.consume(row["value"]) }
+        }
+    }
+
+    @Benchmark
+    fun queryStreamIndexed(blackhole: Blackhole) {
+        executor.queryStream(
+            "SELECT id, data, value, amount FROM performance_test",
+            mapper = { resultSet, columns -> resultSet.getLong(columns.indexOf("value")) },
+        ) { rows ->
+            rows.forEach { value -> blackhole.consume(value) }
+        }
+    }
+
+    @Benchmark
+    fun queryStreamArray(blackhole: Blackhole) {
+        executor.queryStream("SELECT id, data, value, amount FROM performance_test", mapper = RowMapper.ARRAY) { rows ->
+            rows.forEach { values -> blackhole.consume(values[2]) }
+        }
+    }
+}
@@ -0,0 +1,59 @@
+package site.addzero.util.db
+
+/**
+ * 批量写入选项。
+ *
+ * @property chunkRows 每个分块最多包含的行数
+ * @property chunkBytes 每个分块参数的估算字节上限，达到任一上限即切块
+ * @property rewriteMultiRowInsert 是否把单行 `INSERT ... VALUES (?, ?)` 改写为多行 VALUES（仅支持的方言生效）
+ * @property parallelism 并行写入的连接数，大于 1 时每个工作线程独占一条连接并按块提交
+ * @property commitPerChunk 自动提交连接上是否每块提交一次；已处于事务中的连接不受影响
+ * @property statementCacheSize 每条连接缓存的 PreparedStatement 数量
+ */
+data class BatchOptions(
+    val chunkRows: Int = DEFAULT_CHUNK_ROWS,
+    val chunkBytes: Long = DEFAULT_CHUNK_BYTES,
+    val rewriteMultiRowInsert: Boolean = false,
+    val parallelism: Int = 1,
+    val commitPerChunk: Boolean = true,
+    val statementCacheSize: Int = DEFAULT_STATEMENT_CACHE_SIZE,
+) {
+    init {
+        require(chunkRows > 0) { "chunkRows must be positive: $chunkRows" }
+        require(chunkBytes > 0) { "chunkBytes must be positive: $chunkBytes" }
+        require(parallelism > 0) { "parallelism must be positive: $parallelism" }
+        require(statementCacheSize > 0) { "statementCacheSize must be positive: $statementCacheSize" }
+    }
+
+    companion object {
+        const val DEFAULT_CHUNK_ROWS = 1000
+        const val DEFAULT_CHUNK_BYTES = 4L * 1024 * 1024
+        const val DEFAULT_STATEMENT_CACHE_SIZE = 32
+    }
+}
+
+/**
+ * 批量写入结果。
+ *
+ * @property rows 提交的参数行数
+ * @property chunks 实际执行的分块数
+ * @property affectedRows 驱动返回的受影响行数之和，驱动返回 SUCCESS_NO_INFO 时不计入
+ */
+data class BatchResult(
+    val rows: Long,
+    val chunks: Int,
+    val affectedRows: Long,
+) {
+    operator fun plus(other: BatchResult): BatchResult {
+        return BatchResult(
+            rows = rows + other.rows,
+            chunks = chunks + other.chunks,
+            affectedRows = affectedRows + other.affectedRows,
+        )
+    }
+
+    companion object {
+        @JvmField
+        val EMPTY = BatchResult(rows = 0, chunks = 0, affectedRows = 0)
+    }
+}
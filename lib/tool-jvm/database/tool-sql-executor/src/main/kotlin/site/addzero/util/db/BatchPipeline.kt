@@ -0,0 +1,300 @@
+package site.addzero.util.db
+
+import java.sql.Connection
+import java.sql.PreparedStatement
+import java.sql.SQLException
+import java.sql.Statement
+import java.util.concurrent.ArrayBlockingQueue
+import java.util.concurrent.TimeUnit
+import java.util.concurrent.atomic.AtomicReference
+
+/**
+ * 把参数行按行数和估算字节数切块。
+ */
+internal fun forEachBatchChunk(
+    rows: Iterator<List<Any?>>,
+    options: BatchOptions,
+    consumer: (List<List<Any?>>) -> Unit,
+) {
+    var chunk = ArrayList<List<Any?>>(minOf(options.chunkRows, 1024))
+    var chunkBytes = 0L
+    while (rows.hasNext()) {
+        val row = rows.next()
+        chunk += row
+        chunkBytes += estimateRowBytes(row)
+        if (chunk.size >= options.chunkRows || chunkBytes >= options.chunkBytes) {
+            consumer(chunk)
+            chunk = ArrayList(minOf(options.chunkRows, 1024))
+            chunkBytes = 0L
+        }
+    }
+    if (chunk.isNotEmpty()) {
+        consumer(chunk)
+    }
+}
+
+private fun estimateRowBytes(row: List<Any?>): Long {
+    var bytes = 0L
+    for (value in row) {
+        bytes += when (value) {
+            null -> 1
+            is CharSequence -> value.length.toLong() * 2
+            is ByteArray -> value.size.toLong()
+            is Number, is Boolean -> 8
+            else -> 16
+        }
+    }
+    return bytes
+}
+
+/**
+ * 单行 `INSERT ... VALUES (?, ...)` 的多行改写模板。
+ */
+internal class MultiRowInsertTemplate private constructor(
+    private val prefix: String,
+    private val tuple: String,
+    private val maxRowsPerStatement: Int,
+) {
+    /**
+     * 一条语句最多可容纳的行数。
+     */
+    fun rowsPerStatement(chunkRows: Int): Int {
+        return maxOf(1, minOf(chunkRows, maxRowsPerStatement))
+    }
+
+    fun sqlFor(rowCount: Int): String {
+        val builder = StringBuilder(prefix.length + (tuple.length + 1) * rowCount + 1)
+        builder.append(prefix).append(' ')
+        repeat(rowCount) { index ->
+            if (index > 0) {
+                builder.append(',')
+            }
+            builder.append(tuple)
+        }
+        return builder.toString()
+    }
+
+    companion object {
+        private val INSERT_VALUES = Regex("""(?is)^\s*(insert\s+into\s+.+?\s+values)\s*(\(\s*\?(?:\s*,\s*\?)*\s*\))\s*;?\s*$""")
+
+        /**
+         * 解析可改写的 SQL 和方言，不支持时返回 null，调用方回退到普通 JDBC 批处理。
+         */
+        fun resolve(
+            connection: Connection,
+            sql: String,
+        ): MultiRowInsertTemplate? {
+            val match = INSERT_VALUES.matchEntire(sql) ?: return null
+            val prefix = match.groupValues[1]
+            val tuple = match.groupValues[2]
+            val columns = tuple.count { char -> char == '?' }
+            val limits = dialectLimits(connection.metaData.url.orEmpty()) ?: return null
+            val maxRows = minOf(limits.maxRows, limits.maxParams / columns)
+            if (maxRows < 2) {
+                return null
+            }
+            return MultiRowInsertTemplate(prefix, tuple, maxRows)
+        }
+
+        private fun dialectLimits(jdbcUrl: String): DialectLimits? {
+            return when {
+                jdbcUrl.startsWith("jdbc:mysql") ||
+                    jdbcUrl.startsWith("jdbc:mariadb") ||
+                    jdbcUrl.startsWith("jdbc:oceanbase") ||
+                    jdbcUrl.startsWith("jdbc:tidb") -> DialectLimits(maxParams = 65535, maxRows = Int.MAX_VALUE)
+
+                jdbcUrl.startsWith("jdbc:postgresql") ||
+                    jdbcUrl.startsWith("jdbc:kingbase8") -> DialectLimits(maxParams = 32767, maxRows = Int.MAX_VALUE)
+
+                jdbcUrl.startsWith("jdbc:h2") -> DialectLimits(maxParams = 65535, maxRows = Int.MAX_VALUE)
+                jdbcUrl.startsWith("jdbc:sqlite") -> DialectLimits(maxParams = 999, maxRows = Int.MAX_VALUE)
+                jdbcUrl.startsWith("jdbc:sqlserver") -> DialectLimits(maxParams = 2100, maxRows = 1000)
+                else -> null
+            }
+        }
+    }
+
+    private data class DialectLimits(
+        val maxParams: Int,
+        val maxRows: Int,
+    )
+}
+
+/**
+ * 在单条连接上写入分块，语句通过 [PreparedStatementCache] 复用。
+ */
+internal class BatchChunkWriter(
+    connection: Connection,
+    private val sql: String,
+    private val options: BatchOptions,
+    private val statementCache: PreparedStatementCache,
+) {
+    private val multiRowTemplate = if (options.rewriteMultiRowInsert) {
+        MultiRowInsertTemplate.resolve(connection, sql)
+    } else {
+        null
+    }
+
+    /**
+     * 写入一个分块，返回驱动给出的更新计数。
+     */
+    @Throws(SQLException::class)
+    fun write(chunk: List<List<Any?>>): IntArray {
+        val template = multiRowTemplate ?: return writeBatch(chunk)
+        val rowsPerStatement = template.rowsPerStatement(options.chunkRows)
+        val fullStatements = chunk.size / rowsPerStatement
+        val remainder = chunk.size % rowsPerStatement
+        val counts = ArrayList<Int>(fullStatements + 1)
+        if (fullStatements > 0) {
+            val statement = statementCache.prepare(template.sqlFor(rowsPerStatement))
+            for (group in 0 until fullStatements) {
+                statement.bindRows(chunk, group * rowsPerStatement, rowsPerStatement)
+                statement.addBatch()
+            }
+            statement.executeBatch().forEach { count -> counts += count }
+        }
+        if (remainder > 0) {
+            val statement = statementCache.prepare(template.sqlFor(remainder))
+            statement.bindRows(chunk, fullStatements * rowsPerStatement, remainder)
+            counts += statement.executeUpdate()
+        }
+        return counts.toIntArray()
+    }
+
+    private fun writeBatch(chunk: List<List<Any?>>): IntArray {
+        val statement = statementCache.prepare(sql)
+        chunk.forEach { params ->
+            params.forEachIndexed { index, value ->
+                statement.setObject(index + 1, value)
+            }
+            statement.addBatch()
+        }
+        return statement.executeBatch()
+    }
+
+    private fun PreparedStatement.bindRows(
+        rows: List<List<Any?>>,
+        fromIndex: Int,
+        count: Int,
+    ) {
+        var parameterIndex = 1
+        for (rowIndex in fromIndex until fromIndex + count) {
+            rows[rowIndex].forEach { value ->
+                setObject(parameterIndex++, value)
+            }
+        }
+    }
+}
+
+/**
+ * 统计更新计数：SUCCESS_NO_INFO 不计入，EXECUTE_FAILED 直接抛错。
+ */
+internal fun IntArray.affectedRows(): Long {
+    var total = 0L
+    for (count in this) {
+        if (count > 0) {
+            total += count
+        } else if (count == Statement.EXECUTE_FAILED) {
+            throw SQLException("Batch statement reported EXECUTE_FAILED")
+        }
+    }
+    return total
+}
+
+/**
+ * 按块并行写入：调用线程负责切块，[BatchOptions.parallelism] 个工作线程各自持有一条连接，
+ * 每块独立提交。待写队列有界，读取速度快于写入时调用线程会被阻塞。
+ */
+internal class ParallelBatchLoader(
+    private val connectionFactory: () -> Connection,
+    private val sql: String,
+    private val options: BatchOptions,
+) {
+    private val queue = ArrayBlockingQueue<List<List<Any?>>>(options.parallelism * 2)
+    private val failure = AtomicReference<Throwable?>()
+
+    fun load(rows: Iterator<List<Any?>>): BatchResult {
+        val results = arrayOfNulls<BatchResult>(options.parallelism)
+        val workers = List(options.parallelism) { workerIndex ->
+            Thread({ results[workerIndex] = runWorker() }, "sql-batch-loader-$workerIndex").apply {
+                isDaemon = true
+                start()
+            }
+        }
+        try {
+            forEachBatchChunk(rows, options) { chunk ->
+                while (failure.get() == null) {
+                    if (queue.offer(chunk, 100, TimeUnit.MILLISECONDS)) {
+                        return@forEachBatchChunk
+                    }
+                }
+                throw failure.get()!!
+            }
+        } catch (error: Throwable) {
+            failure.compareAndSet(null, error)
+        } finally {
+            workers.forEach { _ ->
+                while (!queue.offer(END_OF_INPUT, 100, TimeUnit.MILLISECONDS)) {
+                    if (workers.none(Thread::isAlive)) {
+                        break
+                    }
+                }
+            }
+            workers.forEach(Thread::join)
+        }
+        failure.get()?.let { error -> throw error }
+        return results.fold(BatchResult.EMPTY) { total, result -> total + (result ?: BatchResult.EMPTY) }
+    }
+
+    private fun runWorker(): BatchResult {
+        var result = BatchResult.EMPTY
+        var reachedEnd = false
+        try {
+            connectionFactory().use { connection ->
+                val originalAutoCommit = connection.autoCommit
+                connection.autoCommit = false
+                try {
+                    PreparedStatementCache(connection, options.statementCacheSize).use { statementCache ->
+                        val writer = BatchChunkWriter(connection, sql, options, statementCache)
+                        while (true) {
+                            val chunk = queue.take()
+                            if (chunk === END_OF_INPUT) {
+                                reachedEnd = true
+                                break
+                            }
+                            if (failure.get() != null) {
+                                continue
+                            }
+                            try {
+                                val counts = writer.write(chunk)
+                                connection.commit()
+                                result += BatchResult(chunk.size.toLong(), 1, counts.affectedRows())
+                            } catch (error: Throwable) {
+                                connection.rollback()
+                                failure.compareAndSet(null, error)
+                            }
+                        }
+                    }
+                } finally {
+                    connection.autoCommit = originalAutoCommit
+                }
+            }
+        } catch (error: Throwable) {
+            failure.compareAndSet(null, error)
+            if (!reachedEnd) {
+                drainUntilEnd()
+            }
+        }
+        return result
+    }
+
+    private fun drainUntilEnd() {
+        while (queue.take() !== END_OF_INPUT) {
+            // 连接不可用时继续消费，避免调用线程阻塞在满队列上
+        }
+    }
+
+    private companion object {
+        val END_OF_INPUT: List<List<Any?>> = ArrayList(0)
+    }
+}
@@ -0,0 +1,72 @@
+package site.addzero.util.db
+
+import java.sql.Connection
+import java.sql.PreparedStatement
+import java.sql.SQLException
+
+/**
+ * 单连接上的 PreparedStatement LRU 缓存。
+ *
+ * 与所属连接同生命周期，且和 JDBC 连接一样不支持多线程并发使用。
+ */
+class PreparedStatementCache(
+    private val connection: Connection,
+    private val maxSize: Int = BatchOptions.DEFAULT_STATEMENT_CACHE_SIZE,
+) : AutoCloseable {
+    private val statements = object : LinkedHashMap<String, PreparedStatement>(16, 0.75f, true) {
+        override fun removeEldestEntry(eldest: MutableMap.MutableEntry<String, PreparedStatement>): Boolean {
+            if (size <= maxSize) {
+                return false
+            }
+            eldest.value.closeQuietly()
+            return true
+        }
+    }
+
+    init {
+        require(maxSize > 0) { "maxSize must be positive: $maxSize" }
+    }
+
+    /**
+     * 当前缓存的语句数量。
+     */
+    val size: Int
+        get() = statements.size
+
+    /**
+     * 是否属于指定连接。
+     */
+    fun isBoundTo(connection: Connection): Boolean {
+        return this.connection === connection
+    }
+
+    /**
+     * 获取或预编译 SQL 对应的语句，返回前清理上一次遗留的参数和批次。
+     */
+    @Throws(SQLException::class)
+    fun prepare(sql: String): PreparedStatement {
+        val cached = statements[sql]
+        if (cached != null && !cached.isClosed) {
+            cached.clearParameters()
+            cached.clearBatch()
+            return cached
+        }
+        return connection.prepareStatement(sql).also { statement ->
+            statements[sql] = statement
+        }
+    }
+
+    override fun close() {
+        statements.values.forEach { statement ->
+            statement.closeQuietly()
+        }
+        statements.clear()
+    }
+
+    private fun PreparedStatement.closeQuietly() {
+        try {
+            close()
+        } catch (_: SQLException) {
+        }
+    }
+}
@@ -0,0 +1,131 @@
+package site.addzero.util.db
+
+import java.sql.ResultSet
+import java.sql.ResultSetMetaData
+
+/**
+ * 结果集列索引。
+ *
+ * 在拿到 ResultSet 后只解析一次 [ResultSetMetaData]，
+ * 之后每行只需要按下标填充，不再重复读取元数据和列标签。
+ */
+class ResultSetColumns private constructor(
+    private val labels: Array<String>,
+) {
+    private val indexByLabel: Map<String, Int> = HashMap<String, Int>(labels.size * 2).apply {
+        labels.forEachIndexed { index, label ->
+            putIfAbsent(label, index + 1)
+        }
+    }
+    private val indexByUpperLabel: Map<String, Int> = HashMap<String, Int>(labels.size * 2).apply {
+        labels.forEachIndexed { index, label ->
+            putIfAbsent(label.uppercase(), index + 1)
+        }
+    }
+
+    /**
+     * 列数量。
+     */
+    val size: Int
+        get() = labels.size
+
+    /**
+     * 按结果集顺序返回的列标签。
+     */
+    val columnLabels: List<String>
+        get() = labels.asList()
+
+    /**
+     * 返回指定下标（从 1 开始）的列标签。
+     */
+    fun labelAt(index: Int): String {
+        return labels[index - 1]
+    }
+
+    /**
+     * 按列标签查找 JDBC 列下标（从 1 开始），先精确匹配，再忽略大小写匹配。
+     */
+    fun indexOf(label: String): Int {
+        return indexByLabel[label]
+            ?: indexByUpperLabel[label.uppercase()]
+            ?: throw IllegalArgumentException("Unknown column label: $label, available: ${labels.joinToString()}")
+    }
+
+    /**
+     * 把当前行读成按列顺序排列的数组。
+     */
+    fun readValues(resultSet: ResultSet): Array<Any?> {
+        val values = arrayOfNulls<Any?>(labels.size)
+        for (index in labels.indices) {
+            values[index] = resultSet.getObject(index + 1)
+        }
+        return values
+    }
+
+    /**
+     * 把当前行读成按列顺序排列的 Map。
+     */
+    fun readRowMap(resultSet: ResultSet): Map<String, Any?> {
+        val row = LinkedHashMap<String, Any?>(mapCapacity(labels.size))
+        for (index in labels.indices) {
+            row[labels[index]] = resultSet.getObject(index + 1)
+        }
+        return row
+    }
+
+    companion object {
+        /**
+         * 从结果集元数据构建列索引。
+         */
+        @JvmStatic
+        fun of(metaData: ResultSetMetaData): ResultSetColumns {
+            val columnCount = metaData.columnCount
+            val labels = Array(columnCount) { index ->
+                metaData.getColumnLabel(index + 1)
+            }
+            return ResultSetColumns(labels)
+        }
+
+        /**
+         * 从结果集构建列索引。
+         */
+        @JvmStatic
+        fun of(resultSet: ResultSet): ResultSetColumns {
+            return of(resultSet.metaData)
+        }
+
+        private fun mapCapacity(expectedSize: Int): Int {
+            return if (expectedSize < 3) expectedSize + 1 else (expectedSize / 0.75f + 1f).toInt()
+        }
+    }
+}
+
+/**
+ * 基于预解析列索引的行映射器。
+ *
+ * [columns] 在整个结果集上只解析一次，实现里应通过下标读取列值。
+ */
+fun interface RowMapper<T> {
+    fun mapRow(
+        resultSet: ResultSet,
+        columns: ResultSetColumns,
+    ): T
+
+    companion object {
+        /**
+         * 每行映射为按列顺序排列的数组。
+         */
+        @JvmField
+        val ARRAY: RowMapper<Array<Any?>> = RowMapper { resultSet, columns ->
+            columns.readValues(resultSet)
+        }
+
+        /**
+         * 每行映射为按列顺序排列的 Map。
+         */
+        @JvmField
+        val MAP: RowMapper<Map<String, Any?>> = RowMapper { resultSet, columns ->
+            columns.readRowMap(resultSet)
+        }
+    }
+}
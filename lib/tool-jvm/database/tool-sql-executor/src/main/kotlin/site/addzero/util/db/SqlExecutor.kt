@@ -5,6 +5,10 @@ import java.sql.DriverManager
 import java.sql.PreparedStatement
 import java.sql.ResultSet
 import java.sql.SQLException
+import java.util.Spliterator
+import java.util.Spliterators
+import java.util.stream.Stream
+import java.util.stream.StreamSupport
 import javax.sql.DataSource
 
 /**
@@ -18,7 +22,10 @@ class SqlExecutor private constructor(
     private val driver: String?,
     private val dataSource: DataSource?,
 ) : AutoCloseable {
+    @Volatile
     private var connection: Connection? = null
+    @Volatile
+    private var statementCache: PreparedStatementCache? = null
     private val transactionalConnection = ThreadLocal<Connection?>()
 
     constructor(
@@ -49,12 +56,46 @@ class SqlExecutor private constructor(
     /**
      * 获取数据库连接
      */
+    @Synchronized
     @Throws(SQLException::class)
     private fun getConnection(): Connection {
-        if (connection == null || connection!!.isClosed) {
-            connection = DriverManager.getConnection(requireNotNull(url), username, password)
+        val current = connection
+        if (current != null && !current.isClosed) {
+            return current
+        }
+        statementCache?.close()
+        statementCache = null
+        return DriverManager.getConnection(requireNotNull(url), username, password).also { opened ->
+            connection = opened
+        }
+    }
+
+    /**
+     * 为并行批量写入申请独立连接：DataSource 模式从池中借出，URL 模式新建直连。
+     */
+    @Throws(SQLException::class)
+    private fun openWorkerConnection(): Connection {
+        return dataSource?.connection ?: DriverManager.getConnection(requireNotNull(url), username, password)
+    }
+
+    /**
+     * URL 模式下执行器持有连接的语句缓存，其他连接返回 null。
+     */
+    @Synchronized
+    private fun ownedStatementCache(
+        connection: Connection,
+        maxSize: Int,
+    ): PreparedStatementCache? {
+        if (dataSource != null || connection !== this.connection) {
+            return null
+        }
+        val current = statementCache
+        if (current != null && current.isBoundTo(connection)) {
+            return current
+        }
+        return PreparedStatementCache(connection, maxSize).also { created ->
+            statementCache = created
         }
-        return connection!!
     }
 
     /**
@@ -125,8 +166,8 @@ class SqlExecutor private constructor(
         sql: String,
         params: List<Any?> = emptyList(),
     ): List<Map<String, Any?>> {
-        return query(sql, params) { resultSet ->
-            resultSet.toRowMap()
+        return withJdbcConnection { connection ->
+            queryRows(connection, sql, params, RowMapper.MAP)
         }
     }
 
@@ -150,9 +191,7 @@ class SqlExecutor private constructor(
         sql: String,
         params: List<Any?> = emptyList(),
     ): List<Map<String, Any?>> {
-        return query(connection, sql, params) { resultSet ->
-            resultSet.toRowMap()
-        }
+        return queryRows(connection, sql, params, RowMapper.MAP)
     }
 
     /**
@@ -227,6 +266,101 @@ class SqlExecutor private constructor(
         return query(connection, sql, params.toList(), mapper)
     }
 
+    /**
+     * 以游标方式流式执行查询，[block] 返回后释放语句、结果集以及按需申请的连接。
+     *
+     * 结果集按 forward-only / read-only 打开，每批从数据库拉取 [fetchSize] 行；
+     * [mapper] 拿到的列索引只解析一次。传给 [block] 的序列只能遍历一次，且不能逃逸出 [block]。
+     */
+    @Throws(SQLException::class)
+    fun <T, R> queryStream(
+        sql: String,
+        params: List<Any?> = emptyList(),
+        fetchSize: Int = DEFAULT_FETCH_SIZE,
+        mapper: RowMapper<T>,
+        block: (Sequence<T>) -> R,
+    ): R {
+        return withJdbcConnection { connection ->
+            queryStream(connection, sql, params, fetchSize, mapper, block)
+        }
+    }
+
+    /**
+     * 在指定连接上以游标方式流式执行查询。
+     */
+    @Throws(SQLException::class)
+    fun <T, R> queryStream(
+        connection: Connection,
+        sql: String,
+        params: List<Any?> = emptyList(),
+        fetchSize: Int = DEFAULT_FETCH_SIZE,
+        mapper: RowMapper<T>,
+        block: (Sequence<T>) -> R,
+    ): R {
+        val cursorTransaction = beginCursorTransaction(connection)
+        try {
+            val result = prepareCursorStatement(connection, sql, params, fetchSize).use { statement ->
+                statement.executeQuery().use { resultSet ->
+                    block(ResultSetIterator(resultSet, mapper).asSequence())
+                }
+            }
+            if (cursorTransaction) {
+                connection.commit()
+            }
+            return result
+        } catch (error: Throwable) {
+            if (cursorTransaction) {
+                connection.rollback()
+            }
+            throw error
+        } finally {
+            if (cursorTransaction) {
+                connection.autoCommit = true
+            }
+        }
+    }
+
+    /**
+     * 以游标方式打开查询流，供 Java 调用方使用。
+     *
+     * 返回的 [Stream] 必须关闭（推荐 try-with-resources），关闭时释放语句、结果集以及按需申请的连接。
+     */
+    @Throws(SQLException::class)
+    fun <T> openQueryStream(
+        sql: String,
+        params: List<Any?> = emptyList(),
+        fetchSize: Int = DEFAULT_FETCH_SIZE,
+        mapper: RowMapper<T>,
+    ): Stream<T> {
+        val currentTransactionalConnection = transactionalConnection.get()
+        val ownsConnection = (currentTransactionalConnection == null || currentTransactionalConnection.isClosed) &&
+            dataSource != null
+        val connection = when {
+            currentTransactionalConnection != null && !currentTransactionalConnection.isClosed -> currentTransactionalConnection
+            dataSource != null -> dataSource.connection
+            else -> getConnection()
+        }
+        var statement: PreparedStatement? = null
+        var cursorTransaction = false
+        try {
+            cursorTransaction = beginCursorTransaction(connection)
+            statement = prepareCursorStatement(connection, sql, params, fetchSize)
+            val resultSet = statement.executeQuery()
+            val iterator = ResultSetIterator(resultSet, mapper)
+            val openedStatement = statement
+            val openedCursorTransaction = cursorTransaction
+            return StreamSupport.stream(
+                Spliterators.spliteratorUnknownSize(iterator, Spliterator.ORDERED),
+                false,
+            ).onClose {
+                closeCursor(connection, openedStatement, resultSet, openedCursorTransaction, ownsConnection)
+            }
+        } catch (error: Throwable) {
+            closeCursor(connection, statement, null, cursorTransaction, ownsConnection)
+            throw error
+        }
+    }
+
     /**
      * 查询首列 Long 列表。
      */
@@ -444,6 +578,8 @@ class SqlExecutor private constructor(
 
     /**
      * 在指定连接上批量执行参数化更新。
+     *
+     * 参数按 [BatchOptions.DEFAULT_CHUNK_ROWS] 行切块提交，返回所有分块的更新计数。
      */
     @Throws(SQLException::class)
     fun batchUpdate(
@@ -454,14 +590,83 @@ class SqlExecutor private constructor(
         if (batchParams.isEmpty()) {
             return intArrayOf()
         }
-        connection.prepareStatement(sql).use { statement ->
-            batchParams.forEach { params ->
-                statement.clearParameters()
-                statement.bindParams(params)
-                statement.addBatch()
+        val options = BatchOptions()
+        val counts = IntArray(batchParams.size)
+        var offset = 0
+        withStatementCache(connection, options) { statementCache ->
+            val writer = BatchChunkWriter(connection, sql, options, statementCache)
+            forEachBatchChunk(batchParams.iterator(), options) { chunk ->
+                val chunkCounts = writer.write(chunk)
+                chunkCounts.copyInto(counts, offset)
+                offset += chunkCounts.size
             }
-            return statement.executeBatch()
         }
+        return counts
+    }
+
+    /**
+     * 批量导入：按行数和字节数切块、复用预编译语句，可选多行 VALUES 改写与多连接并行。
+     *
+     * 并行模式下每个工作线程独占一条连接并按块提交，失败的块回滚，已提交的块不会撤销；
+     * 当前线程处于 [withTransaction] 中时始终退化为在事务连接上顺序写入。
+     */
+    @Throws(SQLException::class)
+    fun bulkUpdate(
+        sql: String,
+        rows: Iterable<List<Any?>>,
+        options: BatchOptions = BatchOptions(),
+    ): BatchResult {
+        val currentTransactionalConnection = transactionalConnection.get()
+        val inTransaction = currentTransactionalConnection != null && !currentTransactionalConnection.isClosed
+        if (options.parallelism > 1 && !inTransaction) {
+            return ParallelBatchLoader(::openWorkerConnection, sql, options).load(rows.iterator())
+        }
+        return withJdbcConnection { connection ->
+            bulkUpdate(connection, sql, rows, options)
+        }
+    }
+
+    /**
+     * 在指定连接上顺序执行批量导入。
+     *
+     * 连接处于自动提交且 [BatchOptions.commitPerChunk] 为 true 时每块提交一次，否则沿用调用方事务。
+     */
+    @Throws(SQLException::class)
+    fun bulkUpdate(
+        connection: Connection,
+        sql: String,
+        rows: Iterable<List<Any?>>,
+        options: BatchOptions = BatchOptions(),
+    ): BatchResult {
+        var result = BatchResult.EMPTY
+        withStatementCache(connection, options) { statementCache ->
+            val commitPerChunk = options.commitPerChunk && connection.autoCommit
+            if (commitPerChunk) {
+                connection.autoCommit = false
+            }
+            try {
+                val writer = BatchChunkWriter(connection, sql, options, statementCache)
+                forEachBatchChunk(rows.iterator(), options) { chunk ->
+                    try {
+                        val counts = writer.write(chunk)
+                        if (commitPerChunk) {
+                            connection.commit()
+                        }
+                        result += BatchResult(chunk.size.toLong(), 1, counts.affectedRows())
+                    } catch (error: Throwable) {
+                        if (commitPerChunk) {
+                            connection.rollback()
+                        }
+                        throw error
+                    }
+                }
+            } finally {
+                if (commitPerChunk) {
+                    connection.autoCommit = true
+                }
+            }
+        }
+        return result
     }
 
     /**
@@ -576,8 +781,11 @@ class SqlExecutor private constructor(
     /**
      * 关闭数据库连接
      */
+    @Synchronized
     override fun close() {
         try {
+            statementCache?.close()
+            statementCache = null
             connection?.close()
         } catch (e: SQLException) {
             e.printStackTrace()
@@ -610,6 +818,119 @@ class SqlExecutor private constructor(
         }
     }
 
+    /**
+     * 执行器持有的连接复用长期语句缓存，其余连接使用本次调用范围内的缓存。
+     *
+     * URL 模式下所有线程共用同一条连接和同一份缓存，整个批次在执行器锁内执行，
+     * 避免并发调用把参数加进同一个 [PreparedStatement] 的批次里。
+     */
+    private fun <T> withStatementCache(
+        connection: Connection,
+        options: BatchOptions,
+        block: (PreparedStatementCache) -> T,
+    ): T {
+        if (dataSource == null && connection === this.connection) {
+            synchronized(this) {
+                val ownedCache = ownedStatementCache(connection, options.statementCacheSize)
+                if (ownedCache != null) {
+                    return block(ownedCache)
+                }
+            }
+        }
+        return PreparedStatementCache(connection, options.statementCacheSize).use(block)
+    }
+
+    private fun <T> queryRows(
+        connection: Connection,
+        sql: String,
+        params: List<Any?>,
+        mapper: RowMapper<T>,
+    ): List<T> {
+        prepareStatement(connection, sql, params).use { statement ->
+            statement.executeQuery().use { resultSet ->
+                val columns = ResultSetColumns.of(resultSet)
+                val result = mutableListOf<T>()
+                while (resultSet.next()) {
+                    result += mapper.mapRow(resultSet, columns)
+                }
+                return result
+            }
+        }
+    }
+
+    private fun prepareCursorStatement(
+        connection: Connection,
+        sql: String,
+        params: List<Any?>,
+        fetchSize: Int,
+    ): PreparedStatement {
+        val statement = connection.prepareStatement(sql, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY)
+        try {
+            statement.fetchSize = resolveFetchSize(connection, fetchSize)
+            statement.bindParams(params)
+            return statement
+        } catch (error: Throwable) {
+            statement.close()
+            throw error
+        }
+    }
+
+    /**
+     * MySQL 驱动只有 fetchSize 为 Integer.MIN_VALUE 或开启 useCursorFetch 时才会逐批拉取。
+     */
+    private fun resolveFetchSize(
+        connection: Connection,
+        fetchSize: Int,
+    ): Int {
+        if (fetchSize <= 0) {
+            return 0
+        }
+        val jdbcUrl = connection.metaData.url.orEmpty()
+        if (jdbcUrl.startsWith("jdbc:mysql") && !jdbcUrl.contains("useCursorFetch=true", ignoreCase = true)) {
+            return Int.MIN_VALUE
+        }
+        return fetchSize
+    }
+
+    /**
+     * PostgreSQL 只有在非自动提交模式下才会使用服务端游标，否则会一次性把结果集读入内存。
+     *
+     * @return 是否为本次游标临时开启了事务
+     */
+    private fun beginCursorTransaction(
+        connection: Connection,
+    ): Boolean {
+        if (!connection.autoCommit) {
+            return false
+        }
+        if (!connection.metaData.url.orEmpty().startsWith("jdbc:postgresql")) {
+            return false
+        }
+        connection.autoCommit = false
+        return true
+    }
+
+    private fun closeCursor(
+        connection: Connection,
+        statement: PreparedStatement?,
+        resultSet: ResultSet?,
+        cursorTransaction: Boolean,
+        ownsConnection: Boolean,
+    ) {
+        try {
+            resultSet?.close()
+            statement?.close()
+            if (cursorTransaction) {
+                connection.commit()
+                connection.autoCommit = true
+            }
+        } finally {
+            if (ownsConnection) {
+                connection.close()
+            }
+        }
+    }
+
     private fun prepareStatement(
         connection: Connection,
         sql: String,
@@ -627,14 +948,47 @@ class SqlExecutor private constructor(
             setObject(index + 1, value)
         }
     }
+
+    companion object {
+        /**
+         * 流式查询默认每批拉取的行数。
+         */
+        const val DEFAULT_FETCH_SIZE = 1000
+    }
 }
 
-private fun ResultSet.toRowMap(): Map<String, Any?> {
-    val columnCount = metaData.columnCount
-    val row = linkedMapOf<String, Any?>()
-    for (index in 1..columnCount) {
-        val columnName = metaData.getColumnLabel(index)
-        row[columnName] = getObject(index)
+/**
+ * 逐行读取结果集的只读迭代器，列索引只在首次读取时解析一次。
+ */
+private class ResultSetIterator<T>(
+    private val resultSet: ResultSet,
+    private val mapper: RowMapper<T>,
+) : Iterator<T> {
+    private var columns: ResultSetColumns? = null
+    private var hasPending = false
+    private var exhausted = false
+
+    override fun hasNext(): Boolean {
+        if (hasPending) {
+            return true
+        }
+        if (exhausted) {
+            return false
+        }
+        if (resultSet.next()) {
+            hasPending = true
+            return true
+        }
+        exhausted = true
+        return false
+    }
+
+    override fun next(): T {
+        if (!hasNext()) {
+            throw NoSuchElementException()
+        }
+        hasPending = false
+        val currentColumns = columns ?: ResultSetColumns.of(resultSet).also { columns = it }
+        return mapper.mapRow(resultSet, currentColumns)
     }
-    return row
 }
@@ -0,0 +1,151 @@
+package site.addzero.util.db
+
+import org.h2.jdbcx.JdbcDataSource
+import java.util.concurrent.Callable
+import java.util.concurrent.CountDownLatch
+import java.util.concurrent.Executors
+import java.util.concurrent.TimeUnit
+import kotlin.test.Test
+import kotlin.test.assertEquals
+import kotlin.test.assertFailsWith
+
+/**
+ * 验证分块批量导入与语句缓存。
+ */
+class SqlExecutorBulkUpdateTest {
+
+    @Test
+    /**
+     * 顺序模式应按块写入，并支持多行 VALUES 改写。
+     */
+    fun shouldChunkAndRewriteMultiRowInsert() {
+        createExecutor().use { executor ->
+            executor.execute("CREATE TABLE sample (id BIGINT PRIMARY KEY, name VARCHAR(64) NOT NULL)")
+
+            val result = executor.bulkUpdate(
+                "INSERT INTO sample(id, name) VALUES (?, ?)",
+                (1..2_345).map { index -> listOf(index, "name-$index") },
+                BatchOptions(chunkRows = 500, rewriteMultiRowInsert = true),
+            )
+
+            assertEquals(2_345L, result.rows)
+            assertEquals(5, result.chunks)
+            assertEquals(2_345L, result.affectedRows)
+            assertEquals(2_345L, executor.queryCount("SELECT COUNT(1) FROM sample"))
+            assertEquals(
+                listOf("name-2345"),
+                executor.query("SELECT name FROM sample WHERE id = ?", 2_345) { resultSet -> resultSet.getString(1) },
+            )
+        }
+    }
+
+    @Test
+    /**
+     * 并行模式应在多条连接上按块提交。
+     */
+    fun shouldLoadChunksInParallel() {
+        createExecutor().use { executor ->
+            executor.execute("CREATE TABLE sample (id BIGINT PRIMARY KEY, name VARCHAR(64) NOT NULL)")
+
+            val result = executor.bulkUpdate(
+                "INSERT INTO sample(id, name) VALUES (?, ?)",
+                (1..10_000).map { index -> listOf(index, "name-$index") },
+                BatchOptions(chunkRows = 250, parallelism = 4),
+            )
+
+            assertEquals(10_000L, result.rows)
+            assertEquals(40, result.chunks)
+            assertEquals(10_000L, executor.queryCount("SELECT COUNT(1) FROM sample"))
+        }
+    }
+
+    @Test
+    /**
+     * 并行模式中任一块失败应向调用方抛出异常。
+     */
+    fun shouldPropagateParallelChunkFailure() {
+        createExecutor().use { executor ->
+            executor.execute("CREATE TABLE sample (id BIGINT PRIMARY KEY, name VARCHAR(64) NOT NULL)")
+
+            assertFailsWith<Exception> {
+                executor.bulkUpdate(
+                    "INSERT INTO sample(id, name) VALUES (?, ?)",
+                    (1..1_000).map { index -> listOf(index, if (index == 777) null else "name-$index") },
+                    BatchOptions(chunkRows = 100, parallelism = 2),
+                )
+            }
+        }
+    }
+
+    @Test
+    /**
+     * URL 模式下重复批量更新应复用缓存的预编译语句。
+     */
+    fun shouldReuseStatementsAcrossBatchCalls() {
+        SqlExecutor("jdbc:h2:mem:sql-executor-batch-cache-${System.nanoTime()}").use { executor ->
+            executor.execute("CREATE TABLE sample (id BIGINT PRIMARY KEY)")
+            repeat(3) { round ->
+                val counts = executor.batchUpdate(
+                    "INSERT INTO sample(id) VALUES (?)",
+                    (1..10).map { index -> listOf(round * 10 + index) },
+                )
+                assertEquals(10, counts.size)
+            }
+            assertEquals(30L, executor.queryCount("SELECT COUNT(1) FROM sample"))
+        }
+    }
+
+    @Test
+    /**
+     * URL 模式下多个线程并发批量更新不应互相混入对方的批次。
+     */
+    fun shouldIsolateConcurrentBatchesOnOwnedConnection() {
+        SqlExecutor("jdbc:h2:mem:sql-executor-batch-concurrent-${System.nanoTime()}").use { executor ->
+            executor.execute("CREATE TABLE sample (id BIGINT PRIMARY KEY, worker INT NOT NULL)")
+            val workers = 8
+            val rowsPerWorker = 2_000
+            val pool = Executors.newFixedThreadPool(workers)
+            val start = CountDownLatch(1)
+            try {
+                val futures = (0 until workers).map { worker ->
+                    pool.submit(Callable {
+                        start.await()
+                        if (worker % 2 == 0) {
+                            executor.batchUpdate(
+                                "INSERT INTO sample(id, worker) VALUES (?, ?)",
+                                (1..rowsPerWorker).map { index -> listOf(worker * rowsPerWorker + index, worker) },
+                            )
+                        } else {
+                            val result = executor.bulkUpdate(
+                                "INSERT INTO sample(id, worker) VALUES (?, ?)",
+                                (1..rowsPerWorker).map { index -> listOf(worker * rowsPerWorker + index, worker) },
+                                BatchOptions(chunkRows = 300),
+                            )
+                            IntArray(result.rows.toInt()) { 1 }
+                        }
+                    })
+                }
+                start.countDown()
+                futures.forEach { future -> assertEquals(rowsPerWorker, future.get(30, TimeUnit.SECONDS).size) }
+            } finally {
+                pool.shutdownNow()
+            }
+
+            assertEquals((workers * rowsPerWorker).toLong(), executor.queryCount("SELECT COUNT(1) FROM sample"))
+            repeat(workers) { worker ->
+                assertEquals(
+                    rowsPerWorker.toLong(),
+                    executor.queryCount("SELECT COUNT(1) FROM sample WHERE worker = ?", worker),
+                )
+            }
+        }
+    }
+
+    private fun createExecutor(): SqlExecutor {
+        val dataSource = JdbcDataSource()
+        dataSource.setURL("jdbc:h2:mem:sql-executor-bulk-${System.nanoTime()};DB_CLOSE_DELAY=-1")
+        dataSource.user = "sa"
+        dataSource.password = ""
+        return SqlExecutor(dataSource)
+    }
+}
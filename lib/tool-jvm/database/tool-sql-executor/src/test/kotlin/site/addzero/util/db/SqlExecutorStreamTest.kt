@@ -0,0 +1,73 @@
+package site.addzero.util.db
+
+import org.h2.jdbcx.JdbcDataSource
+import kotlin.test.Test
+import kotlin.test.assertEquals
+import kotlin.test.assertFailsWith
+
+/**
+ * 验证流式查询与预解析列索引映射。
+ */
+class SqlExecutorStreamTest {
+
+    @Test
+    /**
+     * 流式查询应逐行返回与 queryForList 一致的数据。
+     */
+    fun shouldStreamRowsWithResolvedColumns() {
+        SqlExecutor("jdbc:sqlite::memory:").use { executor ->
+            executor.execute("CREATE TABLE sample (id INTEGER PRIMARY KEY, name TEXT NOT NULL)")
+            executor.batchUpdate(
+                "INSERT INTO sample(id, name) VALUES (?, ?)",
+                (1..50).map { index -> listOf(index, "name-$index") },
+            )
+
+            val names = executor.queryStream(
+                "SELECT id, name FROM sample WHERE id > ? ORDER BY id",
+                listOf(10),
+                fetchSize = 7,
+                mapper = { resultSet, columns -> resultSet.getString(columns.indexOf("NAME")) },
+            ) { rows ->
+                rows.toList()
+            }
+            assertEquals((11..50).map { index -> "name-$index" }, names)
+
+            val arrays = executor.queryStream(
+                "SELECT id, name FROM sample ORDER BY id",
+                mapper = RowMapper.ARRAY,
+            ) { rows ->
+                rows.take(2).toList()
+            }
+            assertEquals(listOf(1, "name-1"), arrays[0].map { value -> (value as? Number)?.toInt() ?: value })
+
+            val maps = executor.queryStream("SELECT id, name FROM sample ORDER BY id", mapper = RowMapper.MAP) { rows ->
+                rows.toList()
+            }
+            assertEquals(executor.queryForList("SELECT id, name FROM sample ORDER BY id"), maps)
+        }
+    }
+
+    @Test
+    /**
+     * Java 风格的 Stream 关闭后应归还 DataSource 连接。
+     */
+    fun shouldReleaseConnectionWhenStreamClosed() {
+        val dataSource = JdbcDataSource()
+        dataSource.setURL("jdbc:h2:mem:sql-executor-stream-${System.nanoTime()};DB_CLOSE_DELAY=-1")
+        dataSource.user = "sa"
+        SqlExecutor(dataSource).use { executor ->
+            executor.execute("CREATE TABLE sample (id BIGINT PRIMARY KEY)")
+            executor.batchUpdate("INSERT INTO sample(id) VALUES (?)", (1..20).map { index -> listOf(index) })
+
+            val total = executor.openQueryStream("SELECT id FROM sample", mapper = { resultSet, _ -> resultSet.getLong(1) })
+                .use { stream -> stream.mapToLong { value -> value }.sum() }
+            assertEquals(210L, total)
+
+            assertFailsWith<IllegalArgumentException> {
+                executor.queryStream("SELECT id FROM sample", mapper = { resultSet, columns ->
+                    resultSet.getLong(columns.indexOf("missing"))
+                }) { rows -> rows.first() }
+            }
+        }
+    }
+}
@@ -1,5 +1,6 @@
 plugins {
   id("site.addzero.buildlogic.jvm.kotlin-convention")
+  id("site.addzero.buildlogic.jvm.jimmer")
 }
 val libs = versionCatalogs.named("libs")
 
@@ -8,4 +9,6 @@ dependencies {
     implementation(libs.findLibrary("cn-hutool-hutool-all").get())
     api(libs.findLibrary("site-addzero-jimmer-model-lowquery-v2025").get())
 
+    kspTest(libs.findLibrary("org-babyfish-jimmer-jimmer-ksp").get())
+    testImplementation(libs.findLibrary("com-h2database-h2").get())
 }
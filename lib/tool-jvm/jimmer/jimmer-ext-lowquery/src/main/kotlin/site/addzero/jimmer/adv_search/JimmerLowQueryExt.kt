@@ -19,39 +19,45 @@ import org.babyfish.jimmer.sql.kt.ast.expression.*
 import org.babyfish.jimmer.sql.kt.ast.query.KConfigurableRootQuery
 import org.babyfish.jimmer.sql.kt.ast.query.KMutableRootQuery
 import org.babyfish.jimmer.sql.kt.ast.table.KNonNullTable
-import org.babyfish.jimmer.sql.kt.ast.table.makeOrders
+import org.babyfish.jimmer.sql.kt.ast.table.impl.KTableImplementor
 import kotlin.reflect.KClass
 
 fun <E : Any> KMutableRootQuery.ForEntity<E>.buildOrderBys(
+    entityClass: KClass<E>,
     stateSort: StateSort
 ): Order {
-    var columnKey = stateSort.columnKey.trim()
-    var finalTable = table
-
-    if (columnKey.contains(".")) {
-        val split = columnKey.split(".")
-        val joinColumnKey = split.last()
-
-        split.dropLast(1).forEach {
-            finalTable = finalTable.join<E>(it)
-        }
-        columnKey = joinColumnKey
-    }
-
+    val expression = LowQueryPaths.resolve(entityClass, stateSort.columnKey).expression<Any>(table)
     if (stateSort.direction == EnumSortDirection.DESC) {
-        return finalTable.get<String>(columnKey).desc()
+        return expression.desc()
     }
-    return finalTable.get<String>(columnKey).asc()
+    return expression.asc()
 }
 
 fun <E : Any> KMutableRootQuery.ForEntity<E>.buildOrderByArray(
+    entityClass: KClass<E>,
     stateSorts: Collection<StateSort>
 ): Array<Order> {
     return stateSorts.map {
-        buildOrderBys(it)
+        buildOrderBys(entityClass, it)
     }.toTypedArray()
 }
 
+/**
+ * 实体类型取自查询的根表
+ */
+fun <E : Any> KMutableRootQuery.ForEntity<E>.buildOrderBys(stateSort: StateSort): Order =
+    buildOrderBys(rootEntityClass(), stateSort)
+
+/**
+ * 实体类型取自查询的根表
+ */
+fun <E : Any> KMutableRootQuery.ForEntity<E>.buildOrderByArray(stateSorts: Collection<StateSort>): Array<Order> =
+    buildOrderByArray(rootEntityClass(), stateSorts)
+
+@Suppress("UNCHECKED_CAST")
+private fun <E : Any> KMutableRootQuery.ForEntity<E>.rootEntityClass(): KClass<E> =
+    ((table as KTableImplementor<E>).javaTable.immutableType.getJavaClass() as Class<E>).kotlin
+
 // Main query functions
 fun <E : Any, V : View<E>> KSqlClient.createLowQuery(
     sortStats: Set<StateSort>,
@@ -59,21 +65,27 @@ fun <E : Any, V : View<E>> KSqlClient.createLowQuery(
     entityClass: KClass<E>,
     view: KClass<V>,
 ): KConfigurableRootQuery<KNonNullTable<E>, V> {
-    val (andStateSearchConditions, orStateSearchConditions) = getAndOrConditions(searchConditions)
     val createQuery = createQuery(entityClass) {
-        where(andStateSearchConditions?.let { buildAndMultiCondition(it) })
-        where(orStateSearchConditions?.let { buildOrMultiCondition(it) })
-        orderBy(*buildOrderByArray(sortStats))
-//    orderBy(table.makeOrders(baseSortBuilder(sortStats)))
+        applySearchConditions(entityClass, searchConditions)
+        orderBy(*buildOrderByArray(entityClass, sortStats))
         select(table.fetch(view))
     }
     return createQuery
 }
 
+internal fun <E : Any> KMutableRootQuery.ForEntity<E>.applySearchConditions(
+    entityClass: KClass<E>,
+    searchConditions: Set<StateSearch>?
+) {
+    val (andStateSearchConditions, orStateSearchConditions) = getAndOrConditions(searchConditions)
+    where(andStateSearchConditions?.let { buildAndMultiCondition(entityClass, it) })
+    where(orStateSearchConditions?.let { buildOrMultiCondition(entityClass, it) })
+}
+
 private fun getAndOrConditions(searchConditions: Set<StateSearch>?): Pair<List<StateSearch>?, List<StateSearch>?> {
     val associateBy = searchConditions?.groupBy { it.logicType }
     val andStateSearchConditions = associateBy?.get(EnumLogicOperator.AND)
-    val orStateSearchConditions = associateBy?.get(EnumLogicOperator.AND)
+    val orStateSearchConditions = associateBy?.get(EnumLogicOperator.OR)
     return Pair(andStateSearchConditions, orStateSearchConditions)
 }
 
@@ -94,64 +106,62 @@ fun <E : Any> KSqlClient.createLowQuery(
 ): KConfigurableRootQuery<KNonNullTable<E>, E> {
 
 
-    val (andStateSearchConditions, orStateSearchConditions) = getAndOrConditions(searchConditions)
-
-
-    val mainFetcher = FetcherImpl(entityClass.java) as FetcherImplementor<E>
-    val mainImmutableType = mainFetcher.immutableType
-
-    val fetcherImplementor = stateVos.fold(mainFetcher.add(mainImmutableType.idProp.name)) { fetcher, vo ->
-        if (vo.columnPath.contains(".")) {
-            val buildNestedFetcher = buildNestedFetcher(fetcher, vo.columnPath)
-            buildNestedFetcher
-        } else {
-            val add = fetcher.add(vo.columnPath)
-            add
-        }
-    }
+    val fetcher = if (stateVos.isEmpty()) null else buildVoFetcher(entityClass, stateVos)
 
     val createQuery = this.createQuery(entityClass) {
-        where(andStateSearchConditions?.let { buildAndMultiCondition(it) })
-        where(orStateSearchConditions?.let { buildOrMultiCondition(it) })
-//        buildOrder(sortStats)
-        orderBy(table.makeOrders(baseSortBuilder(sortStats)))
-        if (stateVos.isEmpty()) {
+        applySearchConditions(entityClass, searchConditions)
+        orderBy(*buildOrderByArray(entityClass, sortStats))
+        if (fetcher == null) {
             select(table)
         } else {
-            select(table.fetch(fetcherImplementor))
+            select(table.fetch(fetcher))
         }
     }
     return createQuery
 }
 
-private fun <E : Any> buildNestedFetcher(
-    parentFetcher: FetcherImplementor<E>,
-    columnKey: String
+internal fun <E : Any> buildVoFetcher(
+    entityClass: KClass<E>,
+    stateVos: Collection<StateVo>
 ): FetcherImplementor<E> {
-    val parts = columnKey.split(".")
-    val (path, last) = parts.dropLast(1) to parts.last()
-
-    val nestedFetcher = path.fold(parentFetcher) { fetcher, part ->
-        val prop = fetcher.immutableType.getProp(part)
-        val childFetcher = FetcherImpl(prop.elementClass) as FetcherImplementor<*>
-        fetcher.add(childFetcher.immutableType.idProp!!.name)
-        fetcher.add(part, childFetcher)
+    val mainFetcher = FetcherImpl(entityClass.java) as FetcherImplementor<E>
+    return stateVos.fold(mainFetcher.add(mainFetcher.immutableType.idProp.name)) { fetcher, vo ->
+        addFetchPath(fetcher, vo.columnPath.split("."))
     }
+}
 
-    return nestedFetcher.add(last)
+/**
+ * 按列路径向抓取器追加属性，关联上已有的子抓取器会被合并而不是覆盖
+ */
+@Suppress("UNCHECKED_CAST")
+internal fun <E : Any> addFetchPath(
+    fetcher: FetcherImplementor<E>,
+    parts: List<String>
+): FetcherImplementor<E> {
+    val head = parts.first()
+    if (parts.size == 1) {
+        return fetcher.add(head)
+    }
+    val prop = fetcher.immutableType.getProp(head)
+    val childFetcher = fetcher.fieldMap[head]?.childFetcher as FetcherImplementor<Any>?
+        ?: FetcherImpl(prop.elementClass) as FetcherImplementor<Any>
+    return fetcher.add(head, addFetchPath(childFetcher, parts.drop(1)))
 }
 
 private fun <E : Any> KMutableRootQuery.ForEntity<E>.buildOrMultiCondition(
+    entityClass: KClass<E>,
     stateSearchConditions: Collection<StateSearch>
 ): KNonNullExpression<Boolean>? =
-    or(*stateSearchConditions.map { buildConditions(it.operator, it.columnKey, it.columnValue) }.toTypedArray())
+    or(*stateSearchConditions.map { buildConditions(entityClass, it.operator, it.columnKey, it.columnValue) }.toTypedArray())
 
 private fun <E : Any> KMutableRootQuery.ForEntity<E>.buildAndMultiCondition(
+    entityClass: KClass<E>,
     stateSearchConditions: Collection<StateSearch>
 ): KNonNullExpression<Boolean>? =
-    and(*stateSearchConditions.map { buildConditions(it.operator, it.columnKey, it.columnValue) }.toTypedArray())
+    and(*stateSearchConditions.map { buildConditions(entityClass, it.operator, it.columnKey, it.columnValue) }.toTypedArray())
 
 private fun <E : Any> KMutableRootQuery.ForEntity<E>.buildConditions(
+    entityClass: KClass<E>,
     operator: EnumSearchOperator,
     columnName: String,
     value: Any?
@@ -176,42 +186,33 @@ private fun <E : Any> KMutableRootQuery.ForEntity<E>.buildConditions(
         }
     }
 
-    val (finalTable, columnKey) = if (columnName.contains(".")) {
-        val parts = columnName.split(".")
-        // Initialize with the base table and empty string
-        val (resultTable, _) = parts.dropLast(1).fold(table to "") { (currentTable, _), part ->
-            currentTable.join<E>(part) to part
-        }
-        resultTable to parts.last()
-    } else {
-        table to columnName
-    }
+    val path = LowQueryPaths.resolve(entityClass, columnName)
     val any = when (operator) {
-        EnumSearchOperator.EQ -> finalTable.get<Any>(columnKey).eq(actValue)
-        EnumSearchOperator.NE -> finalTable.get<Any>(columnKey).ne(actValue)
-        EnumSearchOperator.LIKE -> finalTable.get<String>(columnKey).ilike(actValue as String, LikeMode.ANYWHERE)
-        EnumSearchOperator.STARTS_WITH -> finalTable.get<String>(columnKey).like(actValue as String, LikeMode.START)
-        EnumSearchOperator.ENDS_WITH -> finalTable.get<String>(columnKey).like(actValue as String, LikeMode.END)
-
-
-        EnumSearchOperator.GT -> finalTable.get<Comparable<Any>>(columnKey).gt(actValue as Comparable<Any>)
-        EnumSearchOperator.GE -> finalTable.get<Comparable<Any>>(columnKey).ge(actValue as Comparable<Any>)
-        EnumSearchOperator.LT -> finalTable.get<Comparable<Any>>(columnKey).lt(actValue as Comparable<Any>)
-        EnumSearchOperator.LE -> finalTable.get<Comparable<Any>>(columnKey).le(actValue as Comparable<Any>)
-        EnumSearchOperator.IN -> finalTable.get<Any>(columnKey).valueIn(actValue as Collection<Any>)
-        EnumSearchOperator.NOT_IN -> finalTable.get<Any>(columnKey).valueNotIn(actValue as Collection<Any>)
+        EnumSearchOperator.EQ -> path.expression<Any>(table).eq(actValue)
+        EnumSearchOperator.NE -> path.expression<Any>(table).ne(actValue)
+        EnumSearchOperator.LIKE -> path.expression<String>(table).ilike(actValue as String, LikeMode.ANYWHERE)
+        EnumSearchOperator.STARTS_WITH -> path.expression<String>(table).like(actValue as String, LikeMode.START)
+        EnumSearchOperator.ENDS_WITH -> path.expression<String>(table).like(actValue as String, LikeMode.END)
+
+
+        EnumSearchOperator.GT -> path.expression<Comparable<Any>>(table).gt(actValue as Comparable<Any>)
+        EnumSearchOperator.GE -> path.expression<Comparable<Any>>(table).ge(actValue as Comparable<Any>)
+        EnumSearchOperator.LT -> path.expression<Comparable<Any>>(table).lt(actValue as Comparable<Any>)
+        EnumSearchOperator.LE -> path.expression<Comparable<Any>>(table).le(actValue as Comparable<Any>)
+        EnumSearchOperator.IN -> path.expression<Any>(table).valueIn(actValue as Collection<Any>)
+        EnumSearchOperator.NOT_IN -> path.expression<Any>(table).valueNotIn(actValue as Collection<Any>)
         EnumSearchOperator.BETWEEN -> {
             val (start, end) = actValue as Pair<*, *>
-            finalTable.get<Comparable<Any>>(columnKey).between(start as Comparable<Any>, end as Comparable<Any>)
+            path.expression<Comparable<Any>>(table).between(start as Comparable<Any>, end as Comparable<Any>)
         }
 
         EnumSearchOperator.NOT_BETWEEN -> {
             val (start, end) = actValue as Pair<*, *>
-            finalTable.get<Comparable<Any>>(columnKey).notBetween(start as Comparable<Any>, end as Comparable<Any>)
+            path.expression<Comparable<Any>>(table).notBetween(start as Comparable<Any>, end as Comparable<Any>)
         }
 
-        EnumSearchOperator.IS_NULL -> finalTable.get<Any>(columnKey).isNull()
-        EnumSearchOperator.IS_NOT_NULL -> finalTable.get<Any>(columnKey).isNotNull()
+        EnumSearchOperator.IS_NULL -> path.expression<Any>(table).isNull()
+        EnumSearchOperator.IS_NOT_NULL -> path.expression<Any>(table).isNotNull()
     }
     return any
 }
@@ -5,9 +5,19 @@ import site.addzero.entity.low_table.StateSort
 import site.addzero.entity.low_table.StateVo
 import org.babyfish.jimmer.Page
 import org.babyfish.jimmer.View
+import org.babyfish.jimmer.meta.ImmutableType
+import org.babyfish.jimmer.sql.fetcher.impl.FetcherImpl
+import org.babyfish.jimmer.sql.fetcher.impl.FetcherImplementor
 import org.babyfish.jimmer.sql.kt.KSqlClient
+import org.babyfish.jimmer.sql.kt.ast.expression.rowCount
+import org.babyfish.jimmer.sql.kt.ast.query.KConfigurableRootQuery
+import org.babyfish.jimmer.sql.kt.ast.query.KMutableRootQuery
+import org.babyfish.jimmer.sql.kt.ast.table.KNonNullTable
 import kotlin.reflect.KClass
 
+/** [LowQueryCountMode.CAPPED] 默认最多统计的行数 */
+const val DEFAULT_LOW_QUERY_COUNT_LIMIT = 10_000
+
 
 fun <E : Any, V : View<E>> KSqlClient.queryPage(
     sortStats: MutableSet<StateSort>,
@@ -36,3 +46,185 @@ fun <E : Any> KSqlClient.queryPage(
     ).fetchPage(pageNo - 1, pageSize)
     return fetchPage
 }
+
+/**
+ * OFFSET 分页，总数按 [countMode] 统计，大表上可以避免精确 `COUNT(*)`
+ */
+fun <E : Any, V : View<E>> KSqlClient.queryPage(
+    sortStats: Set<StateSort>,
+    searchConditions: Set<StateSearch>?,
+    entityClass: KClass<E>,
+    view: KClass<V>,
+    countMode: LowQueryCountMode,
+    pageNo: Int = 1,
+    pageSize: Int = 10,
+    countLimit: Int = DEFAULT_LOW_QUERY_COUNT_LIMIT,
+): LowQueryPage<V> {
+    val query = createLowQuery(sortStats, searchConditions, entityClass, view)
+    return fetchLowQueryPage(query, entityClass, searchConditions, countMode, pageNo, pageSize, countLimit)
+}
+
+fun <E : Any> KSqlClient.queryPage(
+    sortStats: Set<StateSort>,
+    searchConditions: Set<StateSearch>?,
+    entityClass: KClass<E>,
+    stateVos: Set<StateVo>,
+    countMode: LowQueryCountMode,
+    pageNo: Int = 1,
+    pageSize: Int = 10,
+    countLimit: Int = DEFAULT_LOW_QUERY_COUNT_LIMIT,
+): LowQueryPage<E> {
+    val query = createLowQuery(sortStats, searchConditions, entityClass, stateVos)
+    return fetchLowQueryPage(query, entityClass, searchConditions, countMode, pageNo, pageSize, countLimit)
+}
+
+/**
+ * keyset 分页：按排序列（末尾自动补 id）定位下一页，深分页不再扫描被跳过的行
+ *
+ * 排序列必须非空，且视图中需要包含这些列以便生成下一页游标。
+ *
+ * @param cursor 上一页返回的 [LowQueryKeysetPage.nextCursor]，首页传 null
+ */
+fun <E : Any, V : View<E>> KSqlClient.queryKeysetPage(
+    sortStats: Set<StateSort>,
+    searchConditions: Set<StateSearch>?,
+    entityClass: KClass<E>,
+    view: KClass<V>,
+    cursor: String? = null,
+    pageSize: Int = 10,
+): LowQueryKeysetPage<V> {
+    val keyset = LowQueryKeyset.of(entityClass, sortStats)
+    return fetchKeysetPage<E, V>(keyset, entityClass, searchConditions, cursor, pageSize, { it.toEntity() }) {
+        select(table.fetch(view))
+    }
+}
+
+/**
+ * keyset 分页，排序列会自动加入抓取器
+ */
+@Suppress("UNCHECKED_CAST")
+fun <E : Any> KSqlClient.queryKeysetPage(
+    sortStats: Set<StateSort>,
+    searchConditions: Set<StateSearch>?,
+    entityClass: KClass<E>,
+    stateVos: Set<StateVo> = emptySet(),
+    cursor: String? = null,
+    pageSize: Int = 10,
+): LowQueryKeysetPage<E> {
+    val keyset = LowQueryKeyset.of(entityClass, sortStats)
+    val baseFetcher = if (stateVos.isEmpty()) {
+        FetcherImpl(entityClass.java).allScalarFields() as FetcherImplementor<E>
+    } else {
+        buildVoFetcher(entityClass, stateVos)
+    }
+    val fetcher = keyset.paths.fold(baseFetcher) { current, path ->
+        addFetchPath(current, path.columnKey.split("."))
+    }
+    return fetchKeysetPage<E, E>(keyset, entityClass, searchConditions, cursor, pageSize, { it }) {
+        select(table.fetch(fetcher))
+    }
+}
+
+private fun <E : Any, R> KSqlClient.fetchKeysetPage(
+    keyset: LowQueryKeyset,
+    entityClass: KClass<E>,
+    searchConditions: Set<StateSearch>?,
+    cursor: String?,
+    pageSize: Int,
+    toEntity: (R) -> Any,
+    selection: KMutableRootQuery.ForEntity<E>.() -> KConfigurableRootQuery<KNonNullTable<E>, R>,
+): LowQueryKeysetPage<R> {
+    require(pageSize > 0) { "pageSize 必须大于 0" }
+    val cursorValues = cursor?.takeIf { it.isNotBlank() }?.let { keyset.decodeCursor(it) }
+    val fetched = createQuery(entityClass) {
+        applySearchConditions(entityClass, searchConditions)
+        cursorValues?.let { where(keyset.predicate(table, it)) }
+        orderBy(*keyset.orders(table))
+        selection()
+    }.limit(pageSize + 1).execute()
+    if (fetched.size <= pageSize) {
+        return LowQueryKeysetPage(fetched, null)
+    }
+    val rows = fetched.subList(0, pageSize)
+    return LowQueryKeysetPage(rows, keyset.encodeCursor(toEntity(rows.last())))
+}
+
+private fun <E : Any, R> KSqlClient.fetchLowQueryPage(
+    query: KConfigurableRootQuery<KNonNullTable<E>, R>,
+    entityClass: KClass<E>,
+    searchConditions: Set<StateSearch>?,
+    countMode: LowQueryCountMode,
+    pageNo: Int,
+    pageSize: Int,
+    countLimit: Int,
+): LowQueryPage<R> {
+    require(pageNo > 0) { "pageNo 必须大于 0" }
+    require(pageSize > 0) { "pageSize 必须大于 0" }
+    if (countMode == LowQueryCountMode.EXACT) {
+        val page = query.fetchPage(pageNo - 1, pageSize)
+        return LowQueryPage(page.rows, page.totalRowCount, page.totalPageCount, true)
+    }
+
+    val offset = (pageNo - 1).toLong() * pageSize
+    // 多取一行判断是否还有下一页
+    val fetched = query.limit(pageSize + 1, offset).execute()
+    val rows = if (fetched.size > pageSize) fetched.subList(0, pageSize) else fetched
+    val totalRowCount: Long
+    val exactCount: Boolean
+    when {
+        // 最后一页：总数可以直接算出
+        fetched.size <= pageSize && (fetched.isNotEmpty() || offset == 0L) -> {
+            totalRowCount = offset + fetched.size
+            exactCount = true
+        }
+
+        // 越过末页的空页：只知道总数不超过 offset，不统计时下限只能给 0
+        fetched.isEmpty() && countMode == LowQueryCountMode.NONE -> {
+            totalRowCount = 0
+            exactCount = false
+        }
+
+        countMode == LowQueryCountMode.NONE -> {
+            totalRowCount = offset + fetched.size
+            exactCount = false
+        }
+
+        else -> {
+            val counted = countUpTo(entityClass, searchConditions, countLimit)
+            exactCount = counted <= countLimit
+            totalRowCount = when {
+                exactCount -> counted
+                // 空页的 offset 可能已经超过实际总数，不能作为下限
+                fetched.isEmpty() -> countLimit.toLong()
+                else -> maxOf(countLimit.toLong(), offset + fetched.size)
+            }
+        }
+    }
+    val totalPageCount = (totalRowCount + pageSize - 1) / pageSize
+    return LowQueryPage(rows, totalRowCount, totalPageCount, exactCount)
+}
+
+/**
+ * 统计至多 limit + 1 行，代替全表 `COUNT(*)`
+ *
+ * 先用 `LIMIT 1 OFFSET limit` 探测第 limit + 1 行是否存在，数据库最多扫描 limit + 1 行且只返回一行；
+ * 不存在时匹配的行不超过 limit，再做一次精确 `COUNT(*)`。
+ */
+private fun <E : Any> KSqlClient.countUpTo(
+    entityClass: KClass<E>,
+    searchConditions: Set<StateSearch>?,
+    limit: Int,
+): Long {
+    val idProp = ImmutableType.get(entityClass.java).idProp
+    val overflow = createQuery(entityClass) {
+        applySearchConditions(entityClass, searchConditions)
+        select(table.get<Any>(idProp))
+    }.limit(1, limit.toLong()).execute().isNotEmpty()
+    if (overflow) {
+        return limit + 1L
+    }
+    return createQuery(entityClass) {
+        applySearchConditions(entityClass, searchConditions)
+        select(rowCount())
+    }.fetchOne()
+}
@@ -0,0 +1,167 @@
+package site.addzero.jimmer.adv_search
+
+import cn.hutool.core.convert.Convert
+import org.babyfish.jimmer.meta.ImmutableType
+import org.babyfish.jimmer.sql.ast.query.Order
+import org.babyfish.jimmer.sql.kt.ast.expression.*
+import org.babyfish.jimmer.sql.kt.ast.table.KNonNullTable
+import site.addzero.entity.low_table.EnumSortDirection
+import site.addzero.entity.low_table.StateSort
+import java.io.ByteArrayInputStream
+import java.io.ByteArrayOutputStream
+import java.io.DataInputStream
+import java.io.DataOutputStream
+import java.io.IOException
+import java.sql.Time
+import java.sql.Timestamp
+import java.time.Instant
+import java.time.LocalDate
+import java.time.LocalDateTime
+import java.time.LocalTime
+import java.time.OffsetDateTime
+import java.time.ZonedDateTime
+import java.util.Base64
+import java.util.Date
+import java.util.UUID
+import kotlin.reflect.KClass
+
+/**
+ * keyset（seek）分页结果
+ *
+ * @param rows 当前页数据
+ * @param nextCursor 下一页游标，没有下一页时为 null
+ */
+data class LowQueryKeysetPage<T>(
+    val rows: List<T>,
+    val nextCursor: String?,
+) {
+    val hasNext: Boolean get() = nextCursor != null
+}
+
+/**
+ * 由排序列推导出的 keyset 分页规则
+ *
+ * 排序列末尾自动补上 id 作为唯一的决胜列；游标只记录上一页最后一行在这些列上的值，
+ * 下一页用 `(c1 > v1) or (c1 = v1 and c2 > v2) or ...` 定位，不再依赖 OFFSET。
+ */
+internal class LowQueryKeyset private constructor(
+    private val columns: List<Column>,
+) {
+
+    private class Column(val path: LowQueryPropPath, val desc: Boolean)
+
+    /** 排序规则指纹，防止游标被用在另一组排序上 */
+    private val fingerprint: String = columns.joinToString(",") { "${it.path.columnKey}:${if (it.desc) "D" else "A"}" }
+
+    val paths: List<LowQueryPropPath> get() = columns.map { it.path }
+
+    fun orders(table: KNonNullTable<*>): Array<Order> = Array(columns.size) { index ->
+        val expression = columns[index].path.expression<Any>(table)
+        if (columns[index].desc) expression.desc() else expression.asc()
+    }
+
+    @Suppress("UNCHECKED_CAST")
+    fun predicate(table: KNonNullTable<*>, values: List<Any>): KNonNullExpression<Boolean>? {
+        val branches = columns.indices.map { index ->
+            val conditions = ArrayList<KNonNullExpression<Boolean>>(index + 1)
+            for (previous in 0 until index) {
+                conditions += columns[previous].path.expression<Any>(table).eq(values[previous])
+            }
+            val column = columns[index]
+            val expression = column.path.expression<Comparable<Any>>(table)
+            val value = values[index] as Comparable<Any>
+            conditions += if (column.desc) expression.lt(value) else expression.gt(value)
+            and(*conditions.toTypedArray())
+        }
+        return or(*branches.toTypedArray())
+    }
+
+    fun encodeCursor(row: Any): String {
+        val output = ByteArrayOutputStream()
+        DataOutputStream(output).use { data ->
+            data.writeByte(CURSOR_VERSION)
+            data.writeUTF(fingerprint)
+            data.writeShort(columns.size)
+            columns.forEach { column ->
+                val value = column.path.valueOf(row)
+                    ?: throw IllegalStateException("排序列 ${column.path.columnKey} 的值为 null，无法生成分页游标")
+                data.writeUTF(formatValue(value))
+            }
+        }
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(output.toByteArray())
+    }
+
+    fun decodeCursor(cursor: String): List<Any> {
+        try {
+            DataInputStream(ByteArrayInputStream(Base64.getUrlDecoder().decode(cursor))).use { data ->
+                require(data.readByte().toInt() == CURSOR_VERSION) { "不支持的分页游标版本" }
+                require(data.readUTF() == fingerprint) { "分页游标与当前排序条件不匹配" }
+                require(data.readShort().toInt() == columns.size) { "分页游标列数不匹配" }
+                return columns.map { parseValue(it.path.leaf.returnClass, data.readUTF()) }
+            }
+        } catch (e: IOException) {
+            throw IllegalArgumentException("无效的分页游标", e)
+        } catch (e: RuntimeException) {
+            if (e is IllegalArgumentException) {
+                throw e
+            }
+            throw IllegalArgumentException("无效的分页游标", e)
+        }
+    }
+
+    companion object {
+
+        /** 2：日期类型改为带纳秒的 ISO 时间戳 */
+        private const val CURSOR_VERSION = 2
+
+        fun of(entityClass: KClass<*>, sortStats: Collection<StateSort>): LowQueryKeyset {
+            val columns = ArrayList<Column>(sortStats.size + 1)
+            sortStats.forEach { sort ->
+                val path = LowQueryPaths.resolve(entityClass, sort.columnKey)
+                require(path.isNonNull) { "keyset 分页要求排序列非空，${path.columnKey} 可能为 null" }
+                if (columns.none { it.path === path }) {
+                    columns += Column(path, sort.direction == EnumSortDirection.DESC)
+                }
+            }
+            val idProp = ImmutableType.get(entityClass.java).idProp
+            if (columns.none { it.path.props.size == 1 && it.path.leaf == idProp }) {
+                columns += Column(LowQueryPaths.resolve(entityClass, idProp.name), false)
+            }
+            return LowQueryKeyset(columns)
+        }
+
+        private fun formatValue(value: Any): String = when (value) {
+            // Timestamp 的 time 只到毫秒，纳秒部分要单独保留，否则下一页会重复返回同一毫秒内的行
+            is Timestamp -> value.toInstant().toString()
+            // java.sql.Date/Time 不支持 toInstant()
+            is Date -> Instant.ofEpochMilli(value.time).toString()
+            is Enum<*> -> value.name
+            else -> value.toString()
+        }
+
+        private fun parseValue(type: Class<*>, text: String): Any = when {
+            type == String::class.java -> text
+            Date::class.java.isAssignableFrom(type) -> parseDate(type, Instant.parse(text))
+            type.isEnum -> type.enumConstants.first { (it as Enum<*>).name == text }
+            type == UUID::class.java -> UUID.fromString(text)
+            type == LocalDateTime::class.java -> LocalDateTime.parse(text)
+            type == LocalDate::class.java -> LocalDate.parse(text)
+            type == LocalTime::class.java -> LocalTime.parse(text)
+            type == Instant::class.java -> Instant.parse(text)
+            type == OffsetDateTime::class.java -> OffsetDateTime.parse(text)
+            type == ZonedDateTime::class.java -> ZonedDateTime.parse(text)
+            else -> Convert.convert(type, text)
+                ?: throw IllegalArgumentException("无法将游标值 $text 转换为 ${type.name}")
+        }
+
+        /**
+         * 按声明的类型还原日期；声明为 [Date] 但值带亚毫秒精度时返回 [Timestamp]
+         */
+        private fun parseDate(type: Class<*>, instant: Instant): Date = when (type) {
+            Timestamp::class.java -> Timestamp.from(instant)
+            java.sql.Date::class.java -> java.sql.Date(instant.toEpochMilli())
+            Time::class.java -> Time(instant.toEpochMilli())
+            else -> if (instant.nano % 1_000_000 == 0) Date.from(instant) else Timestamp.from(instant)
+        }
+    }
+}
@@ -0,0 +1,30 @@
+package site.addzero.jimmer.adv_search
+
+/**
+ * 分页总数的统计方式
+ */
+enum class LowQueryCountMode {
+    /** 精确 `COUNT(*)`，与 Jimmer `fetchPage` 一致 */
+    EXACT,
+
+    /** 最多统计到 countLimit 行，超过后只返回下限 */
+    CAPPED,
+
+    /** 不统计，只根据是否还有下一页给出下限；越过末页的空页下限为 0 */
+    NONE,
+}
+
+/**
+ * 带总数精度标记的分页结果
+ *
+ * @param rows 当前页数据
+ * @param totalRowCount 总行数；[exactCount] 为 false 时表示下限
+ * @param totalPageCount 按 [totalRowCount] 计算的页数
+ * @param exactCount 总数是否精确
+ */
+data class LowQueryPage<T>(
+    val rows: List<T>,
+    val totalRowCount: Long,
+    val totalPageCount: Long,
+    val exactCount: Boolean,
+)
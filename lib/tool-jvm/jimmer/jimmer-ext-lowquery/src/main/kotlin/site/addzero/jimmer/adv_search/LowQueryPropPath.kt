@@ -0,0 +1,97 @@
+package site.addzero.jimmer.adv_search
+
+import org.babyfish.jimmer.meta.ImmutableProp
+import org.babyfish.jimmer.meta.ImmutableType
+import org.babyfish.jimmer.meta.TargetLevel
+import org.babyfish.jimmer.runtime.ImmutableSpi
+import org.babyfish.jimmer.sql.kt.ast.expression.KExpression
+import org.babyfish.jimmer.sql.kt.ast.table.KNonNullTable
+import java.util.concurrent.ConcurrentHashMap
+import kotlin.reflect.KClass
+
+/**
+ * 校验并预解析后的属性路径，例如 `dept.name` 解析为 `[dept, name]` 两个 [ImmutableProp]
+ *
+ * @param columnKey 前端传入的列键（已去除首尾空白）
+ * @param props 从根实体开始的属性链，除最后一个外都是关联属性
+ */
+class LowQueryPropPath internal constructor(
+    val columnKey: String,
+    val props: List<ImmutableProp>,
+) {
+
+    /** 路径末端的标量属性 */
+    val leaf: ImmutableProp get() = props.last()
+
+    /** 路径上所有属性都不可空，keyset 分页只接受这种排序列 */
+    val isNonNull: Boolean = props.none { it.isNullable }
+
+    /**
+     * 在 [table] 上沿路径 join 并取出末端属性表达式
+     */
+    fun <X : Any> expression(table: KNonNullTable<*>): KExpression<X> {
+        var current: KNonNullTable<*> = table
+        for (index in 0 until props.size - 1) {
+            current = current.join<Any>(props[index])
+        }
+        return current.get(leaf)
+    }
+
+    /**
+     * 从已抓取的实体对象上读取路径对应的值，中间的关联为 null 时返回 null
+     */
+    fun valueOf(entity: Any): Any? {
+        var current: Any? = entity
+        for (prop in props) {
+            val spi = current as? ImmutableSpi ?: return null
+            check(spi.__isLoaded(prop.id)) { "属性 $columnKey 未被抓取，无法读取其值" }
+            current = spi.__get(prop.id)
+        }
+        return current
+    }
+
+    override fun toString(): String = "LowQueryPropPath($columnKey)"
+}
+
+/**
+ * 按 (实体类型, 列键) 缓存 [LowQueryPropPath]
+ *
+ * 只有校验通过的路径才会进入缓存，前端传入的非法列键不会让缓存无限增长。
+ */
+object LowQueryPaths {
+
+    private val cache = object : ClassValue<ConcurrentHashMap<String, LowQueryPropPath>>() {
+        override fun computeValue(type: Class<*>) = ConcurrentHashMap<String, LowQueryPropPath>()
+    }
+
+    fun resolve(entityClass: KClass<*>, columnKey: String): LowQueryPropPath = resolve(entityClass.java, columnKey)
+
+    /**
+     * 解析列键，属性不存在、中间段不是关联或末端是关联时抛出 [IllegalArgumentException]
+     */
+    fun resolve(entityClass: Class<*>, columnKey: String): LowQueryPropPath {
+        val key = columnKey.trim()
+        val paths = cache.get(entityClass)
+        return paths[key] ?: paths.computeIfAbsent(key) { compile(entityClass, it) }
+    }
+
+    private fun compile(entityClass: Class<*>, columnKey: String): LowQueryPropPath {
+        require(columnKey.isNotEmpty()) { "列键不能为空" }
+        val parts = columnKey.split(".")
+        var type = ImmutableType.get(entityClass)
+        val props = ArrayList<ImmutableProp>(parts.size)
+        parts.forEachIndexed { index, part ->
+            val prop = type.props[part]
+                ?: throw IllegalArgumentException("实体 $type 不存在属性 $part（列键 $columnKey）")
+            val isAssociation = prop.isAssociation(TargetLevel.ENTITY)
+            if (index < parts.size - 1) {
+                require(isAssociation) { "属性 $type.$part 不是关联属性，无法继续解析列键 $columnKey" }
+                type = prop.targetType
+            } else {
+                require(!isAssociation) { "列键 $columnKey 指向关联属性，请指定关联对象上的具体列" }
+            }
+            props += prop
+        }
+        return LowQueryPropPath(columnKey, props)
+    }
+}
@@ -0,0 +1,80 @@
+package site.addzero.jimmer.adv_search
+
+import org.junit.jupiter.api.Assertions.assertEquals
+import org.junit.jupiter.api.Assertions.assertThrows
+import org.junit.jupiter.api.Assertions.assertTrue
+import org.junit.jupiter.api.Test
+import site.addzero.entity.low_table.EnumSortDirection
+import site.addzero.entity.low_table.StateSort
+import site.addzero.jimmer.adv_search.fixture.Book
+import java.sql.Timestamp
+import java.util.Base64
+import java.util.Date
+
+class LowQueryKeysetTest {
+
+    private fun book(createdTime: Date) = Book {
+        id = 7L
+        name = "Kotlin"
+        price = 42
+        this.createdTime = createdTime
+    }
+
+    @Test
+    fun `游标可以还原排序列的值并自动补上 id`() {
+        val keyset = LowQueryKeyset.of(
+            Book::class,
+            listOf(StateSort("price", EnumSortDirection.DESC), StateSort("name", EnumSortDirection.ASC)),
+        )
+        val createdTime = Date(1_700_000_000_123L)
+
+        val values = keyset.decodeCursor(keyset.encodeCursor(book(createdTime)))
+
+        assertEquals(listOf("price", "name", "id"), keyset.paths.map { it.columnKey })
+        assertEquals(listOf<Any>(42, "Kotlin", 7L), values)
+    }
+
+    @Test
+    fun `Timestamp 保留纳秒精度`() {
+        val keyset = LowQueryKeyset.of(Book::class, listOf(StateSort("createdTime", EnumSortDirection.ASC)))
+        val createdTime = Timestamp(1_700_000_000_123L).apply { nanos = 123_456_789 }
+
+        val value = keyset.decodeCursor(keyset.encodeCursor(book(createdTime))).first()
+
+        assertTrue(value is Timestamp)
+        assertEquals(createdTime, value)
+        assertEquals(123_456_789, (value as Timestamp).nanos)
+    }
+
+    @Test
+    fun `毫秒精度的 Date 按声明类型还原`() {
+        val keyset = LowQueryKeyset.of(Book::class, listOf(StateSort("createdTime", EnumSortDirection.ASC)))
+        val createdTime = Date(1_700_000_000_123L)
+
+        val value = keyset.decodeCursor(keyset.encodeCursor(book(createdTime))).first()
+
+        assertEquals(Date::class.java, value.javaClass)
+        assertEquals(createdTime, value)
+    }
+
+    @Test
+    fun `排序条件不同或游标被篡改时拒绝`() {
+        val byPrice = LowQueryKeyset.of(Book::class, listOf(StateSort("price", EnumSortDirection.ASC)))
+        val byName = LowQueryKeyset.of(Book::class, listOf(StateSort("name", EnumSortDirection.ASC)))
+        val cursor = byPrice.encodeCursor(book(Date()))
+        val oldVersion = Base64.getUrlDecoder().decode(cursor).also { it[0] = 1 }
+
+        assertThrows(IllegalArgumentException::class.java) { byName.decodeCursor(cursor) }
+        assertThrows(IllegalArgumentException::class.java) { byPrice.decodeCursor("not-a-cursor") }
+        assertThrows(IllegalArgumentException::class.java) {
+            byPrice.decodeCursor(Base64.getUrlEncoder().withoutPadding().encodeToString(oldVersion))
+        }
+    }
+
+    @Test
+    fun `可空列不能作为 keyset 排序列`() {
+        assertThrows(IllegalArgumentException::class.java) {
+            LowQueryKeyset.of(Book::class, listOf(StateSort("remark", EnumSortDirection.ASC)))
+        }
+    }
+}
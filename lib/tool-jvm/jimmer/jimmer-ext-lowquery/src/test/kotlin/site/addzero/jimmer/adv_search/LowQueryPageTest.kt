@@ -0,0 +1,147 @@
+package site.addzero.jimmer.adv_search
+
+import org.babyfish.jimmer.sql.dialect.H2Dialect
+import org.babyfish.jimmer.sql.kt.KSqlClient
+import org.babyfish.jimmer.sql.kt.newKSqlClient
+import org.h2.jdbcx.JdbcDataSource
+import org.junit.jupiter.api.AfterEach
+import org.junit.jupiter.api.Assertions.assertEquals
+import org.junit.jupiter.api.Assertions.assertNull
+import org.junit.jupiter.api.BeforeEach
+import org.junit.jupiter.api.Test
+import site.addzero.entity.low_table.EnumLogicOperator
+import site.addzero.entity.low_table.EnumSortDirection
+import site.addzero.entity.low_table.StateSearch
+import site.addzero.entity.low_table.StateSort
+import site.addzero.jimmer.adv_search.fixture.Book
+import java.sql.Connection
+
+class LowQueryPageTest {
+
+    private val dataSource = JdbcDataSource().apply {
+        setURL("jdbc:h2:mem:lowquery-${System.nanoTime()};DB_CLOSE_DELAY=-1")
+    }
+
+    /** 保持一条连接，避免内存库在用例中途被回收 */
+    private lateinit var keepAlive: Connection
+
+    private val sqlClient: KSqlClient = newKSqlClient {
+        setConnectionManager {
+            dataSource.connection.use { proceed(it) }
+        }
+        setDialect(H2Dialect())
+    }
+
+    /** (id, name, price)，价格有重复，用来验证 id 决胜列 */
+    private val books = listOf(
+        Triple(1L, "book1", 30),
+        Triple(2L, "book2", 10),
+        Triple(3L, "book3", 30),
+        Triple(4L, "book4", 20),
+        Triple(5L, "book5", 10),
+        Triple(6L, "book6", 30),
+        Triple(7L, "book7", 20),
+    )
+
+    @BeforeEach
+    fun setUp() {
+        keepAlive = dataSource.connection
+        keepAlive.createStatement().use { statement ->
+            statement.execute(
+                "CREATE TABLE BOOK (ID BIGINT PRIMARY KEY, NAME VARCHAR(50) NOT NULL, PRICE INT NOT NULL, " +
+                    "CREATED_TIME TIMESTAMP(9) NOT NULL, REMARK VARCHAR(50))"
+            )
+        }
+        keepAlive.prepareStatement("INSERT INTO BOOK (ID, NAME, PRICE, CREATED_TIME) VALUES (?, ?, ?, CURRENT_TIMESTAMP)")
+            .use { statement ->
+                books.forEach { (id, name, price) ->
+                    statement.setLong(1, id)
+                    statement.setString(2, name)
+                    statement.setInt(3, price)
+                    statement.addBatch()
+                }
+                statement.executeBatch()
+            }
+    }
+
+    @AfterEach
+    fun tearDown() {
+        keepAlive.close()
+    }
+
+    private fun keysetIds(sorts: Set<StateSort>, searches: Set<StateSearch>? = null, pageSize: Int = 3): List<List<Long>> {
+        val pages = ArrayList<List<Long>>()
+        var cursor: String? = null
+        do {
+            val page = sqlClient.queryKeysetPage(sorts, searches, Book::class, cursor = cursor, pageSize = pageSize)
+            pages += page.rows.map { it.id }
+            cursor = page.nextCursor
+        } while (cursor != null)
+        return pages
+    }
+
+    @Test
+    fun `keyset 分页按排序列和 id 依次定位，不重复不遗漏`() {
+        val pages = keysetIds(setOf(StateSort("price", EnumSortDirection.DESC)))
+
+        assertEquals(listOf(listOf(1L, 3L, 6L), listOf(4L, 7L, 2L), listOf(5L)), pages)
+    }
+
+    @Test
+    fun `keyset 分页多列排序且保留搜索条件`() {
+        val pages = keysetIds(
+            setOf(StateSort("price", EnumSortDirection.ASC), StateSort("name", EnumSortDirection.DESC)),
+            listOf("book1", "book4", "book5").map {
+                StateSearch("name", columnValue = it, logicType = EnumLogicOperator.OR)
+            }.toSet(),
+            pageSize = 2,
+        )
+
+        assertEquals(listOf(listOf(5L, 4L), listOf(1L)), pages)
+    }
+
+    @Test
+    fun `最后一页没有下一页游标`() {
+        val page = sqlClient.queryKeysetPage(
+            setOf(StateSort("price", EnumSortDirection.ASC)), null, Book::class, pageSize = 7,
+        )
+
+        assertEquals(7, page.rows.size)
+        assertNull(page.nextCursor)
+    }
+
+    private fun page(countMode: LowQueryCountMode, pageNo: Int, countLimit: Int = 100): LowQueryPage<Book> =
+        sqlClient.queryPage(
+            setOf(StateSort("id", EnumSortDirection.ASC)), null, Book::class, emptySet(),
+            countMode, pageNo = pageNo, pageSize = 3, countLimit = countLimit,
+        )
+
+    private fun LowQueryPage<*>.summary() = Triple(totalRowCount, totalPageCount, exactCount)
+
+    @Test
+    fun `EXACT 模式精确统计`() {
+        assertEquals(Triple(7L, 3L, true), page(LowQueryCountMode.EXACT, 1).summary())
+    }
+
+    @Test
+    fun `CAPPED 模式在上限内精确，超过上限返回下限`() {
+        assertEquals(Triple(7L, 3L, true), page(LowQueryCountMode.CAPPED, 1).summary())
+        assertEquals(Triple(5L, 2L, false), page(LowQueryCountMode.CAPPED, 1, countLimit = 5).summary())
+        // 越过末页的空页不能把 offset 当作下限
+        assertEquals(Triple(5L, 2L, false), page(LowQueryCountMode.CAPPED, 5, countLimit = 5).summary())
+        assertEquals(Triple(7L, 3L, true), page(LowQueryCountMode.CAPPED, 5).summary())
+    }
+
+    @Test
+    fun `NONE 模式只给出下限，末页精确`() {
+        val first = page(LowQueryCountMode.NONE, 1)
+        assertEquals(listOf(1L, 2L, 3L), first.rows.map { it.id })
+        assertEquals(Triple(4L, 2L, false), first.summary())
+
+        val last = page(LowQueryCountMode.NONE, 3)
+        assertEquals(listOf(7L), last.rows.map { it.id })
+        assertEquals(Triple(7L, 3L, true), last.summary())
+
+        assertEquals(Triple(0L, 0L, false), page(LowQueryCountMode.NONE, 5).summary())
+    }
+}
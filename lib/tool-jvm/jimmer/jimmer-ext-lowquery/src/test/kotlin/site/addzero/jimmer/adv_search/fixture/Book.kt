@@ -0,0 +1,15 @@
+package site.addzero.jimmer.adv_search.fixture
+
+import org.babyfish.jimmer.sql.Entity
+import org.babyfish.jimmer.sql.Id
+import java.util.Date
+
+@Entity
+interface Book {
+    @Id
+    val id: Long
+    val name: String
+    val price: Int
+    val createdTime: Date
+    val remark: String?
+}
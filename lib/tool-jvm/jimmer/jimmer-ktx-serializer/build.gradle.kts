@@ -1,6 +1,7 @@
 plugins {
   id("site.addzero.buildlogic.jvm.jvm-json-withtool")
   id("site.addzero.buildlogic.jvm.jimmer")
+  id("me.champeau.jmh") version "0.7.3"
 }
 val catalogLibs = versionCatalogs.named("libs")
 
@@ -9,4 +10,6 @@ dependencies {
   api(catalogLibs.findLibrary("org-jetbrains-kotlinx-kotlinx-serialization-json").get())
 
   kspTest(libs.org.babyfish.jimmer.jimmer.ksp)
+  kspJmh(libs.org.babyfish.jimmer.jimmer.ksp)
+  jmh(catalogLibs.findLibrary("com-fasterxml-jackson-module-jackson-module-kotlin").get())
 }
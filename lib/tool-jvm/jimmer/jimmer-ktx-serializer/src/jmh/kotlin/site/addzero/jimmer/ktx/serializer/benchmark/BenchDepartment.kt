@@ -0,0 +1,11 @@
+package site.addzero.jimmer.ktx.serializer.benchmark
+
+import org.babyfish.jimmer.sql.Entity
+import org.babyfish.jimmer.sql.Id
+
+@Entity
+interface BenchDepartment {
+  @Id
+  val id: Long
+  val name: String
+}
@@ -0,0 +1,20 @@
+package site.addzero.jimmer.ktx.serializer.benchmark
+
+import org.babyfish.jimmer.sql.Entity
+import org.babyfish.jimmer.sql.Id
+import org.babyfish.jimmer.sql.ManyToOne
+import java.math.BigDecimal
+
+@Entity
+interface BenchEmployee {
+  @Id
+  val id: Long
+  val name: String
+  val email: String?
+  val age: Int?
+  val active: Boolean
+  val salary: BigDecimal?
+
+  @ManyToOne
+  val dept: BenchDepartment?
+}
@@ -0,0 +1,87 @@
+package site.addzero.jimmer.ktx.serializer.benchmark
+
+import com.fasterxml.jackson.core.type.TypeReference
+import com.fasterxml.jackson.databind.ObjectMapper
+import com.fasterxml.jackson.module.kotlin.jacksonObjectMapper
+import kotlinx.serialization.KSerializer
+import kotlinx.serialization.builtins.ListSerializer
+import kotlinx.serialization.json.Json
+import org.babyfish.jimmer.jackson.ImmutableModule
+import org.openjdk.jmh.annotations.Benchmark
+import org.openjdk.jmh.annotations.BenchmarkMode
+import org.openjdk.jmh.annotations.Fork
+import org.openjdk.jmh.annotations.Level
+import org.openjdk.jmh.annotations.Measurement
+import org.openjdk.jmh.annotations.Mode
+import org.openjdk.jmh.annotations.OutputTimeUnit
+import org.openjdk.jmh.annotations.Param
+import org.openjdk.jmh.annotations.Scope
+import org.openjdk.jmh.annotations.Setup
+import org.openjdk.jmh.annotations.State
+import org.openjdk.jmh.annotations.Warmup
+import site.addzero.jimmer.ktx.serializer.jimmerKtxSerializer
+import java.math.BigDecimal
+import java.util.concurrent.TimeUnit
+
+/**
+ * 对比 JimmerKtxEntitySerializer 与 Jimmer 自带 Jackson 模块（ImmutableModule）序列化一页实体的开销。
+ *
+ * 运行：`./gradlew :lib:tool-jvm:jimmer:jimmer-ktx-serializer:jmh`
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+open class JimmerKtxSerializerBenchmark {
+
+  @Param("100", "5000")
+  var size: Int = 0
+
+  private val json = Json { ignoreUnknownKeys = true }
+
+  private val serializer: KSerializer<List<BenchEmployee>> = ListSerializer(jimmerKtxSerializer<BenchEmployee>())
+
+  private val mapper: ObjectMapper = jacksonObjectMapper().registerModule(ImmutableModule())
+
+  private val listType = object : TypeReference<List<BenchEmployee>>() {}
+
+  private lateinit var employees: List<BenchEmployee>
+
+  private lateinit var content: String
+
+  @Setup(Level.Trial)
+  fun setUp() {
+    val departments = (1..10).map { index ->
+      BenchDepartment {
+        id = index.toLong()
+        name = "Department $index"
+      }
+    }
+    employees = (1..size).map { index ->
+      BenchEmployee {
+        id = index.toLong()
+        name = "Employee $index"
+        email = if (index % 3 == 0) null else "employee$index@example.com"
+        age = 20 + index % 40
+        active = index % 2 == 0
+        salary = BigDecimal.valueOf(index * 100L, 2)
+        dept = departments[index % departments.size]
+      }
+    }
+    content = json.encodeToString(serializer, employees)
+  }
+
+  @Benchmark
+  fun ktxEncode(): String = json.encodeToString(serializer, employees)
+
+  @Benchmark
+  fun jacksonEncode(): String = mapper.writeValueAsString(employees)
+
+  @Benchmark
+  fun ktxDecode(): List<BenchEmployee> = json.decodeFromString(serializer, content)
+
+  @Benchmark
+  fun jacksonDecode(): List<BenchEmployee> = mapper.readValue(content, listType)
+}
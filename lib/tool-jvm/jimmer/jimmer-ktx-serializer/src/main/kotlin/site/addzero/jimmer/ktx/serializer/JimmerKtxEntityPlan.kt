@@ -0,0 +1,578 @@
+package site.addzero.jimmer.ktx.serializer
+
+import kotlinx.serialization.ExperimentalSerializationApi
+import kotlinx.serialization.KSerializer
+import kotlinx.serialization.SerializationException
+import kotlinx.serialization.builtins.ListSerializer
+import kotlinx.serialization.builtins.MapSerializer
+import kotlinx.serialization.builtins.serializer
+import kotlinx.serialization.descriptors.SerialDescriptor
+import kotlinx.serialization.descriptors.buildClassSerialDescriptor
+import kotlinx.serialization.descriptors.element
+import kotlinx.serialization.encoding.Decoder
+import kotlinx.serialization.encoding.Encoder
+import kotlinx.serialization.json.Json
+import kotlinx.serialization.json.JsonArray
+import kotlinx.serialization.json.JsonDecoder
+import kotlinx.serialization.json.JsonElement
+import kotlinx.serialization.json.JsonEncoder
+import kotlinx.serialization.json.JsonNamingStrategy
+import kotlinx.serialization.json.JsonNull
+import kotlinx.serialization.json.JsonObject
+import kotlinx.serialization.json.JsonPrimitive
+import kotlinx.serialization.json.booleanOrNull
+import kotlinx.serialization.json.intOrNull
+import kotlinx.serialization.modules.SerializersModule
+import kotlinx.serialization.serializerOrNull
+import org.babyfish.jimmer.ImmutableObjects
+import org.babyfish.jimmer.jackson.Converter
+import org.babyfish.jimmer.jackson.ConverterMetadata
+import org.babyfish.jimmer.meta.ImmutableProp
+import org.babyfish.jimmer.meta.ImmutableType
+import org.babyfish.jimmer.meta.PropId
+import org.babyfish.jimmer.runtime.DraftSpi
+import org.babyfish.jimmer.runtime.ImmutableSpi
+import org.babyfish.jimmer.runtime.Internal
+import java.lang.reflect.Array as ReflectArray
+import java.lang.reflect.GenericArrayType
+import java.lang.reflect.ParameterizedType
+import java.lang.reflect.Type
+import java.lang.reflect.WildcardType
+import java.math.BigDecimal
+import java.math.BigInteger
+import java.sql.Time
+import java.sql.Timestamp
+import java.time.Duration
+import java.time.Instant
+import java.time.LocalDate
+import java.time.LocalDateTime
+import java.time.LocalTime
+import java.time.OffsetDateTime
+import java.time.OffsetTime
+import java.time.Period
+import java.time.ZonedDateTime
+import java.util.Date
+import java.util.LinkedHashMap
+import java.util.LinkedHashSet
+import java.util.UUID
+import java.util.concurrent.ConcurrentHashMap
+
+/**
+ * 单个 Jimmer 实体类型的编解码计划。
+ *
+ * 每个属性的转换器、标量编解码器和嵌套实体序列化器在创建计划时解析一次，
+ * 序列化时直接通过 [Encoder] 的结构 API 逐个写出属性，不再构建中间的 [JsonObject]。
+ * 计划按 (实体类型, 配置) 缓存，由所有 [JimmerKtxEntitySerializer] 共享。
+ */
+internal class JimmerKtxEntityPlan private constructor(
+  val immutableType: ImmutableType,
+  private val config: JimmerKtxSerializerConfig,
+) {
+
+  val descriptor: SerialDescriptor = buildClassSerialDescriptor(immutableType.javaClass.name) {
+    immutableType.props.values.forEach { prop ->
+      element<JsonElement>(prop.name, isOptional = true)
+    }
+  }
+
+  private val props: Array<PropPlan> = immutableType.props.values
+    .mapIndexed { index, prop -> PropPlan(prop, index, compilePropCodec(prop, config)) }
+    .toTypedArray()
+
+  private val propsByName: Map<String, PropPlan> = HashMap<String, PropPlan>(props.size * 2).also { map ->
+    props.forEach { map[it.name] = it }
+  }
+
+  /**
+   * 按 [JsonNamingStrategy] 转换后的属性名索引。编码时 [Json] 会对 [descriptor] 的元素名应用命名策略，
+   * 解码时也要用转换后的名字查找属性
+   */
+  private val propsByStrategyName = ConcurrentHashMap<JsonNamingStrategy, Map<String, PropPlan>>()
+
+  private val idCodec: PropCodec? by lazy {
+    immutableType.idProp?.let { compileCodec(it.genericType, config) }
+  }
+
+  fun encode(encoder: Encoder, spi: ImmutableSpi) {
+    val actualType = spi.__type()
+    if (actualType !== immutableType) {
+      of(actualType, config).encode(encoder, spi)
+      return
+    }
+    val composite = encoder.beginStructure(descriptor)
+    for (plan in props) {
+      if (!spi.__isLoaded(plan.id)) {
+        continue
+      }
+      if (config.skipInvisibleProperties && !spi.__isVisible(plan.id)) {
+        continue
+      }
+      composite.encodeSerializableElement(descriptor, plan.index, plan.codec, spi.__get(plan.id))
+    }
+    composite.endStructure(descriptor)
+  }
+
+  fun decode(json: Json, element: JsonElement): Any {
+    if (element !is JsonObject) {
+      return decodeIdOnly(json, element)
+    }
+    val plans = propsByName(json)
+    return Internal.produce(immutableType, null) { draft ->
+      val draftSpi = draft as DraftSpi
+      for ((name, valueElement) in element) {
+        val plan = plans[name]
+        if (plan == null) {
+          if (config.ignoreUnknownProperties) {
+            continue
+          }
+          throw SerializationException("Jimmer 实体 ${immutableType.javaClass.name} 不存在属性 $name")
+        }
+        if (!plan.mutable) {
+          if (config.ignoreReadonlyProperties) {
+            continue
+          }
+          throw SerializationException("Jimmer 属性 ${immutableType.javaClass.name}.$name 不是可写属性")
+        }
+        draftSpi.__set(plan.id, plan.codec.decode(json, valueElement))
+      }
+    }
+  }
+
+  @OptIn(ExperimentalSerializationApi::class)
+  private fun propsByName(json: Json): Map<String, PropPlan> {
+    val strategy = json.configuration.namingStrategy ?: return propsByName
+    return propsByStrategyName.computeIfAbsent(strategy) { naming ->
+      HashMap<String, PropPlan>(props.size * 2).also { map ->
+        props.forEach { map[naming.serialNameForJson(descriptor, it.index, it.name)] = it }
+      }
+    }
+  }
+
+  private fun decodeIdOnly(json: Json, element: JsonElement): Any {
+    val codec = idCodec
+      ?: throw SerializationException("Jimmer 实体 ${immutableType.javaClass.name} 没有 id 属性，无法从标量创建 id-only 对象")
+    return ImmutableObjects.makeIdOnly(immutableType, codec.decode(json, element))
+      ?: throw SerializationException("无法创建 ${immutableType.javaClass.name} 的 id-only 对象")
+  }
+
+  private class PropPlan(prop: ImmutableProp, val index: Int, val codec: PropCodec) {
+    val id: PropId = prop.id
+    val name: String = prop.name
+    val mutable: Boolean = prop.isMutable
+  }
+
+  companion object {
+
+    private val cache = object : ClassValue<ConcurrentHashMap<JimmerKtxSerializerConfig, JimmerKtxEntityPlan>>() {
+      override fun computeValue(type: Class<*>) = ConcurrentHashMap<JimmerKtxSerializerConfig, JimmerKtxEntityPlan>()
+    }
+
+    fun of(immutableType: ImmutableType, config: JimmerKtxSerializerConfig): JimmerKtxEntityPlan =
+      cache.get(immutableType.getJavaClass()).computeIfAbsent(config) { JimmerKtxEntityPlan(immutableType, it) }
+  }
+}
+
+/**
+ * 预编译的属性值编解码器。
+ *
+ * 编码直接写入 [Encoder]；解码仍以 [JsonElement] 为输入，以便支持 id-only 标量和宽松的未知字段处理。
+ */
+private abstract class PropCodec : KSerializer<Any?> {
+
+  override val descriptor: SerialDescriptor get() = JSON_ELEMENT_DESCRIPTOR
+
+  override fun serialize(encoder: Encoder, value: Any?) {
+    if (value == null) {
+      encoder.encodeNull()
+    } else {
+      write(encoder, value)
+    }
+  }
+
+  override fun deserialize(decoder: Decoder): Any? {
+    val jsonDecoder = decoder as? JsonDecoder
+      ?: throw SerializationException("JimmerKtxEntitySerializer 只能配合 Json 使用")
+    return decode(jsonDecoder.json, jsonDecoder.decodeJsonElement())
+  }
+
+  fun decode(json: Json, element: JsonElement): Any? = if (element is JsonNull) null else read(json, element)
+
+  abstract fun write(encoder: Encoder, value: Any)
+
+  abstract fun read(json: Json, element: JsonElement): Any?
+}
+
+private val JSON_ELEMENT_DESCRIPTOR: SerialDescriptor = JsonElement.serializer().descriptor
+
+private val LIST_DESCRIPTOR: SerialDescriptor = ListSerializer(JsonElement.serializer()).descriptor
+
+private val MAP_DESCRIPTOR: SerialDescriptor = MapSerializer(String.serializer(), JsonElement.serializer()).descriptor
+
+private class EntityCodec(
+  private val immutableType: ImmutableType,
+  private val config: JimmerKtxSerializerConfig,
+) : PropCodec() {
+
+  // 延迟获取，允许实体之间相互引用
+  private val plan by lazy { JimmerKtxEntityPlan.of(immutableType, config) }
+
+  override fun write(encoder: Encoder, value: Any) {
+    val spi = value as? ImmutableSpi
+      ?: throw SerializationException("${value.javaClass.name} 不是 Jimmer 对象")
+    plan.encode(encoder, spi)
+  }
+
+  override fun read(json: Json, element: JsonElement): Any = plan.decode(json, element)
+}
+
+private class ConverterCodec(
+  private val converter: Converter<Any, Any>,
+  private val target: PropCodec,
+) : PropCodec() {
+
+  override fun write(encoder: Encoder, value: Any) {
+    target.serialize(encoder, converter.output(value))
+  }
+
+  override fun read(json: Json, element: JsonElement): Any? =
+    target.read(json, element)?.let { converter.input(it) }
+}
+
+private class CollectionCodec(
+  private val rawClass: Class<*>,
+  private val elementCodec: PropCodec,
+) : PropCodec() {
+
+  private val isSet = Set::class.java.isAssignableFrom(rawClass)
+
+  override fun write(encoder: Encoder, value: Any) {
+    val collection = value as Collection<*>
+    val composite = encoder.beginCollection(LIST_DESCRIPTOR, collection.size)
+    var index = 0
+    for (item in collection) {
+      composite.encodeSerializableElement(LIST_DESCRIPTOR, index++, elementCodec, item)
+    }
+    composite.endStructure(LIST_DESCRIPTOR)
+  }
+
+  override fun read(json: Json, element: JsonElement): Any {
+    val array = element as? JsonArray
+      ?: throw SerializationException("类型 ${rawClass.name} 需要 JSON 数组")
+    val values = ArrayList<Any?>(array.size)
+    for (item in array) {
+      values += elementCodec.decode(json, item)
+    }
+    return if (isSet) LinkedHashSet(values) else values
+  }
+}
+
+private class ArrayCodec(
+  private val componentClass: Class<*>,
+  private val elementCodec: PropCodec,
+) : PropCodec() {
+
+  override fun write(encoder: Encoder, value: Any) {
+    val array = value as Array<*>
+    val composite = encoder.beginCollection(LIST_DESCRIPTOR, array.size)
+    for (index in array.indices) {
+      composite.encodeSerializableElement(LIST_DESCRIPTOR, index, elementCodec, array[index])
+    }
+    composite.endStructure(LIST_DESCRIPTOR)
+  }
+
+  override fun read(json: Json, element: JsonElement): Any {
+    val array = element as? JsonArray
+      ?: throw SerializationException("数组类型需要 JSON 数组")
+    val result = ReflectArray.newInstance(componentClass, array.size)
+    array.forEachIndexed { index, item ->
+      ReflectArray.set(result, index, elementCodec.decode(json, item))
+    }
+    return result
+  }
+}
+
+private class MapCodec(
+  private val keyClass: Class<*>?,
+  private val valueCodec: PropCodec,
+) : PropCodec() {
+
+  override fun write(encoder: Encoder, value: Any) {
+    val map = value as Map<*, *>
+    val composite = encoder.beginCollection(MAP_DESCRIPTOR, map.size)
+    var index = 0
+    for ((key, item) in map) {
+      composite.encodeStringElement(MAP_DESCRIPTOR, index++, encodeMapKey(keyClass, key))
+      composite.encodeSerializableElement(MAP_DESCRIPTOR, index++, valueCodec, item)
+    }
+    composite.endStructure(MAP_DESCRIPTOR)
+  }
+
+  override fun read(json: Json, element: JsonElement): Any {
+    val jsonObject = element as? JsonObject
+      ?: throw SerializationException("Map 类型需要 JSON 对象")
+    val content = LinkedHashMap<Any?, Any?>()
+    for ((key, valueElement) in jsonObject) {
+      content[decodeMapKey(keyClass, key)] = valueCodec.decode(json, valueElement)
+    }
+    return content
+  }
+}
+
+private class ScalarCodec(
+  private val type: Class<*>,
+  private val writer: (Encoder, Any) -> Unit,
+  private val reader: (JsonPrimitive) -> Any?,
+) : PropCodec() {
+
+  override fun write(encoder: Encoder, value: Any) {
+    writer(encoder, value)
+  }
+
+  override fun read(json: Json, element: JsonElement): Any? {
+    val primitive = element as? JsonPrimitive
+      ?: throw SerializationException("类型 ${type.name} 需要 JSON 标量")
+    return reader(primitive)
+  }
+}
+
+private class EnumCodec(private val type: Class<*>) : PropCodec() {
+
+  private val constants: Map<String, Any> = type.enumConstants.associateBy { (it as Enum<*>).name }
+
+  override fun write(encoder: Encoder, value: Any) {
+    encoder.encodeString((value as Enum<*>).name)
+  }
+
+  override fun read(json: Json, element: JsonElement): Any {
+    val content = (element as? JsonPrimitive)?.content
+      ?: throw SerializationException("枚举 ${type.name} 需要 JSON 标量")
+    return constants[content]
+      ?: throw SerializationException("枚举 ${type.name} 不存在值 $content")
+  }
+}
+
+/**
+ * 兜底：交给 [SerializersModule] 中的 kotlinx 序列化器，按模块缓存最近一次解析结果。
+ */
+private class SerializerCodec(
+  private val type: Type,
+  private val runtimeScalar: Boolean,
+) : PropCodec() {
+
+  private class Resolved(val module: SerializersModule, val serializer: KSerializer<Any?>)
+
+  @Volatile
+  private var resolved: Resolved? = null
+
+  override fun write(encoder: Encoder, value: Any) {
+    if (runtimeScalar && writeRuntimeScalar(encoder, value)) {
+      return
+    }
+    encoder.encodeSerializableValue(serializer(encoder.serializersModule, "序列化器"), value)
+  }
+
+  override fun read(json: Json, element: JsonElement): Any? =
+    json.decodeFromJsonElement(serializer(json.serializersModule, "反序列化器"), element)
+
+  @Suppress("UNCHECKED_CAST")
+  private fun serializer(module: SerializersModule, kind: String): KSerializer<Any?> {
+    resolved?.let { if (it.module === module) return it.serializer }
+    val serializer = module.serializerOrNull(type) as KSerializer<Any?>?
+      ?: throw SerializationException("找不到类型 ${type.typeName} 的 kotlinx $kind")
+    resolved = Resolved(module, serializer)
+    return serializer
+  }
+}
+
+private fun compilePropCodec(prop: ImmutableProp, config: JimmerKtxSerializerConfig): PropCodec {
+  val metadata = prop.toConverterMetadata() ?: return compileCodec(prop.genericType, config)
+  return ConverterCodec(metadata.getConverter(), compileCodec(metadata.targetType, config))
+}
+
+private fun compileCodec(type: Type, config: JimmerKtxSerializerConfig): PropCodec = when (type) {
+  is WildcardType -> compileCodec(type.upperBounds.firstOrNull() ?: Any::class.java, config)
+
+  is GenericArrayType -> {
+    val componentType = type.genericComponentType
+    val componentClass = componentType.rawClassOrNull()
+      ?: throw SerializationException("无法解析数组元素类型 ${componentType.typeName}")
+    ArrayCodec(componentClass, compileCodec(componentType, config))
+  }
+
+  is ParameterizedType -> {
+    val rawClass = type.rawType as? Class<*>
+    when {
+      rawClass == null -> SerializerCodec(type, runtimeScalar = false)
+      Collection::class.java.isAssignableFrom(rawClass) ->
+        CollectionCodec(rawClass, compileCodec(type.actualTypeArguments.firstOrNull() ?: Any::class.java, config))
+      Map::class.java.isAssignableFrom(rawClass) ->
+        MapCodec(type.actualTypeArguments[0].rawClassOrNull(), compileCodec(type.actualTypeArguments[1], config))
+      else -> SerializerCodec(type, runtimeScalar = false)
+    }
+  }
+
+  is Class<*> -> {
+    val immutableType = ImmutableType.tryGet(type)
+    when {
+      immutableType != null -> EntityCodec(immutableType, config)
+      type.isArray && !type.componentType.isPrimitive -> ArrayCodec(type.componentType, compileCodec(type.componentType, config))
+      type.isEnum -> EnumCodec(type)
+      else -> SCALAR_CODECS[type] ?: SerializerCodec(type, runtimeScalar = true)
+    }
+  }
+
+  else -> SerializerCodec(type, runtimeScalar = false)
+}
+
+private val SCALAR_CODECS: Map<Class<*>, ScalarCodec> = buildMap {
+  fun register(vararg types: Class<*>?, writer: (Encoder, Any) -> Unit, reader: (JsonPrimitive) -> Any?) {
+    types.filterNotNull().forEach { put(it, ScalarCodec(it, writer, reader)) }
+  }
+
+  fun registerText(type: Class<*>, parse: (String) -> Any) {
+    register(type, writer = { encoder, value -> encoder.encodeString(value.toString()) }, reader = { parse(it.content) })
+  }
+
+  val writeNumberLiteral: (Encoder, Any) -> Unit = { encoder, value ->
+    (encoder as JsonEncoder).encodeJsonElement(JsonPrimitive(value as Number))
+  }
+  val writeDate: (Encoder, Any) -> Unit = { encoder, value -> encoder.encodeString(formatDate(value as Date)) }
+
+  register(String::class.java, writer = { encoder, value -> encoder.encodeString(value as String) }, reader = { it.content })
+  register(
+    Char::class.javaPrimitiveType, Char::class.javaObjectType,
+    writer = { encoder, value -> encoder.encodeString(value.toString()) },
+    reader = { it.content.singleOrNull() ?: throw SerializationException("无法将 ${it.content} 解析为 Char") },
+  )
+  register(
+    Boolean::class.javaPrimitiveType, Boolean::class.javaObjectType,
+    writer = { encoder, value -> encoder.encodeBoolean(value as Boolean) },
+    reader = { it.booleanOrNull ?: it.content.toBooleanStrict() },
+  )
+  register(
+    Byte::class.javaPrimitiveType, Byte::class.javaObjectType,
+    writer = { encoder, value -> encoder.encodeByte(value as Byte) },
+    reader = { it.content.toByte() },
+  )
+  register(
+    Short::class.javaPrimitiveType, Short::class.javaObjectType,
+    writer = { encoder, value -> encoder.encodeShort(value as Short) },
+    reader = { it.content.toShort() },
+  )
+  register(
+    Int::class.javaPrimitiveType, Int::class.javaObjectType,
+    writer = { encoder, value -> encoder.encodeInt(value as Int) },
+    reader = { it.intOrNull ?: it.content.toInt() },
+  )
+  register(
+    Long::class.javaPrimitiveType, Long::class.javaObjectType,
+    writer = { encoder, value -> encoder.encodeLong(value as Long) },
+    reader = { it.content.toLong() },
+  )
+  register(
+    Float::class.javaPrimitiveType, Float::class.javaObjectType,
+    writer = { encoder, value -> encoder.encodeFloat(value as Float) },
+    reader = { it.content.toFloat() },
+  )
+  register(
+    Double::class.javaPrimitiveType, Double::class.javaObjectType,
+    writer = { encoder, value -> encoder.encodeDouble(value as Double) },
+    reader = { it.content.toDouble() },
+  )
+  register(BigInteger::class.java, writer = writeNumberLiteral, reader = { it.content.toBigInteger() })
+  register(BigDecimal::class.java, writer = writeNumberLiteral, reader = { it.content.toBigDecimal() })
+  registerText(UUID::class.java, UUID::fromString)
+  registerText(Instant::class.java, Instant::parse)
+  registerText(LocalDate::class.java, LocalDate::parse)
+  registerText(LocalDateTime::class.java, LocalDateTime::parse)
+  registerText(LocalTime::class.java, LocalTime::parse)
+  registerText(OffsetDateTime::class.java, OffsetDateTime::parse)
+  registerText(OffsetTime::class.java, OffsetTime::parse)
+  registerText(ZonedDateTime::class.java, ZonedDateTime::parse)
+  registerText(Duration::class.java, Duration::parse)
+  registerText(Period::class.java, Period::parse)
+  register(Timestamp::class.java, writer = writeDate, reader = { Timestamp.from(Instant.parse(it.content)) })
+  register(java.sql.Date::class.java, writer = writeDate, reader = { java.sql.Date.valueOf(LocalDate.parse(it.content)) })
+  register(Time::class.java, writer = writeDate, reader = { Time.valueOf(LocalTime.parse(it.content)) })
+  register(Date::class.java, writer = writeDate, reader = { Date.from(Instant.parse(it.content)) })
+}
+
+/**
+ * 声明类型不够具体（如 Any、Number）时，按运行时类型写出常见标量。
+ */
+private fun writeRuntimeScalar(encoder: Encoder, value: Any): Boolean {
+  when (value) {
+    is JsonElement -> (encoder as JsonEncoder).encodeJsonElement(value)
+    is String -> encoder.encodeString(value)
+    is Char -> encoder.encodeString(value.toString())
+    is Boolean -> encoder.encodeBoolean(value)
+    is Byte -> encoder.encodeByte(value)
+    is Short -> encoder.encodeShort(value)
+    is Int -> encoder.encodeInt(value)
+    is Long -> encoder.encodeLong(value)
+    is Float -> encoder.encodeFloat(value)
+    is Double -> encoder.encodeDouble(value)
+    is BigInteger, is BigDecimal -> (encoder as JsonEncoder).encodeJsonElement(JsonPrimitive(value as Number))
+    is Enum<*> -> encoder.encodeString(value.name)
+    is UUID, is Instant, is LocalDate, is LocalDateTime, is LocalTime, is OffsetDateTime, is OffsetTime,
+    is ZonedDateTime, is Duration, is Period -> encoder.encodeString(value.toString())
+    is Date -> encoder.encodeString(formatDate(value))
+    else -> return false
+  }
+  return true
+}
+
+private fun formatDate(value: Date): String = when (value) {
+  is Timestamp -> value.toInstant().toString()
+  is java.sql.Date -> value.toLocalDate().toString()
+  is Time -> value.toLocalTime().toString()
+  else -> value.toInstant().toString()
+}
+
+private fun encodeMapKey(rawClass: Class<*>?, key: Any?): String {
+  if (key == null) {
+    throw SerializationException("JSON 对象的 key 不能为 null")
+  }
+  return when {
+    rawClass == null -> key.toString()
+    rawClass == String::class.java -> key as String
+    rawClass == Char::class.java || rawClass == Char::class.javaObjectType -> key.toString()
+    rawClass.isEnum -> (key as Enum<*>).name
+    rawClass == UUID::class.java -> key.toString()
+    Number::class.java.isAssignableFrom(rawClass) || rawClass.isPrimitive || rawClass == Boolean::class.javaObjectType -> key.toString()
+    else -> throw SerializationException("Map key 类型 ${rawClass.name} 不能映射为 JSON 对象 key")
+  }
+}
+
+private fun decodeMapKey(rawClass: Class<*>?, key: String): Any {
+  rawClass ?: return key
+  return when {
+    rawClass == String::class.java -> key
+    rawClass == Char::class.java || rawClass == Char::class.javaObjectType -> key.singleOrNull()
+      ?: throw SerializationException("无法将 $key 解析为 Char")
+    rawClass == Byte::class.java || rawClass == Byte::class.javaObjectType -> key.toByte()
+    rawClass == Short::class.java || rawClass == Short::class.javaObjectType -> key.toShort()
+    rawClass == Int::class.java || rawClass == Int::class.javaObjectType -> key.toInt()
+    rawClass == Long::class.java || rawClass == Long::class.javaObjectType -> key.toLong()
+    rawClass == Float::class.java || rawClass == Float::class.javaObjectType -> key.toFloat()
+    rawClass == Double::class.java || rawClass == Double::class.javaObjectType -> key.toDouble()
+    rawClass == Boolean::class.java || rawClass == Boolean::class.javaObjectType -> key.toBooleanStrict()
+    rawClass == UUID::class.java -> UUID.fromString(key)
+    rawClass.isEnum -> rawClass.enumConstants.firstOrNull { (it as Enum<*>).name == key }
+      ?: throw SerializationException("枚举 ${rawClass.name} 不存在值 $key")
+    else -> throw SerializationException("Map key 类型 ${rawClass.name} 不能从 JSON 对象 key 反序列化")
+  }
+}
+
+private fun ImmutableProp.toConverterMetadata(): ConverterMetadata? {
+  val metadata = converterMetadata ?: return null
+  return if (isScalarList) metadata.toListMetadata() else metadata
+}
+
+private fun Type.rawClassOrNull(): Class<*>? = when (this) {
+  is Class<*> -> this
+  is ParameterizedType -> rawType as? Class<*>
+  is GenericArrayType -> ReflectArray.newInstance(genericComponentType.rawClassOrNull() ?: return null, 0).javaClass
+  is WildcardType -> upperBounds.firstOrNull()?.rawClassOrNull()
+  else -> null
+}
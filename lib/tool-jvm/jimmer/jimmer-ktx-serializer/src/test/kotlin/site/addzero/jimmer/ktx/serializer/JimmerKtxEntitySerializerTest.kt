@@ -1,10 +1,13 @@
 package site.addzero.jimmer.ktx.serializer
 
 import kotlinx.serialization.Contextual
+import kotlinx.serialization.ExperimentalSerializationApi
 import kotlinx.serialization.Serializable
 import kotlinx.serialization.encodeToString
 import kotlinx.serialization.decodeFromString
 import kotlinx.serialization.json.Json
+import kotlinx.serialization.json.JsonNamingStrategy
+import kotlinx.serialization.json.JsonNull
 import kotlinx.serialization.json.buildJsonObject
 import kotlinx.serialization.json.put
 import kotlinx.serialization.json.putJsonObject
@@ -102,6 +105,63 @@ class JimmerKtxEntitySerializerTest {
     assertEquals(30L, decoded.dept?.id)
     assertEquals("Design", decoded.dept?.name)
   }
+
+  @Test
+  fun `已加载的 null 属性会写出 null 且树编码结果一致`() {
+    val user = User {
+      id = 4L
+      name = "Dave"
+      age = null
+    }
+
+    val json = Json { ignoreUnknownKeys = true }
+    val serializer = jimmerKtxSerializer<User>()
+    val expected = buildJsonObject {
+      put("id", 4L)
+      put("name", "Dave")
+      put("age", JsonNull)
+    }
+
+    assertEquals(expected, json.parseToJsonElement(json.encodeToString(serializer, user)))
+    assertEquals(expected, json.encodeToJsonElement(serializer, user))
+  }
+
+  @OptIn(ExperimentalSerializationApi::class)
+  @Test
+  fun `命名策略在编码和解码时一致生效`() {
+    val user = User {
+      id = 6L
+      name = "Frank"
+      nickName = "frankie"
+    }
+    val json = Json {
+      namingStrategy = JsonNamingStrategy.SnakeCase
+    }
+    val serializer = jimmerKtxSerializer<User>()
+
+    val content = json.encodeToString(serializer, user)
+    val decoded = json.decodeFromString(serializer, content)
+
+    assertEquals(
+      buildJsonObject {
+        put("id", 6L)
+        put("name", "Frank")
+        put("nick_name", "frankie")
+      },
+      json.parseToJsonElement(content),
+    )
+    assertEquals("frankie", decoded.nickName)
+    assertEquals("Frank", decoded.name)
+  }
+
+  @Test
+  fun `关联属性可以从 id 标量反序列化为 id-only 对象`() {
+    val json = Json { ignoreUnknownKeys = true }
+    val actual = json.decodeJimmerFromString<User>("""{"id": 5, "name": "Eve", "dept": 50, "unknown": true}""")
+
+    assertEquals(50L, actual.dept?.id)
+    assertFalse(ImmutableObjects.isLoaded(actual.dept!!, "name"))
+  }
 }
 
 @Serializable
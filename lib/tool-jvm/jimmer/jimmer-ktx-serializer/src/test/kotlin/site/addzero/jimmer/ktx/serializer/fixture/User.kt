@@ -12,6 +12,7 @@ interface User {
   val name: String
   val age: Int?
   val birthday: LocalDate?
+  val nickName: String?
 
   @ManyToOne
   val dept: Department?
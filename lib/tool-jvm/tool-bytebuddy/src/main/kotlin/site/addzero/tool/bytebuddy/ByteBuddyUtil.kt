@@ -167,11 +167,10 @@ object ByteBuddyUtil {
 
     private fun copyProperties(source: Any, target: Any) {
         val sourceFields = ImprovedReflectUtil.getFields(source.javaClass)
-        val targetFields = ImprovedReflectUtil.getFields(target.javaClass).associateBy { it.name }
-        sourceFields.forEach { field ->
-            val targetField = targetFields[field.name] ?: return@forEach
-            val value = ImprovedReflectUtil.getFieldValue(source, field)
-            ImprovedReflectUtil.setFieldValue(target, targetField, value)
+        val values = ImprovedReflectUtil.readAllFields(source)
+        sourceFields.forEachIndexed { index, field ->
+            val targetField = ImprovedReflectUtil.getFieldAccessor(target.javaClass, field.name)?.field ?: return@forEachIndexed
+            ImprovedReflectUtil.setFieldValue(target, targetField, values[index])
         }
     }
 
@@ -3,69 +3,88 @@
 
 package site.addzero.util
 
+import java.lang.invoke.MethodHandle
+import java.lang.invoke.MethodHandles
+import java.lang.invoke.MethodType
+import java.lang.invoke.VarHandle
+import java.lang.reflect.AccessibleObject
 import java.lang.reflect.Constructor
 import java.lang.reflect.Field
 import java.lang.reflect.Method
-import java.util.concurrent.ConcurrentHashMap
-import java.util.concurrent.TimeUnit
-import java.util.concurrent.locks.ReentrantLock
+import java.lang.reflect.Modifier
 
 /**
- * 改进版反射工具类，提供带过期时间的缓存能力，避免 Hutool ReflectUtil 的内存泄漏问题。
+ * 改进版反射工具类，避免 Hutool ReflectUtil 的内存泄漏问题。
+ *
+ * 元数据按 [Class] 对象缓存在 [ClassValue] 中：不同类加载器加载的同名类（包括 ByteBuddy 生成的子类）互不串用，
+ * 类被卸载时缓存随之回收，不需要过期时间和容量淘汰。
+ * 字段读写使用预先编译好的 [MethodHandle]，不再每次切换 `isAccessible`。
  */
 object ImprovedReflectUtil {
 
-    private data class CacheEntry<V>(val value: V, val timestamp: Long = System.currentTimeMillis())
-
-    private class ExpiringCache<V>(
-        private val expireMillis: Long,
-        private val maxSize: Int,
+    /**
+     * 预编译的字段访问器。
+     *
+     * [getter] 的类型统一为 `(Object)Object`，[setter] 为 `(Object, Object)void`，静态字段会忽略目标对象参数。
+     * 无法访问的字段（例如 JDK 模块内未开放的字段）对应的句柄为 null，静态 final 字段没有 [setter]。
+     */
+    class FieldAccessor internal constructor(
+        val field: Field,
+        val getter: MethodHandle?,
+        val setter: MethodHandle?,
+        private val lookup: MethodHandles.Lookup?,
     ) {
-        private val cache = ConcurrentHashMap<String, CacheEntry<V>>()
-        private val lock = ReentrantLock()
 
-        fun computeIfAbsent(key: String, supplier: () -> V): V {
-            val existing = cache[key]
-            if (existing != null && System.currentTimeMillis() - existing.timestamp < expireMillis) {
-                return existing.value
-            }
-            val value = supplier()
-            put(key, value)
-            return value
+        val name: String get() = field.name
+
+        /**
+         * 字段对应的 [VarHandle]，首次访问时创建；final 字段的 VarHandle 只读，无法访问时为 null。
+         */
+        val varHandle: VarHandle? by lazy {
+            lookup?.let { runCatching { it.unreflectVarHandle(field) }.getOrNull() }
         }
 
-        private fun put(key: String, value: V) {
-            lock.lock()
-            try {
-                if (cache.size >= maxSize) {
-                    val victims = cache.entries
-                        .sortedBy { it.value.timestamp }
-                        .take(cache.size / 2)
-                        .map { it.key }
-                    victims.forEach { cache.remove(it) }
-                }
-                cache[key] = CacheEntry(value)
-            } finally {
-                lock.unlock()
-            }
+        fun get(target: Any?): Any? = getter?.invoke(target)
+
+        fun set(target: Any?, value: Any?) {
+            setter?.invoke(target, value)
         }
+    }
 
-        fun clear() {
-            cache.clear()
+    private class ClassMeta(val fields: Array<Field>, val accessors: Array<FieldAccessor>) {
+        // 子类字段在前，同名时以子类为准
+        val byName: Map<String, FieldAccessor> = HashMap<String, FieldAccessor>(accessors.size * 2).also { map ->
+            accessors.forEach { map.putIfAbsent(it.name, it) }
         }
+        val byField: Map<Field, FieldAccessor> = accessors.associateBy { it.field }
+    }
 
-        fun cleanupExpired() {
-            val now = System.currentTimeMillis()
-            cache.entries.removeIf { now - it.value.timestamp >= expireMillis }
+    private class Caches {
+        val constructors = object : ClassValue<Array<Constructor<*>>>() {
+            override fun computeValue(type: Class<*>): Array<Constructor<*>> =
+                type.declaredConstructors.onEach { trySetAccessible(it) }
+        }
+
+        val meta = object : ClassValue<ClassMeta>() {
+            override fun computeValue(type: Class<*>): ClassMeta {
+                val fields = collectHierarchy(type) { it.declaredFields }
+                fields.forEach { trySetAccessible(it) }
+                return ClassMeta(fields, Array(fields.size) { createAccessor(fields[it]) })
+            }
+        }
+
+        val methods = object : ClassValue<Array<Method>>() {
+            override fun computeValue(type: Class<*>): Array<Method> =
+                collectHierarchy(type) { it.declaredMethods }.onEach { trySetAccessible(it) }
         }
     }
 
-    private val constructorCache =
-        ExpiringCache<Array<Constructor<*>>>(TimeUnit.MINUTES.toMillis(30), 1_000)
-    private val fieldCache =
-        ExpiringCache<Array<Field>>(TimeUnit.MINUTES.toMillis(30), 1_000)
-    private val methodCache =
-        ExpiringCache<Array<Method>>(TimeUnit.MINUTES.toMillis(30), 1_000)
+    private val GETTER_TYPE = MethodType.methodType(Any::class.java, Any::class.java)
+    private val SETTER_TYPE = MethodType.methodType(Void.TYPE, Any::class.java, Any::class.java)
+
+    // ClassValue 没有 clear，清空时整体替换
+    @Volatile
+    private var caches = Caches()
 
     @Suppress("UNCHECKED_CAST")
     fun <T> getConstructor(clazz: Class<T>?, vararg parameterTypes: Class<*>): Constructor<T>? {
@@ -74,66 +93,66 @@ object ImprovedReflectUtil {
             val params = constructor.parameterTypes
             params.size == parameterTypes.size &&
                 params.zip(parameterTypes).all { (src, dest) -> src.isAssignableFrom(dest) }
-        }?.also { it.isAccessible = true } as Constructor<T>?
+        } as Constructor<T>?
     }
 
-    fun getConstructors(clazz: Class<*>): Array<Constructor<*>> =
-        constructorCache.computeIfAbsent(clazz.name) {
-            clazz.declaredConstructors.also { constructors ->
-                constructors.forEach { it.isAccessible = true }
-            }
-        }
+    fun getConstructors(clazz: Class<*>): Array<Constructor<*>> = caches.constructors.get(clazz)
 
-    fun getFields(clazz: Class<*>): Array<Field> =
-        fieldCache.computeIfAbsent(clazz.name) {
-            val fields = mutableListOf<Field>()
-            var current: Class<*>? = clazz
-            while (current != null && current != Any::class.java) {
-                fields += current.declaredFields
-                current = current.superclass
-            }
-            fields.onEach { it.isAccessible = true }.toTypedArray()
-        }
+    /**
+     * 获取类及其父类（不含 Object）声明的全部字段，子类字段在前。
+     */
+    fun getFields(clazz: Class<*>): Array<Field> = caches.meta.get(clazz).fields
 
-    fun getMethods(clazz: Class<*>): Array<Method> =
-        methodCache.computeIfAbsent(clazz.name) {
-            val methods = mutableListOf<Method>()
-            var current: Class<*>? = clazz
-            while (current != null && current != Any::class.java) {
-                methods += current.declaredMethods
-                current = current.superclass
-            }
-            methods.onEach { it.isAccessible = true }.toTypedArray()
+    fun getMethods(clazz: Class<*>): Array<Method> = caches.methods.get(clazz)
+
+    /**
+     * 获取与 [getFields] 一一对应的字段访问器。
+     */
+    fun getFieldAccessors(clazz: Class<*>): Array<FieldAccessor> = caches.meta.get(clazz).accessors
+
+    /**
+     * 按字段名获取访问器，会查找父类字段。
+     */
+    fun getFieldAccessor(clazz: Class<*>, fieldName: String): FieldAccessor? =
+        caches.meta.get(clazz).byName[fieldName]
+
+    fun getFieldAccessor(field: Field): FieldAccessor? =
+        caches.meta.get(field.declaringClass).byField[field]
+
+    /**
+     * 一次读出对象的全部字段值，下标与 [getFields] 一致；无法读取的字段为 null。
+     */
+    fun readAllFields(target: Any): Array<Any?> {
+        val accessors = caches.meta.get(target.javaClass).accessors
+        return Array(accessors.size) { index ->
+            runCatching { accessors[index].get(target) }.getOrNull()
         }
+    }
 
     fun getFieldValue(target: Any, field: Field): Any? =
         runCatching {
-            field.isAccessible = true
-            field.get(target)
+            val accessor = getFieldAccessor(field)
+            if (accessor?.getter != null) accessor.get(target) else field.get(target)
         }.getOrNull()
 
     fun getFieldValue(target: Any, fieldName: String): Any? =
-        runCatching {
-            val field = target.javaClass.getDeclaredField(fieldName)
-            field.isAccessible = true
-            field.get(target)
-        }.getOrNull()
+        runCatching { getFieldAccessor(target.javaClass, fieldName)?.get(target) }.getOrNull()
 
     fun setFieldValue(target: Any, field: Field, value: Any?) {
         runCatching {
-            field.isAccessible = true
-            field.set(target, value)
+            val accessor = getFieldAccessor(field)
+            if (accessor?.setter != null) accessor.set(target, value) else field.set(target, value)
         }
     }
 
     fun setFieldValue(target: Any, fieldName: String, value: Any?) {
-        val field = runCatching { target.javaClass.getDeclaredField(fieldName) }.getOrNull() ?: return
-        setFieldValue(target, field, value)
+        val accessor = getFieldAccessor(target.javaClass, fieldName) ?: return
+        setFieldValue(target, accessor.field, value)
     }
 
     fun invoke(target: Any, method: Method, vararg args: Any?): Any? =
         runCatching {
-            method.isAccessible = true
+            trySetAccessible(method)
             method.invoke(target, *args)
         }.getOrNull()
 
@@ -148,15 +167,52 @@ object ImprovedReflectUtil {
         }.getOrNull()
 
     fun clearAllCaches() {
-        constructorCache.clear()
-        fieldCache.clear()
-        methodCache.clear()
+        caches = Caches()
     }
 
+    /**
+     * 缓存随类卸载自动回收，不再有过期条目，保留该方法只为兼容旧调用。
+     */
     fun cleanupExpiredEntries() {
-        constructorCache.cleanupExpired()
-        fieldCache.cleanupExpired()
-        methodCache.cleanupExpired()
+    }
+
+    private inline fun <reified T> collectHierarchy(clazz: Class<*>, members: (Class<*>) -> Array<T>): Array<T> {
+        val result = ArrayList<T>()
+        var current: Class<*>? = clazz
+        while (current != null && current != Any::class.java) {
+            result += members(current)
+            current = current.superclass
+        }
+        return result.toTypedArray()
+    }
+
+    private fun trySetAccessible(member: AccessibleObject) {
+        runCatching { member.trySetAccessible() }
+    }
+
+    private fun createAccessor(field: Field): FieldAccessor {
+        val lookup = runCatching {
+            MethodHandles.privateLookupIn(field.declaringClass, MethodHandles.lookup())
+        }.getOrNull()
+        val isStatic = Modifier.isStatic(field.modifiers)
+        val getter = runCatching {
+            val handle = lookup?.unreflectGetter(field) ?: MethodHandles.lookup().unreflectGetter(field)
+            adapt(handle, isStatic, GETTER_TYPE)
+        }.getOrNull()
+        val setter = if (Modifier.isFinal(field.modifiers) && isStatic) {
+            null
+        } else {
+            runCatching {
+                val handle = lookup?.unreflectSetter(field) ?: MethodHandles.lookup().unreflectSetter(field)
+                adapt(handle, isStatic, SETTER_TYPE)
+            }.getOrNull()
+        }
+        return FieldAccessor(field, getter, setter, lookup)
+    }
+
+    private fun adapt(handle: MethodHandle, isStatic: Boolean, type: MethodType): MethodHandle {
+        val withTarget = if (isStatic) MethodHandles.dropArguments(handle, 0, Any::class.java) else handle
+        return withTarget.asType(type)
     }
 
 }
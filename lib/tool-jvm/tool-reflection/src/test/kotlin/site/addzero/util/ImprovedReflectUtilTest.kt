@@ -12,6 +12,14 @@ class ImprovedReflectUtilTest {
     class TestClass(val name: String, val age: Int) {
         fun greet(): String = "Hello, I'm $name, $age years old"
     }
+
+    open class Parent {
+        private var id: Long = 1L
+    }
+
+    class Child : Parent() {
+        var title: String? = "child"
+    }
     
     @Test
     fun testGetConstructor() {
@@ -75,4 +83,38 @@ class ImprovedReflectUtilTest {
         val fields = ImprovedReflectUtil.getFields(TestClass::class.java)
         assertTrue(fields.isNotEmpty())
     }
-}
\ No newline at end of file
+
+    @Test
+    fun testFieldAccessor() {
+        val child = Child()
+        val titleAccessor = ImprovedReflectUtil.getFieldAccessor(Child::class.java, "title")
+        assertNotNull(titleAccessor?.getter)
+        assertEquals("child", titleAccessor?.get(child))
+        titleAccessor?.set(child, "updated")
+        assertEquals("updated", child.title)
+
+        // 父类私有字段同样可以读写
+        ImprovedReflectUtil.setFieldValue(child, "id", 2L)
+        assertEquals(2L, ImprovedReflectUtil.getFieldValue(child, "id"))
+        assertNotNull(ImprovedReflectUtil.getFieldAccessor(Child::class.java, "id")?.varHandle)
+    }
+
+    @Test
+    fun testReadAllFields() {
+        val child = Child()
+        val fields = ImprovedReflectUtil.getFields(Child::class.java)
+        val values = ImprovedReflectUtil.readAllFields(child)
+        assertEquals(fields.size, values.size)
+        assertEquals("child", values[fields.indexOfFirst { it.name == "title" }])
+        assertEquals(1L, values[fields.indexOfFirst { it.name == "id" }])
+    }
+
+    @Test
+    fun testClearAllCachesRebuilds() {
+        val original = ImprovedReflectUtil.getFields(TestClass::class.java)
+        ImprovedReflectUtil.clearAllCaches()
+        val reloaded = ImprovedReflectUtil.getFields(TestClass::class.java)
+        assertArrayEquals(original.map { it.name }.toTypedArray(), reloaded.map { it.name }.toTypedArray())
+        assertNotSame(original, reloaded)
+    }
+}
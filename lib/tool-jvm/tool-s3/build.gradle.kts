@@ -10,4 +10,6 @@ dependencies {
   implementation(libs.findLibrary("software-amazon-awssdk-s3").get())
   implementation(libs.findLibrary("org-slf4j-slf4j-api").get())
   implementation(libs.findLibrary("com-github-ben-manes-caffeine-caffeine").get())
+  // S3StorageClient.putObjectStream 接受 Flow<ByteArray>
+  api(libs.findLibrary("org-jetbrains-kotlinx-kotlinx-coroutines-core").get())
 }
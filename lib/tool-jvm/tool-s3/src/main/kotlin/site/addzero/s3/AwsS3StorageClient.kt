@@ -5,6 +5,7 @@ import site.addzero.s3.api.Result
 import site.addzero.s3.api.S3ClientConfig
 import site.addzero.s3.api.S3StorageClient
 import site.addzero.s3.api.S3StorageClientFactory
+import site.addzero.s3.api.S3StreamWriter
 import software.amazon.awssdk.auth.credentials.AwsBasicCredentials
 import software.amazon.awssdk.auth.credentials.StaticCredentialsProvider
 import software.amazon.awssdk.core.sync.RequestBody
@@ -380,6 +381,16 @@ class AwsS3StorageClient(
         }
     }
 
+    // ==================== 流式上传 ====================
+
+    override fun openStreamWriter(
+        bucketName: String,
+        key: String,
+        options: S3StorageClient.StreamUploadOptions
+    ): S3StreamWriter {
+        return StreamingMultipartUpload(client, bucketName, key, options)
+    }
+
     // ==================== 预签名 URL ====================
 
     override fun generatePresignedUrl(
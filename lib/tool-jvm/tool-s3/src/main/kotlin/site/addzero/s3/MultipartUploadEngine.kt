@@ -0,0 +1,319 @@
+package site.addzero.s3
+
+import org.slf4j.LoggerFactory
+import software.amazon.awssdk.core.sync.RequestBody
+import software.amazon.awssdk.http.ContentStreamProvider
+import software.amazon.awssdk.services.s3.S3Client
+import software.amazon.awssdk.services.s3.model.CompletedPart
+import software.amazon.awssdk.services.s3.model.UploadPartRequest
+import java.io.EOFException
+import java.io.File
+import java.io.IOException
+import java.io.InputStream
+import java.nio.ByteBuffer
+import java.nio.channels.FileChannel
+import java.nio.file.StandardOpenOption
+import java.util.concurrent.*
+import java.util.concurrent.atomic.AtomicInteger
+import java.util.concurrent.atomic.AtomicLong
+import java.util.concurrent.atomic.AtomicReference
+import java.util.concurrent.locks.ReentrantLock
+import kotlin.concurrent.withLock
+
+/**
+ * 分片上传引擎
+ *
+ * - 所有上传共用一个有界线程池，不再每次上传新建线程池
+ * - 分片数据通过 [FileChannel] 按位置读取，经池化的直接缓冲区流式交给 SDK，不在堆上整块读入分片
+ * - 同一次上传最多 [MultipartUploadConfig.concurrency] 个分片在途，读文件的速度受这个窗口约束
+ * - 失败重试交给调度线程延迟重新提交，不占用上传线程休眠
+ */
+internal class MultipartUploadEngine(
+    private val client: S3Client,
+    private val bucketName: String,
+    private val objectKey: String,
+    private val uploadId: String,
+    private val file: File,
+    private val config: MultipartUploadConfig,
+    private val progress: MultipartProgressTracker,
+) {
+    private val failure = AtomicReference<Throwable?>()
+
+    /**
+     * 上传给定分片，任一分片重试耗尽时抛出 [MultipartPartException]
+     */
+    fun upload(parts: List<PartInfo>): List<CompletedPart> {
+        val window = Semaphore(config.concurrency.coerceAtLeast(1))
+        val futures = ArrayList<CompletableFuture<CompletedPart>>(parts.size)
+        FileChannel.open(file.toPath(), StandardOpenOption.READ).use { channel ->
+            try {
+                for (part in parts) {
+                    window.acquire()
+                    if (failure.get() != null) {
+                        window.release()
+                        break
+                    }
+                    val future = CompletableFuture<CompletedPart>()
+                    future.whenComplete { _, error ->
+                        if (error != null) {
+                            failure.compareAndSet(null, error)
+                        }
+                        window.release()
+                    }
+                    futures += future
+                    submit(channel, part, 1, future)
+                }
+            } finally {
+                // 已提交的分片全部结束后才能关闭文件
+                CompletableFuture.allOf(*futures.toTypedArray()).exceptionally { null }.join()
+                progress.flush()
+            }
+        }
+        failure.get()?.let { throw it }
+        return futures.map { it.join() }
+    }
+
+    private fun submit(channel: FileChannel, part: PartInfo, attempt: Int, future: CompletableFuture<CompletedPart>) {
+        UPLOAD_EXECUTOR.execute {
+            try {
+                val etag = uploadPart(channel, part)
+                progress.partCompleted(part, etag)
+                future.complete(CompletedPart.builder().partNumber(part.partNumber).eTag(etag).build())
+            } catch (e: Exception) {
+                if (attempt <= config.maxRetries && failure.get() == null) {
+                    logger.warn("Upload part ${part.partNumber} failed, retrying ($attempt/${config.maxRetries})", e)
+                    RETRY_SCHEDULER.schedule(
+                        { submit(channel, part, attempt + 1, future) },
+                        RETRY_BACKOFF_MILLIS * attempt,
+                        TimeUnit.MILLISECONDS
+                    )
+                } else {
+                    progress.partFailed(part)
+                    future.completeExceptionally(MultipartPartException(part.partNumber, e))
+                }
+            }
+        }
+    }
+
+    private fun uploadPart(channel: FileChannel, part: PartInfo): String {
+        val request = UploadPartRequest.builder()
+            .bucket(bucketName)
+            .key(objectKey)
+            .uploadId(uploadId)
+            .partNumber(part.partNumber)
+            .contentLength(part.size)
+            .build()
+        val response = client.uploadPart(request, filePartBody(channel, part.start, part.size))
+        logger.debug("Uploaded part ${part.partNumber} for $bucketName/$objectKey, etag: ${response.eTag()}")
+        return response.eTag()
+    }
+
+    companion object {
+        private val logger = LoggerFactory.getLogger(MultipartUploadEngine::class.java)
+
+        private const val RETRY_BACKOFF_MILLIS = 1000L
+
+        /**
+         * 分片上传共用的线程池，流式上传也使用它
+         */
+        internal val UPLOAD_EXECUTOR: ExecutorService = run {
+            val threads = maxOf(8, Runtime.getRuntime().availableProcessors() * 4)
+            ThreadPoolExecutor(
+                threads, threads,
+                60L, TimeUnit.SECONDS,
+                LinkedBlockingQueue(),
+                daemonThreadFactory("s3-multipart-upload")
+            ).apply { allowCoreThreadTimeOut(true) }
+        }
+
+        private val RETRY_SCHEDULER: ScheduledExecutorService =
+            Executors.newSingleThreadScheduledExecutor(daemonThreadFactory("s3-multipart-retry"))
+
+        /**
+         * 文件区间的请求体，SDK 每次重发都会重新打开一个从区间起点读取的流
+         */
+        fun filePartBody(channel: FileChannel, start: Long, size: Long): RequestBody {
+            return RequestBody.fromContentProvider(
+                ContentStreamProvider { FileRegionInputStream(channel, start, size) },
+                size,
+                "application/octet-stream"
+            )
+        }
+
+        private fun daemonThreadFactory(prefix: String): ThreadFactory {
+            val index = AtomicInteger()
+            return ThreadFactory { runnable ->
+                Thread(runnable, "$prefix-${index.incrementAndGet()}").apply { isDaemon = true }
+            }
+        }
+    }
+}
+
+/**
+ * 分片重试耗尽
+ */
+internal class MultipartPartException(
+    val partNumber: Int,
+    cause: Throwable,
+) : RuntimeException("Failed to upload part $partNumber", cause)
+
+/**
+ * 合并进度写入：分片完成时只更新内存，按 [MultipartUploadConfig.progressFlushIntervalMillis] 批量写回 [UploadProgressStorage]
+ */
+internal class MultipartProgressTracker(
+    private val storageKey: String,
+    private val progressStorage: UploadProgressStorage?,
+    private val fileSize: Long,
+    private val totalParts: Int,
+    initialUploaded: Long,
+    private val listener: UploadProgressListener?,
+    private val flushIntervalMillis: Long,
+) {
+    private val uploaded = AtomicLong(initialUploaded)
+    private val pendingUpdates = ConcurrentHashMap<Int, PartUpdate>()
+    private val flushLock = ReentrantLock()
+
+    @Volatile
+    private var lastFlushAt = System.currentTimeMillis()
+
+    fun partCompleted(part: PartInfo, etag: String) {
+        pendingUpdates[part.partNumber] = PartUpdate(PartStatus.COMPLETED, etag)
+        val newUploaded = uploaded.addAndGet(part.size)
+        listener?.onProgress(
+            UploadProgressData(
+                uploaded = newUploaded,
+                total = fileSize,
+                percent = newUploaded.toDouble() / fileSize * 100,
+                partNumber = part.partNumber,
+                totalParts = totalParts
+            )
+        )
+        if (System.currentTimeMillis() - lastFlushAt >= flushIntervalMillis && flushLock.tryLock()) {
+            try {
+                writePending()
+            } finally {
+                flushLock.unlock()
+            }
+        }
+    }
+
+    fun partFailed(part: PartInfo) {
+        pendingUpdates[part.partNumber] = PartUpdate(PartStatus.FAILED, null)
+    }
+
+    /**
+     * 把尚未写回的分片状态一次性写入存储
+     */
+    fun flush() {
+        flushLock.withLock { writePending() }
+    }
+
+    private fun writePending() {
+        lastFlushAt = System.currentTimeMillis()
+        if (pendingUpdates.isEmpty()) {
+            return
+        }
+        val updates = HashMap<Int, PartUpdate>(pendingUpdates.size * 2)
+        pendingUpdates.keys.forEach { partNumber ->
+            pendingUpdates.remove(partNumber)?.let { updates[partNumber] = it }
+        }
+        val storage = progressStorage ?: return
+        val current = storage.getStatus(storageKey) ?: return
+        val parts = current.parts.map { part ->
+            val update = updates[part.partNumber] ?: return@map part
+            part.copy(status = update.status, etag = update.etag ?: part.etag)
+        }
+        val uploadedSize = parts.filter { it.status == PartStatus.COMPLETED }.sumOf { it.size }
+        storage.saveStatus(
+            storageKey,
+            current.copy(
+                parts = parts,
+                uploadedSize = uploadedSize,
+                progress = (uploadedSize.toDouble() / current.fileSize * 100).coerceAtMost(100.0),
+                updatedAt = System.currentTimeMillis()
+            )
+        )
+    }
+
+    private class PartUpdate(val status: PartStatus, val etag: String?)
+}
+
+/**
+ * 按位置读取文件区间的输入流，缓冲区从 [DirectBufferPool] 借用，关闭时归还
+ */
+internal class FileRegionInputStream(
+    private val channel: FileChannel,
+    start: Long,
+    length: Long,
+) : InputStream() {
+    private var position = start
+    private var unread = length
+    private var buffer: ByteBuffer? = DirectBufferPool.acquire().apply { limit(0) }
+
+    override fun read(): Int {
+        val current = fill() ?: return -1
+        return current.get().toInt() and 0xFF
+    }
+
+    override fun read(b: ByteArray, off: Int, len: Int): Int {
+        if (len == 0) {
+            return 0
+        }
+        val current = fill() ?: return -1
+        val count = minOf(len, current.remaining())
+        current.get(b, off, count)
+        return count
+    }
+
+    override fun available(): Int {
+        val buffered = buffer?.remaining() ?: 0
+        return minOf(Int.MAX_VALUE.toLong(), buffered + unread).toInt()
+    }
+
+    override fun close() {
+        buffer?.let(DirectBufferPool::release)
+        buffer = null
+    }
+
+    /**
+     * 缓冲区读空时从文件补齐，区间读完返回 null
+     */
+    private fun fill(): ByteBuffer? {
+        val current = buffer ?: throw IOException("Stream closed")
+        if (current.hasRemaining()) {
+            return current
+        }
+        if (unread <= 0) {
+            return null
+        }
+        current.clear()
+        current.limit(minOf(current.capacity().toLong(), unread).toInt())
+        while (current.hasRemaining()) {
+            val read = channel.read(current, position)
+            if (read < 0) {
+                throw EOFException("Unexpected end of file at position $position")
+            }
+            position += read
+        }
+        current.flip()
+        unread -= current.remaining()
+        return current
+    }
+}
+
+/**
+ * 直接缓冲区池，常驻内存上限为 [MAX_POOLED] × [BUFFER_SIZE]
+ */
+internal object DirectBufferPool {
+    const val BUFFER_SIZE = 256 * 1024
+    private const val MAX_POOLED = 64
+
+    private val pool = ArrayBlockingQueue<ByteBuffer>(MAX_POOLED)
+
+    fun acquire(): ByteBuffer = pool.poll()?.apply { clear() } ?: ByteBuffer.allocateDirect(BUFFER_SIZE)
+
+    fun release(buffer: ByteBuffer) {
+        buffer.clear()
+        pool.offer(buffer)
+    }
+}
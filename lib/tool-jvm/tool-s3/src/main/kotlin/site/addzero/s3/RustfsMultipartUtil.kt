@@ -1,15 +1,15 @@
 package site.addzero.s3
 
 import org.slf4j.LoggerFactory
-import software.amazon.awssdk.core.sync.RequestBody
+import site.addzero.s3.api.S3StorageClient
 import software.amazon.awssdk.services.s3.S3Client
 import software.amazon.awssdk.services.s3.model.*
 import java.io.File
-import java.io.RandomAccessFile
+import java.io.InputStream
+import java.nio.channels.Channels
+import java.nio.channels.FileChannel
+import java.nio.file.StandardOpenOption
 import java.util.concurrent.ConcurrentHashMap
-import java.util.concurrent.Executors
-import java.util.concurrent.TimeUnit
-import java.util.concurrent.atomic.AtomicLong
 
 /**
  * RustFS 分片上传工具类
@@ -160,10 +160,7 @@ object RustfsMultipartUtil {
 
             val partInfo = parts[partNumber - 1]
 
-            // 读取分片数据
-            val partData = readPartData(file, partInfo.start, partInfo.size)
-
-            // 上传分片
+            // 上传分片，数据按需从文件区间流式读取
             val request = UploadPartRequest.builder()
                 .bucket(bucketName)
                 .key(objectKey)
@@ -172,8 +169,9 @@ object RustfsMultipartUtil {
                 .contentLength(partInfo.size)
                 .build()
 
-            val response = client.uploadPart(request, RequestBody.fromBytes(partData))
-            val etag = response.eTag()
+            val etag = FileChannel.open(file.toPath(), StandardOpenOption.READ).use { channel ->
+                client.uploadPart(request, MultipartUploadEngine.filePartBody(channel, partInfo.start, partInfo.size)).eTag()
+            }
 
             logger.debug("Uploaded part $partNumber/${parts.size} for $bucketName/$objectKey, etag: $etag")
             etag
@@ -215,121 +213,23 @@ object RustfsMultipartUtil {
 
         return try {
             val partSize = maxOf(config.partSize, MIN_PART_SIZE)
-            val parts = generatePartInfos(file.length(), partSize)
-            val uploadedBytes = AtomicLong(0L)
-
-            // 创建线程池
-            val executor = Executors.newFixedThreadPool(config.concurrency)
-
-            // 提交上传任务
-            val futures = parts.map { partInfo ->
-                executor.submit<PartInfo> {
-                    var retries = 0
-                    var lastError: Exception? = null
-
-                    while (retries <= config.maxRetries) {
-                        try {
-                            // 更新状态为上传中
-                            progressStorage?.updatePartStatus(
-                                storageKey, partInfo.partNumber,
-                                PartStatus.UPLOADING, null
-                            )
-
-                            // 读取分片数据
-                            val partData = readPartData(file, partInfo.start, partInfo.size)
-
-                            // 上传分片
-                            val request = UploadPartRequest.builder()
-                                .bucket(bucketName)
-                                .key(objectKey)
-                                .uploadId(uploadId)
-                                .partNumber(partInfo.partNumber)
-                                .contentLength(partInfo.size)
-                                .build()
-
-                            val response = client.uploadPart(request, RequestBody.fromBytes(partData))
-                            val etag = response.eTag()
-
-                            // 更新状态为已完成
-                            val completedPart = partInfo.copy(
-                                status = PartStatus.COMPLETED,
-                                etag = etag
-                            )
-                            progressStorage?.updatePartStatus(
-                                storageKey, partInfo.partNumber,
-                                PartStatus.COMPLETED, etag
-                            )
-
-                            // 更新总进度
-                            val newUploaded = uploadedBytes.addAndGet(partInfo.size)
-                            config.progressListener?.onProgress(
-                                UploadProgressData(
-                                    uploaded = newUploaded,
-                                    total = file.length(),
-                                    percent = newUploaded.toDouble() / file.length() * 100,
-                                    partNumber = partInfo.partNumber,
-                                    totalParts = parts.size
-                                )
-                            )
-
-                            progressStorage?.updateUploadedSize(storageKey, newUploaded)
-
-                            logger.debug(
-                                "Uploaded part ${partInfo.partNumber}/${parts.size}, " +
-                                        "progress: ${String.format("%.2f%%", newUploaded.toDouble() / file.length() * 100)}"
-                            )
-
-                            return@submit completedPart
-                        } catch (e: Exception) {
-                            lastError = e
-                            retries++
-                            if (retries <= config.maxRetries) {
-                                logger.warn("Upload part ${partInfo.partNumber} failed, retrying ($retries/${config.maxRetries})", e)
-                                Thread.sleep(1000L * retries)
-                            }
-                        }
-                    }
-
-                    // 重试次数用完，标记为失败
-                    progressStorage?.updatePartStatus(
-                        storageKey, partInfo.partNumber,
-                        PartStatus.FAILED, null
-                    )
-
-                    throw lastError ?: Exception("Upload failed after ${config.maxRetries} retries")
-                }
-            }
-
-            // 等待所有分片上传完成
-            val completedParts = mutableListOf<CompletedPart>()
-            var failedPart: PartInfo? = null
-
-            for ((index, future) in futures.withIndex()) {
-                try {
-                    val part = future.get()
-                    completedParts.add(
-                        CompletedPart.builder()
-                            .partNumber(part.partNumber)
-                            .eTag(part.etag!!)
-                            .build()
-                    )
-                } catch (e: Exception) {
-                    logger.error("Failed to upload part ${index + 1}", e)
-                    failedPart = parts[index]
-                    break
-                }
-            }
-
-            executor.shutdown()
-            executor.awaitTermination(1, TimeUnit.MINUTES)
+            val fileSize = file.length()
+            val parts = generatePartInfos(fileSize, partSize)
+            val tracker = MultipartProgressTracker(
+                storageKey, progressStorage, fileSize, parts.size, 0L,
+                config.progressListener, config.progressFlushIntervalMillis
+            )
 
-            // 如果有失败的分片，取消上传
-            if (failedPart != null) {
+            // 共享线程池 + 在途窗口上传全部分片
+            val completedParts = try {
+                MultipartUploadEngine(client, bucketName, objectKey, uploadId, file, config, tracker).upload(parts)
+            } catch (e: MultipartPartException) {
+                logger.error("Failed to upload part ${e.partNumber}", e.cause)
                 abortMultipartUpload(client, bucketName, objectKey, uploadId)
-                updateStatus(storageKey, UploadStatusType.FAILED, "Failed to upload part ${failedPart.partNumber}", progressStorage)
+                updateStatus(storageKey, UploadStatusType.FAILED, "Failed to upload part ${e.partNumber}", progressStorage)
                 return MultipartUploadResult.Failed(
                     bucketName, objectKey, uploadId,
-                    "Failed to upload part ${failedPart.partNumber}"
+                    "Failed to upload part ${e.partNumber}"
                 )
             }
 
@@ -354,7 +254,7 @@ object RustfsMultipartUtil {
 
             MultipartUploadResult.Success(
                 bucketName, objectKey, uploadId,
-                etag, file.length(), parts.size
+                etag, fileSize, parts.size
             )
 
         } catch (e: Exception) {
@@ -401,124 +301,34 @@ object RustfsMultipartUtil {
         logger.info("Resuming upload: $bucketName/$objectKey, uploadId: ${status.uploadId}")
 
         return try {
-            val partSize = maxOf(config.partSize, MIN_PART_SIZE)
             val parts = status.parts
-            val uploadedBytes = AtomicLong(
-                parts.filter { it.status == PartStatus.COMPLETED }.sumOf { it.size }
+            val fileSize = file.length()
+            val completedBefore = parts.filter { it.status == PartStatus.COMPLETED && it.etag != null }
+            val tracker = MultipartProgressTracker(
+                storageKey, progressStorage, fileSize, parts.size, completedBefore.sumOf { it.size },
+                config.progressListener, config.progressFlushIntervalMillis
             )
 
-            // 创建线程池
-            val executor = Executors.newFixedThreadPool(config.concurrency)
-
-            // 只上传未完成的分片
-            val pendingParts = parts.filter { it.status != PartStatus.COMPLETED }
-
-            val futures = pendingParts.map { partInfo ->
-                executor.submit<PartInfo> {
-                    var retries = 0
-                    var lastError: Exception? = null
-
-                    while (retries <= config.maxRetries) {
-                        try {
-                            progressStorage?.updatePartStatus(
-                                storageKey, partInfo.partNumber,
-                                PartStatus.UPLOADING, null
-                            )
-
-                            val partData = readPartData(file, partInfo.start, partInfo.size)
-
-                            val request = UploadPartRequest.builder()
-                                .bucket(bucketName)
-                                .key(objectKey)
-                                .uploadId(status.uploadId)
-                                .partNumber(partInfo.partNumber)
-                                .contentLength(partInfo.size)
-                                .build()
-
-                            val response = client.uploadPart(request, RequestBody.fromBytes(partData))
-                            val etag = response.eTag()
-
-                            progressStorage?.updatePartStatus(
-                                storageKey, partInfo.partNumber,
-                                PartStatus.COMPLETED, etag
-                            )
-
-                            val newUploaded = uploadedBytes.addAndGet(partInfo.size)
-                            config.progressListener?.onProgress(
-                                UploadProgressData(
-                                    uploaded = newUploaded,
-                                    total = file.length(),
-                                    percent = newUploaded.toDouble() / file.length() * 100,
-                                    partNumber = partInfo.partNumber,
-                                    totalParts = parts.size
-                                )
-                            )
-
-                            progressStorage?.updateUploadedSize(storageKey, newUploaded)
-
-                            return@submit partInfo.copy(
-                                status = PartStatus.COMPLETED,
-                                etag = etag
-                            )
-                        } catch (e: Exception) {
-                            lastError = e
-                            retries++
-                            if (retries <= config.maxRetries) {
-                                logger.warn("Upload part ${partInfo.partNumber} failed, retrying", e)
-                                Thread.sleep(1000L * retries)
-                            }
-                        }
-                    }
-
-                    progressStorage?.updatePartStatus(
-                        storageKey, partInfo.partNumber,
-                        PartStatus.FAILED, null
-                    )
-
-                    throw lastError ?: Exception("Upload failed after ${config.maxRetries} retries")
-                }
-            }
-
             // 收集已完成的分片和新上传的分片
-            val completedParts = mutableListOf<CompletedPart>()
-
-            // 已完成的分片
-            parts.filter { it.status == PartStatus.COMPLETED && it.etag != null }
-                .forEach { part ->
-                    completedParts.add(
-                        CompletedPart.builder()
-                            .partNumber(part.partNumber)
-                            .eTag(part.etag!!)
-                            .build()
-                    )
-                }
-
-            // 等待新上传的分片
-            var failedPart: PartInfo? = null
-            for (future in futures) {
-                try {
-                    val part = future.get()
-                    completedParts.add(
-                        CompletedPart.builder()
-                            .partNumber(part.partNumber)
-                            .eTag(part.etag!!)
-                            .build()
-                    )
-                } catch (e: Exception) {
-                    logger.error("Failed to upload part", e)
-                    failedPart = parts.find { it.status == PartStatus.FAILED }
-                    break
-                }
+            val completedParts = completedBefore.mapTo(mutableListOf()) { part ->
+                CompletedPart.builder()
+                    .partNumber(part.partNumber)
+                    .eTag(part.etag!!)
+                    .build()
             }
 
-            executor.shutdown()
-            executor.awaitTermination(1, TimeUnit.MINUTES)
-
-            if (failedPart != null) {
-                updateStatus(storageKey, UploadStatusType.FAILED, "Failed to upload part ${failedPart.partNumber}", progressStorage)
+            // 只上传未完成的分片
+            val pendingParts = parts.filter { it.status != PartStatus.COMPLETED || it.etag == null }
+            try {
+                completedParts += MultipartUploadEngine(
+                    client, bucketName, objectKey, status.uploadId, file, config, tracker
+                ).upload(pendingParts)
+            } catch (e: MultipartPartException) {
+                logger.error("Failed to upload part ${e.partNumber}", e.cause)
+                updateStatus(storageKey, UploadStatusType.FAILED, "Failed to upload part ${e.partNumber}", progressStorage)
                 return MultipartUploadResult.Failed(
                     bucketName, objectKey, status.uploadId,
-                    "Failed to upload part ${failedPart.partNumber}"
+                    "Failed to upload part ${e.partNumber}"
                 )
             }
 
@@ -538,7 +348,7 @@ object RustfsMultipartUtil {
 
             MultipartUploadResult.Success(
                 bucketName, objectKey, status.uploadId,
-                etag ?: "", file.length(), parts.size
+                etag ?: "", fileSize, parts.size
             )
 
         } catch (e: Exception) {
@@ -548,6 +358,37 @@ object RustfsMultipartUtil {
         }
     }
 
+    /**
+     * 流式分片上传，适用于长度未知的数据（HTTP 请求体、边生成边上传的压缩包等），无需先落盘
+     *
+     * @param client S3 客户端
+     * @param bucketName 存储桶名称
+     * @param objectKey 对象键
+     * @param input 输入流，读到结束为止，不负责关闭
+     * @param options 流式上传配置
+     * @return 分片上传结果
+     */
+    fun uploadStream(
+        client: S3Client,
+        bucketName: String,
+        objectKey: String,
+        input: InputStream,
+        options: S3StorageClient.StreamUploadOptions = S3StorageClient.StreamUploadOptions()
+    ): MultipartUploadResult {
+        return try {
+            val result = StreamingMultipartUpload(client, bucketName, objectKey, options).use { writer ->
+                writer.transferFrom(Channels.newChannel(input))
+                writer.complete()
+            }
+            MultipartUploadResult.Success(
+                bucketName, objectKey, result.uploadId, result.etag, result.size, result.partsCount
+            )
+        } catch (e: Exception) {
+            logger.error("Failed to stream upload: $bucketName/$objectKey", e)
+            MultipartUploadResult.Failed(bucketName, objectKey, null, e.message ?: "Unknown error", e)
+        }
+    }
+
     /**
      * 取消分片上传
      *
@@ -648,18 +489,6 @@ object RustfsMultipartUtil {
         }
     }
 
-    /**
-     * 读取分片数据
-     */
-    private fun readPartData(file: File, start: Long, size: Long): ByteArray {
-        RandomAccessFile(file, "r").use { raf ->
-            raf.seek(start)
-            val buffer = ByteArray(size.toInt())
-            raf.readFully(buffer)
-            return buffer
-        }
-    }
-
     /**
      * 更新上传状态
      */
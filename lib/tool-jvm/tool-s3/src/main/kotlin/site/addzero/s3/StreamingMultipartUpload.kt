@@ -0,0 +1,276 @@
+package site.addzero.s3
+
+import org.slf4j.LoggerFactory
+import site.addzero.s3.api.S3StorageClient
+import site.addzero.s3.api.S3StreamWriter
+import software.amazon.awssdk.core.sync.RequestBody
+import software.amazon.awssdk.http.ContentStreamProvider
+import software.amazon.awssdk.services.s3.S3Client
+import software.amazon.awssdk.services.s3.model.*
+import java.io.InputStream
+import java.nio.ByteBuffer
+import java.nio.channels.ReadableByteChannel
+import java.security.MessageDigest
+import java.util.concurrent.ArrayBlockingQueue
+import java.util.concurrent.CompletableFuture
+import java.util.concurrent.CompletionException
+import java.util.concurrent.TimeUnit
+import java.util.concurrent.atomic.AtomicReference
+
+/**
+ * 基于 [S3Client] 的流式分片写入器
+ *
+ * 使用 concurrency + 1 个分片大小的缓冲区组成的缓冲环：一个用于填充，其余在上传中，
+ * 分片上传完成后缓冲区归还给环。整个对象的 SHA-256 在写入时增量计算
+ */
+class StreamingMultipartUpload(
+    private val client: S3Client,
+    private val bucketName: String,
+    private val key: String,
+    private val options: S3StorageClient.StreamUploadOptions = S3StorageClient.StreamUploadOptions(),
+) : S3StreamWriter {
+
+    private val partSize = maxOf(options.partSize, MIN_PART_SIZE).coerceAtMost(Int.MAX_VALUE.toLong()).toInt()
+    private val ringSize = options.concurrency.coerceAtLeast(1) + 1
+    private val freeBuffers = ArrayBlockingQueue<ByteBuffer>(ringSize)
+    private var allocatedBuffers = 0
+    private var current: ByteBuffer? = null
+
+    private val digest = if (options.computeSha256) MessageDigest.getInstance("SHA-256") else null
+    private var uploadId: String? = null
+    private var nextPartNumber = 1
+    private val parts = ArrayList<CompletableFuture<CompletedPart>>()
+    private val failure = AtomicReference<Throwable?>()
+    private var totalBytes = 0L
+    private var finished = false
+
+    override fun write(src: ByteBuffer) {
+        checkWritable()
+        while (src.hasRemaining()) {
+            val buffer = currentBuffer()
+            val count = minOf(buffer.remaining(), src.remaining())
+            val slice = src.duplicate()
+            slice.limit(slice.position() + count)
+            digest?.update(slice.duplicate())
+            buffer.put(slice)
+            src.position(src.position() + count)
+            totalBytes += count
+            if (!buffer.hasRemaining()) {
+                flushPart()
+            }
+        }
+    }
+
+    override fun transferFrom(channel: ReadableByteChannel): Long {
+        checkWritable()
+        var transferred = 0L
+        while (true) {
+            val buffer = currentBuffer()
+            val before = buffer.position()
+            val read = channel.read(buffer)
+            if (read < 0) {
+                break
+            }
+            if (read > 0) {
+                digest?.let { md ->
+                    val view = buffer.duplicate()
+                    view.flip()
+                    view.position(before)
+                    md.update(view)
+                }
+                transferred += read
+                totalBytes += read
+            }
+            if (!buffer.hasRemaining()) {
+                flushPart()
+            }
+        }
+        return transferred
+    }
+
+    override fun complete(): S3StorageClient.StreamUploadResult {
+        checkWritable()
+        finished = true
+        try {
+            val sha256 = digest?.digest()?.joinToString("") { "%02x".format(it) }
+            if (uploadId == null) {
+                return putSingleObject(sha256)
+            }
+            current?.let { buffer ->
+                if (buffer.position() > 0) {
+                    flushPart()
+                }
+            }
+            val completedParts = awaitParts()
+            val response = client.completeMultipartUpload(
+                CompleteMultipartUploadRequest.builder()
+                    .bucket(bucketName)
+                    .key(key)
+                    .uploadId(uploadId)
+                    .multipartUpload { m -> m.parts(completedParts.sortedBy { it.partNumber() }) }
+                    .build()
+            )
+            logger.info("Stream upload completed: $bucketName/$key, parts: ${completedParts.size}, size: $totalBytes")
+            return S3StorageClient.StreamUploadResult(
+                bucketName, key, response.eTag() ?: "", totalBytes, completedParts.size, sha256, uploadId
+            )
+        } catch (e: Throwable) {
+            abortUpload()
+            throw e
+        }
+    }
+
+    override fun abort() {
+        if (finished) {
+            return
+        }
+        finished = true
+        abortUpload()
+    }
+
+    override fun close() {
+        abort()
+    }
+
+    private fun putSingleObject(sha256: String?): S3StorageClient.StreamUploadResult {
+        val buffer = current ?: ByteBuffer.allocate(0)
+        buffer.flip()
+        val builder = PutObjectRequest.builder()
+            .bucket(bucketName)
+            .key(key)
+            .contentLength(buffer.remaining().toLong())
+        options.contentType?.let { builder.contentType(it) }
+        if (options.metadata.isNotEmpty()) {
+            builder.metadata(options.metadata)
+        }
+        val response = client.putObject(builder.build(), bufferBody(buffer))
+        return S3StorageClient.StreamUploadResult(bucketName, key, response.eTag() ?: "", totalBytes, 0, sha256)
+    }
+
+    /**
+     * 当前缓冲区写满或数据结束时提交分片，首个分片提交前才创建分片上传
+     */
+    private fun flushPart() {
+        val buffer = current ?: return
+        current = null
+        buffer.flip()
+        val id = uploadId ?: createMultipartUpload().also { uploadId = it }
+        val partNumber = nextPartNumber++
+        val future = CompletableFuture.supplyAsync({
+            val response = client.uploadPart(
+                UploadPartRequest.builder()
+                    .bucket(bucketName)
+                    .key(key)
+                    .uploadId(id)
+                    .partNumber(partNumber)
+                    .contentLength(buffer.remaining().toLong())
+                    .build(),
+                bufferBody(buffer)
+            )
+            CompletedPart.builder().partNumber(partNumber).eTag(response.eTag()).build()
+        }, MultipartUploadEngine.UPLOAD_EXECUTOR)
+        future.whenComplete { _, error ->
+            if (error != null) {
+                failure.compareAndSet(null, unwrap(error))
+            }
+            buffer.clear()
+            freeBuffers.offer(buffer)
+        }
+        parts += future
+    }
+
+    private fun createMultipartUpload(): String {
+        val builder = CreateMultipartUploadRequest.builder()
+            .bucket(bucketName)
+            .key(key)
+        options.contentType?.let { builder.contentType(it) }
+        if (options.metadata.isNotEmpty()) {
+            builder.metadata(options.metadata)
+        }
+        return client.createMultipartUpload(builder.build()).uploadId()
+    }
+
+    /**
+     * 取一个空缓冲区：优先复用，未达环大小时新建，否则等待在途分片归还
+     */
+    private fun currentBuffer(): ByteBuffer {
+        current?.let { return it }
+        var buffer = freeBuffers.poll()
+        if (buffer == null && allocatedBuffers < ringSize) {
+            allocatedBuffers++
+            buffer = ByteBuffer.allocateDirect(partSize)
+        }
+        while (buffer == null) {
+            failure.get()?.let { throw it }
+            buffer = freeBuffers.poll(100, TimeUnit.MILLISECONDS)
+        }
+        current = buffer
+        return buffer
+    }
+
+    private fun awaitParts(): List<CompletedPart> {
+        try {
+            CompletableFuture.allOf(*parts.toTypedArray()).join()
+        } catch (e: CompletionException) {
+            throw unwrap(e)
+        }
+        return parts.map { it.join() }
+    }
+
+    private fun abortUpload() {
+        val id = uploadId ?: return
+        CompletableFuture.allOf(*parts.toTypedArray()).exceptionally { null }.join()
+        runCatching {
+            client.abortMultipartUpload(
+                AbortMultipartUploadRequest.builder().bucket(bucketName).key(key).uploadId(id).build()
+            )
+        }.onFailure { logger.warn("Failed to abort stream upload: $bucketName/$key, uploadId: $id", it) }
+    }
+
+    private fun checkWritable() {
+        check(!finished) { "Stream upload already finished: $bucketName/$key" }
+        failure.get()?.let { throw it }
+    }
+
+    companion object {
+        private val logger = LoggerFactory.getLogger(StreamingMultipartUpload::class.java)
+
+        private const val MIN_PART_SIZE = 5L * 1024 * 1024
+
+        /**
+         * 直接读取缓冲区的请求体，SDK 重发时从头再读
+         */
+        private fun bufferBody(buffer: ByteBuffer): RequestBody {
+            val readOnly = buffer.asReadOnlyBuffer()
+            return RequestBody.fromContentProvider(
+                ContentStreamProvider { ByteBufferInputStream(readOnly.duplicate()) },
+                readOnly.remaining().toLong(),
+                "application/octet-stream"
+            )
+        }
+
+        private fun unwrap(error: Throwable): Throwable =
+            if (error is CompletionException && error.cause != null) error.cause!! else error
+    }
+}
+
+/**
+ * 只读 ByteBuffer 的输入流视图
+ */
+internal class ByteBufferInputStream(private val buffer: ByteBuffer) : InputStream() {
+    override fun read(): Int = if (buffer.hasRemaining()) buffer.get().toInt() and 0xFF else -1
+
+    override fun read(b: ByteArray, off: Int, len: Int): Int {
+        if (len == 0) {
+            return 0
+        }
+        if (!buffer.hasRemaining()) {
+            return -1
+        }
+        val count = minOf(len, buffer.remaining())
+        buffer.get(b, off, count)
+        return count
+    }
+
+    override fun available(): Int = buffer.remaining()
+}
@@ -50,13 +50,17 @@ data class MultipartUploadConfig(
     val timeoutSeconds: Int = DEFAULT_TIMEOUT_SECONDS,
 
     /** 进度监听器 */
-    val progressListener: UploadProgressListener? = null
+    val progressListener: UploadProgressListener? = null,
+
+    /** 分片状态写回进度存储的最小间隔（毫秒），默认 1000，上传结束时总会写一次 */
+    val progressFlushIntervalMillis: Long = DEFAULT_PROGRESS_FLUSH_INTERVAL_MILLIS
 ) {
     companion object {
         const val DEFAULT_PART_SIZE = 5 * 1024 * 1024L  // 5MB
         const val DEFAULT_CONCURRENCY = 3
         const val DEFAULT_MAX_RETRIES = 3
         const val DEFAULT_TIMEOUT_SECONDS = 30
+        const val DEFAULT_PROGRESS_FLUSH_INTERVAL_MILLIS = 1000L
 
         fun default() = MultipartUploadConfig()
     }
@@ -142,7 +146,8 @@ sealed class MultipartUploadResult {
     data class Success(
         val bucketName: String,
         val objectKey: String,
-        val uploadId: String,
+        /** 流式上传数据不足一个分片、走普通上传时为 null */
+        val uploadId: String?,
         val etag: String,
         val fileSize: Long,
         val partsCount: Int
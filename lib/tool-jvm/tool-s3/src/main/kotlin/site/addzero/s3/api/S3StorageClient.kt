@@ -1,5 +1,11 @@
 package site.addzero.s3.api
+import kotlinx.coroutines.Dispatchers
+import kotlinx.coroutines.flow.Flow
+import kotlinx.coroutines.withContext
 import java.io.File
+import java.io.InputStream
+import java.nio.channels.Channels
+import java.nio.channels.ReadableByteChannel
 import java.nio.file.Path
 import java.time.Instant
 
@@ -32,6 +38,36 @@ interface S3StorageClient {
         val etag: String?
     )
 
+    /**
+     * 流式上传配置
+     */
+    data class StreamUploadOptions(
+        /** 分片大小，不足 5MB 按 5MB 处理 */
+        val partSize: Long = 8 * 1024 * 1024L,
+        /** 同时在途的分片数，缓冲环大小为 concurrency + 1 */
+        val concurrency: Int = 4,
+        val contentType: String? = null,
+        val metadata: Map<String, String> = emptyMap(),
+        /** 是否边写边计算整个对象的 SHA-256 */
+        val computeSha256: Boolean = true
+    )
+
+    /**
+     * 流式上传结果
+     */
+    data class StreamUploadResult(
+        val bucketName: String,
+        val key: String,
+        val etag: String,
+        val size: Long,
+        /** 0 表示数据不足一个分片，走的是普通上传 */
+        val partsCount: Int,
+        /** 十六进制 SHA-256，未开启时为 null */
+        val sha256: String?,
+        /** 分片上传的 uploadId，走普通上传时为 null */
+        val uploadId: String? = null
+    )
+
     /**
      * 预签名 URL 信息
      */
@@ -204,6 +240,64 @@ interface S3StorageClient {
      */
     fun listMultipartUploads(bucketName: String): List<String>
 
+    // ==================== 流式上传 ====================
+
+    /**
+     * 打开长度未知的流式写入器
+     */
+    fun openStreamWriter(
+        bucketName: String,
+        key: String,
+        options: StreamUploadOptions = StreamUploadOptions()
+    ): S3StreamWriter
+
+    /**
+     * 从通道流式上传，无需先落盘
+     */
+    fun putObjectStream(
+        bucketName: String,
+        key: String,
+        channel: ReadableByteChannel,
+        options: StreamUploadOptions = StreamUploadOptions()
+    ): Result<StreamUploadResult> {
+        return Result.catch("Failed to stream upload: $bucketName/$key") {
+            openStreamWriter(bucketName, key, options).use { writer ->
+                writer.transferFrom(channel)
+                writer.complete()
+            }
+        }
+    }
+
+    /**
+     * 从输入流流式上传，无需先落盘
+     */
+    fun putObjectStream(
+        bucketName: String,
+        key: String,
+        input: InputStream,
+        options: StreamUploadOptions = StreamUploadOptions()
+    ): Result<StreamUploadResult> {
+        return putObjectStream(bucketName, key, Channels.newChannel(input), options)
+    }
+
+    /**
+     * 从 Flow 流式上传，收集和写入都在 IO 调度器上进行。
+     * 缓冲环占满时写入会阻塞当前 IO 线程直到有分片上传完成，上游随之暂停发射
+     */
+    suspend fun putObjectStream(
+        bucketName: String,
+        key: String,
+        flow: Flow<ByteArray>,
+        options: StreamUploadOptions = StreamUploadOptions()
+    ): Result<StreamUploadResult> = withContext(Dispatchers.IO) {
+        Result.catch("Failed to stream upload: $bucketName/$key") {
+            openStreamWriter(bucketName, key, options).use { writer ->
+                flow.collect { chunk -> writer.write(chunk) }
+                writer.complete()
+            }
+        }
+    }
+
     // ==================== 预签名 URL ====================
 
     /**
@@ -0,0 +1,40 @@
+package site.addzero.s3.api
+
+import java.io.Closeable
+import java.nio.ByteBuffer
+import java.nio.channels.ReadableByteChannel
+
+/**
+ * 长度未知的流式对象写入器
+ *
+ * 写入的数据按分片大小切块，边读边并发上传；数据不足一个分片时退化为一次普通上传。
+ * 必须以 [complete] 或 [abort] 结束，[close] 等同于未完成时的 [abort]
+ */
+interface S3StreamWriter : Closeable {
+
+    /**
+     * 写入数据，在途分片占满缓冲环时阻塞，直到有分片上传完成
+     */
+    fun write(src: ByteBuffer)
+
+    fun write(bytes: ByteArray, offset: Int = 0, length: Int = bytes.size) {
+        write(ByteBuffer.wrap(bytes, offset, length))
+    }
+
+    /**
+     * 从通道读到结束，数据直接读进分片缓冲区
+     *
+     * @return 读取的字节数
+     */
+    fun transferFrom(channel: ReadableByteChannel): Long
+
+    /**
+     * 上传剩余数据并合并分片
+     */
+    fun complete(): S3StorageClient.StreamUploadResult
+
+    /**
+     * 取消上传，已上传的分片会被清理
+     */
+    fun abort()
+}
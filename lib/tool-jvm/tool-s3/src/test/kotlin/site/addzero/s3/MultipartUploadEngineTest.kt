@@ -0,0 +1,79 @@
+package site.addzero.s3
+
+import org.junit.jupiter.api.Assertions.assertArrayEquals
+import org.junit.jupiter.api.Assertions.assertEquals
+import org.junit.jupiter.api.Assertions.assertTrue
+import org.junit.jupiter.api.Test
+import java.nio.channels.FileChannel
+import java.nio.file.StandardOpenOption
+import kotlin.io.path.createTempFile
+import kotlin.io.path.deleteIfExists
+import kotlin.io.path.writeBytes
+import kotlin.random.Random
+
+class MultipartUploadEngineTest {
+
+    @Test
+    fun `FileRegionInputStream reads exactly the requested region across buffer refills`() {
+        val bytes = Random(42).nextBytes(DirectBufferPool.BUFFER_SIZE * 3 + 123)
+        val path = createTempFile("region", ".bin")
+        try {
+            path.writeBytes(bytes)
+            val start = 1000L
+            val length = DirectBufferPool.BUFFER_SIZE * 2L + 77
+            val read = FileChannel.open(path, StandardOpenOption.READ).use { channel ->
+                FileRegionInputStream(channel, start, length).use { it.readBytes() }
+            }
+            assertArrayEquals(bytes.copyOfRange(start.toInt(), (start + length).toInt()), read)
+        } finally {
+            path.deleteIfExists()
+        }
+    }
+
+    @Test
+    fun `progress tracker coalesces storage writes and flushes at the end`() {
+        val storage = CountingProgressStorage()
+        val parts = (1..10).map { PartInfo(it, (it - 1) * 10L, it * 10L, 10L) }
+        val status = UploadStatus("u1", "bucket", "key", 100L, 0L, 0.0, parts, UploadStatusType.INITIALIZED)
+        storage.saveStatus("k", status)
+        storage.saves = 0
+
+        val reported = mutableListOf<Long>()
+        val tracker = MultipartProgressTracker(
+            "k", storage, 100L, parts.size, 0L,
+            { reported += it.uploaded }, flushIntervalMillis = 60_000L
+        )
+        parts.forEach { tracker.partCompleted(it, "etag-${it.partNumber}") }
+
+        assertEquals(0, storage.saves)
+        assertEquals(10, reported.size)
+        assertEquals(100L, reported.last())
+
+        tracker.flush()
+
+        assertEquals(1, storage.saves)
+        val saved = storage.getStatus("k")!!
+        assertEquals(100L, saved.uploadedSize)
+        assertTrue(saved.parts.all { it.status == PartStatus.COMPLETED && it.etag == "etag-${it.partNumber}" })
+    }
+
+    private class CountingProgressStorage : UploadProgressStorage {
+        private val delegate = InMemoryUploadProgressStorage()
+        var saves = 0
+
+        override fun saveStatus(key: String, status: UploadStatus): Boolean {
+            saves++
+            return delegate.saveStatus(key, status)
+        }
+
+        override fun getStatus(key: String): UploadStatus? = delegate.getStatus(key)
+
+        override fun deleteStatus(key: String): Boolean = delegate.deleteStatus(key)
+
+        override fun updatePartStatus(key: String, partNumber: Int, status: PartStatus, etag: String?): Boolean =
+            delegate.updatePartStatus(key, partNumber, status, etag)
+
+        override fun updateUploadedSize(key: String, uploadedSize: Long): Boolean =
+            delegate.updateUploadedSize(key, uploadedSize)
+    }
+}
@@ -0,0 +1,105 @@
+package site.addzero.s3
+
+import org.junit.jupiter.api.Assertions.assertArrayEquals
+import org.junit.jupiter.api.Assertions.assertEquals
+import org.junit.jupiter.api.Assertions.assertNull
+import org.junit.jupiter.api.Test
+import site.addzero.s3.api.S3StorageClient
+import software.amazon.awssdk.core.sync.RequestBody
+import software.amazon.awssdk.services.s3.S3Client
+import software.amazon.awssdk.services.s3.model.*
+import java.io.ByteArrayInputStream
+import java.io.ByteArrayOutputStream
+import java.lang.reflect.Proxy
+import java.nio.channels.Channels
+import java.security.MessageDigest
+import java.util.concurrent.ConcurrentHashMap
+import kotlin.random.Random
+
+class StreamingMultipartUploadTest {
+
+    private val partSize = 5 * 1024 * 1024L
+
+    @Test
+    fun `stream of unknown length is cut into parts and reassembled in order`() {
+        val bytes = Random(7).nextBytes((partSize * 2 + 12345).toInt())
+        val fake = FakeS3()
+
+        val result = StreamingMultipartUpload(
+            fake.client, "bucket", "key",
+            S3StorageClient.StreamUploadOptions(partSize = partSize, concurrency = 2)
+        ).use { writer ->
+            writer.transferFrom(Channels.newChannel(ByteArrayInputStream(bytes)))
+            writer.complete()
+        }
+
+        assertEquals(3, result.partsCount)
+        assertEquals("upload-1", result.uploadId)
+        assertEquals(bytes.size.toLong(), result.size)
+        assertEquals(sha256(bytes), result.sha256)
+        assertArrayEquals(bytes, fake.assembled())
+    }
+
+    @Test
+    fun `small payload falls back to a single put`() {
+        val bytes = "hello stream".toByteArray()
+        val fake = FakeS3()
+
+        val result = StreamingMultipartUpload(fake.client, "bucket", "key").use { writer ->
+            writer.write(bytes)
+            writer.complete()
+        }
+
+        assertEquals(0, result.partsCount)
+        assertNull(result.uploadId)
+        assertArrayEquals(bytes, fake.putBody)
+        assertEquals(0, fake.parts.size)
+    }
+
+    private fun sha256(bytes: ByteArray): String =
+        MessageDigest.getInstance("SHA-256").digest(bytes).joinToString("") { "%02x".format(it) }
+
+    /**
+     * 只实现流式上传用到的几个方法
+     */
+    private class FakeS3 {
+        val parts = ConcurrentHashMap<Int, ByteArray>()
+        var putBody: ByteArray? = null
+        private var completedOrder: List<Int> = emptyList()
+
+        val client: S3Client = Proxy.newProxyInstance(
+            S3Client::class.java.classLoader,
+            arrayOf(S3Client::class.java)
+        ) { _, method, args ->
+            when (method.name) {
+                "createMultipartUpload" -> CreateMultipartUploadResponse.builder().uploadId("upload-1").build()
+                "uploadPart" -> {
+                    val request = args[0] as UploadPartRequest
+                    parts[request.partNumber()] = readBody(args[1] as RequestBody)
+                    UploadPartResponse.builder().eTag("etag-${request.partNumber()}").build()
+                }
+                "completeMultipartUpload" -> {
+                    val request = args[0] as CompleteMultipartUploadRequest
+                    completedOrder = request.multipartUpload().parts().map { it.partNumber() }
+                    CompleteMultipartUploadResponse.builder().eTag("final").build()
+                }
+                "putObject" -> {
+                    putBody = readBody(args[1] as RequestBody)
+                    PutObjectResponse.builder().eTag("single").build()
+                }
+                "abortMultipartUpload" -> AbortMultipartUploadResponse.builder().build()
+                "close" -> null
+                else -> throw UnsupportedOperationException(method.name)
+            }
+        } as S3Client
+
+        fun assembled(): ByteArray {
+            val out = ByteArrayOutputStream()
+            completedOrder.forEach { out.write(parts.getValue(it)) }
+            return out.toByteArray()
+        }
+
+        private fun readBody(body: RequestBody): ByteArray =
+            body.contentStreamProvider().newStream().use { it.readBytes() }
+    }
+}
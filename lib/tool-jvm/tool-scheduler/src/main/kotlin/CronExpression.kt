@@ -0,0 +1,149 @@
+import java.time.ZonedDateTime
+import java.time.temporal.ChronoUnit
+import java.util.BitSet
+
+/**
+ * 简单的 cron 表达式
+ *
+ * 支持 6 段（秒 分 时 日 月 周）或 5 段（分 时 日 月 周，秒固定为 0），每段支持 `*`、`?`、`a,b`、`a-b`、`a/n`、`a-b/n`；
+ * 月份支持 JAN-DEC，星期支持 SUN-SAT（0 和 7 都表示周日）。日和周同时指定时，满足任一即可。不支持 `L`、`W`、`#`。
+ *
+ * 夏令时：跳过的时间（如春季调时的 02:30）当天不触发；回拨时重复的时间只触发第一次，
+ * 但小时段为 `*` 的表达式（如每分钟执行）在重复的一小时内照常触发。
+ */
+class CronExpression private constructor(
+    val expression: String,
+    private val seconds: BitSet,
+    private val minutes: BitSet,
+    private val hours: BitSet,
+    private val daysOfMonth: BitSet,
+    private val months: BitSet,
+    private val daysOfWeek: BitSet,
+    private val dayOfMonthRestricted: Boolean,
+    private val dayOfWeekRestricted: Boolean,
+    private val hourRestricted: Boolean,
+) {
+
+    /**
+     * 计算 [after] 之后（不含）的下一次触发时间，5 年内没有匹配时返回 null
+     */
+    fun next(after: ZonedDateTime): ZonedDateTime? {
+        var time = after.truncatedTo(ChronoUnit.SECONDS).plusSeconds(1)
+        val limit = after.plusYears(MAX_SEARCH_YEARS)
+        while (time.isBefore(limit)) {
+            if (!months[time.monthValue]) {
+                time = time.withDayOfMonth(1).truncatedTo(ChronoUnit.DAYS).plusMonths(1)
+                continue
+            }
+            if (!matchesDay(time)) {
+                time = time.truncatedTo(ChronoUnit.DAYS).plusDays(1)
+                continue
+            }
+            if (!hours[time.hour]) {
+                time = time.truncatedTo(ChronoUnit.HOURS).plusHours(1)
+                continue
+            }
+            if (!minutes[time.minute]) {
+                time = time.truncatedTo(ChronoUnit.MINUTES).plusMinutes(1)
+                continue
+            }
+            if (!seconds[time.second]) {
+                time = time.plusSeconds(1)
+                continue
+            }
+            // 夏令时回拨时同一个本地时间出现两次，指定了小时的表达式只在第一次触发
+            if (hourRestricted && !time.toLocalDateTime().isAfter(after.toLocalDateTime())) {
+                time = time.plusSeconds(1)
+                continue
+            }
+            return time
+        }
+        return null
+    }
+
+    private fun matchesDay(time: ZonedDateTime): Boolean {
+        val dayOfMonth = daysOfMonth[time.dayOfMonth]
+        // DayOfWeek 中周一为 1、周日为 7，这里统一成周日为 0
+        val dayOfWeek = daysOfWeek[time.dayOfWeek.value % 7]
+        return when {
+            dayOfMonthRestricted && dayOfWeekRestricted -> dayOfMonth || dayOfWeek
+            dayOfWeekRestricted -> dayOfWeek
+            else -> dayOfMonth
+        }
+    }
+
+    override fun toString(): String = expression
+
+    companion object {
+
+        private const val MAX_SEARCH_YEARS = 5L
+
+        private val MONTH_NAMES = listOf("JAN", "FEB", "MAR", "APR", "MAY", "JUN", "JUL", "AUG", "SEP", "OCT", "NOV", "DEC")
+        private val DAY_OF_WEEK_NAMES = listOf("SUN", "MON", "TUE", "WED", "THU", "FRI", "SAT")
+
+        /**
+         * 解析 cron 表达式，格式不正确时抛出 [IllegalArgumentException]
+         */
+        fun parse(expression: String): CronExpression {
+            val fields = expression.trim().split(Regex("\\s+"))
+            require(fields.size == 5 || fields.size == 6) { "cron 表达式需要 5 或 6 段: $expression" }
+            val all = if (fields.size == 5) listOf("0") + fields else fields
+            val daysOfWeek = parseField(replaceNames(all[5], DAY_OF_WEEK_NAMES, 0), 0, 7, expression)
+            // 7 也表示周日
+            if (daysOfWeek[7]) {
+                daysOfWeek.set(0)
+            }
+            val hours = parseField(all[2], 0, 23, expression)
+            return CronExpression(
+                expression = expression,
+                seconds = parseField(all[0], 0, 59, expression),
+                minutes = parseField(all[1], 0, 59, expression),
+                hours = hours,
+                daysOfMonth = parseField(all[3], 1, 31, expression),
+                months = parseField(replaceNames(all[4], MONTH_NAMES, 1), 1, 12, expression),
+                daysOfWeek = daysOfWeek,
+                dayOfMonthRestricted = !isWildcard(all[3]),
+                dayOfWeekRestricted = !isWildcard(all[5]),
+                hourRestricted = hours.cardinality() < 24,
+            )
+        }
+
+        private fun isWildcard(field: String): Boolean = field == "*" || field == "?"
+
+        private fun replaceNames(field: String, names: List<String>, offset: Int): String {
+            var result = field.uppercase()
+            names.forEachIndexed { index, name -> result = result.replace(name, (index + offset).toString()) }
+            return result
+        }
+
+        private fun parseField(field: String, min: Int, max: Int, expression: String): BitSet {
+            val bits = BitSet(max + 1)
+            for (part in field.split(',')) {
+                val stepIndex = part.indexOf('/')
+                val range = if (stepIndex >= 0) part.substring(0, stepIndex) else part
+                val step = if (stepIndex >= 0) parseNumber(part.substring(stepIndex + 1), expression) else 1
+                require(step > 0) { "cron 表达式的步长必须大于 0: $expression" }
+                val (start, end) = when {
+                    isWildcard(range) -> min to max
+                    range.contains('-') -> {
+                        val bounds = range.split('-', limit = 2)
+                        parseNumber(bounds[0], expression) to parseNumber(bounds[1], expression)
+                    }
+                    // a/n 表示从 a 开始，每 n 个单位一次
+                    stepIndex >= 0 -> parseNumber(range, expression) to max
+                    else -> parseNumber(range, expression).let { it to it }
+                }
+                require(start in min..max && end in min..max && start <= end) {
+                    "cron 表达式的取值超出范围 [$min, $max]: $expression"
+                }
+                for (value in start..end step step) {
+                    bits.set(value)
+                }
+            }
+            return bits
+        }
+
+        private fun parseNumber(value: String, expression: String): Int =
+            requireNotNull(value.toIntOrNull()) { "cron 表达式包含非法的值 $value: $expression" }
+    }
+}
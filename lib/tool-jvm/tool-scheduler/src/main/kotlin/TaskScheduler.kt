@@ -1,69 +1,429 @@
-import java.util.*
-import kotlin.concurrent.fixedRateTimer
-import kotlin.concurrent.timer
+import java.time.Duration
+import java.time.ZoneId
+import java.time.ZonedDateTime
+import java.util.concurrent.ConcurrentHashMap
+import java.util.concurrent.ConcurrentLinkedQueue
+import java.util.concurrent.Executor
+import java.util.concurrent.ExecutorService
+import java.util.concurrent.Executors
+import java.util.concurrent.RejectedExecutionException
+import java.util.concurrent.ThreadLocalRandom
+import java.util.concurrent.TimeUnit
+import java.util.concurrent.atomic.AtomicBoolean
+import java.util.concurrent.atomic.AtomicInteger
+import java.util.concurrent.atomic.AtomicLong
+import java.util.concurrent.atomic.LongAdder
 
-class TaskScheduler {
-    private val timers = mutableListOf<Timer>()
-    private val tasks = mutableListOf<TimerTask>()
+/**
+ * 基于哈希时间轮的本地定时任务调度器
+ *
+ * 所有任务挂在同一个时间轮上，由一个 ticker 线程每 [tickMillis] 毫秒推进一格，到期的任务交给 [executor] 执行。
+ * 不传 [executor] 时默认使用虚拟线程（JDK 21 以下退回缓存线程池）。
+ * 同一个重复任务不会并发执行：上一次还没执行完时，本次触发会被跳过。
+ *
+ * @param tickMillis 时间轮每格的时长，也是调度精度
+ * @param wheelSize 时间轮的格数，会向上取整为 2 的幂
+ * @param executor 执行任务的线程池
+ */
+class TaskScheduler(
+    private val tickMillis: Long = 10,
+    wheelSize: Int = 512,
+    executor: Executor? = null,
+) : AutoCloseable {
+
+    private val tickNanos = TimeUnit.MILLISECONDS.toNanos(tickMillis)
+    private val wheel: Array<MutableList<ScheduledTask>>
+    private val mask: Int
+
+    private val executor: Executor = executor ?: defaultExecutor()
+    private val ownsExecutor = executor == null
+
+    /**
+     * ticker 线程启动的时间，时间轮的第 0 格从这里开始。在写入 [ticker] 之前赋值，读到 [ticker] 后即可见
+     */
+    private var startNanos = 0L
+    @Volatile
+    private var running = true
+    @Volatile
+    private var ticker: Thread? = null
+
+    /**
+     * 新提交的任务，由 ticker 线程转移到时间轮中
+     */
+    private val pendingTasks = ConcurrentLinkedQueue<ScheduledTask>()
+    /**
+     * 所有未结束的任务。一次性任务执行后、任务取消后都会移除
+     */
+    private val liveTasks = ConcurrentHashMap.newKeySet<ScheduledTask>()
+
+    private val executedCount = LongAdder()
+    private val failedCount = LongAdder()
+    private val skippedCount = LongAdder()
+    private val maxLagNanos = AtomicLong()
+    @Volatile
+    private var lastLagNanos = 0L
+
+    init {
+        require(tickMillis > 0) { "tickMillis 必须大于 0" }
+        require(wheelSize in 1..(1 shl 30)) { "wheelSize 必须在 [1, 2^30] 之间" }
+        val size = Integer.highestOneBit(wheelSize - 1 shl 1).coerceAtLeast(1)
+        wheel = Array(size) { ArrayList() }
+        mask = size - 1
+    }
+
+    /**
+     * 延迟执行一次
+     */
+    fun scheduleOnce(delaySeconds: Long, jitterMillis: Long = 0, action: () -> Unit): ScheduledTask =
+        schedule(TimeUnit.SECONDS.toNanos(delaySeconds), jitterMillis, null, action)
 
     /**
      * 延迟执行一次
      */
-    fun scheduleOnce(delaySeconds: Long, action: () -> Unit): Timer {
-        val timer = Timer()
-        val task = object : TimerTask() {
-            override fun run() {
-                action()
-                timer.cancel()
+    fun scheduleOnce(delay: Duration, jitterMillis: Long = 0, action: () -> Unit): ScheduledTask =
+        schedule(delay.toNanos(), jitterMillis, null, action)
+
+    /**
+     * 固定间隔重复执行。错过的周期不会补执行
+     */
+    fun scheduleAtFixedRate(
+        intervalSeconds: Long,
+        initialDelaySeconds: Long = 0,
+        jitterMillis: Long = 0,
+        action: () -> Unit,
+    ): ScheduledTask {
+        require(intervalSeconds > 0) { "intervalSeconds 必须大于 0" }
+        val periodNanos = TimeUnit.SECONDS.toNanos(intervalSeconds)
+        return schedule(TimeUnit.SECONDS.toNanos(initialDelaySeconds), jitterMillis, { previous ->
+            val next = previous + periodNanos
+            val now = nanoTime()
+            if (next < now) next + (now - next) / periodNanos * periodNanos else next
+        }, action)
+    }
+
+    /**
+     * 在每天的指定时间执行任务
+     */
+    fun scheduleDaily(hour: Int, minute: Int, action: () -> Unit): ScheduledTask {
+        require(hour in 0..23 && minute in 0..59) { "时间不合法: $hour:$minute" }
+        return scheduleCron("0 $minute $hour * * ?", action = action)
+    }
+
+    /**
+     * 按 cron 表达式重复执行，表达式格式见 [CronExpression]
+     */
+    fun scheduleCron(
+        expression: String,
+        zone: ZoneId = ZoneId.systemDefault(),
+        jitterMillis: Long = 0,
+        action: () -> Unit,
+    ): ScheduledTask {
+        val cron = CronExpression.parse(expression)
+        // 上一次的计划时间。ticker 与系统时钟可能有微小偏差，以它为下限，避免同一时间点触发两次
+        var planned = requireNotNull(cron.next(ZonedDateTime.now(zone))) { "cron 表达式没有下一次触发时间: $expression" }
+        return schedule(delayUntil(planned), jitterMillis, { _ ->
+            val now = ZonedDateTime.now(zone)
+            cron.next(if (now.isAfter(planned)) now else planned)?.let {
+                planned = it
+                nanoTime() + delayUntil(it)
             }
+        }, action)
+    }
+
+    /**
+     * 取消所有定时任务，调度器仍然可以继续使用
+     */
+    fun cancelAll() {
+        liveTasks.toList().forEach { it.cancel() }
+    }
+
+    /**
+     * 停止调度器：取消所有任务并停止 ticker 线程；默认线程池也会一起关闭
+     */
+    override fun close() {
+        running = false
+        cancelAll()
+        ticker?.interrupt()
+        if (ownsExecutor) {
+            (executor as ExecutorService).shutdown()
         }
-        timer.schedule(task, delaySeconds * 1000)
-        timers.add(timer)
-        tasks.add(task)
-        return timer
     }
 
     /**
-     * 固定间隔重复执行
+     * 获得调度统计
      */
-    fun scheduleAtFixedRate(intervalSeconds: Long, action: () -> Unit): Timer {
-        return fixedRateTimer(
-            initialDelay = 0,
-            period = intervalSeconds * 1000
-        ) {
-            action()
-        }.also { timers.add(it) }
+    fun stats(): TaskSchedulerStats = TaskSchedulerStats(
+        pendingTasks = liveTasks.size,
+        executedTasks = executedCount.sum(),
+        failedTasks = failedCount.sum(),
+        skippedTasks = skippedCount.sum(),
+        lastLagMillis = TimeUnit.NANOSECONDS.toMillis(lastLagNanos),
+        maxLagMillis = TimeUnit.NANOSECONDS.toMillis(maxLagNanos.get()),
+    )
+
+    private fun schedule(
+        delayNanos: Long,
+        jitterMillis: Long,
+        next: ((Long) -> Long?)?,
+        action: () -> Unit,
+    ): ScheduledTask {
+        check(running) { "TaskScheduler 已关闭" }
+        require(jitterMillis >= 0) { "jitterMillis 不能小于 0" }
+        val task = ScheduledTask(action, next, TimeUnit.MILLISECONDS.toNanos(jitterMillis))
+        // 先启动 ticker 确定时间基准，再按它计算触发时间
+        startIfNeeded()
+        task.scheduledAt = nanoTime() + delayNanos.coerceAtLeast(0)
+        task.deadline = task.scheduledAt + task.jitter()
+        liveTasks.add(task)
+        pendingTasks.add(task)
+        return task
     }
 
     /**
-     * 在指定时间执行任务
+     * 第一次提交任务时启动 ticker。时间基准取启动时刻，而不是构造时刻，
+     * 否则构造后很久才提交任务时 ticker 会先空转追赶中间的所有格
      */
-    fun scheduleDaily(hour: Int, minute: Int, action: () -> Unit): Timer {
-        val calendar = Calendar.getInstance().apply {
-            set(Calendar.HOUR_OF_DAY, hour)
-            set(Calendar.MINUTE, minute)
-            set(Calendar.SECOND, 0)
-
-            if (before(Calendar.getInstance())) {
-                add(Calendar.DATE, 1)
+    private fun startIfNeeded() {
+        if (ticker != null) {
+            return
+        }
+        synchronized(this) {
+            if (ticker != null) {
+                return
             }
+            startNanos = System.nanoTime()
+            val thread = Thread(::runTicker, "task-scheduler-ticker").apply { isDaemon = true }
+            ticker = thread
+            thread.start()
         }
+    }
+
+    // ========== ticker 线程 ==========
 
-        return timer(
-            startAt = calendar.time,
-            period = 24 * 60 * 60 * 1000
-        ) {
-            action()
-        }.also { timers.add(it) }
+    private fun runTicker() {
+        var tick = 0L
+        while (running) {
+            val tickDeadline = waitForNextTick(tick) ?: break
+            transferPendingTasks(tick)
+            expire(wheel[(tick and mask.toLong()).toInt()], tickDeadline, tick)
+            tick++
+        }
     }
 
     /**
-     * 取消所有定时任务
+     * 等待到第 tick 格结束，返回结束时间；被中断时返回 null
      */
-    fun cancelAll() {
-        timers.forEach { it.cancel() }
-        timers.clear()
-        tasks.forEach { it.cancel() }
-        tasks.clear()
+    private fun waitForNextTick(tick: Long): Long? {
+        val tickDeadline = tickNanos * (tick + 1)
+        while (true) {
+            val sleepNanos = tickDeadline - nanoTime()
+            if (sleepNanos <= 0) {
+                return tickDeadline
+            }
+            try {
+                TimeUnit.NANOSECONDS.sleep(sleepNanos)
+            } catch (ex: InterruptedException) {
+                if (!running) {
+                    return null
+                }
+            }
+        }
+    }
+
+    private fun transferPendingTasks(tick: Long) {
+        // 限制单格转移的数量，避免大量提交时 ticker 一直无法推进
+        repeat(MAX_TRANSFER_PER_TICK) {
+            val task = pendingTasks.poll() ?: return
+            if (!task.isCancelled) {
+                place(task, tick)
+            }
+        }
+    }
+
+    private fun place(task: ScheduledTask, tick: Long) {
+        val calculated = maxOf(task.deadline / tickNanos, tick)
+        task.remainingRounds = (calculated - tick) / wheel.size
+        wheel[(calculated and mask.toLong()).toInt()].add(task)
+    }
+
+    private fun expire(bucket: MutableList<ScheduledTask>, tickDeadline: Long, tick: Long) {
+        if (bucket.isEmpty()) {
+            return
+        }
+        var rescheduled: MutableList<ScheduledTask>? = null
+        var kept = 0
+        for (i in bucket.indices) {
+            val task = bucket[i]
+            when {
+                task.isCancelled -> Unit
+                task.remainingRounds > 0 || task.deadline > tickDeadline -> {
+                    task.remainingRounds--
+                    bucket[kept++] = task
+                }
+                else -> if (fire(task)) {
+                    (rescheduled ?: ArrayList<ScheduledTask>().also { rescheduled = it }).add(task)
+                }
+            }
+        }
+        bucket.subList(kept, bucket.size).clear()
+        // 重复任务的下一次放在下一格之后，避免在遍历当前格时修改
+        rescheduled?.forEach { place(it, tick + 1) }
+    }
+
+    /**
+     * 触发任务，返回是否需要重新放入时间轮
+     */
+    private fun fire(task: ScheduledTask): Boolean {
+        dispatch(task)
+        val next = task.next ?: return false
+        val nextScheduledAt = next(task.scheduledAt)
+        if (nextScheduledAt == null || task.isCancelled) {
+            task.finish()
+            liveTasks.remove(task)
+            return false
+        }
+        task.scheduledAt = nextScheduledAt
+        task.deadline = nextScheduledAt + task.jitter()
+        return true
+    }
+
+    private fun dispatch(task: ScheduledTask) {
+        if (!task.executing.compareAndSet(false, true)) {
+            skippedCount.increment()
+            return
+        }
+        val deadline = task.deadline
+        try {
+            executor.execute { run(task, deadline) }
+        } catch (ex: RejectedExecutionException) {
+            task.executing.set(false)
+            skippedCount.increment()
+            if (task.next == null) {
+                task.finish()
+                liveTasks.remove(task)
+            }
+        }
+    }
+
+    private fun run(task: ScheduledTask, deadline: Long) {
+        val lag = (nanoTime() - deadline).coerceAtLeast(0)
+        lastLagNanos = lag
+        maxLagNanos.accumulateAndGet(lag) { a, b -> maxOf(a, b) }
+        try {
+            if (!task.isCancelled) {
+                task.action()
+                executedCount.increment()
+            }
+        } catch (ex: Throwable) {
+            failedCount.increment()
+            val thread = Thread.currentThread()
+            thread.uncaughtExceptionHandler.uncaughtException(thread, ex)
+        } finally {
+            task.executing.set(false)
+            if (task.next == null) {
+                task.finish()
+                liveTasks.remove(task)
+            }
+        }
+    }
+
+    private fun nanoTime(): Long = System.nanoTime() - startNanos
+
+    private fun delayUntil(time: ZonedDateTime): Long =
+        Duration.between(ZonedDateTime.now(time.zone), time).toNanos()
+
+    /**
+     * 定时任务的句柄，可用于取消任务
+     */
+    inner class ScheduledTask internal constructor(
+        internal val action: () -> Unit,
+        /**
+         * 根据本次的计划时间计算下一次的计划时间，为 null 表示一次性任务
+         */
+        internal val next: ((Long) -> Long?)?,
+        private val jitterNanos: Long,
+    ) {
+
+        /**
+         * 不含抖动的计划时间，相对调度器启动的纳秒数
+         */
+        internal var scheduledAt = 0L
+        /**
+         * 含抖动的实际触发时间
+         */
+        @Volatile
+        internal var deadline = 0L
+        internal var remainingRounds = 0L
+        internal val executing = AtomicBoolean()
+        private val state = AtomicInteger(STATE_WAITING)
+
+        val isCancelled: Boolean get() = state.get() == STATE_CANCELLED
+
+        /**
+         * 任务是否已结束：一次性任务已执行、重复任务没有下一次，或者已取消
+         */
+        val isDone: Boolean get() = state.get() != STATE_WAITING
+
+        /**
+         * 距离下一次触发的时间，任务结束后返回 [Duration.ZERO]
+         */
+        val delay: Duration
+            get() = if (isDone) Duration.ZERO else Duration.ofNanos((deadline - nanoTime()).coerceAtLeast(0))
+
+        /**
+         * 取消任务，已经开始执行的本次不会被中断
+         *
+         * @return 是否取消成功，任务已结束时返回 false
+         */
+        fun cancel(): Boolean {
+            if (!state.compareAndSet(STATE_WAITING, STATE_CANCELLED)) {
+                return false
+            }
+            liveTasks.remove(this)
+            return true
+        }
+
+        internal fun finish() {
+            state.compareAndSet(STATE_WAITING, STATE_DONE)
+        }
+
+        internal fun jitter(): Long =
+            if (jitterNanos > 0) ThreadLocalRandom.current().nextLong(jitterNanos + 1) else 0
+    }
+
+    private companion object {
+
+        const val MAX_TRANSFER_PER_TICK = 100_000
+
+        const val STATE_WAITING = 0
+        const val STATE_DONE = 1
+        const val STATE_CANCELLED = 2
+
+        fun defaultExecutor(): ExecutorService = try {
+            Executors::class.java.getMethod("newVirtualThreadPerTaskExecutor").invoke(null) as ExecutorService
+        } catch (ex: ReflectiveOperationException) {
+            Executors.newCachedThreadPool { runnable ->
+                Thread(runnable, "task-scheduler-worker").apply { isDaemon = true }
+            }
+        }
     }
 }
+
+/**
+ * 调度统计
+ *
+ * @property pendingTasks 未结束的任务数
+ * @property executedTasks 执行成功的次数
+ * @property failedTasks 执行抛出异常的次数
+ * @property skippedTasks 因上一次未执行完或线程池拒绝而跳过的次数
+ * @property lastLagMillis 最近一次执行相对计划时间的延迟
+ * @property maxLagMillis 执行相对计划时间的最大延迟
+ */
+data class TaskSchedulerStats(
+    val pendingTasks: Int,
+    val executedTasks: Long,
+    val failedTasks: Long,
+    val skippedTasks: Long,
+    val lastLagMillis: Long,
+    val maxLagMillis: Long,
+)
@@ -0,0 +1,122 @@
+import java.time.LocalDateTime
+import java.time.ZoneId
+import java.time.ZonedDateTime
+import kotlin.test.Test
+import kotlin.test.assertEquals
+import kotlin.test.assertFailsWith
+import kotlin.test.assertNull
+
+/**
+ * 验证 cron 表达式的解析与下一次触发时间。
+ */
+class CronExpressionTest {
+
+    private val utc = ZoneId.of("UTC")
+    private val newYork = ZoneId.of("America/New_York")
+
+    private fun at(text: String, zone: ZoneId = utc): ZonedDateTime =
+        ZonedDateTime.of(LocalDateTime.parse(text), zone)
+
+    @Test
+    /**
+     * 5 段表达式秒固定为 0，步长、范围与列表按字段展开。
+     */
+    fun shouldParseFields() {
+        val cron = CronExpression.parse("*/15 9-10 * * *")
+
+        assertEquals(at("2024-01-01T09:00:00"), cron.next(at("2024-01-01T08:59:59")))
+        assertEquals(at("2024-01-01T09:15:00"), cron.next(at("2024-01-01T09:00:00")))
+        assertEquals(at("2024-01-02T09:00:00"), cron.next(at("2024-01-01T10:45:00")))
+        assertEquals(at("2024-01-01T00:00:05"), CronExpression.parse("5,35 * * * * ?").next(at("2024-01-01T00:00:00")))
+        assertEquals(at("2024-01-01T00:00:40"), CronExpression.parse("10/30 * * * * ?").next(at("2024-01-01T00:00:10")))
+    }
+
+    @Test
+    /**
+     * 月份和星期名称不区分大小写，周日可以写成 0 或 7。
+     */
+    fun shouldParseNames() {
+        // 2024-01-01 是周一
+        val start = at("2024-01-01T00:00:00")
+
+        assertEquals(at("2024-03-01T00:00:00"), CronExpression.parse("0 0 0 1 mar ?").next(start))
+        assertEquals(at("2024-01-05T00:00:00"), CronExpression.parse("0 0 0 ? * FRI").next(start))
+        assertEquals(at("2024-01-07T00:00:00"), CronExpression.parse("0 0 0 ? * 7").next(start))
+        assertEquals(at("2024-01-07T00:00:00"), CronExpression.parse("0 0 0 ? * SUN").next(start))
+        assertEquals(at("2024-01-03T00:00:00"), CronExpression.parse("0 0 0 ? * MON-FRI/2").next(start))
+    }
+
+    @Test
+    /**
+     * 日和周同时指定时满足任一即触发。
+     */
+    fun shouldMatchDayOfMonthOrDayOfWeek() {
+        val cron = CronExpression.parse("0 0 0 10 * MON")
+
+        assertEquals(at("2024-01-08T00:00:00"), cron.next(at("2024-01-01T00:00:00")))
+        assertEquals(at("2024-01-10T00:00:00"), cron.next(at("2024-01-08T00:00:00")))
+    }
+
+    @Test
+    /**
+     * 非法表达式抛出 IllegalArgumentException；L、W、# 不受支持。
+     */
+    fun shouldRejectInvalidExpressions() {
+        listOf(
+            "* * * *",
+            "* * * * * * *",
+            "60 * * * * ?",
+            "0 0 24 * * ?",
+            "0 0 0 0 * ?",
+            "0 0 0 1 13 ?",
+            "0 0 0 ? * 8",
+            "0 */0 * * * ?",
+            "0 0 0 5-1 * ?",
+            "0 0 0 L * ?",
+            "0 0 0 15W * ?",
+            "0 0 0 ? * 6#3",
+        ).forEach { expression ->
+            assertFailsWith<IllegalArgumentException>(expression) { CronExpression.parse(expression) }
+        }
+    }
+
+    @Test
+    /**
+     * 31 号只在大月触发，2 月 29 号等到下一个闰年，2 月 30 号永不触发。
+     */
+    fun shouldHandleMonthEnd() {
+        assertEquals(at("2024-03-31T00:00:00"), CronExpression.parse("0 0 0 31 * ?").next(at("2024-01-31T00:00:00")))
+        assertEquals(at("2028-02-29T00:00:00"), CronExpression.parse("0 0 0 29 2 ?").next(at("2024-02-29T00:00:00")))
+        assertNull(CronExpression.parse("0 0 0 30 2 ?").next(at("2024-01-01T00:00:00")))
+    }
+
+    @Test
+    /**
+     * 春季调时跳过的时间当天不触发。
+     */
+    fun shouldSkipNonExistentTimeOnSpringForward() {
+        val cron = CronExpression.parse("0 30 2 * * ?")
+
+        assertEquals(
+            at("2024-03-11T02:30:00", newYork),
+            cron.next(at("2024-03-10T00:00:00", newYork)),
+        )
+    }
+
+    @Test
+    /**
+     * 秋季回拨时重复的时间只触发一次，每分钟执行的表达式在重复的一小时内照常触发。
+     */
+    fun shouldFireOnceOnFallBack() {
+        val cron = CronExpression.parse("0 30 1 * * ?")
+
+        val first = cron.next(at("2024-11-03T00:00:00", newYork))!!
+        assertEquals(at("2024-11-03T01:30:00", newYork), first)
+        assertEquals(at("2024-11-04T01:30:00", newYork), cron.next(first))
+
+        // 01:59 EDT 之后是 01:00 EST
+        val everyMinute = CronExpression.parse("0 * * * * ?")
+        val lastDaylight = at("2024-11-03T01:59:00", newYork)
+        assertEquals(lastDaylight.plusMinutes(1), everyMinute.next(lastDaylight))
+    }
+}
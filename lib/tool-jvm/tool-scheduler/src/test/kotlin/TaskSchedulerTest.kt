@@ -0,0 +1,137 @@
+import java.time.Duration
+import java.util.concurrent.CountDownLatch
+import java.util.concurrent.TimeUnit
+import java.util.concurrent.atomic.AtomicInteger
+import kotlin.test.Test
+import kotlin.test.assertEquals
+import kotlin.test.assertFailsWith
+import kotlin.test.assertFalse
+import kotlin.test.assertTrue
+
+/**
+ * 验证任务的调度、取消与统计。
+ */
+class TaskSchedulerTest {
+
+    @Test
+    /**
+     * 一次性任务到期后执行一次，结束后不再计入未结束任务。
+     */
+    fun shouldRunOnceAfterDelay() {
+        TaskScheduler(tickMillis = 5).use { scheduler ->
+            val latch = CountDownLatch(1)
+            val start = System.nanoTime()
+
+            val task = scheduler.scheduleOnce(Duration.ofMillis(50)) { latch.countDown() }
+
+            assertTrue(latch.await(5, TimeUnit.SECONDS))
+            assertTrue(System.nanoTime() - start >= TimeUnit.MILLISECONDS.toNanos(50))
+            awaitCondition { task.isDone && scheduler.stats().pendingTasks == 0 }
+            assertEquals(1L, scheduler.stats().executedTasks)
+        }
+    }
+
+    @Test
+    /**
+     * 构造后过一段时间才提交的任务，不会因为 ticker 追赶空转而提前执行。
+     */
+    fun shouldNotFireEarlyWhenScheduledLate() {
+        TaskScheduler(tickMillis = 5, wheelSize = 4).use { scheduler ->
+            Thread.sleep(200)
+            val latch = CountDownLatch(1)
+            val start = System.nanoTime()
+
+            scheduler.scheduleOnce(Duration.ofMillis(100)) { latch.countDown() }
+
+            assertTrue(latch.await(5, TimeUnit.SECONDS))
+            assertTrue(System.nanoTime() - start >= TimeUnit.MILLISECONDS.toNanos(100))
+        }
+    }
+
+    @Test
+    /**
+     * 取消后任务不再执行，重复取消返回 false。
+     */
+    fun shouldNotRunCancelledTask() {
+        TaskScheduler(tickMillis = 5).use { scheduler ->
+            val runs = AtomicInteger()
+            val task = scheduler.scheduleOnce(Duration.ofMillis(100)) { runs.incrementAndGet() }
+
+            assertTrue(task.cancel())
+            assertFalse(task.cancel())
+            Thread.sleep(300)
+
+            assertEquals(0, runs.get())
+            assertTrue(task.isCancelled)
+            assertEquals(Duration.ZERO, task.delay)
+            assertEquals(0, scheduler.stats().pendingTasks)
+        }
+    }
+
+    @Test
+    /**
+     * 固定间隔任务重复执行，cancelAll 后停止。
+     */
+    fun shouldRepeatAtFixedRateUntilCancelled() {
+        TaskScheduler(tickMillis = 5).use { scheduler ->
+            val latch = CountDownLatch(2)
+            val runs = AtomicInteger()
+            val task = scheduler.scheduleAtFixedRate(intervalSeconds = 1) {
+                runs.incrementAndGet()
+                latch.countDown()
+            }
+
+            assertTrue(latch.await(5, TimeUnit.SECONDS))
+            assertFalse(task.isDone)
+            scheduler.cancelAll()
+            // 等待可能正在执行的一次结束
+            Thread.sleep(100)
+            val stopped = runs.get()
+            Thread.sleep(1_500)
+
+            assertTrue(task.isCancelled)
+            assertEquals(stopped, runs.get())
+        }
+    }
+
+    @Test
+    /**
+     * 任务抛出的异常计入失败次数，不影响后续任务。
+     */
+    fun shouldCountFailures() {
+        TaskScheduler(tickMillis = 5).use { scheduler ->
+            val latch = CountDownLatch(1)
+            val handler = Thread.UncaughtExceptionHandler { _, _ -> }
+            scheduler.scheduleOnce(Duration.ZERO) {
+                Thread.currentThread().uncaughtExceptionHandler = handler
+                error("boom")
+            }
+            scheduler.scheduleOnce(Duration.ofMillis(20)) { latch.countDown() }
+
+            assertTrue(latch.await(5, TimeUnit.SECONDS))
+            awaitCondition { scheduler.stats().executedTasks == 1L && scheduler.stats().failedTasks == 1L }
+        }
+    }
+
+    @Test
+    /**
+     * 关闭后取消所有任务并拒绝新的提交。
+     */
+    fun shouldRejectAfterClose() {
+        val scheduler = TaskScheduler(tickMillis = 5)
+        val task = scheduler.scheduleOnce(60) {}
+
+        scheduler.close()
+
+        assertTrue(task.isCancelled)
+        assertFailsWith<IllegalStateException> { scheduler.scheduleOnce(Duration.ZERO) {} }
+    }
+
+    private fun awaitCondition(condition: () -> Boolean) {
+        val deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5)
+        while (!condition()) {
+            check(System.nanoTime() < deadline) { "等待超时" }
+            Thread.sleep(5)
+        }
+    }
+}
@@ -0,0 +1,9 @@
+plugins {
+    id("site.addzero.buildlogic.jvm.kotlin-convention")
+    id("me.champeau.jmh") version "0.7.3"
+}
+val libs = versionCatalogs.named("libs")
+
+dependencies {
+    jmh(libs.findLibrary("site-addzero-tool-str").get())
+}
@@ -0,0 +1,189 @@
+package site.addzero.util.str
+
+import org.openjdk.jmh.annotations.Benchmark
+import org.openjdk.jmh.annotations.BenchmarkMode
+import org.openjdk.jmh.annotations.Fork
+import org.openjdk.jmh.annotations.Level
+import org.openjdk.jmh.annotations.Measurement
+import org.openjdk.jmh.annotations.Mode
+import org.openjdk.jmh.annotations.OutputTimeUnit
+import org.openjdk.jmh.annotations.Scope
+import org.openjdk.jmh.annotations.Setup
+import org.openjdk.jmh.annotations.State
+import org.openjdk.jmh.annotations.Warmup
+import org.openjdk.jmh.infra.Blackhole
+import java.util.concurrent.TimeUnit
+
+/**
+ * 对比 StrUtil 原先基于 Regex 的实现与逐字符扫描的实现。
+ *
+ * 启动时先用样本校验新旧实现的输出完全一致，不一致直接失败，再测量每批样本的耗时。
+ *
+ * 运行：`./gradlew :lib:tool-jvm:tool-str-benchmark:jmh`
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+open class StrUtilBenchmark {
+
+    private val samples = listOf(
+        "", "a", "A", "abc", "user_name", "user-name", "user name", "user.name", "userName", "UserName",
+        "XMLHttpRequest", "HELLO_WORLD", "hello___world", "hello---world", "hello   world", "_leading", "trailing_",
+        "jimmer.immutable.is.module.required", "sys_yes_no", "test_123", "123", "1abc", "-12.5", ".5", "5.", "1.2.3",
+        "用户名称", "user_名称", "  多个\t空白\n字符  ", "/**\n * 用户名称\n * @author zero\n */", "a * b / c",
+        "tab\tand\u000Bvertical\u000Cfeed\r", "non\u00A0breaking", "__", "-", "  ", "_-_", "#\$%", "ab#cd", "Ünïcödé_wörd",
+    )
+
+    @Setup(Level.Trial)
+    fun verifyEquivalence() {
+        samples.forEach { sample ->
+            verify("toBigCamelCase", sample, legacyToBigCamelCase(sample), sample.toBigCamelCase())
+            verify("toLowCamelCase", sample, legacyToLowCamelCase(sample), sample.toLowCamelCase())
+            verify("toKebabCase", sample, legacyToKebabCase(sample), sample.toKebabCase())
+            verify("cleanBlank", sample, legacyCleanBlank(sample), sample.cleanBlank())
+            verify("containsChinese", sample, legacyContainsChinese(sample), sample.containsChinese())
+            verify("isNumber", sample, legacyIsNumber(sample), sample.isNumber())
+            verify("cleanDocComment", sample, legacyCleanDocComment(sample), cleanDocComment(sample))
+            VariableType.values().forEach { type ->
+                verify("toValidVariableName($type)", sample,
+                    runCatching { legacyToValidVariableName(sample, type) }.toString(),
+                    runCatching { toValidVariableName(sample, type) }.toString())
+            }
+        }
+    }
+
+    private fun verify(name: String, sample: String, expected: Any?, actual: Any?) {
+        check(expected == actual) { "$name(\"$sample\") 新旧实现不一致: expected=$expected, actual=$actual" }
+    }
+
+    @Benchmark
+    fun caseConversionLegacy(blackhole: Blackhole) {
+        for (sample in samples) {
+            blackhole.consume(legacyToBigCamelCase(sample))
+            blackhole.consume(legacyToLowCamelCase(sample))
+            blackhole.consume(legacyToKebabCase(sample))
+            blackhole.consume(legacyToValidVariableName(sample, VariableType.CONSTANT))
+        }
+    }
+
+    @Benchmark
+    fun caseConversionScanning(blackhole: Blackhole) {
+        for (sample in samples) {
+            blackhole.consume(sample.toBigCamelCase())
+            blackhole.consume(sample.toLowCamelCase())
+            blackhole.consume(sample.toKebabCase())
+            blackhole.consume(toValidVariableName(sample, VariableType.CONSTANT))
+        }
+    }
+
+    @Benchmark
+    fun caseConversionCached(blackhole: Blackhole) {
+        for (sample in samples) {
+            blackhole.consume(sample.toBigCamelCaseCached())
+            blackhole.consume(sample.toLowCamelCaseCached())
+        }
+    }
+
+    @Benchmark
+    fun cleanupLegacy(blackhole: Blackhole) {
+        for (sample in samples) {
+            blackhole.consume(legacyCleanBlank(sample))
+            blackhole.consume(legacyCleanDocComment(sample))
+            blackhole.consume(legacyContainsChinese(sample))
+            blackhole.consume(legacyIsNumber(sample))
+        }
+    }
+
+    @Benchmark
+    fun cleanupScanning(blackhole: Blackhole) {
+        for (sample in samples) {
+            blackhole.consume(sample.cleanBlank())
+            blackhole.consume(cleanDocComment(sample))
+            blackhole.consume(sample.containsChinese())
+            blackhole.consume(sample.isNumber())
+        }
+    }
+
+    // ========== 原先基于 Regex 的实现，仅用于对比 ==========
+
+    private fun legacyCleanBlank(value: String): String {
+        if (value.isEmpty()) return ""
+        return value.trim().replace(Regex("\\s+"), " ")
+            .filter { it.code in 32..126 || it.code in 0x4E00..0x9FFF }
+    }
+
+    private fun legacyToBigCamelCase(value: String): String {
+        if (value.isEmpty()) return value
+        return value.split(Regex("[_\\-\\s]+")).filter { it.isNotEmpty() }.joinToString("") {
+            it.replaceFirstChar { char -> char.uppercase() }
+        }
+    }
+
+    private fun legacyToLowCamelCase(value: String): String {
+        if (value.isEmpty()) return value
+        if (!value.contains(Regex("[._\\-\\s]"))) {
+            if (value[0].isLowerCase() && value.any { it.isUpperCase() }) {
+                return value
+            }
+            if (value[0].isUpperCase() && value.any { it.isUpperCase() }) {
+                return value.replaceFirstChar { it.lowercase() }
+            }
+        }
+        val words = value.split(Regex("[_\\-\\s.]+")).filter { it.isNotEmpty() }
+        if (words.isEmpty()) return value
+        return words.first() + words.drop(1).joinToString("") {
+            it.replaceFirstChar { char -> char.uppercase() }
+        }
+    }
+
+    private fun legacyContainsChinese(value: String): Boolean {
+        if (value.isEmpty()) return false
+        return Regex("[\\u4e00-\\u9fa5]").containsMatchIn(value)
+    }
+
+    private fun legacyIsNumber(value: String): Boolean = value.matches(Regex("""^-?\d*\.?\d+$"""))
+
+    private fun legacyToKebabCase(value: String): String {
+        if (value.isEmpty()) return value
+        return value.replace(Regex("(?<!^)([A-Z])"), "-$1")
+            .replace(Regex("[_\\s]+"), "-")
+            .lowercase()
+            .replace(Regex("-{2,}"), "-")
+            .trim('-')
+    }
+
+    private fun legacyCleanDocComment(docComment: String): String {
+        return docComment.replace(Regex("""/\*\*?"""), "")
+            .replace(Regex("""\*"""), "")
+            .replace(Regex("""\*/"""), "")
+            .replace(Regex("""/"""), "")
+            .replace(Regex("""\n"""), " ")
+            .replace(Regex("""\s+"""), " ")
+            .trim()
+    }
+
+    private fun legacyToValidVariableName(input: String, type: VariableType): String {
+        if (input.isBlank()) return ""
+        if (input.all { it.isDigit() }) {
+            return "__${input}"
+        }
+        var result = input.replace(Regex("[^a-zA-Z0-9\\s_-]"), "")
+        if (result.isBlank()) {
+            return input
+        }
+        if (result.first().isDigit()) {
+            result = "_$result"
+        }
+        val words = result.split(Regex("[\\s_-]+")).filter { it.isNotBlank() }.map { it.lowercase() }
+        return when (type) {
+            VariableType.CONSTANT -> words.joinToString("_") { it.uppercase() }
+            VariableType.CAMEL_CASE -> words.first() + words.drop(1).joinToString("") { it.capitalize() }
+            VariableType.PASCAL_CASE -> words.joinToString("") { it.capitalize() }
+            VariableType.SNAKE_CASE -> words.joinToString("_") { it.lowercase() }
+            VariableType.KEBAB_CASE -> words.joinToString("-") { it.lowercase() }
+        }
+    }
+}
@@ -1,6 +1,7 @@
 package cn.iocoder.yudao.framework.datapermission.config;
 
 import cn.iocoder.yudao.framework.datapermission.core.aop.DataPermissionAnnotationAdvisor;
+import cn.iocoder.yudao.framework.datapermission.core.db.DataPermissionCachedInterceptor;
 import cn.iocoder.yudao.framework.datapermission.core.db.DataPermissionRuleHandler;
 import cn.iocoder.yudao.framework.datapermission.core.rule.DataPermissionRule;
 import cn.iocoder.yudao.framework.datapermission.core.rule.DataPermissionRuleFactory;
@@ -29,9 +30,9 @@ public class YudaoDataPermissionAutoConfiguration {
     @Bean
     public DataPermissionRuleHandler dataPermissionRuleHandler(MybatisPlusInterceptor interceptor,
                                                                DataPermissionRuleFactory ruleFactory) {
-        // 创建 DataPermissionInterceptor 拦截器
+        // 创建 DataPermissionInterceptor 拦截器，带 SQL 改写缓存
         DataPermissionRuleHandler handler = new DataPermissionRuleHandler(ruleFactory);
-        DataPermissionInterceptor inner = new DataPermissionInterceptor(handler);
+        DataPermissionInterceptor inner = new DataPermissionCachedInterceptor(handler);
         // 添加到 interceptor 中
         // 需要加在首个，主要是为了在分页插件前面。这个是 MyBatis Plus 的规定
         MyBatisUtils.addInterceptor(interceptor, inner, 0);
@@ -0,0 +1,132 @@
+package cn.iocoder.yudao.framework.datapermission.core.db;
+
+import cn.hutool.cache.CacheUtil;
+import cn.hutool.cache.impl.LRUCache;
+import com.baomidou.mybatisplus.extension.plugins.inner.DataPermissionInterceptor;
+import net.sf.jsqlparser.expression.Expression;
+import net.sf.jsqlparser.schema.Table;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 带 SQL 改写缓存的 {@link DataPermissionInterceptor}
+ *
+ * 改写结果只取决于 (mappedStatementId, SQL, 每张表拼接的权限条件)，所以：
+ * 1. 首次解析时，记录 SQL 中出现的表
+ * 2. 之后只计算这些表的权限条件：都为空时直接返回原 SQL；否则以条件作为缓存 KEY 的一部分，命中时无需再次解析
+ *
+ * @author 芋道源码
+ */
+public class DataPermissionCachedInterceptor extends DataPermissionInterceptor {
+
+    /**
+     * 默认缓存的 SQL 数量。权限条件与登录用户相关，所以比租户的缓存大一些
+     */
+    public static final int DEFAULT_CACHE_SIZE = 4096;
+
+    private final DataPermissionRuleHandler handler;
+
+    /**
+     * SQL 中出现的表的缓存
+     *
+     * KEY：S 或 M（对应 parserSingle 或 parserMulti） + mappedStatementId + 原始 SQL
+     * VALUE：解析时依次遇到的表
+     */
+    private final LRUCache<String, List<Table>> tableCache;
+    /**
+     * SQL 改写结果的缓存
+     *
+     * KEY：tableCache 的 KEY + 每张表的权限条件
+     * VALUE：改写后的 SQL
+     */
+    private final LRUCache<String, String> sqlCache;
+
+    /**
+     * 解析时，记录遇到的表
+     */
+    private final ThreadLocal<List<Table>> recordingTables = new ThreadLocal<>();
+
+    public DataPermissionCachedInterceptor(DataPermissionRuleHandler handler) {
+        this(handler, DEFAULT_CACHE_SIZE);
+    }
+
+    public DataPermissionCachedInterceptor(DataPermissionRuleHandler handler, int cacheSize) {
+        super(handler);
+        this.handler = handler;
+        this.tableCache = CacheUtil.newLRUCache(cacheSize);
+        this.sqlCache = CacheUtil.newLRUCache(cacheSize);
+    }
+
+    @Override
+    public String parserSingle(String sql, Object obj) {
+        return rewrite(sql, obj, false);
+    }
+
+    @Override
+    public String parserMulti(String sql, Object obj) {
+        return rewrite(sql, obj, true);
+    }
+
+    @Override
+    public Expression buildTableExpression(Table table, Expression where, String whereSegment) {
+        List<Table> tables = recordingTables.get();
+        if (tables != null) {
+            Table copy = new Table(table.getSchemaName(), table.getName());
+            copy.setAlias(table.getAlias());
+            tables.add(copy);
+        }
+        return super.buildTableExpression(table, where, whereSegment);
+    }
+
+    private String rewrite(String sql, Object obj, boolean multi) {
+        String mappedStatementId = (String) obj;
+        String tableKey = (multi ? 'M' : 'S') + mappedStatementId + '\n' + sql;
+        // 1. 首次解析，记录 SQL 中出现的表
+        List<Table> tables = tableCache.get(tableKey, false);
+        if (tables == null) {
+            return parseAndRecord(sql, obj, multi, tableKey);
+        }
+
+        // 2. 计算每张表的权限条件，都为空时无需改写
+        StringBuilder key = new StringBuilder(tableKey);
+        boolean matched = false;
+        for (Table table : tables) {
+            Expression expression = handler.getSqlSegment(table, null, mappedStatementId);
+            key.append('\n');
+            if (expression != null) {
+                key.append(expression);
+                matched = true;
+            }
+        }
+        if (!matched) {
+            return sql;
+        }
+
+        // 3. 权限条件相同，改写结果相同
+        String sqlKey = key.toString();
+        String result = sqlCache.get(sqlKey, false);
+        if (result == null) {
+            result = parse(sql, obj, multi);
+            sqlCache.put(sqlKey, result);
+        }
+        return result;
+    }
+
+    private String parseAndRecord(String sql, Object obj, boolean multi, String tableKey) {
+        List<Table> tables = new ArrayList<>();
+        recordingTables.set(tables);
+        try {
+            String result = parse(sql, obj, multi);
+            tableCache.put(tableKey, tables);
+            return result;
+        } finally {
+            recordingTables.remove();
+        }
+    }
+
+    private String parse(String sql, Object obj, boolean multi) {
+        return multi ? super.parserMulti(sql, obj) : super.parserSingle(sql, obj);
+    }
+
+}
@@ -1,5 +1,6 @@
 plugins {
     id("site.addzero.buildlogic.yudao.yudao-java-starter")
+    id("me.champeau.jmh") version "0.7.3"
 }
 
 val catalogLibs = versionCatalogs.named("libs")
@@ -0,0 +1,71 @@
+package cn.iocoder.yudao.framework.tenant.core.db;
+
+import com.baomidou.mybatisplus.extension.plugins.handler.TenantLineHandler;
+import com.baomidou.mybatisplus.extension.plugins.inner.TenantLineInnerInterceptor;
+import net.sf.jsqlparser.expression.Expression;
+import net.sf.jsqlparser.expression.LongValue;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 对比 {@link TenantLineInnerInterceptor} 每次解析与 {@link TenantCachedLineInnerInterceptor} 缓存改写模版，单条 SQL 的拦截开销
+ *
+ * 运行：`./gradlew :lib:tool-jvm:yudao3:yudao-framework:yudao-spring-boot-starter-biz-tenant:jmh`
+ *
+ * @author 芋道源码
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class TenantLineInterceptorBenchmark {
+
+    private static final String SIMPLE_SQL = "SELECT id, username, nickname FROM system_users WHERE id = ? AND deleted = 0";
+    private static final String JOIN_SQL = "SELECT u.id, u.username, d.name FROM system_users u"
+            + " LEFT JOIN system_dept d ON u.dept_id = d.id"
+            + " LEFT JOIN system_dict_data dd ON dd.value = u.sex AND dd.dict_type = 'system_user_sex'"
+            + " WHERE u.status = ? AND u.id IN (SELECT user_id FROM system_user_role WHERE role_id = ?)"
+            + " ORDER BY u.id DESC LIMIT ?";
+
+    @Param({"simple", "join"})
+    public String query;
+
+    private String sql;
+    private TenantLineInnerInterceptor parsing;
+    private TenantLineInnerInterceptor cached;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        sql = "simple".equals(query) ? SIMPLE_SQL : JOIN_SQL;
+        TenantLineHandler handler = new TenantLineHandler() {
+
+            @Override
+            public Expression getTenantId() {
+                // 基准测试线程不一定是 setUp 的线程，所以不依赖 TenantContextHolder
+                return new LongValue(1L);
+            }
+
+            @Override
+            public boolean ignoreTable(String tableName) {
+                return "system_dict_data".equalsIgnoreCase(tableName);
+            }
+
+        };
+        parsing = new TenantLineInnerInterceptor(handler);
+        cached = new TenantCachedLineInnerInterceptor(handler);
+    }
+
+    @Benchmark
+    public String parseEveryTime() {
+        return parsing.parserSingle(sql, null);
+    }
+
+    @Benchmark
+    public String cachedTemplate() {
+        return cached.parserSingle(sql, null);
+    }
+
+}
@@ -0,0 +1,117 @@
+package cn.iocoder.yudao.framework.tenant.core.db;
+
+import cn.hutool.cache.CacheUtil;
+import cn.hutool.cache.impl.LRUCache;
+import cn.iocoder.yudao.framework.tenant.core.context.TenantContextHolder;
+import com.baomidou.mybatisplus.extension.plugins.handler.TenantLineHandler;
+import com.baomidou.mybatisplus.extension.plugins.inner.TenantLineInnerInterceptor;
+import net.sf.jsqlparser.expression.Expression;
+import net.sf.jsqlparser.expression.JdbcNamedParameter;
+import net.sf.jsqlparser.schema.Column;
+
+import java.util.List;
+
+/**
+ * 带 SQL 改写缓存的 {@link TenantLineInnerInterceptor}
+ *
+ * 改写结果只取决于 SQL 本身（忽略哪些表是固定的），所以每条 SQL 只解析一次，缓存拼接了租户编号占位符的模版；
+ * 执行时，再把占位符替换成当前的租户编号
+ *
+ * @author 芋道源码
+ */
+public class TenantCachedLineInnerInterceptor extends TenantLineInnerInterceptor {
+
+    /**
+     * 默认缓存的 SQL 数量
+     */
+    public static final int DEFAULT_CACHE_SIZE = 2048;
+
+    /**
+     * 租户编号的占位符，解析时代替真实的租户编号拼接到 SQL 中
+     */
+    private static final String TENANT_ID_PLACEHOLDER = "__yudao_tenant_id__";
+    private static final String TENANT_ID_TOKEN = ":" + TENANT_ID_PLACEHOLDER;
+
+    private final TenantLineHandler delegate;
+
+    /**
+     * SQL 改写模版的缓存
+     *
+     * KEY：S 或 M（对应 parserSingle 或 parserMulti） + 原始 SQL
+     * VALUE：改写后的 SQL 模版
+     */
+    private final LRUCache<String, String> templateCache;
+
+    public TenantCachedLineInnerInterceptor(TenantLineHandler delegate) {
+        this(delegate, DEFAULT_CACHE_SIZE);
+    }
+
+    public TenantCachedLineInnerInterceptor(TenantLineHandler delegate, int cacheSize) {
+        super(new PlaceholderTenantLineHandler(delegate));
+        this.delegate = delegate;
+        this.templateCache = CacheUtil.newLRUCache(cacheSize);
+    }
+
+    @Override
+    public String parserSingle(String sql, Object obj) {
+        return rewrite(sql, obj, false);
+    }
+
+    @Override
+    public String parserMulti(String sql, Object obj) {
+        return rewrite(sql, obj, true);
+    }
+
+    private String rewrite(String sql, Object obj, boolean multi) {
+        // 全局忽略多租户时，所有表都会被忽略，无需解析
+        if (TenantContextHolder.isIgnore()) {
+            return sql;
+        }
+        // 1. 获得改写模版，不存在时解析一次
+        String key = (multi ? 'M' : 'S') + sql;
+        String template = templateCache.get(key, false);
+        if (template == null) {
+            template = multi ? super.parserMulti(sql, obj) : super.parserSingle(sql, obj);
+            templateCache.put(key, template);
+        }
+        // 2. 替换租户编号。没有占位符，说明所有表都被忽略
+        if (!template.contains(TENANT_ID_TOKEN)) {
+            return template;
+        }
+        return template.replace(TENANT_ID_TOKEN, delegate.getTenantId().toString());
+    }
+
+    /**
+     * 解析时使用的 {@link TenantLineHandler}，租户编号返回占位符，其它逻辑委托给真实的处理器
+     */
+    private static class PlaceholderTenantLineHandler implements TenantLineHandler {
+
+        private final TenantLineHandler delegate;
+
+        private PlaceholderTenantLineHandler(TenantLineHandler delegate) {
+            this.delegate = delegate;
+        }
+
+        @Override
+        public Expression getTenantId() {
+            return new JdbcNamedParameter(TENANT_ID_PLACEHOLDER);
+        }
+
+        @Override
+        public String getTenantIdColumn() {
+            return delegate.getTenantIdColumn();
+        }
+
+        @Override
+        public boolean ignoreTable(String tableName) {
+            return delegate.ignoreTable(tableName);
+        }
+
+        @Override
+        public boolean ignoreInsert(List<Column> columns, String tenantIdColumn) {
+            return delegate.ignoreInsert(columns, tenantIdColumn);
+        }
+
+    }
+
+}
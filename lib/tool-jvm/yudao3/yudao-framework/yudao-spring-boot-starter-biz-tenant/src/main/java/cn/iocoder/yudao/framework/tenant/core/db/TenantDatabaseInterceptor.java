@@ -10,8 +10,8 @@ import com.baomidou.mybatisplus.extension.toolkit.SqlParserUtils;
 import net.sf.jsqlparser.expression.Expression;
 import net.sf.jsqlparser.expression.LongValue;
 
-import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * 基于 MyBatis Plus 多租户的功能，实现 DB 层面的多租户的功能
@@ -26,7 +26,7 @@ public class TenantDatabaseInterceptor implements TenantLineHandler {
      * KEY：表名
      * VALUE：是否忽略
      */
-    private final Map<String, Boolean> ignoreTables = new HashMap<>();
+    private final Map<String, Boolean> ignoreTables = new ConcurrentHashMap<>();
 
     public TenantDatabaseInterceptor(TenantProperties properties) {
         // 不同 DB 下，大小写的习惯不同，所以需要都添加进去
@@ -49,15 +49,8 @@ public class TenantDatabaseInterceptor implements TenantLineHandler {
             return true;
         }
         // 情况二，忽略多租户的表
-        tableName = SqlParserUtils.removeWrapperSymbol(tableName);
-        Boolean ignore = ignoreTables.get(tableName.toLowerCase());
-        if (ignore == null) {
-            ignore = computeIgnoreTable(tableName);
-            synchronized (ignoreTables) {
-                addIgnoreTable(tableName, ignore);
-            }
-        }
-        return ignore;
+        String table = SqlParserUtils.removeWrapperSymbol(tableName);
+        return ignoreTables.computeIfAbsent(table.toLowerCase(), key -> computeIgnoreTable(table));
     }
 
     private void addIgnoreTable(String tableName, boolean ignore) {
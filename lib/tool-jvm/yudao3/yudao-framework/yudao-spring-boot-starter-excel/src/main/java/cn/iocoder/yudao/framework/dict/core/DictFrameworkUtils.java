@@ -1,6 +1,7 @@
 package cn.iocoder.yudao.framework.dict.core;
 
 import cn.hutool.core.collection.CollUtil;
+import cn.hutool.core.map.MapUtil;
 import cn.iocoder.yudao.framework.common.biz.system.dict.DictDataCommonApi;
 import cn.iocoder.yudao.framework.common.util.cache.CacheUtils;
 import cn.iocoder.yudao.framework.common.biz.system.dict.dto.DictDataRespDTO;
@@ -10,8 +11,10 @@ import lombok.SneakyThrows;
 import lombok.extern.slf4j.Slf4j;
 
 import java.time.Duration;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.List;
-import java.util.Objects;
+import java.util.Map;
 
 import static cn.iocoder.yudao.framework.common.util.collection.CollectionUtils.convertList;
 
@@ -27,14 +30,16 @@ public class DictFrameworkUtils {
 
     /**
      * 针对 dictType 的字段数据缓存
+     *
+     * 加载时一次性构建 value、label 的双向索引，刷新时整体替换，读取时无需加锁
      */
-    private static final LoadingCache<String, List<DictDataRespDTO>> GET_DICT_DATA_CACHE = CacheUtils.buildAsyncReloadingCache(
+    private static final LoadingCache<String, DictDataIndex> GET_DICT_DATA_CACHE = CacheUtils.buildAsyncReloadingCache(
             Duration.ofMinutes(1L), // 过期时间 1 分钟
-            new CacheLoader<String, List<DictDataRespDTO>>() {
+            new CacheLoader<String, DictDataIndex>() {
 
                 @Override
-                public List<DictDataRespDTO> load(String dictType) {
-                    return dictDataApi.getDictDataList(dictType).getCheckedData();
+                public DictDataIndex load(String dictType) {
+                    return new DictDataIndex(dictDataApi.getDictDataList(dictType).getCheckedData());
                 }
 
             });
@@ -58,27 +63,72 @@ public class DictFrameworkUtils {
 
     @SneakyThrows
     public static String parseDictDataLabel(String dictType, String value) {
-        List<DictDataRespDTO> dictDatas = GET_DICT_DATA_CACHE.get(dictType);
-        DictDataRespDTO dictData = CollUtil.findOne(dictDatas, data -> Objects.equals(data.getValue(), value));
-        return dictData != null ? dictData.getLabel(): null;
+        return GET_DICT_DATA_CACHE.get(dictType).valueToLabel.get(value);
+    }
+
+    /**
+     * 批量解析字典标签，适合导出时按列转换
+     *
+     * @param dictType 字典类型
+     * @param values 字典值的集合
+     * @return 字典值与字典标签的映射，解析不到的字典值不在其中
+     */
+    @SneakyThrows
+    public static Map<String, String> parseDictDataLabels(String dictType, Collection<String> values) {
+        if (CollUtil.isEmpty(values)) {
+            return Collections.emptyMap();
+        }
+        Map<String, String> valueToLabel = GET_DICT_DATA_CACHE.get(dictType).valueToLabel;
+        Map<String, String> labels = MapUtil.newHashMap(values.size());
+        values.forEach(value -> {
+            String label = valueToLabel.get(value);
+            if (label != null) {
+                labels.put(value, label);
+            }
+        });
+        return labels;
     }
 
     @SneakyThrows
     public static List<String> getDictDataLabelList(String dictType) {
-        List<DictDataRespDTO> dictDatas = GET_DICT_DATA_CACHE.get(dictType);
+        List<DictDataRespDTO> dictDatas = GET_DICT_DATA_CACHE.get(dictType).list;
         return convertList(dictDatas, DictDataRespDTO::getLabel);
     }
 
     @SneakyThrows
     public static String parseDictDataValue(String dictType, String label) {
-        List<DictDataRespDTO> dictDatas = GET_DICT_DATA_CACHE.get(dictType);
-        DictDataRespDTO dictData = CollUtil.findOne(dictDatas, data -> Objects.equals(data.getLabel(), label));
-        return dictData!= null ? dictData.getValue(): null;
+        return GET_DICT_DATA_CACHE.get(dictType).labelToValue.get(label);
     }
 
     @SneakyThrows
     public static List<String> getDictDataValueList(String dictType) {
-        List<DictDataRespDTO> dictDatas = GET_DICT_DATA_CACHE.get(dictType);
+        List<DictDataRespDTO> dictDatas = GET_DICT_DATA_CACHE.get(dictType).list;
         return convertList(dictDatas, DictDataRespDTO::getValue);
     }
+
+    /**
+     * 单个 dictType 的字典数据，以及 value、label 的双向索引
+     *
+     * 构建后不再修改；重复的 value 或 label 以第一条为准，与原先线性查找的结果一致
+     */
+    private static class DictDataIndex {
+
+        private final List<DictDataRespDTO> list;
+        private final Map<String, String> valueToLabel;
+        private final Map<String, String> labelToValue;
+
+        private DictDataIndex(List<DictDataRespDTO> list) {
+            this.list = list != null ? list : Collections.emptyList();
+            Map<String, String> valueToLabel = MapUtil.newHashMap(this.list.size());
+            Map<String, String> labelToValue = MapUtil.newHashMap(this.list.size());
+            this.list.forEach(data -> {
+                valueToLabel.putIfAbsent(data.getValue(), data.getLabel());
+                labelToValue.putIfAbsent(data.getLabel(), data.getValue());
+            });
+            this.valueToLabel = valueToLabel;
+            this.labelToValue = labelToValue;
+        }
+
+    }
+
 }
@@ -10,6 +10,9 @@ import cn.idev.excel.metadata.data.ReadCellData;
 import cn.idev.excel.metadata.property.ExcelContentProperty;
 import lombok.extern.slf4j.Slf4j;
 
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
 /**
  * Excel 数据地区转换器
  *
@@ -18,6 +21,11 @@ import lombok.extern.slf4j.Slf4j;
 @Slf4j
 public class AreaConvert implements Converter<Object> {
 
+    /**
+     * 地区名称与地区编号的缓存，地区数据是固定的，同一列中重复的地区只解析一次
+     */
+    private final Map<String, Integer> areaIds = new ConcurrentHashMap<>();
+
     @Override
     public Class<?> supportJavaTypeKey() {
         throw new UnsupportedOperationException("暂不支持，也不需要");
@@ -33,14 +41,19 @@ public class AreaConvert implements Converter<Object> {
                                     GlobalConfiguration globalConfiguration) {
         // 解析地区编号
         String label = readCellData.getStringValue();
-        Area area = AreaUtils.parseArea(label);
-        if (area == null) {
-            log.error("[convertToJavaData][label({}) 解析不掉]", label);
-            return null;
+        Integer areaId = label != null ? areaIds.get(label) : null;
+        if (areaId == null) {
+            Area area = AreaUtils.parseArea(label);
+            if (area == null) {
+                log.error("[convertToJavaData][label({}) 解析不掉]", label);
+                return null;
+            }
+            areaId = area.getId();
+            areaIds.put(label, areaId);
         }
         // 将 value 转换成对应的属性
         Class<?> fieldClazz = contentProperty.getField().getType();
-        return Convert.convert(fieldClazz, area.getId());
+        return Convert.convert(fieldClazz, areaId);
     }
 
 }
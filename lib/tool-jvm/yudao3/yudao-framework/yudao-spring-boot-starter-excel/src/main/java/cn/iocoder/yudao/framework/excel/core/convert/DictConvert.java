@@ -11,6 +11,10 @@ import cn.idev.excel.metadata.data.WriteCellData;
 import cn.idev.excel.metadata.property.ExcelContentProperty;
 import lombok.extern.slf4j.Slf4j;
 
+import java.lang.reflect.Field;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
 /**
  * Excel 数据字典转换器
  *
@@ -19,6 +23,11 @@ import lombok.extern.slf4j.Slf4j;
 @Slf4j
 public class DictConvert implements Converter<Object> {
 
+    /**
+     * 每个字段（列）对应的字典类型，只解析一次注解
+     */
+    private final Map<Field, String> dictTypes = new ConcurrentHashMap<>();
+
     @Override
     public Class<?> supportJavaTypeKey() {
         throw new UnsupportedOperationException("暂不支持，也不需要");
@@ -65,8 +74,9 @@ public class DictConvert implements Converter<Object> {
         return new WriteCellData<>(label);
     }
 
-    private static String getType(ExcelContentProperty contentProperty) {
-        return contentProperty.getField().getAnnotation(DictFormat.class).value();
+    private String getType(ExcelContentProperty contentProperty) {
+        return dictTypes.computeIfAbsent(contentProperty.getField(),
+                field -> field.getAnnotation(DictFormat.class).value());
     }
 
 }
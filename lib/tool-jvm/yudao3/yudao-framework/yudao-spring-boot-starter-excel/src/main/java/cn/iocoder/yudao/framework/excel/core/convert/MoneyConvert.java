@@ -7,7 +7,6 @@ import cn.idev.excel.metadata.data.WriteCellData;
 import cn.idev.excel.metadata.property.ExcelContentProperty;
 
 import java.math.BigDecimal;
-import java.math.RoundingMode;
 
 /**
  * 金额转换器
@@ -31,8 +30,8 @@ public class MoneyConvert implements Converter<Integer> {
     @Override
     public WriteCellData<String> convertToExcelData(Integer value, ExcelContentProperty contentProperty,
                                                     GlobalConfiguration globalConfiguration) {
-        BigDecimal result = BigDecimal.valueOf(value)
-                .divide(new BigDecimal(100), 2, RoundingMode.HALF_UP);
+        // 分转元：直接以 2 位小数构造，等价于除以 100，避免每个单元格都做一次除法
+        BigDecimal result = BigDecimal.valueOf(value, 2);
         return new WriteCellData<>(result.toString());
     }
 
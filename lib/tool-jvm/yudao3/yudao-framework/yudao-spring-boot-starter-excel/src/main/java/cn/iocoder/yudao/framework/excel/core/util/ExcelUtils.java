@@ -1,7 +1,10 @@
 package cn.iocoder.yudao.framework.excel.core.util;
 
+import cn.idev.excel.ExcelWriter;
 import cn.idev.excel.FastExcelFactory;
 import cn.idev.excel.converters.longconverter.LongStringConverter;
+import cn.idev.excel.read.listener.PageReadListener;
+import cn.idev.excel.write.metadata.WriteSheet;
 import cn.iocoder.yudao.framework.common.util.http.HttpUtils;
 import cn.iocoder.yudao.framework.excel.core.handler.ColumnWidthMatchStyleStrategy;
 import cn.iocoder.yudao.framework.excel.core.handler.SelectSheetWriteHandler;
@@ -10,7 +13,14 @@ import org.springframework.web.multipart.MultipartFile;
 
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
 import java.util.List;
+import java.util.function.Consumer;
+import java.util.function.IntFunction;
+import java.util.stream.Stream;
 
 /**
  * Excel 工具类
@@ -19,6 +29,11 @@ import java.util.List;
  */
 public class ExcelUtils {
 
+    /**
+     * 流式写入时，每批写入的行数
+     */
+    private static final int WRITE_BATCH_SIZE = 1000;
+
     /**
      * 将列表以 Excel 响应给前端
      *
@@ -33,15 +48,82 @@ public class ExcelUtils {
     public static <T> void write(HttpServletResponse response, String filename, String sheetName,
                                  Class<T> head, List<T> data) throws IOException {
         // 输出 Excel
-        FastExcelFactory.write(response.getOutputStream(), head)
-                .autoCloseStream(false) // 不要自动关闭，交给 Servlet 自己处理
-                .registerWriteHandler(new ColumnWidthMatchStyleStrategy()) // 基于 column 长度，自动适配。最大 255 宽度
-                .registerWriteHandler(new SelectSheetWriteHandler(head)) // 基于固定 sheet 实现下拉框
-                .registerConverter(new LongStringConverter()) // 避免 Long 类型丢失精度
-                .sheet(sheetName).doWrite(data);
+        try (ExcelWriter writer = buildWriter(response.getOutputStream(), head)) {
+            writer.write(data, FastExcelFactory.writerSheet(sheetName).build());
+        }
         // 设置 header 和 contentType。写在最后的原因是，避免报错时，响应 contentType 已经被修改了
-        response.addHeader("Content-Disposition", "attachment;filename=" + HttpUtils.encodeUtf8(filename));
-        response.setContentType("application/vnd.ms-excel;charset=UTF-8");
+        setExcelHeader(response, filename);
+    }
+
+    /**
+     * 将迭代器中的数据以 Excel 流式响应给前端，内存中只保留一批数据
+     *
+     * 注意：响应会在写入过程中提交，所以 header 和 contentType 需要提前设置
+     *
+     * @param response  响应
+     * @param filename  文件名
+     * @param sheetName Excel sheet 名
+     * @param head      Excel head 头
+     * @param data      数据迭代器
+     * @param <T>       泛型，保证 head 和 data 类型的一致性
+     * @throws IOException 写入失败的情况
+     */
+    public static <T> void write(HttpServletResponse response, String filename, String sheetName,
+                                 Class<T> head, Iterator<T> data) throws IOException {
+        setExcelHeader(response, filename);
+        try (ExcelWriter writer = buildWriter(response.getOutputStream(), head)) {
+            WriteSheet sheet = FastExcelFactory.writerSheet(sheetName).build();
+            List<T> batch = new ArrayList<>(WRITE_BATCH_SIZE);
+            boolean written = false;
+            while (data.hasNext()) {
+                batch.add(data.next());
+                if (batch.size() >= WRITE_BATCH_SIZE) {
+                    writer.write(batch, sheet);
+                    batch = new ArrayList<>(WRITE_BATCH_SIZE);
+                    written = true;
+                }
+            }
+            // 剩余的数据；没有任何数据时，也需要写一次，输出表头
+            if (!batch.isEmpty() || !written) {
+                writer.write(batch, sheet);
+            }
+        }
+    }
+
+    /**
+     * 将 Stream 中的数据以 Excel 流式响应给前端，写入完成后关闭 Stream
+     *
+     * @see #write(HttpServletResponse, String, String, Class, Iterator)
+     */
+    public static <T> void write(HttpServletResponse response, String filename, String sheetName,
+                                 Class<T> head, Stream<T> data) throws IOException {
+        try (Stream<T> stream = data) {
+            write(response, filename, sheetName, head, stream.iterator());
+        }
+    }
+
+    /**
+     * 分页加载数据，并以 Excel 流式响应给前端，内存中只保留一页数据
+     *
+     * @param pageLoader 分页加载函数，参数为页码（从 1 开始），返回空列表时结束
+     * @see #write(HttpServletResponse, String, String, Class, Iterator)
+     */
+    public static <T> void write(HttpServletResponse response, String filename, String sheetName,
+                                 Class<T> head, IntFunction<List<T>> pageLoader) throws IOException {
+        setExcelHeader(response, filename);
+        try (ExcelWriter writer = buildWriter(response.getOutputStream(), head)) {
+            WriteSheet sheet = FastExcelFactory.writerSheet(sheetName).build();
+            int pageNo = 1;
+            List<T> page = pageLoader.apply(pageNo);
+            // 第一页为空时，也需要写一次，输出表头
+            writer.write(page != null ? page : Collections.emptyList(), sheet);
+            while (page != null && !page.isEmpty()) {
+                page = pageLoader.apply(++pageNo);
+                if (page != null && !page.isEmpty()) {
+                    writer.write(page, sheet);
+                }
+            }
+        }
     }
 
     public static <T> List<T> read(MultipartFile file, Class<T> head) throws IOException {
@@ -53,4 +135,39 @@ public class ExcelUtils {
         }
     }
 
+    /**
+     * 分批读取 Excel，内存中最多保留 batchSize 行
+     *
+     * @param inputStream 输入流，由调用方负责关闭
+     * @param head        Excel head 头
+     * @param batchSize   每批的行数
+     * @param consumer    每批数据的处理函数
+     * @param <T>         泛型
+     */
+    public static <T> void read(InputStream inputStream, Class<T> head, int batchSize, Consumer<List<T>> consumer) {
+        FastExcelFactory.read(inputStream, head, new PageReadListener<>(consumer, batchSize))
+                .autoCloseStream(false) // 不要自动关闭，交给调用方处理
+                .sheet().doRead();
+    }
+
+    public static <T> void read(MultipartFile file, Class<T> head, int batchSize, Consumer<List<T>> consumer) throws IOException {
+        try (InputStream inputStream = file.getInputStream()) {
+            read(inputStream, head, batchSize, consumer);
+        }
+    }
+
+    private static <T> ExcelWriter buildWriter(OutputStream outputStream, Class<T> head) {
+        return FastExcelFactory.write(outputStream, head)
+                .autoCloseStream(false) // 不要自动关闭，交给 Servlet 自己处理
+                .registerWriteHandler(new ColumnWidthMatchStyleStrategy()) // 基于 column 长度，自动适配。最大 255 宽度
+                .registerWriteHandler(new SelectSheetWriteHandler(head)) // 基于固定 sheet 实现下拉框
+                .registerConverter(new LongStringConverter()) // 避免 Long 类型丢失精度
+                .build();
+    }
+
+    private static void setExcelHeader(HttpServletResponse response, String filename) {
+        response.addHeader("Content-Disposition", "attachment;filename=" + HttpUtils.encodeUtf8(filename));
+        response.setContentType("application/vnd.ms-excel;charset=UTF-8");
+    }
+
 }
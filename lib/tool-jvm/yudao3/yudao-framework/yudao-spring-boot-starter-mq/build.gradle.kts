@@ -8,6 +8,7 @@ dependencies {
 
     api(projects.lib.toolJvm.yudao3.yudaoFramework.yudaoSpringBootStarterRedis)
     compileOnly(catalogLibs.findLibrary("yudao-spring-kafka").get())
+    compileOnly(catalogLibs.findLibrary("yudao-micrometer-registry-prometheus").get())
     api(catalogLibs.findLibrary("yudao-spring-rabbit").get())
     api(catalogLibs.findLibrary("yudao-rocketmq-spring-boot-starter").get())
 }
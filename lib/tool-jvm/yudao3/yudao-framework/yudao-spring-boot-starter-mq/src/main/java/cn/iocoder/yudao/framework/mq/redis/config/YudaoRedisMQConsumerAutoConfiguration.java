@@ -7,15 +7,24 @@ import cn.iocoder.yudao.framework.common.enums.DocumentEnum;
 import cn.iocoder.yudao.framework.mq.redis.core.RedisMQTemplate;
 import cn.iocoder.yudao.framework.mq.redis.core.job.RedisPendingMessageResendJob;
 import cn.iocoder.yudao.framework.mq.redis.core.job.RedisStreamMessageCleanupJob;
+import cn.iocoder.yudao.framework.mq.redis.core.job.RedisStreamReclaimStats;
 import cn.iocoder.yudao.framework.mq.redis.core.pubsub.AbstractRedisChannelMessageListener;
+import cn.iocoder.yudao.framework.mq.redis.core.stream.AbstractRedisStreamBatchMessageListener;
 import cn.iocoder.yudao.framework.mq.redis.core.stream.AbstractRedisStreamMessageListener;
+import cn.iocoder.yudao.framework.mq.redis.core.stream.RedisStreamBatchMessageListenerContainer;
 import cn.iocoder.yudao.framework.redis.config.YudaoRedisAutoConfiguration;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.binder.MeterBinder;
 import lombok.extern.slf4j.Slf4j;
 import org.redisson.api.RedissonClient;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.autoconfigure.AutoConfiguration;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnBean;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnClass;
 import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
 import org.springframework.data.redis.connection.RedisServerCommands;
 import org.springframework.data.redis.connection.stream.Consumer;
 import org.springframework.data.redis.connection.stream.ObjectRecord;
@@ -28,6 +37,7 @@ import org.springframework.data.redis.listener.RedisMessageListenerContainer;
 import org.springframework.data.redis.stream.StreamMessageListenerContainer;
 import org.springframework.scheduling.annotation.EnableScheduling;
 
+import java.time.Duration;
 import java.util.List;
 import java.util.Properties;
 
@@ -70,7 +80,7 @@ public class YudaoRedisMQConsumerAutoConfiguration {
     public RedisPendingMessageResendJob redisPendingMessageResendJob(List<AbstractRedisStreamMessageListener<?>> listeners,
                                                                      RedisMQTemplate redisTemplate,
                                                                      RedissonClient redissonClient) {
-        return new RedisPendingMessageResendJob(listeners, redisTemplate, redissonClient);
+        return new RedisPendingMessageResendJob(listeners, redisTemplate, redissonClient, buildConsumerName());
     }
 
     /**
@@ -118,6 +128,10 @@ public class YudaoRedisMQConsumerAutoConfiguration {
             }
             // 设置 listener 对应的 redisTemplate
             listener.setRedisMQTemplate(redisMQTemplate);
+            // 批量监听器由 RedisStreamBatchMessageListenerContainer 负责拉取
+            if (listener instanceof AbstractRedisStreamBatchMessageListener) {
+                return;
+            }
             // 创建 Consumer 对象
             Consumer consumer = Consumer.from(listener.getGroup(), consumerName);
             // 设置 Consumer 消费进度，以最小消费进度为准
@@ -134,6 +148,52 @@ public class YudaoRedisMQConsumerAutoConfiguration {
         return container;
     }
 
+    /**
+     * 创建 Redis Stream 批量消费的容器
+     */
+    @Bean(initMethod = "start", destroyMethod = "stop")
+    @ConditionalOnBean(AbstractRedisStreamBatchMessageListener.class)
+    public RedisStreamBatchMessageListenerContainer redisStreamBatchMessageListenerContainer(
+            RedisMQTemplate redisMQTemplate, List<AbstractRedisStreamBatchMessageListener<?>> listeners) {
+        RedisTemplate<String, ?> redisTemplate = redisMQTemplate.getRedisTemplate();
+        listeners.forEach(listener -> {
+            // 创建 listener 对应的消费者分组
+            try {
+                redisTemplate.opsForStream().createGroup(listener.getStreamKey(), listener.getGroup());
+            } catch (Exception ignore) {
+            }
+            // 设置 listener 对应的 redisTemplate
+            listener.setRedisMQTemplate(redisMQTemplate);
+        });
+        return new RedisStreamBatchMessageListenerContainer(redisMQTemplate, listeners,
+                buildConsumerName(), Duration.ofSeconds(2));
+    }
+
+    /**
+     * Redis Stream pending 消息回收的监控指标
+     */
+    @Configuration(proxyBeanMethods = false)
+    @ConditionalOnClass(name = "io.micrometer.core.instrument.MeterRegistry")
+    @ConditionalOnBean(AbstractRedisStreamMessageListener.class)
+    public static class RedisStreamReclaimMetricsConfiguration {
+
+        @Bean
+        public MeterBinder redisStreamReclaimMeterBinder(RedisPendingMessageResendJob redisPendingMessageResendJob) {
+            return registry -> redisPendingMessageResendJob.getReclaimStats().forEach(stats -> {
+                Tags tags = Tags.of("stream", stats.getStreamKey(), "group", stats.getGroup());
+                Gauge.builder("yudao.mq.redis.stream.pending", stats, RedisStreamReclaimStats::getPendingCount)
+                        .tags(tags).description("pending 消息数").register(registry);
+                Gauge.builder("yudao.mq.redis.stream.reclaim.lag", stats, RedisStreamReclaimStats::getLagMillis)
+                        .tags(tags).baseUnit("milliseconds").description("最早一条 pending 消息距今的时间").register(registry);
+                FunctionCounter.builder("yudao.mq.redis.stream.reclaimed", stats, RedisStreamReclaimStats::getReclaimedTotal)
+                        .tags(tags).description("回收并消费成功的消息数").register(registry);
+                FunctionCounter.builder("yudao.mq.redis.stream.reclaim.failed", stats, RedisStreamReclaimStats::getFailedTotal)
+                        .tags(tags).description("回收后消费失败的消息数").register(registry);
+            });
+        }
+
+    }
+
     /**
      * 构建消费者名字，使用本地 IP + 进程编号的方式。
      * 参考自 RocketMQ clientId 的实现
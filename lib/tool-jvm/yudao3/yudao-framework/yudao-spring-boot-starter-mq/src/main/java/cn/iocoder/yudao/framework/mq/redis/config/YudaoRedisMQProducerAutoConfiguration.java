@@ -1,10 +1,13 @@
 package cn.iocoder.yudao.framework.mq.redis.config;
 
+import cn.iocoder.yudao.framework.mq.redis.core.RedisMQBatchPublisher;
 import cn.iocoder.yudao.framework.mq.redis.core.RedisMQTemplate;
 import cn.iocoder.yudao.framework.mq.redis.core.interceptor.RedisMessageInterceptor;
 import cn.iocoder.yudao.framework.redis.config.YudaoRedisAutoConfiguration;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.autoconfigure.AutoConfiguration;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.context.annotation.Bean;
 import org.springframework.data.redis.core.StringRedisTemplate;
 
@@ -28,4 +31,17 @@ public class YudaoRedisMQProducerAutoConfiguration {
         return redisMQTemplate;
     }
 
+    /**
+     * 创建 Redis Stream 异步批量发送器，通过 yudao.mq.redis.batch-publisher.enable=true 开启
+     */
+    @Bean(destroyMethod = "close")
+    @ConditionalOnProperty(prefix = "yudao.mq.redis.batch-publisher", value = "enable", havingValue = "true")
+    public RedisMQBatchPublisher redisMQBatchPublisher(
+            RedisMQTemplate redisMQTemplate,
+            @Value("${yudao.mq.redis.batch-publisher.max-batch:500}") int maxBatchSize,
+            @Value("${yudao.mq.redis.batch-publisher.linger-ms:5}") long lingerMs,
+            @Value("${yudao.mq.redis.batch-publisher.queue-capacity:10000}") int queueCapacity) {
+        return new RedisMQBatchPublisher(redisMQTemplate, maxBatchSize, lingerMs, queueCapacity);
+    }
+
 }
@@ -0,0 +1,166 @@
+package cn.iocoder.yudao.framework.mq.redis.core;
+
+import cn.iocoder.yudao.framework.mq.redis.core.stream.AbstractRedisStreamMessage;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.redis.connection.stream.ObjectRecord;
+import org.springframework.data.redis.connection.stream.RecordId;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Redis Stream 消息的异步批量发送器
+ *
+ * 消息先进入有界队列，后台线程攒够 maxBatchSize 条、或者等待 lingerMs 后，通过一次 pipeline 批量 XADD。
+ * 拦截器和 JSON 序列化在调用线程执行，保证多租户等上下文能正确写入消息头。
+ * 队列满时调用线程会阻塞等待，形成背压。
+ *
+ * @author 芋道源码
+ */
+@Slf4j
+public class RedisMQBatchPublisher implements AutoCloseable {
+
+    private static final long POLL_TIMEOUT_MILLIS = 100;
+
+    private final RedisMQTemplate redisMQTemplate;
+    /**
+     * 单次 pipeline 最多发送的消息数
+     */
+    private final int maxBatchSize;
+    /**
+     * 攒批的最长等待时间，单位：纳秒
+     */
+    private final long lingerNanos;
+
+    private final BlockingQueue<PendingRecord> queue;
+    private final Thread flushThread;
+    private volatile boolean running = true;
+
+    public RedisMQBatchPublisher(RedisMQTemplate redisMQTemplate, int maxBatchSize, long lingerMs, int queueCapacity) {
+        if (maxBatchSize <= 0 || lingerMs < 0 || queueCapacity <= 0) {
+            throw new IllegalArgumentException("maxBatchSize、queueCapacity 必须大于 0，lingerMs 不能小于 0");
+        }
+        this.redisMQTemplate = redisMQTemplate;
+        this.maxBatchSize = maxBatchSize;
+        this.lingerNanos = TimeUnit.MILLISECONDS.toNanos(lingerMs);
+        this.queue = new ArrayBlockingQueue<>(queueCapacity);
+        this.flushThread = new Thread(this::runFlushLoop, "redis-mq-batch-publisher");
+        this.flushThread.setDaemon(true);
+        this.flushThread.start();
+    }
+
+    /**
+     * 异步发送 Redis Stream 消息
+     *
+     * @param message 消息
+     * @return 消息记录的编号对象，批次发送完成后完成
+     */
+    public <T extends AbstractRedisStreamMessage> CompletableFuture<RecordId> publish(T message) {
+        if (!running) {
+            return CompletableFuture.failedFuture(new IllegalStateException("RedisMQBatchPublisher 已关闭"));
+        }
+        PendingRecord pending = new PendingRecord(redisMQTemplate.prepareStreamRecord(message));
+        try {
+            queue.put(pending);
+            // 入队的同时被关闭，后台线程可能已经退出，需要自己移除
+            if (!running && !flushThread.isAlive() && queue.remove(pending)) {
+                pending.future.completeExceptionally(new IllegalStateException("RedisMQBatchPublisher 已关闭"));
+            }
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            pending.future.completeExceptionally(ex);
+        }
+        return pending.future;
+    }
+
+    /**
+     * 当前等待发送的消息数
+     */
+    public int getPendingCount() {
+        return queue.size();
+    }
+
+    /**
+     * 停止接收新消息，并等待队列中的消息发送完成
+     */
+    @Override
+    public void close() {
+        running = false;
+        try {
+            flushThread.join(TimeUnit.SECONDS.toMillis(10));
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void runFlushLoop() {
+        List<PendingRecord> batch = new ArrayList<>(maxBatchSize);
+        while (running || !queue.isEmpty()) {
+            try {
+                PendingRecord first = queue.poll(POLL_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                collect(batch);
+                flush(batch);
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                break;
+            } catch (Throwable ex) {
+                log.error("[runFlushLoop][批量发送异常]", ex);
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+
+    /**
+     * 在 lingerNanos 时间内继续攒批，直到达到 maxBatchSize
+     */
+    private void collect(List<PendingRecord> batch) throws InterruptedException {
+        long deadline = System.nanoTime() + lingerNanos;
+        while (batch.size() < maxBatchSize) {
+            queue.drainTo(batch, maxBatchSize - batch.size());
+            long remaining = deadline - System.nanoTime();
+            if (batch.size() >= maxBatchSize || remaining <= 0) {
+                return;
+            }
+            PendingRecord next = queue.poll(remaining, TimeUnit.NANOSECONDS);
+            if (next == null) {
+                return;
+            }
+            batch.add(next);
+        }
+    }
+
+    private void flush(List<PendingRecord> batch) {
+        List<ObjectRecord<String, String>> records = new ArrayList<>(batch.size());
+        batch.forEach(pending -> records.add(pending.record));
+        try {
+            List<RecordId> recordIds = redisMQTemplate.addStreamRecords(records);
+            for (int i = 0; i < batch.size(); i++) {
+                batch.get(i).future.complete(i < recordIds.size() ? recordIds.get(i) : null);
+            }
+        } catch (Exception ex) {
+            log.error("[flush][批量发送 {} 条消息失败]", batch.size(), ex);
+            batch.forEach(pending -> pending.future.completeExceptionally(ex));
+        }
+    }
+
+    private static final class PendingRecord {
+
+        private final ObjectRecord<String, String> record;
+        private final CompletableFuture<RecordId> future = new CompletableFuture<>();
+
+        private PendingRecord(ObjectRecord<String, String> record) {
+            this.record = record;
+        }
+
+    }
+
+}
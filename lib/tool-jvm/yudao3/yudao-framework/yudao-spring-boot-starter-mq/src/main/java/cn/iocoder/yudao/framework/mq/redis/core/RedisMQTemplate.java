@@ -1,5 +1,6 @@
 package cn.iocoder.yudao.framework.mq.redis.core;
 
+import cn.hutool.core.collection.CollUtil;
 import cn.iocoder.yudao.framework.common.util.json.JsonUtils;
 import cn.iocoder.yudao.framework.mq.redis.core.interceptor.RedisMessageInterceptor;
 import cn.iocoder.yudao.framework.mq.redis.core.message.AbstractRedisMessage;
@@ -7,11 +8,17 @@ import cn.iocoder.yudao.framework.mq.redis.core.pubsub.AbstractRedisChannelMessa
 import cn.iocoder.yudao.framework.mq.redis.core.stream.AbstractRedisStreamMessage;
 import lombok.AllArgsConstructor;
 import lombok.Getter;
+import org.springframework.data.redis.connection.stream.ObjectRecord;
 import org.springframework.data.redis.connection.stream.RecordId;
 import org.springframework.data.redis.connection.stream.StreamRecords;
+import org.springframework.data.redis.core.RedisOperations;
 import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.SessionCallback;
+import org.springframework.data.redis.core.StreamOperations;
 
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.List;
 
 /**
@@ -55,14 +62,93 @@ public class RedisMQTemplate {
         try {
             sendMessageBefore(message);
             // 发送消息
-            return redisTemplate.opsForStream().add(StreamRecords.newRecord()
-                    .ofObject(JsonUtils.toJsonString(message)) // 设置内容
-                    .withStreamKey(message.getStreamKey())); // 设置 stream key
+            return redisTemplate.opsForStream().add(buildStreamRecord(message));
         } finally {
             sendMessageAfter(message);
         }
     }
 
+    /**
+     * 批量发送 Redis 消息，基于 Redis Stream 实现
+     *
+     * 所有消息的 XADD 通过一次 pipeline 发出，只有一次网络往返。
+     * 只有执行过 sendMessageBefore 的消息才会执行 sendMessageAfter
+     *
+     * @param messages 消息列表
+     * @return 消息记录的编号对象列表，与 messages 顺序一致，未返回编号的位置为 null
+     */
+    public <T extends AbstractRedisStreamMessage> List<RecordId> sendBatch(Collection<T> messages) {
+        if (CollUtil.isEmpty(messages)) {
+            return Collections.emptyList();
+        }
+        List<ObjectRecord<String, String>> records = new ArrayList<>(messages.size());
+        List<T> intercepted = new ArrayList<>(messages.size());
+        try {
+            for (T message : messages) {
+                intercepted.add(message);
+                sendMessageBefore(message);
+                records.add(buildStreamRecord(message));
+            }
+            // 发送消息
+            return addStreamRecords(records);
+        } finally {
+            intercepted.forEach(this::sendMessageAfter);
+        }
+    }
+
+    /**
+     * 在调用线程执行拦截器并序列化，供 {@link RedisMQBatchPublisher} 异步发送
+     *
+     * @param message 消息
+     * @return Stream 记录
+     */
+    <T extends AbstractRedisStreamMessage> ObjectRecord<String, String> prepareStreamRecord(T message) {
+        try {
+            sendMessageBefore(message);
+            return buildStreamRecord(message);
+        } finally {
+            sendMessageAfter(message);
+        }
+    }
+
+    /**
+     * 通过一次 pipeline 执行多个 XADD
+     *
+     * @param records Stream 记录列表
+     * @return 消息记录的编号对象列表，未返回编号的位置为 null
+     */
+    List<RecordId> addStreamRecords(List<ObjectRecord<String, String>> records) {
+        List<Object> results = redisTemplate.executePipelined(new SessionCallback<Object>() {
+
+            @Override
+            @SuppressWarnings("unchecked")
+            public <K, V> Object execute(RedisOperations<K, V> operations) {
+                StreamOperations<String, Object, Object> streamOperations =
+                        ((RedisOperations<String, V>) operations).opsForStream();
+                records.forEach(record -> streamOperations.add(record));
+                return null;
+            }
+
+        });
+        List<RecordId> recordIds = new ArrayList<>(results.size());
+        for (Object result : results) {
+            if (result == null) {
+                recordIds.add(null);
+            } else if (result instanceof RecordId recordId) {
+                recordIds.add(recordId);
+            } else {
+                recordIds.add(RecordId.of(String.valueOf(result)));
+            }
+        }
+        return recordIds;
+    }
+
+    private static ObjectRecord<String, String> buildStreamRecord(AbstractRedisStreamMessage message) {
+        return StreamRecords.newRecord()
+                .ofObject(JsonUtils.toJsonString(message)) // 设置内容
+                .withStreamKey(message.getStreamKey()); // 设置 stream key
+    }
+
     /**
      * 添加拦截器
      *
@@ -1,26 +1,41 @@
 package cn.iocoder.yudao.framework.mq.redis.core.job;
 
 import cn.hutool.core.collection.CollUtil;
+import cn.hutool.core.thread.NamedThreadFactory;
 import cn.iocoder.yudao.framework.mq.redis.core.RedisMQTemplate;
+import cn.iocoder.yudao.framework.mq.redis.core.stream.AbstractRedisStreamBatchMessageListener;
 import cn.iocoder.yudao.framework.mq.redis.core.stream.AbstractRedisStreamMessageListener;
-import lombok.AllArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.redisson.api.PendingEntry;
 import org.redisson.api.RLock;
+import org.redisson.api.RStream;
 import org.redisson.api.RedissonClient;
-import org.springframework.data.domain.Range;
+import org.redisson.api.StreamMessageId;
+import org.redisson.client.codec.StringCodec;
+import org.springframework.data.redis.connection.RedisStreamCommands.XClaimOptions;
 import org.springframework.data.redis.connection.stream.*;
 import org.springframework.data.redis.core.StreamOperations;
 import org.springframework.scheduling.annotation.Scheduled;
 
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.IdentityHashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
 
 /**
  * 这个任务用于处理，crash 之后的消费者未消费完的消息
+ *
+ * 每个 Stream 分页执行：XPENDING IDLE 找出超时未确认的消息，XCLAIM 转移到当前消费者并取回消息体，
+ * 直接交给监听器消费并 ack。不再重新 XADD，避免 Stream 长度翻倍。多个 Stream 之间并行处理。
  */
 @Slf4j
-@AllArgsConstructor
 public class RedisPendingMessageResendJob {
 
     private static final String LOCK_KEY = "redis:stream:pending-message-resend:lock";
@@ -33,67 +48,177 @@ public class RedisPendingMessageResendJob {
      */
     private static final int EXPIRE_TIME = 5 * 60;
 
+    /**
+     * 每页回收的消息数
+     */
+    private static final int PAGE_SIZE = 100;
+    /**
+     * 单次执行每个 Stream 最多回收的消息数，剩余的留给下一次执行，避免单次执行时间过长
+     */
+    private static final int MAX_RECLAIM_PER_RUN = 10000;
+    /**
+     * 并行处理的 Stream 数上限
+     */
+    private static final int MAX_PARALLELISM = 4;
+
     private final List<AbstractRedisStreamMessageListener<?>> listeners;
     private final RedisMQTemplate redisTemplate;
     private final RedissonClient redissonClient;
+    /**
+     * 回收的消息转移到的消费者名字
+     */
+    private final String consumerName;
+
+    private final ExecutorService executor;
+    private final Map<AbstractRedisStreamMessageListener<?>, RedisStreamReclaimStats> reclaimStats = new IdentityHashMap<>();
+
+    public RedisPendingMessageResendJob(List<AbstractRedisStreamMessageListener<?>> listeners,
+                                        RedisMQTemplate redisTemplate,
+                                        RedissonClient redissonClient,
+                                        String consumerName) {
+        this.listeners = listeners;
+        this.redisTemplate = redisTemplate;
+        this.redissonClient = redissonClient;
+        this.consumerName = consumerName;
+        this.executor = Executors.newFixedThreadPool(Math.max(1, Math.min(listeners.size(), MAX_PARALLELISM)),
+                new NamedThreadFactory("redis-stream-reclaim-", true));
+        listeners.forEach(listener -> reclaimStats.put(listener,
+                new RedisStreamReclaimStats(listener.getStreamKey(), listener.getGroup())));
+    }
 
     /**
      * 一分钟执行一次,这里选择每分钟的 35 秒执行，是为了避免整点任务过多的问题
      */
     @Scheduled(cron = "35 * * * * ?")
     public void messageResend() {
-        RLock lock = redissonClient.getLock(LOCK_KEY);
+        List<CompletableFuture<Void>> futures = new ArrayList<>(listeners.size());
+        listeners.forEach(listener -> futures.add(CompletableFuture.runAsync(() -> reclaim(listener), executor)));
+        CompletableFuture.allOf(futures.toArray(new CompletableFuture[0])).join();
+    }
+
+    /**
+     * 获得每个 Stream 消费者分组的回收统计
+     *
+     * @return 回收统计
+     */
+    public Collection<RedisStreamReclaimStats> getReclaimStats() {
+        return Collections.unmodifiableCollection(reclaimStats.values());
+    }
+
+    public void shutdown() {
+        executor.shutdown();
+    }
+
+    /**
+     * 按 Stream + 消费者分组加锁，不同 Stream 可以由不同实例同时处理
+     */
+    private void reclaim(AbstractRedisStreamMessageListener<?> listener) {
+        RLock lock = redissonClient.getLock(LOCK_KEY + ":" + listener.getStreamKey() + ":" + listener.getGroup());
         // 尝试加锁
-        if (lock.tryLock()) {
-            try {
-                execute();
-            } catch (Exception ex) {
-                log.error("[messageResend][执行异常]", ex);
-            } finally {
-                lock.unlock();
-            }
+        if (!lock.tryLock()) {
+            return;
+        }
+        try {
+            execute(listener);
+        } catch (Exception ex) {
+            log.error("[messageResend][StreamKey({}) 执行异常]", listener.getStreamKey(), ex);
+        } finally {
+            lock.unlock();
         }
     }
 
     /**
-     * 执行清理逻辑
+     * 执行回收逻辑
      *
      * @see <a href="https://gitee.com/zhijiantianya/ruoyi-vue-pro/pulls/480/files">讨论</a>
      */
-    private void execute() {
+    private void execute(AbstractRedisStreamMessageListener<?> listener) {
+        String streamKey = listener.getStreamKey();
+        String group = listener.getGroup();
         StreamOperations<String, Object, Object> ops = redisTemplate.getRedisTemplate().opsForStream();
-        listeners.forEach(listener -> {
-            PendingMessagesSummary pendingMessagesSummary = Objects.requireNonNull(ops.pending(listener.getStreamKey(), listener.getGroup()));
-            // 每个消费者的 pending 队列消息数量
-            Map<String, Long> pendingMessagesPerConsumer = pendingMessagesSummary.getPendingMessagesPerConsumer();
-            pendingMessagesPerConsumer.forEach((consumerName, pendingMessageCount) -> {
-                log.info("[processPendingMessage][消费者({}) 消息数量({})]", consumerName, pendingMessageCount);
-                // 每个消费者的 pending消息的详情信息
-                PendingMessages pendingMessages = ops.pending(listener.getStreamKey(), Consumer.from(listener.getGroup(), consumerName), Range.unbounded(), pendingMessageCount);
-                if (pendingMessages.isEmpty()) {
-                    return;
-                }
-                pendingMessages.forEach(pendingMessage -> {
-                    // 获取消息上一次传递到 consumer 的时间,
-                    long lastDelivery = pendingMessage.getElapsedTimeSinceLastDelivery().getSeconds();
-                    if (lastDelivery < EXPIRE_TIME){
-                        return;
-                    }
-                    // 获取指定 id 的消息体
-                    List<MapRecord<String, Object, Object>> records = ops.range(listener.getStreamKey(),
-                            Range.of(Range.Bound.inclusive(pendingMessage.getIdAsString()), Range.Bound.inclusive(pendingMessage.getIdAsString())));
-                    if (CollUtil.isEmpty(records)) {
-                        return;
-                    }
-                    // 重新投递消息
-                    redisTemplate.getRedisTemplate().opsForStream().add(StreamRecords.newRecord()
-                            .ofObject(records.get(0).getValue()) // 设置内容
-                            .withStreamKey(listener.getStreamKey()));
-                    // ack 消息消费完成
-                    redisTemplate.getRedisTemplate().opsForStream().acknowledge(listener.getGroup(), records.get(0));
-                    log.info("[processPendingMessage][消息({})重新投递成功]", records.get(0).getId());
-                });
-            });
-        });
+        RedisStreamReclaimStats stats = reclaimStats.get(listener);
+        // 1. 统计 pending 消息数，以及最早一条消息的延迟
+        PendingMessagesSummary summary = ops.pending(streamKey, group);
+        if (summary == null || summary.getTotalPendingMessages() == 0) {
+            stats.onScanned(0, 0);
+            stats.onReclaimed(0, 0);
+            return;
+        }
+        stats.onScanned(summary.getTotalPendingMessages(), getLagMillis(summary.minMessageId()));
+
+        // 2. 分页回收超时的消息
+        RStream<String, String> stream = redissonClient.getStream(streamKey, StringCodec.INSTANCE);
+        Duration minIdle = Duration.ofSeconds(EXPIRE_TIME);
+        StreamMessageId startId = StreamMessageId.MIN;
+        int reclaimed = 0;
+        int failed = 0;
+        while (reclaimed + failed < MAX_RECLAIM_PER_RUN) {
+            int count = Math.min(PAGE_SIZE, MAX_RECLAIM_PER_RUN - reclaimed - failed);
+            // 2.1 XPENDING IDLE：只返回超时的消息编号
+            List<PendingEntry> entries = stream.pendingRange(group, startId, StreamMessageId.MAX,
+                    minIdle.toMillis(), TimeUnit.MILLISECONDS, count);
+            if (CollUtil.isEmpty(entries)) {
+                break;
+            }
+            // 2.2 XCLAIM：转移到当前消费者并取回消息体，min-idle 保证不会抢走刚被其它消费者认领的消息
+            RecordId[] recordIds = entries.stream()
+                    .map(entry -> RecordId.of(entry.getId().toString())).toArray(RecordId[]::new);
+            List<MapRecord<String, Object, Object>> claimed = ops.claim(streamKey, group, consumerName,
+                    XClaimOptions.minIdle(minIdle).ids(recordIds));
+            // 2.3 交给监听器消费
+            if (CollUtil.isNotEmpty(claimed)) {
+                List<ObjectRecord<String, String>> records = new ArrayList<>(claimed.size());
+                claimed.forEach(record -> records.add(ops.map(record, String.class)));
+                int pageFailed = dispatch(listener, records);
+                failed += pageFailed;
+                reclaimed += records.size() - pageFailed;
+            }
+            if (entries.size() < count) {
+                break;
+            }
+            StreamMessageId lastId = entries.get(entries.size() - 1).getId();
+            startId = new StreamMessageId(lastId.getId0(), lastId.getId1() + 1);
+        }
+        stats.onReclaimed(reclaimed, failed);
+        if (reclaimed + failed > 0) {
+            log.info("[messageResend][StreamKey({}) pending({}) 回收成功({}) 失败({})]",
+                    streamKey, summary.getTotalPendingMessages(), reclaimed, failed);
+        }
     }
+
+    /**
+     * 消费回收的消息，返回失败的数量
+     *
+     * 失败的消息仍在当前消费者的 pending 列表中，超时后会被再次回收
+     */
+    private int dispatch(AbstractRedisStreamMessageListener<?> listener, List<ObjectRecord<String, String>> records) {
+        if (listener instanceof AbstractRedisStreamBatchMessageListener<?> batchListener) {
+            try {
+                batchListener.onRecords(records);
+                return 0;
+            } catch (Exception ex) {
+                log.error("[dispatch][StreamKey({}) 批量消费 {} 条消息失败]", listener.getStreamKey(), records.size(), ex);
+                return records.size();
+            }
+        }
+        int failed = 0;
+        for (ObjectRecord<String, String> record : records) {
+            try {
+                listener.onMessage(record);
+            } catch (Exception ex) {
+                failed++;
+                log.error("[dispatch][StreamKey({}) 消息({}) 消费失败]", listener.getStreamKey(), record.getId(), ex);
+            }
+        }
+        return failed;
+    }
+
+    private static long getLagMillis(String minMessageId) {
+        if (minMessageId == null) {
+            return 0;
+        }
+        Long timestamp = RecordId.of(minMessageId).getTimestamp();
+        return timestamp != null ? Math.max(0, System.currentTimeMillis() - timestamp) : 0;
+    }
+
 }
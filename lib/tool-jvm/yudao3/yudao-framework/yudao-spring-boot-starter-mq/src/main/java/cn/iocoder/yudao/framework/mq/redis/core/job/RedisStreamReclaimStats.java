@@ -0,0 +1,58 @@
+package cn.iocoder.yudao.framework.mq.redis.core.job;
+
+import lombok.Getter;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 单个 Stream 消费者分组的 pending 消息回收统计，由 {@link RedisPendingMessageResendJob} 维护
+ *
+ * @author 芋道源码
+ */
+@Getter
+public class RedisStreamReclaimStats {
+
+    private final String streamKey;
+    private final String group;
+
+    /**
+     * 最近一次扫描时，消费者分组的 pending 消息总数
+     */
+    private volatile long pendingCount;
+    /**
+     * 最近一次扫描时，最早一条 pending 消息距今的时间，单位：毫秒
+     */
+    private volatile long lagMillis;
+    /**
+     * 最近一次执行回收的消息数
+     */
+    private volatile long lastReclaimedCount;
+
+    private final AtomicLong reclaimedTotal = new AtomicLong();
+    private final AtomicLong failedTotal = new AtomicLong();
+
+    public RedisStreamReclaimStats(String streamKey, String group) {
+        this.streamKey = streamKey;
+        this.group = group;
+    }
+
+    void onScanned(long pendingCount, long lagMillis) {
+        this.pendingCount = pendingCount;
+        this.lagMillis = lagMillis;
+    }
+
+    void onReclaimed(long reclaimed, long failed) {
+        this.lastReclaimedCount = reclaimed;
+        reclaimedTotal.addAndGet(reclaimed);
+        failedTotal.addAndGet(failed);
+    }
+
+    public long getReclaimedTotal() {
+        return reclaimedTotal.get();
+    }
+
+    public long getFailedTotal() {
+        return failedTotal.get();
+    }
+
+}
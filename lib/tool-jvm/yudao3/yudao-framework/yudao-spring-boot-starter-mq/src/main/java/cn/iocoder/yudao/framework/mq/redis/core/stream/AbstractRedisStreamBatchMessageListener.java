@@ -0,0 +1,115 @@
+package cn.iocoder.yudao.framework.mq.redis.core.stream;
+
+import cn.hutool.core.collection.CollUtil;
+import lombok.Getter;
+import org.springframework.data.redis.connection.stream.ObjectRecord;
+import org.springframework.data.redis.connection.stream.RecordId;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Redis Stream 批量消费的监听器抽象类，用于实现集群消费
+ *
+ * 由 {@link RedisStreamBatchMessageListenerContainer} 每次通过 XREADGROUP 拉取最多 {@link #batchSize} 条消息，
+ * 处理成功的消息使用一次多 id 的 XACK 确认；处理失败的消息不确认，由 pending 重投任务兜底。
+ *
+ * @param <T> 消息类型。一定要填写噢，不然会报错
+ *
+ * @author 芋道源码
+ */
+public abstract class AbstractRedisStreamBatchMessageListener<T extends AbstractRedisStreamMessage>
+        extends AbstractRedisStreamMessageListener<T> {
+
+    /**
+     * 默认单次拉取的最大消息数
+     */
+    public static final int DEFAULT_BATCH_SIZE = 100;
+
+    /**
+     * 单次拉取的最大消息数
+     */
+    @Getter
+    private final int batchSize;
+
+    protected AbstractRedisStreamBatchMessageListener() {
+        this(DEFAULT_BATCH_SIZE);
+    }
+
+    protected AbstractRedisStreamBatchMessageListener(int batchSize) {
+        super();
+        this.batchSize = batchSize;
+    }
+
+    protected AbstractRedisStreamBatchMessageListener(String streamKey, String group, int batchSize) {
+        super(streamKey, group);
+        this.batchSize = batchSize;
+    }
+
+    @Override
+    public void onMessage(ObjectRecord<String, String> message) {
+        onRecords(Collections.singletonList(message));
+    }
+
+    @Override
+    public final void onMessage(T message) {
+        onMessages(Collections.singletonList(message));
+    }
+
+    /**
+     * 批量处理消息
+     *
+     * @param messages 消息列表，与 Stream 中的顺序一致
+     */
+    public abstract void onMessages(List<T> messages);
+
+    /**
+     * 消费一批 Stream 记录
+     *
+     * 消息头相同的连续消息为一组调用 {@link #onMessages(List)}，保证拦截器设置的上下文（例如说，租户）对整组有效
+     *
+     * @param records Stream 记录列表
+     */
+    public void onRecords(List<ObjectRecord<String, String>> records) {
+        if (CollUtil.isEmpty(records)) {
+            return;
+        }
+        List<T> messages = new ArrayList<>(records.size());
+        records.forEach(record -> messages.add(parseMessage(record)));
+        int start = 0;
+        try {
+            for (int i = 1; i <= messages.size(); i++) {
+                if (i == messages.size()
+                        || !Objects.equals(messages.get(i).getHeaders(), messages.get(start).getHeaders())) {
+                    consumeMessages(messages.subList(start, i));
+                    start = i;
+                }
+            }
+        } finally {
+            // ack 已经消费完成的消息，一次 XACK 确认多条
+            if (start > 0) {
+                acknowledge(records.subList(0, start));
+            }
+        }
+    }
+
+    private void acknowledge(List<ObjectRecord<String, String>> records) {
+        RecordId[] recordIds = records.stream().map(ObjectRecord::getId).toArray(RecordId[]::new);
+        getRedisMQTemplate().getRedisTemplate().opsForStream().acknowledge(getStreamKey(), getGroup(), recordIds);
+    }
+
+    private void consumeMessages(List<T> messages) {
+        try {
+            messages.forEach(this::consumeMessageBefore);
+            // 消费消息
+            onMessages(messages);
+        } finally {
+            for (int i = messages.size() - 1; i >= 0; i--) {
+                consumeMessageAfter(messages.get(i));
+            }
+        }
+    }
+
+}
@@ -0,0 +1,114 @@
+package cn.iocoder.yudao.framework.mq.redis.core.stream;
+
+import cn.hutool.core.collection.CollUtil;
+import cn.iocoder.yudao.framework.mq.redis.core.RedisMQTemplate;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.redis.connection.stream.Consumer;
+import org.springframework.data.redis.connection.stream.ObjectRecord;
+import org.springframework.data.redis.connection.stream.ReadOffset;
+import org.springframework.data.redis.connection.stream.StreamOffset;
+import org.springframework.data.redis.connection.stream.StreamReadOptions;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link AbstractRedisStreamBatchMessageListener} 的消费容器
+ *
+ * 每个监听器一个消费线程，循环执行 XREADGROUP COUNT batchSize BLOCK pollTimeout，拉取到的整批消息交给监听器处理
+ *
+ * @author 芋道源码
+ */
+@Slf4j
+public class RedisStreamBatchMessageListenerContainer {
+
+    /**
+     * 拉取异常后的等待时间，避免 Redis 不可用时空转
+     */
+    private static final long ERROR_BACKOFF_MILLIS = 1000;
+
+    private final RedisMQTemplate redisMQTemplate;
+    private final List<AbstractRedisStreamBatchMessageListener<?>> listeners;
+    private final String consumerName;
+    private final Duration pollTimeout;
+
+    private final List<Thread> threads = new ArrayList<>();
+    private volatile boolean running;
+
+    public RedisStreamBatchMessageListenerContainer(RedisMQTemplate redisMQTemplate,
+                                                    List<AbstractRedisStreamBatchMessageListener<?>> listeners,
+                                                    String consumerName, Duration pollTimeout) {
+        this.redisMQTemplate = redisMQTemplate;
+        this.listeners = listeners;
+        this.consumerName = consumerName;
+        this.pollTimeout = pollTimeout;
+    }
+
+    public synchronized void start() {
+        if (running) {
+            return;
+        }
+        running = true;
+        listeners.forEach(listener -> {
+            Thread thread = new Thread(() -> runPollLoop(listener),
+                    "redis-stream-batch-" + listener.getStreamKey());
+            thread.setDaemon(true);
+            thread.start();
+            threads.add(thread);
+            log.info("[start][完成注册 StreamKey({}) 对应的批量监听器({})]",
+                    listener.getStreamKey(), listener.getClass().getName());
+        });
+    }
+
+    public synchronized void stop() {
+        running = false;
+        for (Thread thread : threads) {
+            try {
+                // 阻塞读取最多等待 pollTimeout，之后线程会自行退出
+                thread.join(pollTimeout.toMillis() + ERROR_BACKOFF_MILLIS);
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                break;
+            }
+        }
+        threads.clear();
+    }
+
+    private void runPollLoop(AbstractRedisStreamBatchMessageListener<?> listener) {
+        Consumer consumer = Consumer.from(listener.getGroup(), consumerName);
+        StreamReadOptions readOptions = StreamReadOptions.empty()
+                .count(listener.getBatchSize()).block(pollTimeout);
+        StreamOffset<String> streamOffset = StreamOffset.create(listener.getStreamKey(), ReadOffset.lastConsumed());
+        while (running) {
+            try {
+                List<ObjectRecord<String, String>> records = redisMQTemplate.getRedisTemplate().opsForStream()
+                        .read(String.class, consumer, readOptions, streamOffset);
+                if (CollUtil.isEmpty(records)) {
+                    continue;
+                }
+                listener.onRecords(records);
+            } catch (Exception ex) {
+                if (!running) {
+                    break;
+                }
+                log.error("[runPollLoop][StreamKey({}) 批量消费异常]", listener.getStreamKey(), ex);
+                if (!sleepQuietly()) {
+                    break;
+                }
+            }
+        }
+    }
+
+    private boolean sleepQuietly() {
+        try {
+            TimeUnit.MILLISECONDS.sleep(ERROR_BACKOFF_MILLIS);
+            return true;
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+}
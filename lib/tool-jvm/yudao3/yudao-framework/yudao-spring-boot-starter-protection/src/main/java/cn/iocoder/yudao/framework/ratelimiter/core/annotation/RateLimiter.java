@@ -37,6 +37,13 @@ public @interface RateLimiter {
      */
     int count() default 100;
 
+    /**
+     * 限流模式，默认为 STRICT 严格模式
+     *
+     * 高频接口可以使用 HYBRID 混合模式，减少 Redis 访问
+     */
+    RateLimiterMode mode() default RateLimiterMode.STRICT;
+
     /**
      * 提示信息，请求过快的提示
      *
@@ -0,0 +1,22 @@
+package cn.iocoder.yudao.framework.ratelimiter.core.annotation;
+
+/**
+ * 限流模式
+ *
+ * @author 芋道源码
+ */
+public enum RateLimiterMode {
+
+    /**
+     * 严格模式：每次请求都从 Redis 获取 1 个令牌
+     */
+    STRICT,
+    /**
+     * 混合模式：每个节点从 Redis 批量租借令牌（限流次数的 10%），在本地扣减，只有租借时才访问 Redis
+     *
+     * 1. 限流次数较小（租借数量不足 2 个）时，自动退回严格模式
+     * 2. 代价是本地未用完的令牌在时间窗口结束后作废，并且集群整体最多多放行「节点数 × 租借数量」个请求
+     */
+    HYBRID
+
+}
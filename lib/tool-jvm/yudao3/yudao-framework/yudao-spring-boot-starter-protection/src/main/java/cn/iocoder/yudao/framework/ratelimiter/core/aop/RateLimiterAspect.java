@@ -5,6 +5,7 @@ import cn.iocoder.yudao.framework.common.exception.ServiceException;
 import cn.iocoder.yudao.framework.common.exception.enums.GlobalErrorCodeConstants;
 import cn.iocoder.yudao.framework.common.util.collection.CollectionUtils;
 import cn.iocoder.yudao.framework.ratelimiter.core.annotation.RateLimiter;
+import cn.iocoder.yudao.framework.ratelimiter.core.annotation.RateLimiterMode;
 import cn.iocoder.yudao.framework.ratelimiter.core.keyresolver.RateLimiterKeyResolver;
 import cn.iocoder.yudao.framework.ratelimiter.core.redis.RateLimiterRedisDAO;
 import lombok.extern.slf4j.Slf4j;
@@ -46,8 +47,9 @@ public class RateLimiterAspect {
         String key = keyResolver.resolver(joinPoint, rateLimiter);
 
         // 获取 1 次限流
-        boolean success = rateLimiterRedisDAO.tryAcquire(key,
-                rateLimiter.count(), rateLimiter.time(), rateLimiter.timeUnit());
+        boolean success = rateLimiter.mode() == RateLimiterMode.HYBRID
+                ? rateLimiterRedisDAO.tryAcquireHybrid(key, rateLimiter.count(), rateLimiter.time(), rateLimiter.timeUnit())
+                : rateLimiterRedisDAO.tryAcquire(key, rateLimiter.count(), rateLimiter.time(), rateLimiter.timeUnit());
         if (!success) {
             log.info("[beforePointCut][方法({}) 参数({}) 请求过于频繁]", joinPoint.getSignature().toString(), joinPoint.getArgs());
             String message = StrUtil.blankToDefault(rateLimiter.message(),
@@ -1,18 +1,21 @@
 package cn.iocoder.yudao.framework.ratelimiter.core.redis;
 
-import lombok.AllArgsConstructor;
+import cn.hutool.cache.impl.TimedCache;
 import org.redisson.api.*;
+import org.redisson.client.RedisException;
 
 import java.time.Duration;
 import java.util.Objects;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
 
 /**
  * 限流 Redis DAO
  *
  * @author 芋道源码
  */
-@AllArgsConstructor
 public class RateLimiterRedisDAO {
 
     /**
@@ -24,13 +27,95 @@ public class RateLimiterRedisDAO {
      */
     private static final String RATE_LIMITER = "rate_limiter:%s";
 
+    /**
+     * 本地缓存的过期时间，单位：毫秒。超过该时间未访问的 key 会被清理
+     */
+    private static final long LOCAL_CACHE_TIMEOUT = TimeUnit.MINUTES.toMillis(10);
+
+    /**
+     * 混合模式下，每次从 Redis 租借的令牌占限流次数的比例
+     */
+    private static final double LEASE_RATIO = 0.1;
+    /**
+     * 混合模式下，租借数量小于该值时退回严格模式
+     */
+    private static final long MIN_LEASE_SIZE = 2;
+    /**
+     * Redisson 限流器的 Redis key 不存在（例如已过期）时，tryAcquire 脚本返回的错误信息
+     */
+    private static final String NOT_INITIALIZED_MESSAGE = "RateLimiter is not initialized";
+
     private final RedissonClient redissonClient;
 
+    /**
+     * 已经确认 Redis 中限流配置一致的 key，避免每次请求都 getConfig
+     *
+     * key：限流 key
+     * value：配置签名，格式为 {count}:{rateInterval}
+     */
+    private final TimedCache<String, String> configuredKeys = new TimedCache<>(LOCAL_CACHE_TIMEOUT);
+    /**
+     * 混合模式下，每个 key 在本地的令牌桶
+     */
+    private final TimedCache<String, LocalBucket> localBuckets = new TimedCache<>(LOCAL_CACHE_TIMEOUT);
+
+    public RateLimiterRedisDAO(RedissonClient redissonClient) {
+        this.redissonClient = redissonClient;
+        configuredKeys.schedulePrune(LOCAL_CACHE_TIMEOUT);
+        localBuckets.schedulePrune(LOCAL_CACHE_TIMEOUT);
+    }
+
     public Boolean tryAcquire(String key, int count, int time, TimeUnit timeUnit) {
+        // 尝试获取 1 个
+        return tryAcquire(key, 1, count, time, timeUnit);
+    }
+
+    /**
+     * 混合模式：优先从本地令牌桶获取，本地用完后从 Redis 租借一批
+     */
+    public Boolean tryAcquireHybrid(String key, int count, int time, TimeUnit timeUnit) {
+        long leaseSize = (long) (count * LEASE_RATIO);
+        // 1. 限流次数太小时，本地租借的误差太大，退回严格模式
+        if (leaseSize < MIN_LEASE_SIZE) {
+            return tryAcquire(key, count, time, timeUnit);
+        }
+        // 2. 从本地令牌桶获取
+        LocalBucket bucket = localBuckets.get(key, LocalBucket::new);
+        if (bucket.tryConsume()) {
+            return true;
+        }
+        // 3. 本地令牌用完，由一个线程负责租借，其它线程直接从 Redis 获取 1 个，避免并发租借多批
+        if (!bucket.refilling.compareAndSet(false, true)) {
+            return tryAcquire(key, count, time, timeUnit);
+        }
+        try {
+            if (tryAcquire(key, leaseSize, count, time, timeUnit)) {
+                // 自己先用掉 1 个；租借的令牌只在一个时间窗口内有效
+                bucket.refill(leaseSize - 1, System.nanoTime() + timeUnit.toNanos(time));
+                return true;
+            }
+            // Redis 中剩余的令牌不足一批，退回获取 1 个
+            return tryAcquire(key, count, time, timeUnit);
+        } finally {
+            bucket.refilling.set(false);
+        }
+    }
+
+    private boolean tryAcquire(String key, long permits, int count, int time, TimeUnit timeUnit) {
         // 1. 获得 RRateLimiter，并设置 rate 速率
         RRateLimiter rateLimiter = getRRateLimiter(key, count, time, timeUnit);
-        // 2. 尝试获取 1 个
-        return rateLimiter.tryAcquire();
+        // 2. 尝试获取 permits 个
+        try {
+            return rateLimiter.tryAcquire(permits);
+        } catch (RedisException ex) {
+            // 超时、连接失败等其它异常原样抛出，避免 Redis 故障时放大请求
+            if (ex.getMessage() == null || !ex.getMessage().contains(NOT_INITIALIZED_MESSAGE)) {
+                throw ex;
+            }
+            // 本地缓存认为配置已存在，但 Redis 中的限流器已经过期，重新设置后再试一次
+            configuredKeys.remove(key);
+            return getRRateLimiter(key, count, time, timeUnit).tryAcquire(permits);
+        }
     }
 
     private static String formatKey(String key) {
@@ -42,25 +127,74 @@ public class RateLimiterRedisDAO {
         RRateLimiter rateLimiter = redissonClient.getRateLimiter(redisKey);
         long rateInterval = timeUnit.toSeconds(time);
         Duration duration = Duration.ofSeconds(rateInterval);
+        // 0. 本地已经确认过配置，直接返回
+        String signature = count + ":" + rateInterval;
+        if (signature.equals(configuredKeys.get(key, false))) {
+            return rateLimiter;
+        }
         // 1. 如果不存在，设置 rate 速率
         RateLimiterConfig config = rateLimiter.getConfig();
         if (config == null) {
             rateLimiter.trySetRate(RateType.OVERALL, count, duration);
             // 原因参见 https://t.zsxq.com/lcR0W
             rateLimiter.expire(duration);
+            configuredKeys.put(key, signature);
             return rateLimiter;
         }
         // 2. 如果存在，并且配置相同，则直接返回
         if (config.getRateType() == RateType.OVERALL
                 && Objects.equals(config.getRate(), count)
                 && Objects.equals(config.getRateInterval(), TimeUnit.SECONDS.toMillis(rateInterval))) {
+            configuredKeys.put(key, signature);
             return rateLimiter;
         }
         // 3. 如果存在，并且配置不同，则进行新建
         rateLimiter.setRate(RateType.OVERALL, count, duration);
         // 原因参见 https://t.zsxq.com/lcR0W
         rateLimiter.expire(duration);
+        configuredKeys.put(key, signature);
         return rateLimiter;
     }
 
+    /**
+     * 本地令牌桶，通过 CAS 扣减，不加锁
+     */
+    private static class LocalBucket {
+
+        private final AtomicReference<Lease> lease = new AtomicReference<>();
+        private final AtomicBoolean refilling = new AtomicBoolean();
+
+        boolean tryConsume() {
+            Lease current = lease.get();
+            if (current == null || System.nanoTime() - current.deadline >= 0) {
+                return false;
+            }
+            long remaining;
+            do {
+                remaining = current.remaining.get();
+                if (remaining <= 0) {
+                    return false;
+                }
+            } while (!current.remaining.compareAndSet(remaining, remaining - 1));
+            return true;
+        }
+
+        void refill(long permits, long deadline) {
+            lease.set(new Lease(permits, deadline));
+        }
+
+    }
+
+    private static class Lease {
+
+        private final AtomicLong remaining;
+        private final long deadline;
+
+        private Lease(long remaining, long deadline) {
+            this.remaining = new AtomicLong(remaining);
+            this.deadline = deadline;
+        }
+
+    }
+
 }
@@ -14,6 +14,7 @@ dependencies {
     compileOnly(catalogLibs.findLibrary("yudao-spring-kafka").get())
     compileOnly(catalogLibs.findLibrary("yudao-spring-rabbit").get())
     compileOnly(catalogLibs.findLibrary("yudao-rocketmq-spring-boot-starter").get())
+    compileOnly(catalogLibs.findLibrary("yudao-micrometer-registry-prometheus").get())
 
     annotationProcessor(catalogLibs.findLibrary("yudao-spring-boot-configuration-processor").get())
 }
@@ -31,4 +31,34 @@ public class WebSocketProperties {
     @NotNull(message = "WebSocket 的消息发送者不能为空")
     private String senderType = "local";
 
+    /**
+     * 单个 Session 发送时间的限制，单位：毫秒
+     *
+     * 超过后视为慢消费者，关闭该 Session
+     */
+    @NotNull(message = "WebSocket 的发送时间限制不能为空")
+    private Integer sendTimeLimit = 1000 * 5;
+
+    /**
+     * 单个 Session 发送缓冲的上限，单位：bytes
+     *
+     * 超过后视为慢消费者，关闭该 Session
+     */
+    @NotNull(message = "WebSocket 的发送缓冲上限不能为空")
+    private Integer sendBufferSizeLimit = 1024 * 100;
+
+    /**
+     * 单个 Session 待发送消息数的上限
+     *
+     * 超过后视为慢消费者，关闭该 Session
+     */
+    @NotNull(message = "WebSocket 的发送队列上限不能为空")
+    private Integer sendQueueCapacity = 1000;
+
+    /**
+     * 发送消息的线程数
+     */
+    @NotNull(message = "WebSocket 的发送线程数不能为空")
+    private Integer sendThreads = Runtime.getRuntime().availableProcessors() * 2;
+
 }
@@ -6,6 +6,8 @@ import cn.iocoder.yudao.framework.websocket.core.handler.JsonWebSocketMessageHan
 import cn.iocoder.yudao.framework.websocket.core.listener.WebSocketMessageListener;
 import cn.iocoder.yudao.framework.websocket.core.security.LoginUserHandshakeInterceptor;
 import cn.iocoder.yudao.framework.websocket.core.security.WebSocketAuthorizeRequestsCustomizer;
+import cn.iocoder.yudao.framework.websocket.core.sender.WebSocketMessageDispatcher;
+import cn.iocoder.yudao.framework.websocket.core.sender.WebSocketSendMetrics;
 import cn.iocoder.yudao.framework.websocket.core.sender.kafka.KafkaWebSocketMessageConsumer;
 import cn.iocoder.yudao.framework.websocket.core.sender.kafka.KafkaWebSocketMessageSender;
 import cn.iocoder.yudao.framework.websocket.core.sender.local.LocalWebSocketMessageSender;
@@ -18,11 +20,15 @@ import cn.iocoder.yudao.framework.websocket.core.sender.rocketmq.RocketMQWebSock
 import cn.iocoder.yudao.framework.websocket.core.session.WebSocketSessionHandlerDecorator;
 import cn.iocoder.yudao.framework.websocket.core.session.WebSocketSessionManager;
 import cn.iocoder.yudao.framework.websocket.core.session.WebSocketSessionManagerImpl;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.binder.MeterBinder;
 import org.apache.rocketmq.spring.core.RocketMQTemplate;
 import org.springframework.amqp.core.TopicExchange;
 import org.springframework.amqp.rabbit.core.RabbitTemplate;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.autoconfigure.AutoConfiguration;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnClass;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.boot.context.properties.EnableConfigurationProperties;
 import org.springframework.context.annotation.Bean;
@@ -65,11 +71,13 @@ public class YudaoWebSocketAutoConfiguration {
 
     @Bean
     public WebSocketHandler webSocketHandler(WebSocketSessionManager sessionManager,
-                                             List<? extends WebSocketMessageListener<?>> messageListeners) {
+                                             List<? extends WebSocketMessageListener<?>> messageListeners,
+                                             WebSocketProperties webSocketProperties) {
         // 1. 创建 JsonWebSocketMessageHandler 对象，处理消息
         JsonWebSocketMessageHandler messageHandler = new JsonWebSocketMessageHandler(messageListeners);
         // 2. 创建 WebSocketSessionHandlerDecorator 对象，处理连接
-        return new WebSocketSessionHandlerDecorator(messageHandler, sessionManager);
+        return new WebSocketSessionHandlerDecorator(messageHandler, sessionManager,
+                webSocketProperties.getSendTimeLimit(), webSocketProperties.getSendBufferSizeLimit());
     }
 
     @Bean
@@ -77,6 +85,12 @@ public class YudaoWebSocketAutoConfiguration {
         return new WebSocketSessionManagerImpl();
     }
 
+    @Bean(destroyMethod = "shutdown")
+    public WebSocketMessageDispatcher webSocketMessageDispatcher(WebSocketProperties webSocketProperties) {
+        return new WebSocketMessageDispatcher(webSocketProperties.getSendThreads(),
+                webSocketProperties.getSendQueueCapacity());
+    }
+
     @Bean
     public WebSocketAuthorizeRequestsCustomizer webSocketAuthorizeRequestsCustomizer(WebSocketProperties webSocketProperties) {
         return new WebSocketAuthorizeRequestsCustomizer(webSocketProperties);
@@ -89,8 +103,9 @@ public class YudaoWebSocketAutoConfiguration {
     public class LocalWebSocketMessageSenderConfiguration {
 
         @Bean
-        public LocalWebSocketMessageSender localWebSocketMessageSender(WebSocketSessionManager sessionManager) {
-            return new LocalWebSocketMessageSender(sessionManager);
+        public LocalWebSocketMessageSender localWebSocketMessageSender(WebSocketSessionManager sessionManager,
+                                                                       WebSocketMessageDispatcher messageDispatcher) {
+            return new LocalWebSocketMessageSender(sessionManager, messageDispatcher);
         }
 
     }
@@ -101,8 +116,9 @@ public class YudaoWebSocketAutoConfiguration {
 
         @Bean
         public RedisWebSocketMessageSender redisWebSocketMessageSender(WebSocketSessionManager sessionManager,
+                                                                       WebSocketMessageDispatcher messageDispatcher,
                                                                        RedisMQTemplate redisMQTemplate) {
-            return new RedisWebSocketMessageSender(sessionManager, redisMQTemplate);
+            return new RedisWebSocketMessageSender(sessionManager, messageDispatcher, redisMQTemplate);
         }
 
         @Bean
@@ -119,9 +135,10 @@ public class YudaoWebSocketAutoConfiguration {
 
         @Bean
         public RocketMQWebSocketMessageSender rocketMQWebSocketMessageSender(
-                WebSocketSessionManager sessionManager, RocketMQTemplate rocketMQTemplate,
+                WebSocketSessionManager sessionManager, WebSocketMessageDispatcher messageDispatcher,
+                RocketMQTemplate rocketMQTemplate,
                 @Value("${yudao.websocket.sender-rocketmq.topic}") String topic) {
-            return new RocketMQWebSocketMessageSender(sessionManager, rocketMQTemplate, topic);
+            return new RocketMQWebSocketMessageSender(sessionManager, messageDispatcher, rocketMQTemplate, topic);
         }
 
         @Bean
@@ -138,9 +155,10 @@ public class YudaoWebSocketAutoConfiguration {
 
         @Bean
         public RabbitMQWebSocketMessageSender rabbitMQWebSocketMessageSender(
-                WebSocketSessionManager sessionManager, RabbitTemplate rabbitTemplate,
-                TopicExchange websocketTopicExchange) {
-            return new RabbitMQWebSocketMessageSender(sessionManager, rabbitTemplate, websocketTopicExchange);
+                WebSocketSessionManager sessionManager, WebSocketMessageDispatcher messageDispatcher,
+                RabbitTemplate rabbitTemplate, TopicExchange websocketTopicExchange) {
+            return new RabbitMQWebSocketMessageSender(sessionManager, messageDispatcher,
+                    rabbitTemplate, websocketTopicExchange);
         }
 
         @Bean
@@ -167,9 +185,10 @@ public class YudaoWebSocketAutoConfiguration {
 
         @Bean
         public KafkaWebSocketMessageSender kafkaWebSocketMessageSender(
-                WebSocketSessionManager sessionManager, KafkaTemplate<Object, Object> kafkaTemplate,
+                WebSocketSessionManager sessionManager, WebSocketMessageDispatcher messageDispatcher,
+                KafkaTemplate<Object, Object> kafkaTemplate,
                 @Value("${yudao.websocket.sender-kafka.topic}") String topic) {
-            return new KafkaWebSocketMessageSender(sessionManager, kafkaTemplate, topic);
+            return new KafkaWebSocketMessageSender(sessionManager, messageDispatcher, kafkaTemplate, topic);
         }
 
         @Bean
@@ -180,4 +199,32 @@ public class YudaoWebSocketAutoConfiguration {
 
     }
 
-}
\ No newline at end of file
+    // ==================== Metrics 相关 ====================
+
+    @Configuration
+    @ConditionalOnClass(name = "io.micrometer.core.instrument.MeterRegistry")
+    public class WebSocketMetricsConfiguration {
+
+        @Bean
+        public MeterBinder webSocketMeterBinder(WebSocketSessionManager sessionManager,
+                                                WebSocketMessageDispatcher messageDispatcher) {
+            WebSocketSendMetrics metrics = messageDispatcher.getMetrics();
+            return registry -> {
+                Gauge.builder("yudao.websocket.sessions", sessionManager, WebSocketSessionManager::getSessionCount)
+                        .description("当前连接的 Session 数").register(registry);
+                Gauge.builder("yudao.websocket.send.queue.depth", metrics, WebSocketSendMetrics::getQueueDepth)
+                        .description("所有 Session 发送队列中等待发送的消息数").register(registry);
+                Gauge.builder("yudao.websocket.send.pending.sessions", messageDispatcher, WebSocketMessageDispatcher::getPendingSessionCount)
+                        .description("等待发送线程调度的 Session 数").register(registry);
+                FunctionCounter.builder("yudao.websocket.send.sent", metrics, WebSocketSendMetrics::getSent)
+                        .description("发送成功的消息数").register(registry);
+                FunctionCounter.builder("yudao.websocket.send.dropped", metrics, WebSocketSendMetrics::getDropped)
+                        .description("丢弃的消息数").register(registry);
+                FunctionCounter.builder("yudao.websocket.send.evicted", metrics, WebSocketSendMetrics::getEvicted)
+                        .description("因为消费过慢被关闭的 Session 数").register(registry);
+            };
+        }
+
+    }
+
+}
@@ -10,10 +10,8 @@ import lombok.extern.slf4j.Slf4j;
 import org.springframework.web.socket.TextMessage;
 import org.springframework.web.socket.WebSocketSession;
 
-import java.io.IOException;
 import java.util.Collection;
 import java.util.Collections;
-import java.util.List;
 
 /**
  * WebSocketMessageSender 实现类
@@ -26,6 +24,8 @@ public abstract class AbstractWebSocketMessageSender implements WebSocketMessage
 
     private final WebSocketSessionManager sessionManager;
 
+    private final WebSocketMessageDispatcher messageDispatcher;
+
     @Override
     public void send(Integer userType, Long userId, String messageType, String messageContent) {
         send(null, userType, userId, messageType, messageContent);
@@ -52,16 +52,16 @@ public abstract class AbstractWebSocketMessageSender implements WebSocketMessage
      */
     public void send(String sessionId, Integer userType, Long userId, String messageType, String messageContent) {
         // 1. 获得 Session 列表
-        List<WebSocketSession> sessions = Collections.emptyList();
+        Collection<WebSocketSession> sessions = Collections.emptyList();
         if (StrUtil.isNotEmpty(sessionId)) {
             WebSocketSession session = sessionManager.getSession(sessionId);
             if (session != null) {
                 sessions = Collections.singletonList(session);
             }
         } else if (userType != null && userId != null) {
-            sessions = (List<WebSocketSession>) sessionManager.getSessionList(userType, userId);
+            sessions = sessionManager.getSessionList(userType, userId);
         } else if (userType != null) {
-            sessions = (List<WebSocketSession>) sessionManager.getSessionList(userType);
+            sessions = sessionManager.getSessionList(userType);
         }
         if (CollUtil.isEmpty(sessions)) {
             if (log.isDebugEnabled()) {
@@ -76,13 +76,18 @@ public abstract class AbstractWebSocketMessageSender implements WebSocketMessage
     /**
      * 发送消息的具体实现
      *
+     * 消息只序列化一次，所有 Session 共享同一个 {@link TextMessage}，由 {@link WebSocketMessageDispatcher} 异步发送
+     *
      * @param sessions Session 列表
      * @param messageType 消息类型
      * @param messageContent 消息内容
      */
     public void doSend(Collection<WebSocketSession> sessions, String messageType, String messageContent) {
+        if (CollUtil.isEmpty(sessions)) {
+            return;
+        }
         JsonWebSocketMessage message = new JsonWebSocketMessage().setType(messageType).setContent(messageContent);
-        String payload = JsonUtils.toJsonString(message); // 关键，使用 JSON 序列化
+        TextMessage textMessage = new TextMessage(JsonUtils.toJsonString(message)); // 关键，使用 JSON 序列化
         sessions.forEach(session -> {
             // 1. 各种校验，保证 Session 可以被发送
             if (session == null) {
@@ -90,16 +95,11 @@ public abstract class AbstractWebSocketMessageSender implements WebSocketMessage
                 return;
             }
             if (!session.isOpen()) {
-                log.error("[doSend][session({}) 已关闭, message({})]", session.getId(), message);
+                log.debug("[doSend][session({}) 已关闭, message({})]", session.getId(), message);
                 return;
             }
-            // 2. 执行发送
-            try {
-                session.sendMessage(new TextMessage(payload));
-                log.info("[doSend][session({}) 发送消息成功，message({})]", session.getId(), message);
-            } catch (IOException ex) {
-                log.error("[doSend][session({}) 发送消息失败，message({})]", session.getId(), message, ex);
-            }
+            // 2. 放入 Session 的发送队列
+            messageDispatcher.dispatch(session, textMessage);
         });
     }
 
@@ -0,0 +1,217 @@
+package cn.iocoder.yudao.framework.websocket.core.sender;
+
+import cn.hutool.core.thread.NamedThreadFactory;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.TextMessage;
+import org.springframework.web.socket.WebSocketSession;
+import org.springframework.web.socket.handler.SessionLimitExceededException;
+
+import java.io.IOException;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * WebSocket 消息的异步分发器
+ *
+ * 每个 Session 一个有界的发送队列，由共享线程池逐个 Session 串行发送，保证单个 Session 内消息有序，
+ * 调用方只负责入队，不会被慢连接阻塞。队列满了说明客户端消费过慢，直接关闭该 Session。
+ *
+ * @author 芋道源码
+ */
+@Slf4j
+public class WebSocketMessageDispatcher {
+
+    private static final String ATTRIBUTE_OUTBOUND = "WEBSOCKET_OUTBOUND";
+
+    /**
+     * 单次调度最多发送的消息数，发完后让出线程，避免单个 Session 长时间占用
+     */
+    private static final int DRAIN_BATCH_SIZE = 64;
+
+    /**
+     * 单个 Session 发送队列的上限
+     */
+    private final int queueCapacity;
+
+    private final ThreadPoolExecutor executor;
+
+    @Getter
+    private final WebSocketSendMetrics metrics = new WebSocketSendMetrics();
+
+    public WebSocketMessageDispatcher(int threads, int queueCapacity) {
+        this.queueCapacity = queueCapacity;
+        // 每个 Session 同一时刻最多只有一个任务在线程池中，所以任务队列的长度不会超过 Session 数
+        this.executor = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+                new LinkedBlockingQueue<>(), new NamedThreadFactory("websocket-sender-", true));
+    }
+
+    /**
+     * 将消息放入 Session 的发送队列
+     *
+     * @param session Session
+     * @param message 消息
+     */
+    public void dispatch(WebSocketSession session, TextMessage message) {
+        SessionOutbound outbound = (SessionOutbound) session.getAttributes()
+                .computeIfAbsent(ATTRIBUTE_OUTBOUND, key -> new SessionOutbound(session));
+        outbound.offer(message);
+    }
+
+    /**
+     * 当前线程池中等待调度的 Session 数
+     */
+    public int getPendingSessionCount() {
+        return executor.getQueue().size();
+    }
+
+    public void shutdown() {
+        executor.shutdown();
+    }
+
+    /**
+     * 单个 Session 的发送队列
+     */
+    private final class SessionOutbound implements Runnable {
+
+        private final WebSocketSession session;
+        private final Queue<TextMessage> queue = new ConcurrentLinkedQueue<>();
+        private final AtomicInteger size = new AtomicInteger();
+        /**
+         * 是否已经提交到线程池，保证同一个 Session 同时只有一个线程在发送
+         */
+        private final AtomicBoolean scheduled = new AtomicBoolean();
+        private final AtomicBoolean evicted = new AtomicBoolean();
+        private final AtomicBoolean closed = new AtomicBoolean();
+
+        private SessionOutbound(WebSocketSession session) {
+            this.session = session;
+        }
+
+        void offer(TextMessage message) {
+            if (evicted.get() || !session.isOpen()) {
+                metrics.onDropped(1);
+                return;
+            }
+            if (size.incrementAndGet() > queueCapacity) {
+                size.decrementAndGet();
+                metrics.onDropped(1);
+                evict("发送队列已满(" + queueCapacity + ")");
+                return;
+            }
+            queue.offer(message);
+            metrics.onEnqueued();
+            schedule();
+        }
+
+        @Override
+        public void run() {
+            try {
+                for (int i = 0; i < DRAIN_BATCH_SIZE && !evicted.get(); i++) {
+                    TextMessage message = queue.poll();
+                    if (message == null) {
+                        break;
+                    }
+                    size.decrementAndGet();
+                    metrics.onDequeued(1);
+                    send(message);
+                }
+                if (evicted.get()) {
+                    // 连接已由 evict 关闭，丢弃关闭前后竞争入队的剩余消息
+                    discard();
+                }
+            } finally {
+                scheduled.set(false);
+            }
+            // 释放 scheduled 之前可能有新消息入队，需要重新调度
+            if (!queue.isEmpty() && !evicted.get()) {
+                schedule();
+            }
+        }
+
+        private void schedule() {
+            if (!scheduled.compareAndSet(false, true)) {
+                return;
+            }
+            try {
+                executor.execute(this);
+            } catch (RejectedExecutionException ex) {
+                // 线程池已经关闭，应用正在停止
+                scheduled.set(false);
+                discard();
+            }
+        }
+
+        private void send(TextMessage message) {
+            if (!session.isOpen()) {
+                metrics.onDropped(1);
+                return;
+            }
+            try {
+                session.sendMessage(message);
+                metrics.onSent();
+                if (log.isDebugEnabled()) {
+                    log.debug("[send][session({}) 发送消息成功，message({})]", session.getId(), message.getPayload());
+                }
+            } catch (SessionLimitExceededException ex) {
+                // ConcurrentWebSocketSessionDecorator 超过发送时间或缓冲上限
+                metrics.onDropped(1);
+                evict(ex.getMessage());
+            } catch (IOException | RuntimeException ex) {
+                metrics.onDropped(1);
+                log.error("[send][session({}) 发送消息失败]", session.getId(), ex);
+            }
+        }
+
+        /**
+         * 标记为慢消费者，并在当前线程直接关闭底层连接
+         *
+         * 发送线程可能正阻塞在慢客户端的 sendMessage 上，等它自己检查标记永远等不到；
+         * 关闭连接会让阻塞的发送以异常返回，线程随之释放
+         */
+        private void evict(String reason) {
+            if (!evicted.compareAndSet(false, true)) {
+                return;
+            }
+            metrics.onEvicted();
+            log.warn("[evict][session({}) 消费过慢，关闭连接：{}]", session.getId(), reason);
+            close();
+        }
+
+        private void close() {
+            if (!closed.compareAndSet(false, true)) {
+                return;
+            }
+            discard();
+            if (!session.isOpen()) {
+                return;
+            }
+            try {
+                session.close(CloseStatus.SESSION_NOT_RELIABLE);
+            } catch (IOException ex) {
+                log.warn("[close][session({}) 关闭失败]", session.getId(), ex);
+            }
+        }
+
+        private void discard() {
+            int count = 0;
+            while (queue.poll() != null) {
+                count++;
+            }
+            if (count > 0) {
+                size.addAndGet(-count);
+                metrics.onDequeued(count);
+                metrics.onDropped(count);
+            }
+        }
+
+    }
+
+}
@@ -0,0 +1,66 @@
+package cn.iocoder.yudao.framework.websocket.core.sender;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * WebSocket 发送的统计数据，由 {@link WebSocketMessageDispatcher} 维护
+ *
+ * @author 芋道源码
+ */
+public class WebSocketSendMetrics {
+
+    /**
+     * 所有 Session 发送队列中等待发送的消息数
+     */
+    private final AtomicLong queueDepth = new AtomicLong();
+    /**
+     * 发送成功的消息数
+     */
+    private final LongAdder sent = new LongAdder();
+    /**
+     * 丢弃的消息数：Session 已关闭、队列已满、发送失败
+     */
+    private final LongAdder dropped = new LongAdder();
+    /**
+     * 因为消费过慢而被关闭的 Session 数
+     */
+    private final LongAdder evicted = new LongAdder();
+
+    void onEnqueued() {
+        queueDepth.incrementAndGet();
+    }
+
+    void onDequeued(int count) {
+        queueDepth.addAndGet(-count);
+    }
+
+    void onSent() {
+        sent.increment();
+    }
+
+    void onDropped(int count) {
+        dropped.add(count);
+    }
+
+    void onEvicted() {
+        evicted.increment();
+    }
+
+    public long getQueueDepth() {
+        return queueDepth.get();
+    }
+
+    public long getSent() {
+        return sent.sum();
+    }
+
+    public long getDropped() {
+        return dropped.sum();
+    }
+
+    public long getEvicted() {
+        return evicted.sum();
+    }
+
+}
@@ -1,6 +1,7 @@
 package cn.iocoder.yudao.framework.websocket.core.sender.local;
 
 import cn.iocoder.yudao.framework.websocket.core.sender.AbstractWebSocketMessageSender;
+import cn.iocoder.yudao.framework.websocket.core.sender.WebSocketMessageDispatcher;
 import cn.iocoder.yudao.framework.websocket.core.sender.WebSocketMessageSender;
 import cn.iocoder.yudao.framework.websocket.core.session.WebSocketSessionManager;
 
@@ -13,8 +14,9 @@ import cn.iocoder.yudao.framework.websocket.core.session.WebSocketSessionManager
  */
 public class LocalWebSocketMessageSender extends AbstractWebSocketMessageSender {
 
-    public LocalWebSocketMessageSender(WebSocketSessionManager sessionManager) {
-        super(sessionManager);
+    public LocalWebSocketMessageSender(WebSocketSessionManager sessionManager,
+                                       WebSocketMessageDispatcher messageDispatcher) {
+        super(sessionManager, messageDispatcher);
     }
 
 }
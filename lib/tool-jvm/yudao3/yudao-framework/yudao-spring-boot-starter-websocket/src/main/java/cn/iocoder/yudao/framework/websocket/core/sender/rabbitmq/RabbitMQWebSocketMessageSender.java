@@ -1,6 +1,7 @@
 package cn.iocoder.yudao.framework.websocket.core.sender.rabbitmq;
 
 import cn.iocoder.yudao.framework.websocket.core.sender.AbstractWebSocketMessageSender;
+import cn.iocoder.yudao.framework.websocket.core.sender.WebSocketMessageDispatcher;
 import cn.iocoder.yudao.framework.websocket.core.sender.WebSocketMessageSender;
 import cn.iocoder.yudao.framework.websocket.core.session.WebSocketSessionManager;
 import lombok.extern.slf4j.Slf4j;
@@ -20,9 +21,10 @@ public class RabbitMQWebSocketMessageSender extends AbstractWebSocketMessageSend
     private final TopicExchange topicExchange;
 
     public RabbitMQWebSocketMessageSender(WebSocketSessionManager sessionManager,
+                                          WebSocketMessageDispatcher messageDispatcher,
                                           RabbitTemplate rabbitTemplate,
                                           TopicExchange topicExchange) {
-        super(sessionManager);
+        super(sessionManager, messageDispatcher);
         this.rabbitTemplate = rabbitTemplate;
         this.topicExchange = topicExchange;
     }
@@ -1,6 +1,7 @@
 package cn.iocoder.yudao.framework.websocket.core.sender.rocketmq;
 
 import cn.iocoder.yudao.framework.websocket.core.sender.AbstractWebSocketMessageSender;
+import cn.iocoder.yudao.framework.websocket.core.sender.WebSocketMessageDispatcher;
 import cn.iocoder.yudao.framework.websocket.core.sender.WebSocketMessageSender;
 import cn.iocoder.yudao.framework.websocket.core.session.WebSocketSessionManager;
 import lombok.extern.slf4j.Slf4j;
@@ -19,9 +20,10 @@ public class RocketMQWebSocketMessageSender extends AbstractWebSocketMessageSend
     private final String topic;
 
     public RocketMQWebSocketMessageSender(WebSocketSessionManager sessionManager,
+                                          WebSocketMessageDispatcher messageDispatcher,
                                           RocketMQTemplate rocketMQTemplate,
                                           String topic) {
-        super(sessionManager);
+        super(sessionManager, messageDispatcher);
         this.rocketMQTemplate = rocketMQTemplate;
         this.topic = topic;
     }
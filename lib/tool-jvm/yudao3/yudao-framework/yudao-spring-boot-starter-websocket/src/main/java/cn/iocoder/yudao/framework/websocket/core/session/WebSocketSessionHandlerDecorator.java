@@ -27,16 +27,28 @@ public class WebSocketSessionHandlerDecorator extends WebSocketHandlerDecorator
 
     private final WebSocketSessionManager sessionManager;
 
+    private final int sendTimeLimit;
+    private final int bufferSizeLimit;
+
     public WebSocketSessionHandlerDecorator(WebSocketHandler delegate,
                                             WebSocketSessionManager sessionManager) {
+        this(delegate, sessionManager, SEND_TIME_LIMIT, BUFFER_SIZE_LIMIT);
+    }
+
+    public WebSocketSessionHandlerDecorator(WebSocketHandler delegate,
+                                            WebSocketSessionManager sessionManager,
+                                            int sendTimeLimit, int bufferSizeLimit) {
         super(delegate);
         this.sessionManager = sessionManager;
+        this.sendTimeLimit = sendTimeLimit;
+        this.bufferSizeLimit = bufferSizeLimit;
     }
 
     @Override
     public void afterConnectionEstablished(WebSocketSession session) {
         // 实现 session 支持并发，可参考 https://blog.csdn.net/abu935009066/article/details/131218149
-        session = new ConcurrentWebSocketSessionDecorator(session, SEND_TIME_LIMIT, BUFFER_SIZE_LIMIT);
+        // 超过发送时间或缓冲上限时，ConcurrentWebSocketSessionDecorator 默认会关闭 session，避免慢消费者拖垮发送方
+        session = new ConcurrentWebSocketSessionDecorator(session, sendTimeLimit, bufferSizeLimit);
         // 添加到 WebSocketSessionManager 中
         sessionManager.addSession(session);
     }
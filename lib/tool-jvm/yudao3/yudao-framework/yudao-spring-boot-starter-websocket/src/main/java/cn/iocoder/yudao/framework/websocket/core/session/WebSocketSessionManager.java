@@ -50,4 +50,11 @@ public interface WebSocketSessionManager {
      */
     Collection<WebSocketSession> getSessionList(Integer userType, Long userId);
 
+    /**
+     * 获得当前连接的 Session 数量
+     *
+     * @return Session 数量
+     */
+    int getSessionCount();
+
 }
\ No newline at end of file
@@ -8,8 +8,8 @@ import org.springframework.web.socket.WebSocketSession;
 
 import java.util.ArrayList;
 import java.util.Collection;
-import java.util.LinkedList;
 import java.util.List;
+import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.CopyOnWriteArrayList;
@@ -21,6 +21,11 @@ import java.util.concurrent.CopyOnWriteArrayList;
  */
 public class WebSocketSessionManagerImpl implements WebSocketSessionManager {
 
+    /**
+     * 未开启多租户时，{@link #tenantSessions} 使用的租户编号
+     */
+    private static final Long TENANT_ID_NONE = -1L;
+
     /**
      * id 与 WebSocketSession 映射
      *
@@ -37,6 +42,16 @@ public class WebSocketSessionManagerImpl implements WebSocketSessionManager {
     private final ConcurrentMap<Integer, ConcurrentMap<Long, CopyOnWriteArrayList<WebSocketSession>>> userSessions
             = new ConcurrentHashMap<>();
 
+    /**
+     * tenant 与 WebSocketSession 映射，按用户类型广播时直接定位到当前租户，不再逐个用户比对租户
+     *
+     * key1：用户类型
+     * key2：租户编号
+     * key3：Session 编号
+     */
+    private final ConcurrentMap<Integer, ConcurrentMap<Long, ConcurrentMap<String, WebSocketSession>>> tenantSessions
+            = new ConcurrentHashMap<>();
+
     @Override
     public void addSession(WebSocketSession session) {
         // 添加到 idSessions 中
@@ -46,40 +61,49 @@ public class WebSocketSessionManagerImpl implements WebSocketSessionManager {
         if (user == null) {
             return;
         }
-        ConcurrentMap<Long, CopyOnWriteArrayList<WebSocketSession>> userSessionsMap = userSessions.get(user.getUserType());
-        if (userSessionsMap == null) {
-            userSessionsMap = new ConcurrentHashMap<>();
-            if (userSessions.putIfAbsent(user.getUserType(), userSessionsMap) != null) {
-                userSessionsMap = userSessions.get(user.getUserType());
-            }
-        }
-        CopyOnWriteArrayList<WebSocketSession> sessions = userSessionsMap.get(user.getId());
-        if (sessions == null) {
-            sessions = new CopyOnWriteArrayList<>();
-            if (userSessionsMap.putIfAbsent(user.getId(), sessions) != null) {
-                sessions = userSessionsMap.get(user.getId());
-            }
-        }
-        sessions.add(session);
+        // 与 removeSession 一样在 compute 中修改内层集合，避免加入一个刚被移除的空集合
+        userSessions.computeIfAbsent(user.getUserType(), key -> new ConcurrentHashMap<>())
+                .compute(user.getId(), (userId, sessions) -> {
+                    if (sessions == null) {
+                        sessions = new CopyOnWriteArrayList<>();
+                    }
+                    sessions.add(session);
+                    return sessions;
+                });
+        // 添加到 tenantSessions 中
+        tenantSessions.computeIfAbsent(user.getUserType(), key -> new ConcurrentHashMap<>())
+                .compute(tenantKey(user.getTenantId()), (tenantId, sessions) -> {
+                    if (sessions == null) {
+                        sessions = new ConcurrentHashMap<>();
+                    }
+                    sessions.put(session.getId(), session);
+                    return sessions;
+                });
     }
 
     @Override
     public void removeSession(WebSocketSession session) {
         // 移除从 idSessions 中
         idSessions.remove(session.getId());
-        // 移除从 idSessions 中
+        // 移除从 userSessions 中
         LoginUser user = WebSocketFrameworkUtils.getLoginUser(session);
         if (user == null) {
             return;
         }
         ConcurrentMap<Long, CopyOnWriteArrayList<WebSocketSession>> userSessionsMap = userSessions.get(user.getUserType());
-        if (userSessionsMap == null) {
-            return;
+        if (userSessionsMap != null) {
+            userSessionsMap.computeIfPresent(user.getId(), (userId, sessions) -> {
+                sessions.removeIf(session0 -> session0.getId().equals(session.getId()));
+                return sessions.isEmpty() ? null : sessions;
+            });
         }
-        CopyOnWriteArrayList<WebSocketSession> sessions = userSessionsMap.get(user.getId());
-        sessions.removeIf(session0 -> session0.getId().equals(session.getId()));
-        if (CollUtil.isEmpty(sessions)) {
-            userSessionsMap.remove(user.getId(), sessions);
+        // 移除从 tenantSessions 中
+        ConcurrentMap<Long, ConcurrentMap<String, WebSocketSession>> tenantSessionsMap = tenantSessions.get(user.getUserType());
+        if (tenantSessionsMap != null) {
+            tenantSessionsMap.computeIfPresent(tenantKey(user.getTenantId()), (tenantId, sessions) -> {
+                sessions.remove(session.getId());
+                return sessions.isEmpty() ? null : sessions;
+            });
         }
     }
 
@@ -90,25 +114,18 @@ public class WebSocketSessionManagerImpl implements WebSocketSessionManager {
 
     @Override
     public Collection<WebSocketSession> getSessionList(Integer userType) {
-        ConcurrentMap<Long, CopyOnWriteArrayList<WebSocketSession>> userSessionsMap = userSessions.get(userType);
-        if (CollUtil.isEmpty(userSessionsMap)) {
+        ConcurrentMap<Long, ConcurrentMap<String, WebSocketSession>> tenantSessionsMap = tenantSessions.get(userType);
+        if (CollUtil.isEmpty(tenantSessionsMap)) {
             return new ArrayList<>();
         }
-        LinkedList<WebSocketSession> result = new LinkedList<>(); // 避免扩容
+        // 特殊：如果有租户上下文，只返回该租户的 Session
         Long contextTenantId = TenantContextHolder.getTenantId();
-        for (List<WebSocketSession> sessions : userSessionsMap.values()) {
-            if (CollUtil.isEmpty(sessions)) {
-                continue;
-            }
-            // 特殊：如果租户不匹配，则直接排除
-            if (contextTenantId != null) {
-                Long userTenantId = WebSocketFrameworkUtils.getTenantId(sessions.get(0));
-                if (!contextTenantId.equals(userTenantId)) {
-                    continue;
-                }
-            }
-            result.addAll(sessions);
+        if (contextTenantId != null) {
+            Map<String, WebSocketSession> sessions = tenantSessionsMap.get(contextTenantId);
+            return CollUtil.isNotEmpty(sessions) ? new ArrayList<>(sessions.values()) : new ArrayList<>();
         }
+        List<WebSocketSession> result = new ArrayList<>();
+        tenantSessionsMap.values().forEach(sessions -> result.addAll(sessions.values()));
         return result;
     }
 
@@ -122,4 +139,13 @@ public class WebSocketSessionManagerImpl implements WebSocketSessionManager {
         return CollUtil.isNotEmpty(sessions) ? new ArrayList<>(sessions) : new ArrayList<>();
     }
 
+    @Override
+    public int getSessionCount() {
+        return idSessions.size();
+    }
+
+    private static Long tenantKey(Long tenantId) {
+        return tenantId != null ? tenantId : TENANT_ID_NONE;
+    }
+
 }
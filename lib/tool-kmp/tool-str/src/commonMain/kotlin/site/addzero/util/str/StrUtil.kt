@@ -23,8 +23,43 @@ fun String?.cleanBlank(): String {
   val value = this ?: return ""
   if (value.isEmpty()) return ""
 
-  return value.trim().replace(Regex("\\s+"), " ") // 将连续的空白字符替换为单个空格
-    .filter { it.isDefined() } // 移除不可见字符
+  val trimmed = value.trim()
+  val sb = StringBuilder(trimmed.length)
+  var inBlank = false
+  for (c in trimmed) {
+    if (c.isRegexWhitespace()) {
+      // 将连续的空白字符替换为单个空格
+      if (!inBlank) {
+        sb.append(' ')
+        inBlank = true
+      }
+      continue
+    }
+    inBlank = false
+    // 移除不可见字符
+    if (c.isDefined()) {
+      sb.append(c)
+    }
+  }
+  return sb.toString()
+}
+
+/**
+ * 与正则 `\s` 相同的空白字符：空格、\t、\n、\u000B、\f、\r
+ */
+private fun Char.isRegexWhitespace(): Boolean {
+  return this == ' ' || this in '\t'..'\r'
+}
+
+/**
+ * 去除首尾空白后转为字符串，与 [String.trim] 的结果一致，但只复制一次
+ */
+private fun StringBuilder.trimToString(): String {
+  var start = 0
+  var end = length
+  while (start < end && this[start].isWhitespace()) start++
+  while (end > start && this[end - 1].isWhitespace()) end--
+  return substring(start, end)
 }
 
 /**
@@ -174,10 +209,22 @@ fun String.containsAnyIgnoreCase(vararg substrings: String): Boolean {
 fun String.toBigCamelCase(): String {
   if (isEmpty()) return this
 
-  // 支持下划线、中划线、空格分隔
-  return this.split(Regex("[_\\-\\s]+")).filter { it.isNotEmpty() }.joinToString("") {
-    it.replaceFirstChar { char -> char.uppercase() }
+  // 支持下划线、中划线、空格分隔，每个单词首字母大写
+  val sb = StringBuilder(length)
+  var wordStart = true
+  for (c in this) {
+    if (c == '_' || c == '-' || c.isRegexWhitespace()) {
+      wordStart = true
+      continue
+    }
+    if (wordStart) {
+      sb.append(c.uppercase())
+      wordStart = false
+    } else {
+      sb.append(c)
+    }
   }
+  return sb.toString()
 }
 
 /**
@@ -193,25 +240,49 @@ fun String.toBigCamelCase(): String {
 fun String.toLowCamelCase(): String {
   if (isEmpty()) return this
 
+  var hasSeparator = false
+  var hasUpperCase = false
+  for (c in this) {
+    if (c.isLowCamelSeparator()) {
+      hasSeparator = true
+    } else if (c.isUpperCase()) {
+      hasUpperCase = true
+    }
+  }
+
   // 如果没有分隔符（. _ - 空格），检查是否是已经是小驼峰
-  if (!this.contains(Regex("[._\\-\\s]"))) {
+  if (!hasSeparator) {
     // 已经是小驼峰（首字母小写且包含大写），直接返回
-    if (this[0].isLowerCase() && this.any { it.isUpperCase() }) {
+    if (this[0].isLowerCase() && hasUpperCase) {
       return this
     }
-    // 已经是大驼峰（首字母大写且包含大写），转为小驼峰
-    if (this[0].isUpperCase() && this.any { it.isUpperCase() }) {
+    // 已经是大驼峰（首字母大写），转为小驼峰
+    if (this[0].isUpperCase()) {
       return this.replaceFirstChar { it.lowercase() }
     }
   }
 
-  // 支持下划线、中划线、空格、点分隔
-  val words = this.split(Regex("[_\\-\\s.]+")).filter { it.isNotEmpty() }
-  if (words.isEmpty()) return this
-
-  return words.first() + words.drop(1).joinToString("") {
-    it.replaceFirstChar { char -> char.uppercase() }
+  // 支持下划线、中划线、空格、点分隔：第一个单词原样保留，其余单词首字母大写
+  val sb = StringBuilder(length)
+  var wordStart = true
+  for (c in this) {
+    if (c.isLowCamelSeparator()) {
+      wordStart = true
+      continue
+    }
+    if (wordStart && sb.isNotEmpty()) {
+      sb.append(c.uppercase())
+    } else {
+      sb.append(c)
+    }
+    wordStart = false
   }
+  if (sb.isEmpty()) return this
+  return sb.toString()
+}
+
+private fun Char.isLowCamelSeparator(): Boolean {
+  return this == '.' || this == '_' || this == '-' || this.isRegexWhitespace()
 }
 
 infix fun String.ignoreCaseLike(other: String): Boolean {
@@ -226,8 +297,12 @@ fun CharSequence?.containsChinese(): Boolean {
   if (value.isEmpty()) {
     return false
   }
-  val containsMatchIn = Regex("[\\u4e00-\\u9fa5]").containsMatchIn(value)
-  return containsMatchIn
+  for (c in value) {
+    if (c in '\u4e00'..'\u9fa5') {
+      return true
+    }
+  }
+  return false
 }
 
 fun join(split: String, vararg testStrs: CharSequence): String {
@@ -282,7 +357,7 @@ fun CharSequence.removeBlankOrQuotation(): String {
 }
 
 fun String.toUnderLineCase(): String {
-  val sb = StringBuilder()
+  val sb = StringBuilder(length + (length shr 2))
   for ((index, char) in this.withIndex()) {
     if (index > 0 && char.isUpperCase()) {
       sb.append('_')
@@ -308,7 +383,24 @@ fun String.toUnderlineLowerCase(): String {
   return this.toUnderLineCase().lowercase()
 }
 
-fun CharSequence.isNumber(): Boolean = matches(Regex("""^-?\d*\.?\d+$"""))
+/**
+ * 是否为数字，等价于正则 `^-?\d*\.?\d+$`：可选负号、最多一个小数点，小数点后必须有数字
+ */
+fun CharSequence.isNumber(): Boolean {
+  val start = if (isNotEmpty() && this[0] == '-') 1 else 0
+  if (start >= length) return false
+  var dotIndex = -1
+  for (i in start until length) {
+    val c = this[i]
+    if (c == '.') {
+      if (dotIndex >= 0) return false
+      dotIndex = i
+    } else if (c !in '0'..'9') {
+      return false
+    }
+  }
+  return dotIndex != length - 1
+}
 
 fun String.equalsIgnoreCase(string: String): Boolean {
   val equals = this.equals(string, true)
@@ -465,21 +557,37 @@ fun toValidVariableName(
   }
 
   // 1. 清理特殊字符，只保留字母、数字、空格、下划线、中划线
-  var result = input.replace(Regex("[^a-zA-Z0-9\\s_-]"), "")
+  // 2. 分词处理（按空格、下划线、中划线分割），一次扫描完成；数字开头时补的下划线会在分词时去掉，这里直接省略
+  val words = ArrayList<String>()
+  val word = StringBuilder(input.length)
+  var hasContent = false
+  for (c in input) {
+    when {
+      c in 'a'..'z' || c in 'A'..'Z' || c in '0'..'9' -> {
+        word.append(c)
+        hasContent = true
+      }
 
-  if (result.isBlank()) {
-    return input
+      c == '_' || c == '-' || c.isRegexWhitespace() -> {
+        if (c == '_' || c == '-') hasContent = true
+        if (word.isNotEmpty()) {
+          words.add(word.toString().lowercase())
+          word.setLength(0)
+        }
+      }
+    }
   }
-  // 2. 处理数字开头的情况
-  if (result.first().isDigit()) {
-    result = "_$result"
+  if (word.isNotEmpty()) {
+    words.add(word.toString().lowercase())
   }
 
-  // 3. 分词处理（按空格、下划线、中划线分割）
-  val words = result.split(Regex("[\\s_-]+")).filter { it.isNotBlank() }.map { it.lowercase() }
+  // 清理后只剩空白，返回原字符串
+  if (!hasContent) {
+    return input
+  }
 
-  // 4. 根据类型格式化
-  result = when (type) {
+  // 3. 根据类型格式化
+  var result = when (type) {
     VariableType.CONSTANT -> {
       words.joinToString("_") { it.uppercase() }
     }
@@ -501,7 +609,7 @@ fun toValidVariableName(
     }
   }
 
-  // 5. 添加前缀和后缀
+  // 4. 添加前缀和后缀
   if (prefix.isNotBlank()) {
     result = when (type) {
       VariableType.CONSTANT -> "${prefix.uppercase()}_$result"
@@ -633,16 +741,24 @@ fun extractTextBetweenPTags(input: String?): List<String> {
 fun cleanDocComment(docComment: String?): String {
   if (docComment == null) return ""
 
-  // 使用正则表达式去除注释符号和多余空格
-  val trim = docComment.replace(Regex("""/\*\*?"""), "")  // 去除开头的 /* 或 /**
-    .replace(Regex("""\*"""), "")      // 去除行内的 *
-    .replace(Regex("""\*/"""), "")     // 去除结尾的 */
-    .replace(Regex("""/"""), "")     // 去除结尾的 */
-    .replace(Regex("""\n"""), " ")      // 将换行替换为空格
-    .replace(Regex("""\s+"""), " ")    // 合并多个空格为一个
-    .trim()
+  // 一次扫描：去除所有 * 和 /（包括 /**、*/ 和行内的 *），换行和连续空白合并为一个空格
+  val sb = StringBuilder(docComment.length)
+  var inBlank = false
+  for (c in docComment) {
+    when {
+      c == '*' || c == '/' -> Unit
+      c.isRegexWhitespace() -> if (!inBlank) {
+        sb.append(' ')
+        inBlank = true
+      }
 
-  return trim                             // 去除首尾空格
+      else -> {
+        sb.append(c)
+        inBlank = false
+      }
+    }
+  }
+  return sb.trimToString()                // 去除首尾空格
 }
 
 /**
@@ -741,16 +857,31 @@ fun String.escapeSpecialCharacters(): String {
 fun String.toKebabCase(): String {
   if (isEmpty()) return this
 
-  // 使用正则表达式处理驼峰命名和下划线分隔
-  return replace(Regex("(?<!^)([A-Z])"), "-$1")
-    // 将下划线和空格替换为连字符
-    .replace(Regex("[_\\s]+"), "-")
-    // 转换为小写
-    .lowercase()
-    // 移除多余的连字符
-    .replace(Regex("-{2,}"), "-")
-    // 移除开头和结尾的连字符
-    .trim('-')
+  // 一次扫描：非首字母的大写字母前加连字符，下划线和空格替换为连字符，连续的连字符只保留一个，不保留开头的连字符
+  val sb = StringBuilder(length + (length shr 1))
+  for ((index, c) in withIndex()) {
+    when {
+      c == '_' || c == '-' || c.isRegexWhitespace() -> sb.appendHyphen()
+      c in 'A'..'Z' -> {
+        if (index > 0) sb.appendHyphen()
+        sb.append(c)
+      }
+
+      else -> sb.append(c)
+    }
+  }
+  // 移除结尾的连字符
+  if (sb.isNotEmpty() && sb[sb.length - 1] == '-') {
+    sb.setLength(sb.length - 1)
+  }
+  // 转换为小写。整体转换而不是逐个字符转换，与 String.lowercase 的结果保持一致
+  return sb.toString().lowercase()
+}
+
+private fun StringBuilder.appendHyphen() {
+  if (isNotEmpty() && this[length - 1] != '-') {
+    append('-')
+  }
 }
 
 fun String.makeSurroundWithBrackets(): String {
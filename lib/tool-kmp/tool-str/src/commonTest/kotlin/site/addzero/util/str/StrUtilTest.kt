@@ -2,6 +2,7 @@ package site.addzero.util.str
 
 import kotlin.test.Test
 import kotlin.test.assertEquals
+import kotlin.test.assertFalse
 import kotlin.test.assertTrue
 
 class StrUtilTest {
@@ -487,4 +488,120 @@ class StrUtilTest {
     val negFloat = "Negative float: %.2f".format(-3.14)
     assertTrue(negFloat == "Negative float: -3.14" || negFloat == "Negative float: -3.-1" || negFloat == "Negative float: -3.13", "Got: $negFloat")
   }
+
+  // ===== 以下为去正则改写后的回归用例，参照实现即改写前的正则版本 =====
+
+  private val identifierCorpus = listOf(
+    "", "a", "A", "abc", "helloWorld", "HelloWorld", "hello_world", "hello world", "HELLO_WORLD",
+    "aBc", "XMLHttpRequest", "userID2Name", "-leading", "trailing-", "a--b", "a__b", "a - b",
+    "_Private", "x\ty", "line\nbreak", "  padded  ", "__", "--", "...", "jimmer.dto.dirs",
+  )
+
+  @Test
+  fun testCleanBlankRegression() {
+    assertEquals("", (null as String?).cleanBlank())
+    assertEquals("", "".cleanBlank())
+    assertEquals("a b", "  a \t\n b  ".cleanBlank())
+    assertEquals("a b c", "a\r\n\u000Bb\u000Cc".cleanBlank())
+    // 未定义的字符被移除
+    assertEquals("ab", "a\u0378b".cleanBlank())
+    for (input in identifierCorpus) {
+      val expected = input.trim().replace(Regex("\\s+"), " ").filter { it.isDefined() }
+      assertEquals(expected, input.cleanBlank(), "cleanBlank(\"$input\")")
+    }
+  }
+
+  @Test
+  fun testCamelCaseSeparatorsRegression() {
+    assertEquals("HelloWorld", "\thello\nworld".toBigCamelCase())
+    assertEquals("HelloWorld", "_hello_world_".toBigCamelCase())
+    assertEquals("", "__".toBigCamelCase())
+    assertEquals("", "- -".toBigCamelCase())
+
+    assertEquals("helloWorld", "_hello_world".toLowCamelCase())
+    assertEquals("helloWorld", "hello\r\nworld".toLowCamelCase())
+    assertEquals("hello", "hello.".toLowCamelCase())
+    // 只有分隔符时原样返回
+    assertEquals("...", "...".toLowCamelCase())
+    assertEquals("hELLO", "HELLO".toLowCamelCase())
+
+    for (input in identifierCorpus) {
+      val big = input.split(Regex("[_\\-\\s]+")).filter { it.isNotEmpty() }.joinToString("") {
+        it.replaceFirstChar { char -> char.uppercase() }
+      }
+      assertEquals(big, input.toBigCamelCase(), "toBigCamelCase(\"$input\")")
+    }
+  }
+
+  @Test
+  fun testToKebabCaseRegression() {
+    assertEquals("hello-world", "helloWorld".toKebabCase())
+    assertEquals("x-m-l-http-request", "XMLHttpRequest".toKebabCase())
+    assertEquals("leading", "-leading".toKebabCase())
+    assertEquals("a-b", "a - b".toKebabCase())
+    assertEquals("private", "_Private".toKebabCase())
+    for (input in identifierCorpus) {
+      assertEquals(input.toKebabCaseFirstImpl(), input.toKebabCase(), "toKebabCase(\"$input\")")
+    }
+  }
+
+  @Test
+  fun testContainsChineseRegression() {
+    assertFalse((null as CharSequence?).containsChinese())
+    assertFalse("".containsChinese())
+    assertFalse("abc".containsChinese())
+    assertTrue("ab中c".containsChinese())
+    assertTrue("\u4e00".containsChinese())
+    assertTrue("\u9fa5".containsChinese())
+    assertFalse("\u9fa6".containsChinese())
+    assertFalse("，。".containsChinese())
+  }
+
+  @Test
+  fun testIsNumberRegression() {
+    val regex = Regex("""^-?\d*\.?\d+$""")
+    val corpus = listOf(
+      "0", "42", "-1", "1.5", "-.5", ".5", "5.", "-", "", ".", "-.", "1.2.3", "--1", "1a", "-0.0", "+1", " 1", "1e5",
+    )
+    for (input in corpus) {
+      assertEquals(regex.matches(input), input.isNumber(), "isNumber(\"$input\")")
+    }
+    assertTrue("-0.25".isNumber())
+    assertFalse("5.".isNumber())
+  }
+
+  @Test
+  fun testCleanDocCommentRegression() {
+    assertEquals("", cleanDocComment(null))
+    assertEquals("hello", cleanDocComment("/** hello */"))
+    assertEquals("line1 line2", cleanDocComment("/**\n * line1\n * line2\n */"))
+    assertEquals("ab c", cleanDocComment("  a/b*  c  "))
+    val corpus = listOf("/* x */", "/**\r\n\t* tabbed\r\n */", "no comment", "*/", "", "a\n\nb")
+    for (input in corpus) {
+      val expected = input.replace(Regex("""/\*\*?"""), "")
+        .replace(Regex("""\*"""), "")
+        .replace(Regex("""/"""), "")
+        .replace(Regex("""\s+"""), " ")
+        .trim()
+      assertEquals(expected, cleanDocComment(input), "cleanDocComment(\"$input\")")
+    }
+  }
+
+  @Test
+  fun testToValidVariableNameRegression() {
+    assertEquals("", toValidVariableName("   "))
+    assertEquals("__123", toValidVariableName("123"))
+    assertEquals("userName", toValidVariableName("user name"))
+    assertEquals("UserNameId", toValidVariableName("User-Name_id", VariableType.PASCAL_CASE))
+    assertEquals("MAX_VALUE", toValidVariableName("max value", VariableType.CONSTANT))
+    assertEquals("hello_world", toValidVariableName("Hello World!", VariableType.SNAKE_CASE))
+    assertEquals("hello-world", toValidVariableName("Hello\tWorld", VariableType.KEBAB_CASE))
+    // 数字开头补的下划线在分词时被去掉
+    assertEquals("2ndItem", toValidVariableName("2nd item"))
+    // 清理后只剩空白时返回原字符串
+    assertEquals("中文", toValidVariableName("中文"))
+    assertEquals("name", toValidVariableName("中文 name"))
+    assertEquals("getUserName", toValidVariableName("user name", prefix = "get"))
+    assertEquals("MAX_VALUE_LIMIT", toValidVariableName("max value", VariableType.CONSTANT, suffix = "limit"))
+  }
 }
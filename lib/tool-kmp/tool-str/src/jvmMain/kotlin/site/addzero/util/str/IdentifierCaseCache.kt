@@ -0,0 +1,77 @@
+package site.addzero.util.str
+
+import java.util.concurrent.ConcurrentHashMap
+
+/**
+ * 标识符转换结果的缓存。
+ *
+ * 字段名、列名这类标识符的取值有限，却会被反复转换，适合按输入缓存结果。
+ * 超过 [maxSize] 后整体清空，避免输入不受控时无限增长。
+ *
+ * @param maxSize 最多缓存的条目数。
+ * @param converter 转换函数。
+ */
+class IdentifierCaseCache(
+    private val maxSize: Int = DEFAULT_MAX_SIZE,
+    private val converter: (String) -> String,
+) {
+
+    private val cache = ConcurrentHashMap<String, String>()
+
+    /**
+     * 转换标识符，命中缓存时直接返回。
+     *
+     * @param input 输入字符串。
+     */
+    fun convert(input: String): String {
+        cache[input]?.let { return it }
+        val result = converter(input)
+        if (cache.size >= maxSize) {
+            cache.clear()
+        }
+        cache[input] = result
+        return result
+    }
+
+    /**
+     * 清空缓存。
+     */
+    fun clear() {
+        cache.clear()
+    }
+
+    companion object {
+        const val DEFAULT_MAX_SIZE = 4096
+    }
+}
+
+private val LOW_CAMEL_CASE_CACHE = IdentifierCaseCache { it.toLowCamelCase() }
+private val BIG_CAMEL_CASE_CACHE = IdentifierCaseCache { it.toBigCamelCase() }
+private val UNDERLINE_LOWER_CASE_CACHE = IdentifierCaseCache { it.toUnderlineLowerCase() }
+private val CAMEL_CASE_CACHE = IdentifierCaseCache { it.toCamelCase() }
+private val PASCAL_CASE_CACHE = IdentifierCaseCache { it.toPascalCase() }
+
+/**
+ * 带缓存的 [toLowCamelCase]。
+ */
+fun String.toLowCamelCaseCached(): String = LOW_CAMEL_CASE_CACHE.convert(this)
+
+/**
+ * 带缓存的 [toBigCamelCase]。
+ */
+fun String.toBigCamelCaseCached(): String = BIG_CAMEL_CASE_CACHE.convert(this)
+
+/**
+ * 带缓存的 [toUnderlineLowerCase]。
+ */
+fun String.toUnderlineLowerCaseCached(): String = UNDERLINE_LOWER_CASE_CACHE.convert(this)
+
+/**
+ * 带缓存的 [toCamelCase]（不带前缀、后缀）。
+ */
+fun String.toCamelCaseCached(): String = CAMEL_CASE_CACHE.convert(this)
+
+/**
+ * 带缓存的 [toPascalCase]（不带前缀、后缀）。
+ */
+fun String.toPascalCaseCached(): String = PASCAL_CASE_CACHE.convert(this)
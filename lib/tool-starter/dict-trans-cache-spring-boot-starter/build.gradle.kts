@@ -0,0 +1,15 @@
+plugins {
+  id("site.addzero.buildlogic.spring.spring-starter")
+}
+val libs = versionCatalogs.named("libs")
+
+dependencies {
+  // 被装饰的 TransApi（运行时切面版）；APT 版 TransApi 通过其 api 依赖 dict-trans-core 传递进来
+  api(project(":lib:tool-starter:dict-trans-spring-boot-starter"))
+  implementation(libs.findLibrary("com-github-ben-manes-caffeine-caffeine").get())
+  implementation(libs.findLibrary("com-alibaba-fastjson2-fastjson2-kotlin").get())
+
+  // 可选：Redis 二级缓存、Micrometer 命中率指标
+  compileOnly(libs.findLibrary("org-springframework-data-spring-data-redis").get())
+  compileOnly(libs.findLibrary("io-micrometer-micrometer-core").get())
+}
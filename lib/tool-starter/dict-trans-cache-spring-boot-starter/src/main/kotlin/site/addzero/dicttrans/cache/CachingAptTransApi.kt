@@ -0,0 +1,63 @@
+package site.addzero.dicttrans.cache
+
+import site.addzero.apt.dict.trans.inter.TransApi
+import site.addzero.apt.dict.trans.model.out.SystemDictModelResult
+import site.addzero.apt.dict.trans.model.out.TableDictModelResult
+
+/**
+ * 带缓存的 [TransApi] 装饰器（编译期生成代码版）
+ *
+ * code2name 走缓存；name2code 调用量小且名称可能重复，直接透传
+ *
+ * @author zjarlin
+ */
+class CachingAptTransApi(
+    private val delegate: TransApi,
+    private val labelCache: DictLookupCache<DictValueKey, String>,
+    private val nameCache: DictLookupCache<TableValueKey, String>,
+) : TransApi by delegate {
+
+    override fun translateDictBatchCode2name(dictCodes: String, keys: String?): List<SystemDictModelResult> {
+        val codes = splitCsv(dictCodes)
+        val values = splitCsv(keys)
+        if (codes.isEmpty() || values.isEmpty()) {
+            return delegate.translateDictBatchCode2name(dictCodes, keys)
+        }
+        val cacheKeys = codes.flatMap { code -> values.map { DictValueKey(code, it) } }
+        val labels = labelCache.getAll(cacheKeys) { missing ->
+            val missingCodes = missing.mapTo(LinkedHashSet()) { it.dictCode }.joinToString(",")
+            val missingValues = missing.mapTo(LinkedHashSet()) { it.value }.joinToString(",")
+            val result = HashMap<DictValueKey, String>()
+            delegate.translateDictBatchCode2name(missingCodes, missingValues).forEach { model ->
+                val value = model.value ?: return@forEach
+                val label = model.label ?: return@forEach
+                result[DictValueKey(model.dictCode, value)] = label
+            }
+            result
+        }
+        return cacheKeys.mapNotNull { key ->
+            labels[key]?.let { SystemDictModelResult(key.dictCode, key.value, it) }
+        }
+    }
+
+    override fun translateTableBatchCode2name(table: String, text: String, code: String, keys: String): List<TableDictModelResult> {
+        val values = splitCsv(keys)
+        if (values.isEmpty()) {
+            return delegate.translateTableBatchCode2name(table, text, code, keys)
+        }
+        val cacheKeys = values.map { TableValueKey(table, code, text, it) }
+        val names = nameCache.getAll(cacheKeys) { missing ->
+            val result = HashMap<TableValueKey, String>()
+            delegate.translateTableBatchCode2name(table, text, code, missing.joinToString(",") { it.key })
+                .forEach { row ->
+                    val codeValue = row.codeColumnValue ?: return@forEach
+                    val nameValue = row.nameColumnValue ?: return@forEach
+                    result[TableValueKey(table, code, text, codeValue)] = nameValue
+                }
+            result
+        }
+        return cacheKeys.mapNotNull { key ->
+            names[key]?.let { TableDictModelResult(table, key.key, it) }
+        }
+    }
+}
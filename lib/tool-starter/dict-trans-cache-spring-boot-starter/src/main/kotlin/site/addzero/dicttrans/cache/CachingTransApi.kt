@@ -0,0 +1,62 @@
+package site.addzero.dicttrans.cache
+
+import com.alibaba.fastjson2.JSON
+import com.alibaba.fastjson2.TypeReference
+import site.addzero.aop.dicttrans.dictaop.entity.DictModel
+import site.addzero.aop.dicttrans.inter.TransApi
+
+/**
+ * 带缓存的 [TransApi] 装饰器（运行时切面版）
+ *
+ * 按 (dictCode, value) 和 (table, codeColumn, nameColumn, key) 缓存，未命中部分合并成一次批量查询
+ *
+ * @author zjarlin
+ */
+class CachingTransApi(
+    private val delegate: TransApi,
+    private val labelCache: DictLookupCache<DictValueKey, String>,
+    private val rowCache: DictLookupCache<TableValueKey, Map<String, Any?>>,
+) : TransApi {
+
+    override fun translateDictBatchCode2name(dictCodes: String, keys: String?): List<DictModel> {
+        val codes = splitCsv(dictCodes)
+        val values = splitCsv(keys)
+        if (codes.isEmpty() || values.isEmpty()) {
+            return delegate.translateDictBatchCode2name(dictCodes, keys)
+        }
+        val cacheKeys = codes.flatMap { code -> values.map { DictValueKey(code, it) } }
+        val labels = labelCache.getAll(cacheKeys) { missing ->
+            val missingCodes = missing.mapTo(LinkedHashSet()) { it.dictCode }.joinToString(",")
+            val missingValues = missing.mapTo(LinkedHashSet()) { it.value }.joinToString(",")
+            delegate.translateDictBatchCode2name(missingCodes, missingValues)
+                .associate { DictValueKey(it.dictCode, it.value) to it.label }
+        }
+        return cacheKeys.mapNotNull { key -> labels[key]?.let { DictModel(key.dictCode, key.value, it) } }
+    }
+
+    override fun translateTableBatchCode2name(table: String, text: String, code: String, keys: String): List<Map<String, Any?>> {
+        val values = splitCsv(keys)
+        if (values.isEmpty()) {
+            return delegate.translateTableBatchCode2name(table, text, code, keys)
+        }
+        val cacheKeys = values.map { TableValueKey(table, code, text, it) }
+        val rows = rowCache.getAll(cacheKeys) { missing ->
+            delegate.translateTableBatchCode2name(table, text, code, missing.joinToString(",") { it.key })
+                .associateBy { TableValueKey(table, code, text, it[code].toString()) }
+        }
+        return cacheKeys.mapNotNull { rows[it] }
+    }
+
+    companion object {
+        /**
+         * 表行在二级缓存中以 JSON 保存
+         */
+        @JvmField
+        val ROW_CODEC: DictValueCodec<Map<String, Any?>> = object : DictValueCodec<Map<String, Any?>> {
+            override fun encode(value: Map<String, Any?>): String = JSON.toJSONString(value)
+
+            override fun decode(text: String): Map<String, Any?> =
+                JSON.parseObject(text, object : TypeReference<LinkedHashMap<String, Any?>>() {})
+        }
+    }
+}
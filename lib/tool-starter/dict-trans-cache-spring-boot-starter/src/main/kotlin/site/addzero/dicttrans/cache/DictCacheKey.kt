@@ -0,0 +1,65 @@
+package site.addzero.dicttrans.cache
+
+/**
+ * 缓存 key，[namespace] 用于按字典编码 / 表名失效
+ */
+sealed interface DictCacheKey {
+    val namespace: String
+
+    /**
+     * 二级缓存中的 key（不含全局前缀）
+     */
+    val l2Key: String
+}
+
+/**
+ * 内置字典：(dictCode, value)
+ */
+data class DictValueKey(
+    val dictCode: String,
+    val value: String,
+) : DictCacheKey {
+    override val namespace: String
+        get() = dictCode
+
+    override val l2Key: String
+        get() = "${l2Prefix(dictCode)}$value"
+
+    companion object {
+        fun l2Prefix(dictCode: String): String = "dict:$dictCode:"
+    }
+}
+
+/**
+ * 任意表：(table, codeColumn, nameColumn, key)
+ */
+data class TableValueKey(
+    val table: String,
+    val codeColumn: String,
+    val nameColumn: String,
+    val key: String,
+) : DictCacheKey {
+    override val namespace: String
+        get() = table
+
+    override val l2Key: String
+        get() = "${l2Prefix(table)}$codeColumn:$nameColumn:$key"
+
+    companion object {
+        fun l2Prefix(table: String): String = "table:$table:"
+    }
+}
+
+/**
+ * 逗号拼接的参数拆成去重后的值
+ */
+internal fun splitCsv(csv: String?): LinkedHashSet<String> {
+    val result = LinkedHashSet<String>()
+    csv?.split(",")?.forEach { part ->
+        val value = part.trim()
+        if (value.isNotEmpty()) {
+            result += value
+        }
+    }
+    return result
+}
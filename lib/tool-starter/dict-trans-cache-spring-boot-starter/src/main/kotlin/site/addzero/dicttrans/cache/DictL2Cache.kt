@@ -0,0 +1,95 @@
+package site.addzero.dicttrans.cache
+
+import org.springframework.data.redis.connection.StringRedisConnection
+import org.springframework.data.redis.core.RedisCallback
+import org.springframework.data.redis.core.ScanOptions
+import org.springframework.data.redis.core.StringRedisTemplate
+import java.time.Duration
+
+/**
+ * 二级缓存，值统一编码为字符串
+ */
+interface DictL2Cache {
+
+    /**
+     * 批量读取，返回值与 [keys] 一一对应，不存在时为 null
+     */
+    fun getAll(keys: List<String>): List<String?>
+
+    fun putAll(entries: Map<String, String>, ttl: Duration)
+
+    /**
+     * 删除指定前缀下的全部 key
+     */
+    fun evictByPrefix(prefix: String)
+}
+
+/**
+ * 基于 StringRedisTemplate 的二级缓存：MGET 批量读，pipeline 批量写，SCAN 按前缀删除
+ */
+class RedisDictL2Cache(
+    private val redisTemplate: StringRedisTemplate,
+    keyPrefix: String,
+) : DictL2Cache {
+    private val keyPrefix = keyPrefix.trimEnd(':') + ":"
+
+    override fun getAll(keys: List<String>): List<String?> {
+        if (keys.isEmpty()) {
+            return emptyList()
+        }
+        return redisTemplate.opsForValue().multiGet(keys.map { keyPrefix + it }) ?: List(keys.size) { null }
+    }
+
+    override fun putAll(entries: Map<String, String>, ttl: Duration) {
+        if (entries.isEmpty()) {
+            return
+        }
+        val ttlMillis = ttl.toMillis()
+        redisTemplate.executePipelined(RedisCallback<Any?> { connection ->
+            val stringConnection = connection as StringRedisConnection
+            entries.forEach { (key, value) ->
+                stringConnection.pSetEx(keyPrefix + key, ttlMillis, value)
+            }
+            null
+        })
+    }
+
+    override fun evictByPrefix(prefix: String) {
+        val options = ScanOptions.scanOptions().match("$keyPrefix$prefix*").count(SCAN_COUNT.toLong()).build()
+        val batch = ArrayList<String>(SCAN_COUNT)
+        redisTemplate.scan(options).use { cursor ->
+            while (cursor.hasNext()) {
+                batch += cursor.next()
+                if (batch.size >= SCAN_COUNT) {
+                    redisTemplate.delete(batch)
+                    batch.clear()
+                }
+            }
+        }
+        if (batch.isNotEmpty()) {
+            redisTemplate.delete(batch)
+        }
+    }
+
+    private companion object {
+        const val SCAN_COUNT = 500
+    }
+}
+
+/**
+ * 缓存值与二级缓存字符串之间的转换
+ */
+interface DictValueCodec<V : Any> {
+    fun encode(value: V): String
+
+    fun decode(text: String): V
+
+    companion object {
+        @JvmField
+        val STRING: DictValueCodec<String> = object : DictValueCodec<String> {
+            override fun encode(value: String): String = value
+
+            override fun decode(text: String): String = text
+        }
+    }
+}
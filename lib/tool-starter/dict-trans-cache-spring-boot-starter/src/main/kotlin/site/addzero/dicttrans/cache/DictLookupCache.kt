@@ -0,0 +1,227 @@
+package site.addzero.dicttrans.cache
+
+import com.github.benmanes.caffeine.cache.AsyncCache
+import com.github.benmanes.caffeine.cache.Caffeine
+import com.github.benmanes.caffeine.cache.Expiry
+import com.github.benmanes.caffeine.cache.Ticker
+import com.github.benmanes.caffeine.cache.stats.CacheStats
+import java.util.concurrent.CompletableFuture
+import java.util.concurrent.Executor
+import java.util.concurrent.atomic.AtomicLong
+import java.util.concurrent.atomic.LongAdder
+import java.util.concurrent.locks.ReentrantReadWriteLock
+import java.util.function.BiFunction
+import kotlin.concurrent.read
+import kotlin.concurrent.write
+
+/**
+ * 字典翻译的两级缓存
+ *
+ * - 一级：有界 Caffeine，命中值与空值使用不同的过期时间
+ * - 二级：可选的 [DictL2Cache]，一级未命中时先查二级再查数据源
+ * - 并发未命中同一批 key 时，Caffeine 的 in-flight future 保证只有一个调用方真正去查，其余等待同一结果
+ * - 加载期间发生失效时，本次查到的值只返回给等待中的调用方，不写入一级和二级缓存
+ *
+ * @author zjarlin
+ */
+class DictLookupCache<K : DictCacheKey, V : Any>(
+    val name: String,
+    private val properties: DictTransCacheProperties,
+    private val codec: DictValueCodec<V>,
+    private val l2: DictL2Cache? = null,
+    ticker: Ticker = Ticker.systemTicker(),
+) {
+    private val cache: AsyncCache<K, Entry<V>> = Caffeine.newBuilder()
+        .maximumSize(properties.maximumSize)
+        .expireAfter(EntryExpiry<K, V>(properties.ttl.toNanos(), properties.negativeTtl.toNanos()))
+        .ticker(ticker)
+        .recordStats()
+        .buildAsync()
+
+    /**
+     * 每次失效加一，加载前后比较，判断加载期间是否发生过失效
+     */
+    private val generation = AtomicLong()
+
+    /**
+     * 失效持写锁；加载结束时的代次检查与写二级缓存持读锁，保证失效不会夹在两者之间
+     */
+    private val invalidationLock = ReentrantReadWriteLock()
+
+    private val l2Hits = LongAdder()
+    private val l2Misses = LongAdder()
+    private val loads = LongAdder()
+
+    /**
+     * 批量取值，未命中的 key 交给 [loader] 一次查回；[loader] 没返回的 key 视为不存在
+     */
+    fun getAll(keys: Collection<K>, loader: (Set<K>) -> Map<K, V>): Map<K, V> {
+        if (keys.isEmpty()) {
+            return emptyMap()
+        }
+        val entries = cache.getAll(
+            keys,
+            BiFunction<Set<K>, Executor, CompletableFuture<Map<K, Entry<V>>>> { missing, _ ->
+                try {
+                    CompletableFuture.completedFuture(loadMissing(missing, loader))
+                } catch (e: Throwable) {
+                    CompletableFuture.failedFuture(e)
+                }
+            }
+        ).join()
+        val result = HashMap<K, V>(entries.size * 2)
+        entries.forEach { (key, entry) ->
+            entry.value?.let { result[key] = it }
+        }
+        return result
+    }
+
+    /**
+     * 按命名空间（字典编码 / 表名）失效，[l2Prefix] 为对应的二级缓存前缀
+     */
+    fun invalidate(namespace: String, l2Prefix: String) {
+        invalidationLock.write {
+            generation.incrementAndGet()
+            // 异步视图包含正在加载的 future，移除后新的请求会重新加载，而不是等待这次过期的结果
+            cache.asMap().keys.removeIf { it.namespace == namespace }
+            l2?.evictByPrefix("$name:$l2Prefix")
+        }
+    }
+
+    fun invalidateAll() {
+        invalidationLock.write {
+            generation.incrementAndGet()
+            cache.asMap().clear()
+            l2?.evictByPrefix("$name:")
+        }
+    }
+
+    fun stats(): DictCacheStats {
+        val stats: CacheStats = cache.synchronous().stats()
+        return DictCacheStats(
+            hits = stats.hitCount(),
+            misses = stats.missCount(),
+            l2Hits = l2Hits.sum(),
+            l2Misses = l2Misses.sum(),
+            loads = loads.sum(),
+            size = cache.synchronous().estimatedSize(),
+        )
+    }
+
+    private fun loadMissing(missing: Set<K>, loader: (Set<K>) -> Map<K, V>): Map<K, Entry<V>> {
+        val startGeneration = generation.get()
+        val loaded = HashMap<K, Entry<V>>(missing.size * 2)
+        val pending = readL2(missing, loaded)
+        if (pending.isEmpty()) {
+            return uncacheableIfInvalidated(loaded, startGeneration)
+        }
+
+        loads.increment()
+        val values = loader(pending)
+        val toL2 = HashMap<String, String>(pending.size * 2)
+        pending.forEach { key ->
+            val value = values[key]
+            if (value != null) {
+                loaded[key] = Entry(value)
+                toL2[l2KeyOf(key)] = codec.encode(value)
+            } else if (properties.negativeCaching) {
+                loaded[key] = Entry.negative()
+                toL2[l2KeyOf(key)] = NEGATIVE_MARKER
+            }
+        }
+        invalidationLock.read {
+            if (generation.get() != startGeneration) {
+                return uncacheable(loaded)
+            }
+            l2?.let { l2Cache ->
+                val (negative, positive) = toL2.entries.partition { it.value == NEGATIVE_MARKER }
+                l2Cache.putAll(positive.associate { it.key to it.value }, properties.redis.ttl)
+                l2Cache.putAll(negative.associate { it.key to it.value }, properties.negativeTtl)
+            }
+        }
+        return loaded
+    }
+
+    private fun uncacheableIfInvalidated(loaded: Map<K, Entry<V>>, startGeneration: Long): Map<K, Entry<V>> =
+        if (generation.get() == startGeneration) loaded else uncacheable(loaded)
+
+    /**
+     * 加载期间发生过失效：值照常返回给本次等待的调用方，但立即过期，不会被后续请求读到
+     */
+    private fun uncacheable(loaded: Map<K, Entry<V>>): Map<K, Entry<V>> =
+        loaded.mapValues { (_, entry) -> Entry(entry.value, cacheable = false) }
+
+    /**
+     * 先查二级缓存，命中的放进 [loaded]，返回仍需查数据源的 key
+     */
+    private fun readL2(missing: Set<K>, loaded: MutableMap<K, Entry<V>>): Set<K> {
+        val l2Cache = l2 ?: return missing
+        val keys = missing.toList()
+        val texts = l2Cache.getAll(keys.map(::l2KeyOf))
+        val pending = LinkedHashSet<K>()
+        keys.forEachIndexed { index, key ->
+            val text = texts.getOrNull(index)
+            when {
+                text == null -> pending += key
+                text == NEGATIVE_MARKER -> loaded[key] = Entry.negative()
+                else -> loaded[key] = Entry(codec.decode(text))
+            }
+        }
+        l2Hits.add((keys.size - pending.size).toLong())
+        l2Misses.add(pending.size.toLong())
+        return pending
+    }
+
+    /**
+     * 二级缓存 key 带上缓存名，值编码不同的缓存互不干扰
+     */
+    private fun l2KeyOf(key: K): String = "$name:${key.l2Key}"
+
+    /**
+     * value 为 null 表示数据源中不存在（负缓存），[cacheable] 为 false 时写入即过期
+     */
+    private class Entry<V>(val value: V?, val cacheable: Boolean = true) {
+        companion object {
+            private val NEGATIVE = Entry<Any>(null)
+
+            @Suppress("UNCHECKED_CAST")
+            fun <V> negative(): Entry<V> = NEGATIVE as Entry<V>
+        }
+    }
+
+    private class EntryExpiry<K : Any, V>(
+        private val ttlNanos: Long,
+        private val negativeTtlNanos: Long,
+    ) : Expiry<K, Entry<V>> {
+        override fun expireAfterCreate(key: K, value: Entry<V>, currentTime: Long): Long = when {
+            !value.cacheable -> 0L
+            value.value == null -> negativeTtlNanos
+            else -> ttlNanos
+        }
+
+        override fun expireAfterUpdate(key: K, value: Entry<V>, currentTime: Long, currentDuration: Long): Long =
+            expireAfterCreate(key, value, currentTime)
+
+        override fun expireAfterRead(key: K, value: Entry<V>, currentTime: Long, currentDuration: Long): Long =
+            currentDuration
+    }
+
+    private companion object {
+        const val NEGATIVE_MARKER = "\u0000"
+    }
+}
+
+/**
+ * 缓存统计快照
+ */
+data class DictCacheStats(
+    val hits: Long,
+    val misses: Long,
+    val l2Hits: Long,
+    val l2Misses: Long,
+    /**
+     * 实际调用数据源的次数
+     */
+    val loads: Long,
+    val size: Long,
+)
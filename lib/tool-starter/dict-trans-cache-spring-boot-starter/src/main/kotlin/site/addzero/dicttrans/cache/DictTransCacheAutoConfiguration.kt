@@ -0,0 +1,208 @@
+package site.addzero.dicttrans.cache
+
+import io.micrometer.core.instrument.FunctionCounter
+import io.micrometer.core.instrument.Gauge
+import io.micrometer.core.instrument.MeterRegistry
+import io.micrometer.core.instrument.binder.MeterBinder
+import org.aopalliance.intercept.MethodInterceptor
+import org.aopalliance.intercept.MethodInvocation
+import org.springframework.aop.framework.Advised
+import org.springframework.aop.framework.ProxyFactory
+import org.springframework.beans.factory.ObjectProvider
+import org.springframework.beans.factory.config.BeanPostProcessor
+import org.springframework.boot.autoconfigure.AutoConfiguration
+import org.springframework.boot.autoconfigure.condition.ConditionalOnBean
+import org.springframework.boot.autoconfigure.condition.ConditionalOnClass
+import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty
+import org.springframework.boot.context.properties.EnableConfigurationProperties
+import org.springframework.context.annotation.Bean
+import org.springframework.context.annotation.Configuration
+import org.springframework.core.ResolvableType
+import org.springframework.data.redis.core.StringRedisTemplate
+import org.springframework.util.ClassUtils
+import org.springframework.util.ReflectionUtils
+import site.addzero.aop.dicttrans.inter.TransApi
+import java.lang.reflect.InvocationTargetException
+import java.lang.reflect.Method
+import java.lang.reflect.Modifier
+import java.util.concurrent.ConcurrentHashMap
+
+/**
+ * 字典翻译缓存自动配置：给容器中的 TransApi 套上带缓存的代理
+ *
+ * @author zjarlin
+ */
+@AutoConfiguration
+@ConditionalOnProperty(prefix = "site.addzero.dict-trans.cache", name = ["enabled"], matchIfMissing = true)
+@EnableConfigurationProperties(DictTransCacheProperties::class)
+class DictTransCacheAutoConfiguration {
+
+    @Bean
+    @ConditionalOnMissingBean
+    fun dictTransCacheManager(
+        properties: DictTransCacheProperties,
+        l2Cache: ObjectProvider<DictL2Cache>,
+    ): DictTransCacheManager {
+        return DictTransCacheManager(properties, l2Cache.ifAvailable)
+    }
+
+    /**
+     * Redis 二级缓存
+     */
+    @Configuration(proxyBeanMethods = false)
+    @ConditionalOnClass(name = ["org.springframework.data.redis.core.StringRedisTemplate"])
+    @ConditionalOnProperty(prefix = "site.addzero.dict-trans.cache.redis", name = ["enabled"], havingValue = "true")
+    class RedisL2Configuration {
+
+        @Bean
+        @ConditionalOnMissingBean(DictL2Cache::class)
+        @ConditionalOnBean(StringRedisTemplate::class)
+        fun redisDictL2Cache(redisTemplate: StringRedisTemplate, properties: DictTransCacheProperties): DictL2Cache {
+            return RedisDictL2Cache(redisTemplate, properties.redis.keyPrefix)
+        }
+    }
+
+    /**
+     * 命中率指标：dict.trans.cache.gets{cache, level, result}、dict.trans.cache.loads、dict.trans.cache.size
+     */
+    @Configuration(proxyBeanMethods = false)
+    @ConditionalOnClass(name = ["io.micrometer.core.instrument.MeterRegistry"])
+    class MetricsConfiguration {
+
+        @Bean
+        fun dictTransCacheMeterBinder(manager: DictTransCacheManager): MeterBinder {
+            return MeterBinder { registry -> bindCacheMetrics(registry, manager) }
+        }
+
+        private fun bindCacheMetrics(registry: MeterRegistry, manager: DictTransCacheManager) {
+            manager.caches().forEach { cache ->
+                fun counter(level: String, result: String, read: (DictCacheStats) -> Long) {
+                    FunctionCounter.builder("dict.trans.cache.gets", cache) { read(it.stats()).toDouble() }
+                        .tags("cache", cache.name, "level", level, "result", result)
+                        .register(registry)
+                }
+                counter("l1", "hit") { it.hits }
+                counter("l1", "miss") { it.misses }
+                counter("l2", "hit") { it.l2Hits }
+                counter("l2", "miss") { it.l2Misses }
+                FunctionCounter.builder("dict.trans.cache.loads", cache) { it.stats().loads.toDouble() }
+                    .tag("cache", cache.name)
+                    .register(registry)
+                Gauge.builder("dict.trans.cache.size", cache) { it.stats().size.toDouble() }
+                    .tag("cache", cache.name)
+                    .register(registry)
+            }
+        }
+    }
+
+    companion object {
+        /**
+         * BeanPostProcessor 需要静态注册，manager 延迟获取
+         */
+        @Bean
+        @JvmStatic
+        fun dictTransCacheBeanPostProcessor(manager: ObjectProvider<DictTransCacheManager>): BeanPostProcessor {
+            return TransApiCachingPostProcessor(manager)
+        }
+    }
+}
+
+/**
+ * 给 TransApi bean 套一层缓存代理，APT 版 TransApi 不在 classpath 时只处理运行时切面版
+ *
+ * 代理保留原 bean 的全部接口，类不是 final 时按类代理，按具体类型注入仍然可用；
+ * 只有 code2name 两个方法转给缓存装饰器，其余方法直接调用原 bean
+ */
+internal class TransApiCachingPostProcessor(
+    private val managerProvider: ObjectProvider<DictTransCacheManager>,
+) : BeanPostProcessor {
+    private val aptPresent = ClassUtils.isPresent(APT_TRANS_API, javaClass.classLoader)
+
+    override fun postProcessAfterInitialization(bean: Any, beanName: String): Any {
+        if (bean is Advised && bean.advisors.any { it.advice is TransApiCachingInterceptor }) {
+            return bean
+        }
+        val decorators = ArrayList<Any>(2)
+        if (bean is TransApi && bean !is CachingTransApi) {
+            val manager = managerProvider.getObject()
+            decorators += CachingTransApi(bean, manager.dictLabels, manager.tableRows)
+        }
+        if (aptPresent) {
+            AptTransApiWrapper.wrap(bean, managerProvider)?.let { decorators += it }
+        }
+        if (decorators.isEmpty()) {
+            return bean
+        }
+        val factory = ProxyFactory(bean)
+        factory.isProxyTargetClass = !Modifier.isFinal(bean.javaClass.modifiers)
+        factory.addAdvice(TransApiCachingInterceptor(decorators))
+        return factory.getProxy(bean.javaClass.classLoader)
+    }
+
+    private companion object {
+        const val APT_TRANS_API = "site.addzero.apt.dict.trans.inter.TransApi"
+    }
+}
+
+/**
+ * 把 code2name 调用转给对应的缓存装饰器
+ *
+ * 两个 TransApi 的方法签名擦除后相同，同时实现两者时按返回值的元素类型区分
+ */
+internal class TransApiCachingInterceptor(
+    private val decorators: List<Any>,
+) : MethodInterceptor {
+    private val routes = ConcurrentHashMap<Method, Route>()
+
+    override fun invoke(invocation: MethodInvocation): Any? {
+        val route = routes.computeIfAbsent(invocation.method, ::resolve)
+        val decorator = route.decorator ?: return invocation.proceed()
+        try {
+            return route.method!!.invoke(decorator, *invocation.arguments)
+        } catch (e: InvocationTargetException) {
+            throw e.targetException
+        }
+    }
+
+    private fun resolve(method: Method): Route {
+        if (method.name !in CACHED_METHODS) {
+            return Route.NONE
+        }
+        val elementType = elementTypeOf(method)
+        decorators.forEach { decorator ->
+            val candidate = ReflectionUtils.findMethod(decorator.javaClass, method.name, *method.parameterTypes)
+                ?: return@forEach
+            if (decorators.size == 1 || elementTypeOf(candidate) == elementType) {
+                return Route(decorator, candidate)
+            }
+        }
+        return Route.NONE
+    }
+
+    private fun elementTypeOf(method: Method): Class<*>? =
+        ResolvableType.forMethodReturnType(method).getGeneric(0).resolve()
+
+    private class Route(val decorator: Any?, val method: Method?) {
+        companion object {
+            val NONE = Route(null, null)
+        }
+    }
+
+    private companion object {
+        val CACHED_METHODS = setOf("translateDictBatchCode2name", "translateTableBatchCode2name")
+    }
+}
+
+/**
+ * 单独放在一个类里，避免 APT 版 TransApi 缺失时加载失败
+ */
+private object AptTransApiWrapper {
+    fun wrap(bean: Any, managerProvider: ObjectProvider<DictTransCacheManager>): Any? {
+        if (bean !is site.addzero.apt.dict.trans.inter.TransApi || bean is CachingAptTransApi) {
+            return null
+        }
+        val manager = managerProvider.getObject()
+        return CachingAptTransApi(bean, manager.dictLabels, manager.tableNames)
+    }
+}
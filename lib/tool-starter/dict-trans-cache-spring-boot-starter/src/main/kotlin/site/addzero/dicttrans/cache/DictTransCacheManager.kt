@@ -0,0 +1,74 @@
+package site.addzero.dicttrans.cache
+
+import org.springframework.context.ApplicationEvent
+import org.springframework.context.event.EventListener
+
+/**
+ * 字典翻译缓存的持有者与失效入口
+ *
+ * 字典数据变更后调用 [invalidateDict] / [invalidateTable]，或发布 [DictTransCacheEvictEvent]，
+ * 用法与 yudao 的 `DictFrameworkUtils.clearCache()` 相同。一级缓存只在当前节点失效，其余节点靠过期时间收敛
+ *
+ * @author zjarlin
+ */
+class DictTransCacheManager(
+    properties: DictTransCacheProperties,
+    l2: DictL2Cache? = null,
+) {
+    /**
+     * 内置字典 (dictCode, value) -> label，两种 TransApi 共用
+     */
+    val dictLabels = DictLookupCache<DictValueKey, String>("dict", properties, DictValueCodec.STRING, l2)
+
+    /**
+     * 任意表整行，运行时切面版使用
+     */
+    val tableRows = DictLookupCache<TableValueKey, Map<String, Any?>>("table-row", properties, CachingTransApi.ROW_CODEC, l2)
+
+    /**
+     * 任意表名称列，编译期生成代码版使用
+     */
+    val tableNames = DictLookupCache<TableValueKey, String>("table-name", properties, DictValueCodec.STRING, l2)
+
+    fun invalidateDict(vararg dictCodes: String) {
+        dictCodes.forEach { dictLabels.invalidate(it, DictValueKey.l2Prefix(it)) }
+    }
+
+    fun invalidateTable(vararg tables: String) {
+        tables.forEach { table ->
+            val prefix = TableValueKey.l2Prefix(table)
+            tableRows.invalidate(table, prefix)
+            tableNames.invalidate(table, prefix)
+        }
+    }
+
+    fun invalidateAll() {
+        caches().forEach { it.invalidateAll() }
+    }
+
+    fun caches(): List<DictLookupCache<*, *>> = listOf(dictLabels, tableRows, tableNames)
+
+    /**
+     * 各缓存的命中统计，key 为缓存名
+     */
+    fun stats(): Map<String, DictCacheStats> = caches().associate { it.name to it.stats() }
+
+    @EventListener
+    fun onEvict(event: DictTransCacheEvictEvent) {
+        if (event.dictCodes.isEmpty() && event.tables.isEmpty()) {
+            invalidateAll()
+            return
+        }
+        invalidateDict(*event.dictCodes.toTypedArray())
+        invalidateTable(*event.tables.toTypedArray())
+    }
+}
+
+/**
+ * 字典缓存失效事件，两个集合都为空时清空全部缓存
+ */
+class DictTransCacheEvictEvent @JvmOverloads constructor(
+    source: Any,
+    val dictCodes: Set<String> = emptySet(),
+    val tables: Set<String> = emptySet(),
+) : ApplicationEvent(source)
@@ -0,0 +1,46 @@
+package site.addzero.dicttrans.cache
+
+import org.springframework.boot.context.properties.ConfigurationProperties
+import java.time.Duration
+
+/**
+ * 字典翻译缓存配置
+ *
+ * @author zjarlin
+ */
+@ConfigurationProperties(prefix = "site.addzero.dict-trans.cache")
+class DictTransCacheProperties(
+    /**
+     * 是否装饰容器中的 TransApi
+     */
+    var enabled: Boolean = true,
+    /**
+     * 每个一级缓存的最大条目数
+     */
+    var maximumSize: Long = 100_000,
+    /**
+     * 命中值的过期时间
+     */
+    var ttl: Duration = Duration.ofMinutes(30),
+    /**
+     * 是否缓存查不到的 key，避免不存在的值反复打到数据源
+     */
+    var negativeCaching: Boolean = true,
+    /**
+     * 空值的过期时间，通常比 [ttl] 短
+     */
+    var negativeTtl: Duration = Duration.ofMinutes(1),
+    /**
+     * Redis 二级缓存
+     */
+    var redis: Redis = Redis(),
+) {
+    class Redis(
+        /**
+         * 需要 classpath 中存在 spring-data-redis 且容器中有 StringRedisTemplate
+         */
+        var enabled: Boolean = false,
+        var keyPrefix: String = "dict-trans",
+        var ttl: Duration = Duration.ofHours(2),
+    )
+}
@@ -0,0 +1,191 @@
+package site.addzero.dicttrans.cache
+
+import com.github.benmanes.caffeine.cache.Ticker
+import org.junit.jupiter.api.Assertions.assertEquals
+import org.junit.jupiter.api.Assertions.assertTrue
+import org.junit.jupiter.api.DisplayName
+import org.junit.jupiter.api.Test
+import java.time.Duration
+import java.util.concurrent.ConcurrentHashMap
+import java.util.concurrent.CountDownLatch
+import java.util.concurrent.Executors
+import java.util.concurrent.TimeUnit
+import java.util.concurrent.atomic.AtomicInteger
+import java.util.concurrent.atomic.AtomicLong
+
+/**
+ * 测试 DictLookupCache 的合并加载、过期与失效
+ */
+@DisplayName("DictLookupCache 测试")
+class DictLookupCacheTest {
+
+    class FakeTicker : Ticker {
+        private val nanos = AtomicLong()
+
+        override fun read(): Long = nanos.get()
+
+        fun advance(duration: Duration) {
+            nanos.addAndGet(duration.toNanos())
+        }
+    }
+
+    class MemoryL2Cache : DictL2Cache {
+        val values = ConcurrentHashMap<String, String>()
+        val puts = AtomicInteger()
+
+        override fun getAll(keys: List<String>): List<String?> = keys.map { values[it] }
+
+        override fun putAll(entries: Map<String, String>, ttl: Duration) {
+            if (entries.isNotEmpty()) {
+                puts.incrementAndGet()
+                values.putAll(entries)
+            }
+        }
+
+        override fun evictByPrefix(prefix: String) {
+            values.keys.removeIf { it.startsWith(prefix) }
+        }
+    }
+
+    private val ticker = FakeTicker()
+    private val properties = DictTransCacheProperties(ttl = Duration.ofMinutes(10), negativeTtl = Duration.ofMinutes(1))
+
+    private fun cache(l2: DictL2Cache? = null) =
+        DictLookupCache<DictValueKey, String>("dict", properties, DictValueCodec.STRING, l2, ticker)
+
+    private val male = DictValueKey("sex", "1")
+    private val unknown = DictValueKey("sex", "9")
+
+    @Test
+    @DisplayName("并发未命中同一批 key 只加载一次")
+    fun `concurrent misses coalesce`() {
+        val cache = cache()
+        val loads = AtomicInteger()
+        val loading = CountDownLatch(1)
+        val release = CountDownLatch(1)
+        val pool = Executors.newFixedThreadPool(2)
+        try {
+            val first = pool.submit<Map<DictValueKey, String>> {
+                cache.getAll(listOf(male)) {
+                    loads.incrementAndGet()
+                    loading.countDown()
+                    release.await()
+                    mapOf(male to "男")
+                }
+            }
+            assertTrue(loading.await(5, TimeUnit.SECONDS))
+            val waiter = WaiterProbe()
+            val second = pool.submit<Map<DictValueKey, String>> {
+                waiter.set(Thread.currentThread())
+                cache.getAll(listOf(male)) {
+                    loads.incrementAndGet()
+                    mapOf(male to "男")
+                }
+            }
+            waiter.awaitWaiting()
+            release.countDown()
+
+            assertEquals(mapOf(male to "男"), first.get(5, TimeUnit.SECONDS))
+            assertEquals(mapOf(male to "男"), second.get(5, TimeUnit.SECONDS))
+            assertEquals(1, loads.get())
+        } finally {
+            pool.shutdownNow()
+        }
+    }
+
+    @Test
+    @DisplayName("命中值与空值按各自的过期时间失效")
+    fun `positive and negative entries expire separately`() {
+        val cache = cache()
+        val requested = mutableListOf<Set<DictValueKey>>()
+        val loader: (Set<DictValueKey>) -> Map<DictValueKey, String> = { missing ->
+            requested += missing
+            if (male in missing) mapOf(male to "男") else emptyMap()
+        }
+
+        assertEquals(mapOf(male to "男"), cache.getAll(listOf(male, unknown), loader))
+        cache.getAll(listOf(male, unknown), loader)
+        assertEquals(1, requested.size)
+
+        ticker.advance(Duration.ofMinutes(2))
+        cache.getAll(listOf(male, unknown), loader)
+        assertEquals(setOf(unknown), requested.last())
+
+        ticker.advance(Duration.ofMinutes(9))
+        cache.getAll(listOf(male, unknown), loader)
+        assertEquals(setOf(male, unknown), requested.last())
+        assertEquals(3, requested.size)
+    }
+
+    @Test
+    @DisplayName("加载期间失效，查到的旧值不进入一级和二级缓存")
+    fun `invalidate during load does not cache stale values`() {
+        val l2 = MemoryL2Cache()
+        val cache = cache(l2)
+        val loading = CountDownLatch(1)
+        val release = CountDownLatch(1)
+        val pool = Executors.newSingleThreadExecutor()
+        try {
+            val stale = pool.submit<Map<DictValueKey, String>> {
+                cache.getAll(listOf(male)) {
+                    loading.countDown()
+                    release.await()
+                    mapOf(male to "旧值")
+                }
+            }
+            assertTrue(loading.await(5, TimeUnit.SECONDS))
+            cache.invalidate("sex", DictValueKey.l2Prefix("sex"))
+            release.countDown()
+
+            // 已经在等待的调用方仍拿到本次查询结果
+            assertEquals(mapOf(male to "旧值"), stale.get(5, TimeUnit.SECONDS))
+        } finally {
+            pool.shutdownNow()
+        }
+
+        assertEquals(0, l2.puts.get())
+        val fresh = cache.getAll(listOf(male)) { mapOf(male to "新值") }
+        assertEquals(mapOf(male to "新值"), fresh)
+        assertEquals(1, l2.puts.get())
+    }
+
+    @Test
+    @DisplayName("一级未命中时先读二级缓存")
+    fun `reads l2 before loader`() {
+        val l2 = MemoryL2Cache()
+        cache(l2).getAll(listOf(male)) { mapOf(male to "男") }
+
+        val loads = AtomicInteger()
+        val result = cache(l2).getAll(listOf(male)) {
+            loads.incrementAndGet()
+            emptyMap()
+        }
+
+        assertEquals(mapOf(male to "男"), result)
+        assertEquals(0, loads.get())
+    }
+
+    /**
+     * 等待线程进入 getAll 并阻塞在同一个 in-flight future 上
+     */
+    private class WaiterProbe {
+        @Volatile
+        private var thread: Thread? = null
+
+        fun set(thread: Thread) {
+            this.thread = thread
+        }
+
+        fun awaitWaiting() {
+            val deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5)
+            while (System.nanoTime() < deadline) {
+                val current = thread
+                if (current != null && current.state == Thread.State.WAITING) {
+                    return
+                }
+                Thread.sleep(5)
+            }
+            throw AssertionError("第二个调用方没有等待正在进行的加载")
+        }
+    }
+}
@@ -0,0 +1,92 @@
+package site.addzero.dicttrans.cache
+
+import org.junit.jupiter.api.Assertions.assertEquals
+import org.junit.jupiter.api.Assertions.assertFalse
+import org.junit.jupiter.api.Assertions.assertSame
+import org.junit.jupiter.api.Assertions.assertTrue
+import org.junit.jupiter.api.DisplayName
+import org.junit.jupiter.api.Test
+import org.springframework.beans.factory.support.StaticListableBeanFactory
+import site.addzero.aop.dicttrans.dictaop.entity.DictModel
+import site.addzero.aop.dicttrans.inter.TransApi
+
+/**
+ * 测试 TransApi 缓存代理
+ */
+@DisplayName("TransApi 缓存代理测试")
+class TransApiCachingPostProcessorTest {
+
+    open class CountingTransApi : TransApi {
+        var dictCalls = 0
+
+        override fun translateDictBatchCode2name(dictCodes: String, keys: String?): List<DictModel> {
+            dictCalls++
+            return listOf(DictModel("sex", "1", "男"))
+        }
+
+        override fun translateTableBatchCode2name(table: String, text: String, code: String, keys: String): List<Map<String, Any?>> =
+            emptyList()
+
+        open fun describe(): String = "counting"
+    }
+
+    class FinalTransApi : TransApi {
+        var dictCalls = 0
+
+        override fun translateDictBatchCode2name(dictCodes: String, keys: String?): List<DictModel> {
+            dictCalls++
+            return listOf(DictModel("sex", "1", "男"))
+        }
+
+        override fun translateTableBatchCode2name(table: String, text: String, code: String, keys: String): List<Map<String, Any?>> =
+            emptyList()
+    }
+
+    private val manager = DictTransCacheManager(DictTransCacheProperties())
+
+    private val postProcessor = TransApiCachingPostProcessor(
+        StaticListableBeanFactory(mapOf("dictTransCacheManager" to manager))
+            .getBeanProvider(DictTransCacheManager::class.java)
+    )
+
+    @Test
+    @DisplayName("按类代理，具体类型注入不受影响，code2name 走缓存")
+    fun `class based proxy keeps concrete type`() {
+        val bean = CountingTransApi()
+
+        val proxy = postProcessor.postProcessAfterInitialization(bean, "transApi")
+
+        assertTrue(proxy is CountingTransApi)
+        val transApi = proxy as CountingTransApi
+        repeat(2) {
+            assertEquals(listOf(DictModel("sex", "1", "男")), transApi.translateDictBatchCode2name("sex", "1"))
+        }
+        assertEquals(1, bean.dictCalls)
+        // 其余方法直接调用原 bean
+        assertEquals("counting", transApi.describe())
+    }
+
+    @Test
+    @DisplayName("final 类退化为接口代理")
+    fun `final class falls back to interface proxy`() {
+        val bean = FinalTransApi()
+
+        val proxy = postProcessor.postProcessAfterInitialization(bean, "transApi")
+
+        assertFalse(proxy is FinalTransApi)
+        val transApi = proxy as TransApi
+        transApi.translateDictBatchCode2name("sex", "1")
+        transApi.translateDictBatchCode2name("sex", "1")
+        assertEquals(1, bean.dictCalls)
+    }
+
+    @Test
+    @DisplayName("已代理的 bean 和非 TransApi bean 原样返回")
+    fun `skips proxied and unrelated beans`() {
+        val proxy = postProcessor.postProcessAfterInitialization(CountingTransApi(), "transApi")
+        val other = Any()
+
+        assertSame(proxy, postProcessor.postProcessAfterInitialization(proxy, "transApi"))
+        assertSame(other, postProcessor.postProcessAfterInitialization(other, "other"))
+    }
+}
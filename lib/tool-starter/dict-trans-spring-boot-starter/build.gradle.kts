@@ -13,6 +13,7 @@ dependencies {
   implementation(libs.findLibrary("site-addzero-tool-str").get())
 
   api(libs.findLibrary("site-addzero-dict-trans-core").get())
+  compileOnly(libs.findLibrary("io-micrometer-micrometer-core").get())
 
   // 添加Spring Boot核心依赖
 //  implementation(libs.org.springframework.boot.spring.boot.autoconfigure)
@@ -1,11 +1,16 @@
 package site.addzero.aop.dicttrans.dictaop
 
+import io.micrometer.core.instrument.MeterRegistry
 import org.aopalliance.intercept.MethodInterceptor
 import org.aopalliance.intercept.MethodInvocation
 import org.springframework.aop.Advisor
 import org.springframework.aop.aspectj.AspectJExpressionPointcut
 import org.springframework.aop.support.DefaultPointcutAdvisor
+import org.springframework.beans.factory.ObjectProvider
 import org.springframework.boot.autoconfigure.AutoConfiguration
+import org.springframework.boot.autoconfigure.condition.ConditionalOnClass
+import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean
+import org.springframework.boot.context.properties.EnableConfigurationProperties
 import org.springframework.context.annotation.*
 import org.springframework.core.annotation.AnnotationUtils
 import site.addzero.aop.dicttrans.anno.Dict
@@ -19,6 +24,7 @@ import site.addzero.rc.ScanControllerProperties
 @Import(ExpressionScanAutoConfiguration::class)
 @EnableAspectJAutoProxy
 @ComponentScan(basePackages = ["site.addzero.aop.dicttrans"])
+@EnableConfigurationProperties(DictTransProperties::class)
 class DictAopConfiguration {
 
     @Bean
@@ -62,4 +68,19 @@ class DictAopConfiguration {
     return DefaultPointcutAdvisor(pointcut, advice)
   }
 
+  /**
+   * classpath 存在 Micrometer 时上报翻译耗时
+   */
+  @Configuration(proxyBeanMethods = false)
+  @ConditionalOnClass(name = ["io.micrometer.core.instrument.MeterRegistry"])
+  class DictTransMetricsConfiguration {
+
+    @Bean
+    @ConditionalOnMissingBean(DictTransMetrics::class)
+    fun dictTransMetrics(registry: ObjectProvider<MeterRegistry>): DictTransMetrics {
+      val meterRegistry = registry.ifAvailable ?: return DictTransMetrics.NOOP
+      return MicrometerDictTransMetrics(meterRegistry)
+    }
+  }
+
 }
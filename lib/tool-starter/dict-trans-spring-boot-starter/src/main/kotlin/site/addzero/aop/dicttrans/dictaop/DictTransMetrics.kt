@@ -0,0 +1,42 @@
+package site.addzero.aop.dicttrans.dictaop
+
+import io.micrometer.core.instrument.MeterRegistry
+import io.micrometer.core.instrument.Timer
+import java.util.concurrent.TimeUnit
+
+/**
+ * 字典翻译耗时上报
+ *
+ * @author zjarlin
+ */
+fun interface DictTransMetrics {
+    /**
+     * @param elements 本次翻译的顶层元素数
+     * @param chunks 切块数
+     * @param lookups 调用 TransApi 的次数
+     * @param elapsedNanos 总耗时
+     */
+    fun record(elements: Int, chunks: Int, lookups: Int, elapsedNanos: Long)
+
+    companion object {
+        @JvmField
+        val NOOP = DictTransMetrics { _, _, _, _ -> }
+    }
+}
+
+/**
+ * 基于 Micrometer 的实现，仅在 classpath 存在 Micrometer 时装配
+ */
+class MicrometerDictTransMetrics(registry: MeterRegistry) : DictTransMetrics {
+    private val timer = Timer.builder("dict.trans.duration")
+        .description("字典翻译单次请求耗时")
+        .register(registry)
+    private val elementCounter = registry.counter("dict.trans.elements")
+    private val lookupCounter = registry.counter("dict.trans.lookups")
+
+    override fun record(elements: Int, chunks: Int, lookups: Int, elapsedNanos: Long) {
+        timer.record(elapsedNanos, TimeUnit.NANOSECONDS)
+        elementCounter.increment(elements.toDouble())
+        lookupCounter.increment(lookups.toDouble())
+    }
+}
@@ -0,0 +1,31 @@
+package site.addzero.aop.dicttrans.dictaop
+
+import org.springframework.boot.context.properties.ConfigurationProperties
+
+/**
+ * 字典翻译配置
+ *
+ * @author zjarlin
+ */
+@ConfigurationProperties(prefix = "site.addzero.dict-trans")
+class DictTransProperties(
+    /**
+     * 集合按多少个元素切块翻译，每块对每个字典/表只调用一次 TransApi
+     */
+    var chunkSize: Int = 1000,
+    /**
+     * 并行翻译的线程数，1 表示在调用线程上顺序翻译
+     */
+    var parallelism: Int = 1,
+    /**
+     * 并行翻译时排队等待的分块上限，队列满时由调用线程自行执行
+     */
+    var queueCapacity: Int = 64,
+    /**
+     * 元素类型注册了编译期生成的字典转换器时优先使用，默认关闭，始终使用 ByteBuddy 生成子类
+     *
+     * 开启后该类型的翻译结果是生成的 `*DictDTO` 而不是 VO 子类；
+     * 转换器只按单个编码翻译，块中出现逗号分隔的多值或 SpEL 字段时该类型仍回退到 ByteBuddy
+     */
+    var preferCompiledConvertor: Boolean = false,
+)
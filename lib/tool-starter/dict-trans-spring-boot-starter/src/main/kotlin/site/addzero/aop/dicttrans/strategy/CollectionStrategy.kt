@@ -1,57 +1,231 @@
 package site.addzero.aop.dicttrans.strategy
 
+import org.springframework.beans.factory.DisposableBean
+import org.springframework.beans.factory.ObjectProvider
 import org.springframework.stereotype.Component
+import site.addzero.aop.dicttrans.dictaop.DictTransMetrics
+import site.addzero.aop.dicttrans.dictaop.DictTransProperties
 import site.addzero.aop.dicttrans.inter.TransStrategy
+import site.addzero.aop.dicttrans.util.ObjUtil
+import site.addzero.aop.dicttrans.util_internal.DictAnnoPlan
+import site.addzero.aop.dicttrans.util_internal.DictTransPlan
 import site.addzero.aop.dicttrans.util_internal.TransInternalUtil
+import site.addzero.apt.dict.trans.inter.DictConvertor
+import site.addzero.apt.dict.trans.registry.DictConvertorRegistry
 import site.addzero.tool.bytebuddy.ByteBuddyUtil
 import site.addzero.tool.bytebuddy.ByteBuddyUtil.DynamicFieldDefinition
-import java.util.*
+import java.util.Collections
+import java.util.IdentityHashMap
+import java.util.concurrent.*
+import java.util.concurrent.atomic.AtomicInteger
 
 /**
+ * 集合翻译：大集合按 [DictTransProperties.chunkSize] 切块，每块对每个字典/表只调用一次 TransApi，
+ * 配置了并行度时分块在有界线程池上执行
+ *
+ * 开启 [DictTransProperties.preferCompiledConvertor] 且元素类型注册了编译期生成的 [DictConvertor] 时优先使用转换器，
+ * 省去运行时生成子类和逐字段反射复制；没有转换器或转换器翻译不了的类型仍由 ByteBuddy 生成子类翻译
+ *
  * @author zjarlin
  * @since 2023/11/8 10:31
  */
 @Component
-class CollectionStrategy : TransStrategy<Collection<*>> {
+class CollectionStrategy(
+    private val properties: DictTransProperties,
+    private val metricsProvider: ObjectProvider<DictTransMetrics>,
+) : TransStrategy<Collection<*>>, DisposableBean {
+
+    private val executorLazy = lazy<ThreadPoolExecutor?> {
+        val parallelism = properties.parallelism
+        if (parallelism <= 1) {
+            return@lazy null
+        }
+        val threadIndex = AtomicInteger()
+        ThreadPoolExecutor(
+            parallelism,
+            parallelism,
+            60L,
+            TimeUnit.SECONDS,
+            ArrayBlockingQueue(properties.queueCapacity.coerceAtLeast(1)),
+            { runnable -> Thread(runnable, "dict-trans-${threadIndex.incrementAndGet()}").apply { isDaemon = true } },
+            ThreadPoolExecutor.CallerRunsPolicy(),
+        ).apply { allowCoreThreadTimeOut(true) }
+    }
+
+    private val executor: ThreadPoolExecutor? by executorLazy
+
     override fun trans(t: Collection<*>): Collection<*> {
-        var inVOs = t
-        if (inVOs.isEmpty()) {
-            return inVOs
+        if (t.isEmpty()) {
+            return t
         }
 
-        inVOs = inVOs.filter { e -> Objects.nonNull(e) }
+        val inVOs = t.filterNotNull()
         if (inVOs.isEmpty()) {
             return inVOs
         }
-        val size = inVOs.size
-        if (size > 1000) {
-            println("集合数量为$size,超过1000条跳过字典翻译")
+        val start = System.nanoTime()
+        val stats = TransStats()
+
+        val convertors = findConvertors(inVOs)
+        val result = if (convertors.isEmpty()) {
+            transByByteBuddy(inVOs, stats)
+        } else {
+            transPreferConvertor(inVOs, convertors, stats)
+        }
+
+        metricsProvider.getIfAvailable { DictTransMetrics.NOOP }
+            .record(inVOs.size, stats.chunks, stats.lookups, System.nanoTime() - start)
+        return result
+    }
+
+    /**
+     * 查找元素类型对应的编译期字典转换器（APT 生成的 `*DictConvertor`），没有注册的类型不出现在结果中
+     */
+    private fun findConvertors(inVOs: List<Any>): Map<Class<*>, DictConvertor<Any, Any>> {
+        if (!properties.preferCompiledConvertor || DictConvertorRegistry.size() == 0) {
+            return emptyMap()
+        }
+        val result = HashMap<Class<*>, DictConvertor<Any, Any>>()
+        inVOs.mapTo(HashSet()) { it.javaClass }.forEach { clazz ->
+            @Suppress("UNCHECKED_CAST")
+            val convertor = DictConvertorRegistry.getConvertorByEntityClass(clazz) as DictConvertor<Any, Any>?
+            if (convertor != null) {
+                result[clazz] = convertor
+            }
+        }
+        return result
+    }
+
+    /**
+     * 有转换器的类型直接调用生成代码（整块收集键、每个字典一次批量查询、逐字段赋值），其余类型仍走 ByteBuddy，结果保持原顺序
+     *
+     * 转换器只按单个编码查字典，某个类型的元素（含嵌套对象）出现多值或 SpEL 字段时整个类型回退，同一类型的返回形态保持一致
+     */
+    private fun transPreferConvertor(
+        inVOs: List<Any>,
+        convertors: Map<Class<*>, DictConvertor<Any, Any>>,
+        stats: TransStats,
+    ): List<Any?> {
+        val result = arrayOfNulls<Any>(inVOs.size)
+        val fallbackIndices = ArrayList<Int>()
+        inVOs.indices.groupBy { inVOs[it].javaClass }.forEach { (clazz, indices) ->
+            val convertor = convertors[clazz]
+            if (convertor == null || !convertorSupports(indices.map(inVOs::get))) {
+                fallbackIndices += indices
+                return@forEach
+            }
+            val chunks = indices.map(inVOs::get).chunked(chunkSize())
+            stats.chunks += chunks.size
+            // 生成代码内部调用 TransApi 的次数不可见，按每块一次计
+            stats.lookups += chunks.size
+            runChunks(chunks) { chunk -> convertor.codes2names(chunk) }
+                .flatten()
+                .forEachIndexed { i, dto -> result[indices[i]] = dto }
+        }
+        if (fallbackIndices.isNotEmpty()) {
+            fallbackIndices.sort()
+            transByByteBuddy(fallbackIndices.map(inVOs::get), stats)
+                .forEachIndexed { i, vo -> result[fallbackIndices[i]] = vo }
+        }
+        return result.asList()
+    }
+
+    private fun convertorSupports(items: List<Any>): Boolean {
+        val visited = Collections.newSetFromMap(IdentityHashMap<Any, Boolean>())
+        return items.none { needsByteBuddy(it, visited) }
+    }
+
+    /**
+     * 对象或其嵌套对象上有转换器处理不了的 @Dict 字段
+     */
+    private fun needsByteBuddy(obj: Any, visited: MutableSet<Any>): Boolean {
+        if (!visited.add(obj)) {
+            return false
+        }
+        val plan = DictTransPlan.of(obj.javaClass)
+        val unsupported = plan.dictFields.any { field ->
+            val value = field.accessor.get(obj)
+            value != null && !ObjUtil.isEmpty(value) && field.annotations.any { it.translateType(value) !in SINGLE_CODE_TYPES }
+        }
+        if (unsupported) {
+            return true
         }
+        return plan.childFields.any { child ->
+            val value = child.accessor.get(obj) ?: return@any false
+            val elements = if (child.collection) (value as? Iterable<*>)?.filterNotNull().orEmpty() else listOf(value)
+            elements.any { DictTransPlan.isTraversable(it) && needsByteBuddy(it, visited) }
+        }
+    }
 
+    private fun transByByteBuddy(inVOs: List<Any>, stats: TransStats): List<Any?> {
         // 使用优化的批量处理工具，自动收集所有对象类型的字段需求并集，每个类型只生成一次字节码
-        val collect = ByteBuddyUtil.genChildObjectsBatch(inVOs.toList()) { obj ->
+        val collect = ByteBuddyUtil.genChildObjectsBatch(inVOs) { obj ->
             TransInternalUtil.getNeedAddFields(obj).map { need ->
                 DynamicFieldDefinition(need.fieldName, need.type)
             }
         }
 
-        //翻译过程的全部信息都在这里了 对于单个字典翻译,会按照list中所有dictCode分组TransInfo集合 会调用系统字段批量翻译
-        val collect1 = collect.filter {
-            it != null
-        }.flatMap {
-            val process = TransInternalUtil.process(it!!)
-            process
-        }.groupBy { it.classificationOfTranslation }
+        val chunks = collect.filterNotNull().chunked(chunkSize())
+        stats.chunks += chunks.size
+        stats.lookups += runChunks(chunks, ::translateChunk).sum()
+        return collect
+    }
+
+    private fun chunkSize(): Int = properties.chunkSize.coerceAtLeast(1)
+
+    /**
+     * 按顺序返回每块的结果，配置了并行度且不止一块时在线程池上执行
+     */
+    private fun <R> runChunks(chunks: List<List<Any>>, task: (List<Any>) -> R): List<R> {
+        val currentExecutor = executor
+        if (currentExecutor == null || chunks.size <= 1) {
+            return chunks.map(task)
+        }
+        return chunks.map { chunk -> currentExecutor.submit(Callable { task(chunk) }) }
+            .map { future -> awaitChunk(future) }
+    }
+
+    /**
+     * 翻译过程的全部信息都在这里了 对于单个字典翻译,会按照块中所有dictCode分组TransInfo集合 会调用系统字段批量翻译
+     */
+    private fun translateChunk(chunk: List<Any>): Int {
+        val translateTypeListMap = chunk.flatMap { TransInternalUtil.process(it) }
+            .groupBy { it.classificationOfTranslation }
         /**  处理内置字典翻译 */
-        TransInternalUtil.processBuiltInDictionaryTranslation(collect1)
+        val dictLookups = TransInternalUtil.processBuiltInDictionaryTranslation(translateTypeListMap)
         /** 处理任意表翻译  */
-        TransInternalUtil.processAnyTableTranslation(collect1)
-        /** 处理spel表达式  */
-//        TransUtil.processingSpelExpressions(collect1)
-        return collect
+        val tableLookups = TransInternalUtil.processAnyTableTranslation(translateTypeListMap)
+        return dictLookups + tableLookups
+    }
+
+    private fun <R> awaitChunk(future: Future<R>): R {
+        try {
+            return future.get()
+        } catch (e: ExecutionException) {
+            throw e.cause ?: e
+        }
     }
 
     override fun support(t: Any): Boolean {
         return Collection::class.java.isAssignableFrom(t.javaClass)
     }
+
+    override fun destroy() {
+        // 没有用过线程池时不要为了关闭而创建它
+        if (executorLazy.isInitialized()) {
+            executor?.shutdown()
+        }
+    }
+
+    private companion object {
+        /**
+         * 转换器能处理的翻译分类：单值内置字典、单值任意表，含义见 [DictAnnoPlan.translateType]
+         */
+        val SINGLE_CODE_TYPES = setOf(1, 3)
+    }
+
+    private class TransStats {
+        var chunks = 0
+        var lookups = 0
+    }
 }
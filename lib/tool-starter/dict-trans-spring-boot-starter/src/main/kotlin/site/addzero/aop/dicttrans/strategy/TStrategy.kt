@@ -11,11 +11,13 @@ import site.addzero.aop.dicttrans.inter.TPredicate
  */
 
 @Component
-class TStrategy(private val tPredicate: TPredicate) : TransStrategy<Any?> {
+class TStrategy(
+    private val tPredicate: TPredicate,
+    private val collectionStrategy: CollectionStrategy,
+) : TransStrategy<Any?> {
 
     public override fun trans(o: Any?): Any? {
         val list = mutableListOf(o)
-        val collectionStrategy = CollectionStrategy()
         val trans = collectionStrategy.trans(list)
         if (trans.isEmpty()) {
             return null
@@ -1,15 +1,11 @@
 package site.addzero.aop.dicttrans.util_internal
 
-import site.addzero.util.ImprovedReflectUtil
-
 /**
  * 字典翻译反射写入工具。
  */
 internal object DictReflectUtil {
-        val field = ImprovedReflectUtil.getFields(target.javaClass)
-            .firstOrNull { it.name == fieldName }
-            ?: return
-        ImprovedReflectUtil.setFieldValue(target, field, value)
+    fun setFieldValue(target: Any, fieldName: String, value: Any?) {
+        DictTransPlan.of(target.javaClass).setFieldValue(target, fieldName, value)
     }
 
 }
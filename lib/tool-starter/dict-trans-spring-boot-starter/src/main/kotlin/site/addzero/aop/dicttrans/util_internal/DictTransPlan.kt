@@ -0,0 +1,237 @@
+package site.addzero.aop.dicttrans.util_internal
+
+import org.springframework.core.annotation.AnnotatedElementUtils
+import site.addzero.aop.dicttrans.anno.Dict
+import site.addzero.aop.dicttrans.dictaop.CommonConstant
+import site.addzero.aop.dicttrans.dictaop.entity.NeedAddInfo
+import site.addzero.aop.dicttrans.util.ObjUtil
+import site.addzero.util.ImprovedReflectUtil
+import site.addzero.util.RefUtil
+import site.addzero.util.str.toCamelCase
+import java.lang.invoke.MethodHandle
+import java.lang.invoke.MethodHandles
+import java.lang.invoke.MethodType
+import java.lang.reflect.Field
+import java.lang.reflect.Modifier
+import java.time.temporal.TemporalAccessor
+import java.util.*
+
+/**
+ * 按类预编译的字典翻译计划。
+ *
+ * 每个 Class 只解析一次：@Dict 字段及其翻译后属性名、需要继续向下遍历的子对象字段，
+ * 以及预绑定的 MethodHandle 读写器。之后每个对象只需一次计划查找加若干次取值。
+ *
+ * @author zjarlin
+ */
+internal class DictTransPlan private constructor(type: Class<*>) {
+
+    /**
+     * 带 @Dict 注解的字段
+     */
+    val dictFields: List<DictFieldPlan>
+
+    /**
+     * 可能包含嵌套业务对象的字段
+     */
+    val childFields: List<ChildFieldPlan>
+
+    private val accessors: Map<String, FieldAccessor>
+
+    init {
+        val accessorMap = LinkedHashMap<String, FieldAccessor>()
+        val dicts = mutableListOf<DictFieldPlan>()
+        val children = mutableListOf<ChildFieldPlan>()
+        ImprovedReflectUtil.getFields(type)
+            .filterNot { Modifier.isStatic(it.modifiers) || it.isSynthetic }
+            .forEach { field ->
+                // 子类字段在前，同名时以子类为准
+                if (accessorMap.containsKey(field.name)) {
+                    return@forEach
+                }
+                val accessor = FieldAccessor(field)
+                accessorMap[field.name] = accessor
+
+                val annotations = AnnotatedElementUtils.getMergedRepeatableAnnotations(field, Dict::class.java)
+                if (annotations.isNotEmpty()) {
+                    dicts += DictFieldPlan(accessor, annotations.map { DictAnnoPlan(field.name, it) })
+                }
+                if (RefUtil.isCollectionField(field)) {
+                    children += ChildFieldPlan(accessor, collection = true)
+                } else if (!isScalarType(field.type)) {
+                    children += ChildFieldPlan(accessor, collection = false)
+                }
+            }
+        accessors = accessorMap
+        dictFields = dicts
+        childFields = children
+    }
+
+    /**
+     * 当前对象需要动态追加的翻译字段（只看当前层，值为空的 @Dict 字段不追加）
+     */
+    fun needAddFields(obj: Any): List<NeedAddInfo> {
+        if (dictFields.isEmpty()) {
+            return emptyList()
+        }
+        val result = LinkedHashMap<String, NeedAddInfo>()
+        dictFields.forEach { dictField ->
+            if (ObjUtil.isEmpty(dictField.accessor.get(obj))) {
+                return@forEach
+            }
+            dictField.annotations.forEach { anno ->
+                result.getOrPut(anno.translatedName) {
+                    NeedAddInfo(
+                        rootObject = obj,
+                        fieldName = anno.translatedName,
+                        recur = null,
+                        isT = null,
+                        isColl = null,
+                        type = anno.translatedType
+                    )
+                }
+            }
+        }
+        return result.values.toList()
+    }
+
+    /**
+     * 按属性名写入字段，字段不存在或类型不匹配时忽略
+     */
+    fun setFieldValue(target: Any, fieldName: String, value: Any?) {
+        accessors[fieldName]?.set(target, value)
+    }
+
+    companion object {
+        private val PLANS = object : ClassValue<DictTransPlan>() {
+            override fun computeValue(type: Class<*>): DictTransPlan = DictTransPlan(type)
+        }
+
+        private val traversableByClass = Collections.synchronizedMap(WeakHashMap<Class<*>, Boolean>())
+
+        fun of(type: Class<*>): DictTransPlan = PLANS.get(type)
+
+        /**
+         * 判断运行时值是否为需要继续遍历的业务对象，结果按值的运行时类型缓存
+         */
+        fun isTraversable(value: Any): Boolean {
+            val type = value.javaClass
+            traversableByClass[type]?.let { return it }
+            return RefUtil.isT(value).also { traversableByClass[type] = it }
+        }
+
+        /**
+         * 声明类型不可能承载业务对象的字段不必遍历
+         */
+        private fun isScalarType(type: Class<*>): Boolean {
+            return type.isPrimitive ||
+                type.isEnum ||
+                type.isArray ||
+                CharSequence::class.java.isAssignableFrom(type) ||
+                Number::class.java.isAssignableFrom(type) ||
+                java.lang.Boolean::class.java == type ||
+                Character::class.java == type ||
+                Date::class.java.isAssignableFrom(type) ||
+                Calendar::class.java.isAssignableFrom(type) ||
+                TemporalAccessor::class.java.isAssignableFrom(type) ||
+                Map::class.java.isAssignableFrom(type) ||
+                Class::class.java == type
+        }
+    }
+}
+
+/**
+ * 单个 @Dict 字段的计划，一个字段可以标注多个 @Dict
+ */
+internal class DictFieldPlan(
+    val accessor: FieldAccessor,
+    val annotations: List<DictAnnoPlan>,
+) {
+    val fieldName: String
+        get() = accessor.name
+}
+
+/**
+ * 单个 @Dict 注解的预解析结果
+ */
+internal class DictAnnoPlan(fieldName: String, val anno: Dict) {
+    /**
+     * 翻译后的属性名：serializationAlias > nameColumn 驼峰 > 字段名 + 后缀
+     */
+    val translatedName: String = run {
+        val other = fieldName + CommonConstant.DICT_TEXT_SUFFIX
+        listOf(anno.serializationAlias, anno.nameColumn.toCamelCase(), other).firstOrNull { it.isNotBlank() } ?: other
+    }
+
+    val translatedType: Class<*> = anno.spelValueType.java
+
+    val dictCode: String = anno.dicCode.ifBlank { anno.value }
+
+    private val useSysDefaultDict: Boolean =
+        dictCode.isNotBlank() && listOf(anno.tab, anno.codeColumn, anno.nameColumn).all { it.isBlank() }
+
+    private val useSpel: Boolean = anno.spelExp.isNotBlank()
+
+    /**
+     * 翻译分类
+     * 0代表内置字典多翻译
+     * 1内置字典单翻译
+     * 2任意表多翻译
+     * 3任意表单翻译
+     * 4spel表达式
+     * -1其他
+     */
+    fun translateType(value: Any): Int {
+        if (useSpel) {
+            return 4
+        }
+        val isMulti = value.toString().contains(",")
+        return when {
+            useSysDefaultDict -> if (isMulti) 0 else 1
+            else -> if (isMulti) 2 else 3
+        }
+    }
+}
+
+/**
+ * 子对象遍历字段
+ */
+internal class ChildFieldPlan(
+    val accessor: FieldAccessor,
+    val collection: Boolean,
+)
+
+/**
+ * 预绑定的字段读写器
+ */
+internal class FieldAccessor(field: Field) {
+    val name: String = field.name
+
+    private val getter: MethodHandle
+    private val setter: MethodHandle?
+
+    init {
+        field.isAccessible = true
+        val lookup = MethodHandles.lookup()
+        getter = lookup.unreflectGetter(field).asType(MethodType.methodType(Any::class.java, Any::class.java))
+        setter = runCatching {
+            lookup.unreflectSetter(field).asType(MethodType.methodType(Void.TYPE, Any::class.java, Any::class.java))
+        }.getOrNull()
+    }
+
+    fun get(target: Any): Any? =
+        try {
+            getter.invoke(target)
+        } catch (e: Throwable) {
+            null
+        }
+
+    fun set(target: Any, value: Any?) {
+        val handle = setter ?: return
+        try {
+            handle.invoke(target, value)
+        } catch (e: RuntimeException) {
+            // 翻译值与字段类型不一致时保持原值
+        }
+    }
+}
@@ -1,19 +1,12 @@
 package site.addzero.aop.dicttrans.util_internal
 
 import site.addzero.aop.dicttrans.anno.Dict
-import site.addzero.aop.dicttrans.dictaop.CommonConstant
 import site.addzero.aop.dicttrans.dictaop.entity.NeedAddInfo
-import site.addzero.aop.dicttrans.dictaop.entity.TabMultiIn
 import site.addzero.aop.dicttrans.dictaop.entity.TransInfo
 import site.addzero.aop.dicttrans.inter.TransApi
 import site.addzero.aop.dicttrans.util.ObjUtil
 import site.addzero.aop.dicttrans.util.SpringUtil
-import org.springframework.core.annotation.AnnotatedElementUtils
-import site.addzero.util.ImprovedReflectUtil
-import site.addzero.util.RefUtil
-import site.addzero.util.str.containsAny
 import site.addzero.util.str.isNotBlank
-import site.addzero.util.str.toCamelCase
 import java.util.*
 
 /**
@@ -30,67 +23,57 @@ internal object TransInternalUtil {
         val queue = LinkedList<Any>()
         queue.add(rootObj)
 
-        // 对象去重，避免循环引用和重复处理
-        val processedObjects = mutableSetOf<Any>()
+        // 按引用去重，避免循环引用和重复处理
+        val processedObjects = Collections.newSetFromMap(IdentityHashMap<Any, Boolean>())
 
         while (queue.isNotEmpty()) {
             val currentObj = queue.poll()
 
-            // 避免重复处理相同对象和null对象
-            if (currentObj == null || !processedObjects.add(currentObj)) {
+            if (!processedObjects.add(currentObj)) {
                 continue
             }
 
-            val aClass: Class<*> = currentObj.javaClass
+            val plan = DictTransPlan.of(currentObj.javaClass)
 
-            // 遍历所有字段
-            for (field in ImprovedReflectUtil.getFields(aClass)) {
-                field.isAccessible = true
-                val fieldValue = ImprovedReflectUtil.getFieldValue(currentObj, field)
-                if (ObjUtil.isEmpty(fieldValue)) {
-                    continue
+            plan.dictFields.forEach { dictField ->
+                val fieldValue = dictField.accessor.get(currentObj)
+                if (fieldValue == null || ObjUtil.isEmpty(fieldValue)) {
+                    return@forEach
                 }
-
-                // 检查字段是否有 Dict 注解
-                val dictAnnotations = AnnotatedElementUtils.getMergedRepeatableAnnotations(field, Dict::class.java)
-                if (dictAnnotations.isNotEmpty()) {
-                    dictAnnotations.forEach { anno ->
-                        val alias = anno.serializationAlias
-                        val nameColumn = anno.nameColumn.toCamelCase()
-                        val other = field.name + CommonConstant.DICT_TEXT_SUFFIX
-                        val resolvedName = firstNonBlank(alias, nameColumn, other) ?: other
-
-                        val transInfo = TransInfo(
+                dictField.annotations.forEach { annoPlan ->
+                    result.add(
+                        TransInfo(
                             superObjectFieldTypeEnum = null,
                             superObjectFieldName = null,
                             superObject = null,
                             fieldEnum = null,
-                            anno = anno,
+                            anno = annoPlan.anno,
                             translationProcess = null,
                             rootObject = currentObj,
                             afterObject = null,
                             afterObjectClass = null,
-                            translatedAttributeNames = resolvedName,
-                            attributeNameBeforeTranslation = field.name,
-                            valueBeforeTranslation = fieldValue ?: "",
+                            translatedAttributeNames = annoPlan.translatedName,
+                            attributeNameBeforeTranslation = dictField.fieldName,
+                            valueBeforeTranslation = fieldValue,
                             translatedValue = null,
-                            translatedType = anno.spelValueType.java,
-                            classificationOfTranslation = null,
+                            translatedType = annoPlan.translatedType,
+                            classificationOfTranslation = annoPlan.translateType(fieldValue),
                             rootObjectHashBsm = null
                         )
-                        result.add(transInfo.copy(classificationOfTranslation = getTranslateType(transInfo)))
-                    }
+                    )
                 }
+            }
 
-                when {
-                    RefUtil.isCollectionField(field) -> {
-                        val collection = fieldValue as? Collection<*>
-                        collection?.filterNotNull()?.forEach(queue::add)
-                    }
-
-                    fieldValue != null && RefUtil.isT(fieldValue) -> {
-                        queue.add(fieldValue)
+            plan.childFields.forEach { childField ->
+                val fieldValue = childField.accessor.get(currentObj) ?: return@forEach
+                if (childField.collection) {
+                    (fieldValue as? Collection<*>)?.forEach { element ->
+                        if (element != null) {
+                            queue.add(element)
+                        }
                     }
+                } else if (DictTransPlan.isTraversable(fieldValue)) {
+                    queue.add(fieldValue)
                 }
             }
         }
@@ -99,246 +82,135 @@ internal object TransInternalUtil {
     }
 
 
-    /**
-     * 0代表内置字典多翻译
-     * 1内置字典单翻译
-     * 2任意表多翻译
-     * 3任意表单翻译
-     * 4spel表达式
-     * -1其他
-     *
-     * @param transInfo 入参
-     * @return int
-     * @author zjarlin
-     * @since 2023/10/19
-     */
-    fun getTranslateType(transInfo: TransInfo<Dict>): Int {
-        val anno = transInfo.anno
-
-        /** 翻译前的值  */
-        val valueBeforeTranslation: Any = transInfo.valueBeforeTranslation
-        val string = valueBeforeTranslation.toString()
-
-        val isMulti = string.containsAny(",")
-        val dictCode = anno.dicCode.ifBlank { anno.value }
-
-        val tab = anno.tab
-        val codeColumn = anno.codeColumn
-        val nameColumn = anno.nameColumn
-        val isUseSysDefaultDict = dictCode.isNotBlank() && areAllBlank(tab, codeColumn, nameColumn)
-        val useSpel = anno.spelExp.isNotBlank()
-
-        //内置字典多翻译    0
-        val one = isMulti && isUseSysDefaultDict && !useSpel
-        //内置字典但翻译    1
-        val one1 = !isMulti && isUseSysDefaultDict && !useSpel
-        //任意表多翻译        2
-        val one2 = isMulti && !isUseSysDefaultDict && !useSpel
-        //任意表但翻译         3
-        val one3 = !isMulti && !isUseSysDefaultDict && !useSpel
-
-        val i = if (one) 0 else if (one1) 1 else if (one2) 2 else if (one3) 3 else if (useSpel) 4 else -1
-        return i
-    }
-
     fun getNeedAddFields(obj: Any): List<NeedAddInfo> {
-        val process = process(obj)
         // 只返回当前对象的字段需求，不包括嵌套对象的字段需求
-        val needAddFields = process.filter { it.rootObject === obj }.map {
-            val needAddInfo = NeedAddInfo(
-                rootObject = it.rootObject,
-                fieldName = it.translatedAttributeNames,
-                recur = null,
-                isT = null,
-                isColl = null,
-                type = it.translatedType
-            )
-            needAddInfo
-        }.distinctBy { it.fieldName }
-        return needAddFields
+        return DictTransPlan.of(obj.javaClass).needAddFields(obj)
     }
 
 
     /**
      * 处理内置字典翻译
+     *
+     * 每个 dictCode 只调用一次 [TransApi.translateDictBatchCode2name]，结果建成 value -> label 哈希索引后回填
+     *
+     * @return 调用 TransApi 的次数
      */
-    fun processBuiltInDictionaryTranslation(translateTypeListMap: Map<Int?, List<TransInfo<Dict>>>) {
-        if (translateTypeListMap.isEmpty()) {
-            return
-        }
-
-        val dictCode = translateTypeListMap.entries
+    fun processBuiltInDictionaryTranslation(translateTypeListMap: Map<Int?, List<TransInfo<Dict>>>): Int {
+        val infosByDictCode = translateTypeListMap.entries
             .filter { it.key == 0 || it.key == 1 }
-            .flatMap { entry -> entry.value.map { it.anno.dicCode.ifBlank { it.anno.value } } }
-            .distinct()
-            .joinToString(",")
-
-        if (dictCode.isBlank()) {
-            return
+            .flatMap { it.value }
+            .groupBy { it.anno.dicCode.ifBlank { it.anno.value } }
+            .filterKeys { it.isNotBlank() }
+        if (infosByDictCode.isEmpty()) {
+            return 0
         }
 
-        val fieldRuntimeStrValue = translateTypeListMap.entries
-            .filter { it.key == 0 || it.key == 1 }
-            .flatMap { it.value.map { info -> info.valueBeforeTranslation.toString() } }
-            .distinct()
-            .joinToString(",")
-
         val transApi = SpringUtil.getBean(TransApi::class.java)
-        val dictMap = transApi.translateDictBatchCode2name(dictCode, fieldRuntimeStrValue)
-            .groupBy { it.dictCode }
-
-        if (dictMap.isEmpty()) {
-            return
+        val labelIndex = HashMap<String, HashMap<String, String>>(infosByDictCode.size * 2)
+        infosByDictCode.forEach { (dictCode, infos) ->
+            val keys = infos.flatMapTo(LinkedHashSet()) { splitValues(it.valueBeforeTranslation.toString()) }
+            if (keys.isEmpty()) {
+                return@forEach
+            }
+            val labels = labelIndex.getOrPut(dictCode) { HashMap(keys.size * 2) }
+            transApi.translateDictBatchCode2name(dictCode, keys.joinToString(","))
+                .forEach { model ->
+                    if (model.dictCode == dictCode) {
+                        labels.putIfAbsent(model.value, model.label)
+                    }
+                }
         }
 
-        translateTypeListMap.forEach { (_, infos) ->
+        infosByDictCode.forEach { (dictCode, infos) ->
+            val labels = labelIndex[dictCode]
+            if (labels.isNullOrEmpty()) {
+                return@forEach
+            }
             infos.forEach { info ->
-                val rootObject = info.rootObject
-                val dicCode = info.anno.dicCode.ifBlank { info.anno.value }
-                val dictModels = dictMap[dicCode].orEmpty()
-                if (dictModels.isEmpty()) {
-                    return@forEach
-                }
-
                 val rawValue = info.valueBeforeTranslation.toString()
-                val values = rawValue.split(",")
-                    .map { it.trim() }
-                    .filter { it.isNotBlank() }
-
+                val values = splitValues(rawValue)
                 if (values.size > 1) {
-                    val translated = values.map { value ->
-                        dictModels.firstOrNull { it.value == value }?.label ?: ""
-                    }.filter { it.isNotBlank() }
+                    val translated = values.mapNotNull { labels[it] }
+                        .filter { it.isNotBlank() }
                         .joinToString(",")
-                    DictReflectUtil.setFieldValue(rootObject, info.translatedAttributeNames, translated)
+                    DictReflectUtil.setFieldValue(info.rootObject, info.translatedAttributeNames, translated)
                 } else {
-                    val match = dictModels.firstOrNull { it.value == rawValue } ?: return@forEach
-                    info.translatedValue = match.label
-                    DictReflectUtil.setFieldValue(rootObject, info.translatedAttributeNames, match.label)
+                    val label = labels[rawValue] ?: return@forEach
+                    info.translatedValue = label
+                    DictReflectUtil.setFieldValue(info.rootObject, info.translatedAttributeNames, label)
                 }
             }
         }
+        return infosByDictCode.size
     }
 
     /**
      * 处理任意表翻译
+     *
+     * 按 (表, code 列) 分组，每组只调用一次 [TransApi.translateTableBatchCode2name]，结果建成 code -> 行 哈希索引后回填
+     *
+     * @return 调用 TransApi 的次数
      */
-    fun processAnyTableTranslation(translateTypeListMap: Map<Int?, List<TransInfo<Dict>>>) {
-        if (translateTypeListMap.isEmpty()) {
-            return
-        }
-        //按tab和code分组
-
-        val pairListMap = translateTypeListMap.entries.filter {
-            val translateType = it.key
-            translateType == 2 || translateType == 3
-        }.flatMap { it.value }.groupBy {
-            val anno2 = it.anno
-
-
-            val tab = anno2.tab
-
-            val attributeNameBeforeTranslation = it.attributeNameBeforeTranslation
-            val codeCol = anno2.codeColumn.ifBlank { attributeNameBeforeTranslation }
-            val rootObject = it.rootObject
-            Pair(
-                tab, codeCol
-            )
-        }
-
-        val entries = pairListMap.map {
-            val key = it.key
-            val tab = key.first
-            //一定有值
-            val codeColumn = key.second
-            val value = it.value
-            val nameColumns = value.map { x ->
-                val anno = x.anno
-                anno.nameColumn
-            }.distinct().joinToString(",")
-
-            val keys = value.map { x -> x.valueBeforeTranslation.toString() }.distinct()
-            val tabMultiIn = TabMultiIn(
-                tab = tab,
-                code = codeColumn,
-                name = nameColumns,
-                keys = keys
-            )
-            Triple(tabMultiIn, codeColumn, value)
-        }
-
-        entries.distinct().forEach { e ->
-            val tabMultiIn = e.first
-            //默认取字段名
-            val codeCol = e.second
-            val right = e.third
-            val tab = tabMultiIn.tab
-            val nameColumn = tabMultiIn.name
+    fun processAnyTableTranslation(translateTypeListMap: Map<Int?, List<TransInfo<Dict>>>): Int {
+        val infosByTable = translateTypeListMap.entries
+            .filter { it.key == 2 || it.key == 3 }
+            .flatMap { it.value }
             //这里做了处理,如果注解上没指定codeCol那就取翻以前的字段名
-            val codeColumn = tabMultiIn.code.ifBlank { codeCol }
-
-
-            val transApi = SpringUtil.getBean(TransApi::class.java)
-
-            val fieldRuntimeStrValue = tabMultiIn.keys
+            .groupBy { it.anno.tab to it.anno.codeColumn.ifBlank { it.attributeNameBeforeTranslation } }
+        if (infosByTable.isEmpty()) {
+            return 0
+        }
 
-            val info = transApi.translateTableBatchCode2name(
+        val transApi = SpringUtil.getBean(TransApi::class.java)
+        var lookups = 0
+        infosByTable.forEach { (key, infos) ->
+            val (tab, codeColumn) = key
+            val nameColumns = infos.map { it.anno.nameColumn }.distinct().joinToString(",")
+            val keys = infos.flatMapTo(LinkedHashSet()) { splitValues(it.valueBeforeTranslation.toString()) }
+            if (keys.isEmpty()) {
+                return@forEach
+            }
+            lookups++
+            val rows = transApi.translateTableBatchCode2name(
                 table = tab,
-                text = nameColumn,
+                text = nameColumns,
                 code = codeColumn,
-                keys = fieldRuntimeStrValue.joinToString(",")
+                keys = keys.joinToString(",")
             )
-
-            if (info.isNullOrEmpty()) {
+            if (rows.isNullOrEmpty()) {
                 return@forEach
             }
-            //                    right.
-            right.forEach { needSetInfo ->
-                val rootObject = needSetInfo.rootObject
-                val afterObject = needSetInfo.afterObject
+            val rowIndex = HashMap<String, Map<String, Any?>>(rows.size * 2)
+            rows.forEach { row -> rowIndex.putIfAbsent(row[codeColumn].toString(), row) }
 
+            infos.forEach { needSetInfo ->
+                val rootObject = needSetInfo.rootObject
                 /** 翻译后的名  */
                 val translatedName = needSetInfo.translatedAttributeNames
-                val anno = needSetInfo.anno
-                val tab1 = anno.tab
-                val codeColumn1 = anno.codeColumn
-                val nameColumn1 = anno.nameColumn
-
+                val nameColumn = needSetInfo.anno.nameColumn
                 /** 翻译前的值  */
                 val valueBeforeTranslation = needSetInfo.valueBeforeTranslation.toString()
-                val multi = valueBeforeTranslation.contains(",")
-                if (multi) {
-                    val split = valueBeforeTranslation.split(",")
-                    val collect1 = split.map { singleValueBeforeTranslation ->
-                        val one = info.firstOrNull { it[codeColumn1].toString() == singleValueBeforeTranslation }
-                        if (one != null) {
-                            val nameValue = one[nameColumn1].toString()
-                            needSetInfo.translatedValue = nameValue
-                            return@map nameValue
-                        }
-                        ""
-                    }.filter { it.isNotBlank() }.joinToString(",")
-                    needSetInfo.translatedValue = collect1
-
-                    //                            needSetInfo.setRootObjectHashBsm(rootObject.getClass().getSimpleName() + needSetInfo.getTranslatedAttributeNames());
-                    if (Objects.nonNull(rootObject)) {
-                        DictReflectUtil.setFieldValue(rootObject, translatedName, collect1)
-                    }
-                    //                            return;
-                }
-                //                        Object 翻译前的值 = string;
-                val one = info.firstOrNull { it[codeColumn1].toString() == valueBeforeTranslation }
-                if (one == null) {
+                if (valueBeforeTranslation.contains(",")) {
+                    val translated = splitValues(valueBeforeTranslation)
+                        .mapNotNull { rowIndex[it]?.get(nameColumn)?.toString() }
+                        .filter { it.isNotBlank() }
+                        .joinToString(",")
+                    needSetInfo.translatedValue = translated
+                    DictReflectUtil.setFieldValue(rootObject, translatedName, translated)
                     return@forEach
                 }
-                val nameValue = one[nameColumn1].toString()
+                val row = rowIndex[valueBeforeTranslation] ?: return@forEach
+                val nameValue = row[nameColumn].toString()
                 needSetInfo.translatedValue = nameValue
-                //                        needSetInfo.setRootObjectHashBsm(rootObject.getClass().getSimpleName() + needSetInfo.getTranslatedAttributeNames());
                 DictReflectUtil.setFieldValue(rootObject, translatedName, nameValue)
             }
         }
+        return lookups
     }
 
+    private fun splitValues(rawValue: String): List<String> =
+        rawValue.split(",").map { it.trim() }.filter { it.isNotBlank() }
+
 //    /**
 //     * 处理spel表达式
 //     */
@@ -365,10 +237,4 @@ internal object TransInternalUtil {
 //                ReflectUtil.setFieldValue(rootObject, translatedAttributeNames, o)
 //            }
 //    }
-
-    private fun firstNonBlank(vararg candidates: String?): String? =
-        candidates.firstOrNull { !it.isNullOrBlank() }
-
-    private fun areAllBlank(vararg values: String?): Boolean =
-        values.all { it.isNullOrBlank() }
 }
@@ -0,0 +1,133 @@
+package site.addzero.aop.dicttrans.strategy
+
+import org.junit.jupiter.api.AfterEach
+import org.junit.jupiter.api.Assertions.assertEquals
+import org.junit.jupiter.api.Assertions.assertTrue
+import org.junit.jupiter.api.BeforeEach
+import org.junit.jupiter.api.DisplayName
+import org.junit.jupiter.api.Test
+import org.springframework.context.support.GenericApplicationContext
+import site.addzero.aop.dicttrans.anno.Dict
+import site.addzero.aop.dicttrans.dictaop.DictTransMetrics
+import site.addzero.aop.dicttrans.dictaop.DictTransProperties
+import site.addzero.aop.dicttrans.dictaop.entity.DictModel
+import site.addzero.aop.dicttrans.inter.TransApi
+import site.addzero.aop.dicttrans.util.SpringUtil
+import site.addzero.apt.dict.trans.inter.DictConvertor
+import site.addzero.apt.dict.trans.registry.DictConvertorRegistry
+import java.util.function.Supplier
+
+/**
+ * 测试 CollectionStrategy 的编译期转换器优先路径
+ */
+@DisplayName("CollectionStrategy 转换器测试")
+class CollectionStrategyTest {
+
+    open class SexVo {
+        @Dict("sex")
+        var sex: String? = null
+    }
+
+    open class PlainVo {
+        var name: String? = null
+    }
+
+    class RecordingConvertor : DictConvertor<SexVo, String> {
+        val calls = mutableListOf<List<String?>>()
+
+        override fun codes2names(entities: List<SexVo>): List<String> {
+            calls += entities.map { it.sex }
+            return entities.map { "dto:${it.sex}" }
+        }
+
+        override fun name2codes(dtos: List<String>): List<SexVo> = emptyList()
+    }
+
+    class RecordingTransApi : TransApi {
+        val dictCalls = mutableListOf<Pair<String, String?>>()
+
+        override fun translateDictBatchCode2name(dictCodes: String, keys: String?): List<DictModel> {
+            dictCalls += dictCodes to keys
+            return listOf(DictModel("sex", "1", "男"), DictModel("sex", "2", "女"))
+        }
+
+        override fun translateTableBatchCode2name(
+            table: String,
+            text: String,
+            code: String,
+            keys: String
+        ): List<Map<String, Any?>> = emptyList()
+    }
+
+    private val convertor = RecordingConvertor()
+    private val transApi = RecordingTransApi()
+    private val context = GenericApplicationContext()
+
+    @BeforeEach
+    fun setUp() {
+        context.registerBean(TransApi::class.java, Supplier<TransApi> { transApi })
+        context.refresh()
+        SpringUtil().setApplicationContext(context)
+        DictConvertorRegistry.register(SexVo::class.java, String::class.java, convertor)
+    }
+
+    @AfterEach
+    fun tearDown() {
+        DictConvertorRegistry.clear()
+        context.close()
+    }
+
+    private fun strategy(preferCompiledConvertor: Boolean, chunkSize: Int = 1000) = CollectionStrategy(
+        DictTransProperties(chunkSize = chunkSize, preferCompiledConvertor = preferCompiledConvertor),
+        context.getBeanProvider(DictTransMetrics::class.java),
+    )
+
+    private fun sexVo(sex: String?) = SexVo().apply { this.sex = sex }
+
+    @Test
+    @DisplayName("默认关闭，注册了转换器也走 ByteBuddy")
+    fun `convertor disabled by default`() {
+        assertEquals(false, DictTransProperties().preferCompiledConvertor)
+
+        val result = strategy(preferCompiledConvertor = false).trans(listOf(sexVo("1")))
+
+        assertTrue(convertor.calls.isEmpty())
+        assertTrue(result.single() is SexVo)
+        assertEquals(listOf("sex" to "1"), transApi.dictCalls)
+    }
+
+    @Test
+    @DisplayName("开启后有转换器的类型走转换器，混合集合保持原顺序")
+    fun `convertor preferred and order kept`() {
+        val plain = PlainVo().apply { name = "plain" }
+
+        val result = strategy(preferCompiledConvertor = true).trans(listOf(sexVo("1"), plain, sexVo("2"))).toList()
+
+        assertEquals(listOf(listOf<String?>("1", "2")), convertor.calls)
+        assertEquals("dto:1", result[0])
+        assertTrue(result[1] is PlainVo)
+        assertEquals("plain", (result[1] as PlainVo).name)
+        assertEquals("dto:2", result[2])
+        assertTrue(transApi.dictCalls.isEmpty())
+    }
+
+    @Test
+    @DisplayName("转换器按块调用")
+    fun `convertor called per chunk`() {
+        val result = strategy(preferCompiledConvertor = true, chunkSize = 2)
+            .trans(listOf(sexVo("1"), sexVo("2"), sexVo("1")))
+
+        assertEquals(listOf(listOf<String?>("1", "2"), listOf<String?>("1")), convertor.calls)
+        assertEquals(listOf("dto:1", "dto:2", "dto:1"), result.toList())
+    }
+
+    @Test
+    @DisplayName("出现逗号分隔的多值时整个类型回退到 ByteBuddy")
+    fun `multi value falls back to byte buddy`() {
+        val result = strategy(preferCompiledConvertor = true).trans(listOf(sexVo("1"), sexVo("1,2"))).toList()
+
+        assertTrue(convertor.calls.isEmpty())
+        assertTrue(result.all { it is SexVo })
+        assertEquals(listOf("sex" to "1,2"), transApi.dictCalls)
+    }
+}